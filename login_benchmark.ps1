@@ -0,0 +1,58 @@
+# Login Throughput Benchmark (PowerShell 7+)
+# Simulates a shift change: many cashiers logging in at once.
+# Usage: pwsh ./login_benchmark.ps1 -Users cashier1,cashier2 -Password secret -Concurrency 50 -Logins 500
+param(
+    [string]$BaseUrl = "http://localhost:8080",
+    [string[]]$Users = @("admin"),
+    [string]$Password = "admin123",
+    [int]$Concurrency = 50,
+    [int]$Logins = 500
+)
+
+Write-Host "=== Login Throughput Benchmark ===" -ForegroundColor Green
+Write-Host "Target: $BaseUrl  Concurrency: $Concurrency  Logins: $Logins" -ForegroundColor Yellow
+
+# Warm-up: JIT, connection pool and hashing pool
+1..5 | ForEach-Object {
+    $body = @{ username = $Users[0]; password = $Password } | ConvertTo-Json
+    try { Invoke-RestMethod -Uri "$BaseUrl/api/auth/login" -Method POST -ContentType "application/json" -Body $body | Out-Null } catch {}
+}
+
+$stopwatch = [System.Diagnostics.Stopwatch]::StartNew()
+$results = 1..$Logins | ForEach-Object -ThrottleLimit $Concurrency -Parallel {
+    $user = ($using:Users)[$_ % ($using:Users).Count]
+    $body = @{ username = $user; password = $using:Password } | ConvertTo-Json
+    $watch = [System.Diagnostics.Stopwatch]::StartNew()
+    $status = 200
+    try {
+        Invoke-WebRequest -Uri "$($using:BaseUrl)/api/auth/login" -Method POST `
+            -ContentType "application/json" -Body $body -SkipHttpErrorCheck | ForEach-Object { $status = $_.StatusCode }
+    }
+    catch {
+        $status = -1
+    }
+    [pscustomobject]@{ Status = $status; Millis = $watch.Elapsed.TotalMilliseconds }
+}
+$stopwatch.Stop()
+
+function Get-Percentile($sorted, $p) {
+    if ($sorted.Count -eq 0) { return 0 }
+    $index = [Math]::Min($sorted.Count - 1, [Math]::Ceiling($p / 100 * $sorted.Count) - 1)
+    return [Math]::Round($sorted[$index], 1)
+}
+
+$ok = @($results | Where-Object { $_.Status -eq 200 })
+$busy = @($results | Where-Object { $_.Status -eq 503 })
+$failed = $results.Count - $ok.Count - $busy.Count
+$latencies = @($ok | ForEach-Object { $_.Millis } | Sort-Object)
+$seconds = $stopwatch.Elapsed.TotalSeconds
+
+Write-Host "`nResults:" -ForegroundColor Cyan
+Write-Host "   Successful logins:     $($ok.Count)" -ForegroundColor White
+Write-Host "   Rejected as busy (503): $($busy.Count)" -ForegroundColor White
+Write-Host "   Other failures:        $failed" -ForegroundColor White
+Write-Host "   Wall time:             $([Math]::Round($seconds, 2)) s" -ForegroundColor White
+Write-Host "   Throughput:            $([Math]::Round($ok.Count / $seconds, 1)) logins/s" -ForegroundColor White
+Write-Host "   Latency p50/p95/p99:   $(Get-Percentile $latencies 50) / $(Get-Percentile $latencies 95) / $(Get-Percentile $latencies 99) ms" -ForegroundColor White
+
+Write-Host "`n=== Benchmark Complete ===" -ForegroundColor Green
@@ -0,0 +1,131 @@
+package com.mycompany.transfersystem.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * Uncompressed header of a transaction segment. Holds the row count and the
+ * min/max of the columns audit search filters on, so segments outside a query
+ * can be skipped without decompressing them.
+ */
+public class SegmentHeader {
+
+    static final int MAGIC = 0x54585347; // "TXSG"
+    static final short VERSION = 1;
+
+    private int rowCount;
+    private long minId;
+    private long maxId;
+    private long minCreatedAt;   // epoch micros, UTC
+    private long maxCreatedAt;
+    private long minAmount;      // unscaled, scale 2
+    private long maxAmount;
+    private long minSenderBranchId;
+    private long maxSenderBranchId;
+    private long minReceiverBranchId;
+    private long maxReceiverBranchId;
+    private long bodyChecksum;
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(rowCount);
+        out.writeLong(minId);
+        out.writeLong(maxId);
+        out.writeLong(minCreatedAt);
+        out.writeLong(maxCreatedAt);
+        out.writeLong(minAmount);
+        out.writeLong(maxAmount);
+        out.writeLong(minSenderBranchId);
+        out.writeLong(maxSenderBranchId);
+        out.writeLong(minReceiverBranchId);
+        out.writeLong(maxReceiverBranchId);
+        out.writeLong(bodyChecksum);
+    }
+
+    static SegmentHeader read(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a transaction segment");
+        }
+        short version = in.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported segment version: " + version);
+        }
+        SegmentHeader header = new SegmentHeader();
+        header.rowCount = in.readInt();
+        header.minId = in.readLong();
+        header.maxId = in.readLong();
+        header.minCreatedAt = in.readLong();
+        header.maxCreatedAt = in.readLong();
+        header.minAmount = in.readLong();
+        header.maxAmount = in.readLong();
+        header.minSenderBranchId = in.readLong();
+        header.maxSenderBranchId = in.readLong();
+        header.minReceiverBranchId = in.readLong();
+        header.maxReceiverBranchId = in.readLong();
+        header.bodyChecksum = in.readLong();
+        return header;
+    }
+
+    /**
+     * @return false only when no row in the segment can fall inside the range
+     */
+    public boolean overlapsCreatedAt(LocalDateTime from, LocalDateTime to) {
+        if (from != null && maxCreatedAt < ColumnCodec.toMicros(from)) {
+            return false;
+        }
+        return to == null || minCreatedAt <= ColumnCodec.toMicros(to);
+    }
+
+    public boolean overlapsAmount(Double min, Double max) {
+        if (min != null && maxAmount < Math.floor(min * 100)) {
+            return false;
+        }
+        return max == null || minAmount <= Math.ceil(max * 100);
+    }
+
+    public boolean mayContainSenderBranch(Long branchId) {
+        return branchId == null || (branchId >= minSenderBranchId && branchId <= maxSenderBranchId);
+    }
+
+    public boolean mayContainReceiverBranch(Long branchId) {
+        return branchId == null || (branchId >= minReceiverBranchId && branchId <= maxReceiverBranchId);
+    }
+
+    public boolean mayContainId(long id) {
+        return id >= minId && id <= maxId;
+    }
+
+    void include(long id, long createdAt, long amount, long senderBranchId, long receiverBranchId) {
+        if (rowCount == 0) {
+            minId = maxId = id;
+            minCreatedAt = maxCreatedAt = createdAt;
+            minAmount = maxAmount = amount;
+            minSenderBranchId = maxSenderBranchId = senderBranchId;
+            minReceiverBranchId = maxReceiverBranchId = receiverBranchId;
+        } else {
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+            minCreatedAt = Math.min(minCreatedAt, createdAt);
+            maxCreatedAt = Math.max(maxCreatedAt, createdAt);
+            minAmount = Math.min(minAmount, amount);
+            maxAmount = Math.max(maxAmount, amount);
+            minSenderBranchId = Math.min(minSenderBranchId, senderBranchId);
+            maxSenderBranchId = Math.max(maxSenderBranchId, senderBranchId);
+            minReceiverBranchId = Math.min(minReceiverBranchId, receiverBranchId);
+            maxReceiverBranchId = Math.max(maxReceiverBranchId, receiverBranchId);
+        }
+        rowCount++;
+    }
+
+    void setBodyChecksum(long bodyChecksum) { this.bodyChecksum = bodyChecksum; }
+    long getBodyChecksum() { return bodyChecksum; }
+
+    public int getRowCount() { return rowCount; }
+    public long getMinId() { return minId; }
+    public long getMaxId() { return maxId; }
+    public LocalDateTime getMinCreatedAt() { return ColumnCodec.fromMicros(minCreatedAt); }
+    public LocalDateTime getMaxCreatedAt() { return ColumnCodec.fromMicros(maxCreatedAt); }
+}
@@ -0,0 +1,258 @@
+package com.mycompany.transfersystem.archive;
+
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Immutable, column-oriented segment of archived transactions.
+ *
+ * Layout: a fixed {@link SegmentHeader} followed by a GZIP body in which each
+ * column is stored contiguously (delta-encoded ids and timestamps, dictionary
+ * encoded strings, fixed-scale decimals). Associations are kept as ids only;
+ * rows read back carry stub User/Fund/Branch objects with just the id set.
+ * The release passcode is not archived.
+ */
+public final class TransactionSegmentFile {
+
+    private TransactionSegmentFile() {
+    }
+
+    /**
+     * Write rows (sorted by id) to a new segment. The file is written under a
+     * temporary name, synced and then moved into place so a segment is either
+     * complete or absent.
+     */
+    public static SegmentHeader write(Path target, List<Transaction> rows) throws IOException {
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Cannot write an empty segment");
+        }
+
+        SegmentHeader header = new SegmentHeader();
+        for (Transaction t : rows) {
+            header.include(t.getId(), ColumnCodec.toMicros(t.getCreatedAt()),
+                    ColumnCodec.unscaled(t.getAmount(), 2),
+                    idOrZero(t.getSenderBranch()), idOrZero(t.getReceiverBranch()));
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (DataOutputStream body = new DataOutputStream(new GZIPOutputStream(compressed))) {
+            writeBody(body, rows);
+        }
+        byte[] bodyBytes = compressed.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+        header.setBodyChecksum(crc.getValue());
+
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            DataOutputStream data = new DataOutputStream(out);
+            header.write(data);
+            data.write(bodyBytes);
+            data.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return header;
+    }
+
+    public static SegmentHeader readHeader(Path segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segment))) {
+            return SegmentHeader.read(in);
+        }
+    }
+
+    /**
+     * Decompress and decode every row of the segment
+     */
+    public static List<Transaction> readRows(Path segment) throws IOException {
+        byte[] bodyBytes;
+        SegmentHeader header;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segment))) {
+            header = SegmentHeader.read(in);
+            bodyBytes = in.readAllBytes();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bodyBytes);
+        if (crc.getValue() != header.getBodyChecksum()) {
+            throw new IOException("Checksum mismatch in segment " + segment);
+        }
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bodyBytes));
+             DataInputStream body = new DataInputStream(gzip)) {
+            return readBody(body, header.getRowCount());
+        }
+    }
+
+    private static void writeBody(DataOutputStream out, List<Transaction> rows) throws IOException {
+        long previousId = 0;
+        for (Transaction t : rows) {
+            ColumnCodec.writeVarLong(out, t.getId() - previousId);
+            previousId = t.getId();
+        }
+        long previousCreated = 0;
+        for (Transaction t : rows) {
+            long created = ColumnCodec.toMicros(t.getCreatedAt());
+            ColumnCodec.writeVarLong(out, created - previousCreated);
+            previousCreated = created;
+        }
+        for (Transaction t : rows) ColumnCodec.writeVarLong(out, idOrZero(t.getSender()));
+        for (Transaction t : rows) ColumnCodec.writeVarLong(out, idOrZero(t.getReceiver()));
+        for (Transaction t : rows) ColumnCodec.writeVarLong(out, idOrZero(t.getFund()));
+        for (Transaction t : rows) ColumnCodec.writeVarLong(out, idOrZero(t.getSenderBranch()));
+        for (Transaction t : rows) ColumnCodec.writeVarLong(out, idOrZero(t.getReceiverBranch()));
+
+        writeDictionary(out, rows, t -> t.getStatus() != null ? t.getStatus().name() : null);
+        writeDictionary(out, rows, Transaction::getSourceCurrency);
+        writeDictionary(out, rows, Transaction::getDestinationCurrency);
+
+        writeDecimal(out, rows, Transaction::getAmount, 2);
+        writeDecimal(out, rows, Transaction::getExchangeRate, 8);
+        writeDecimal(out, rows, Transaction::getUsdEquivalent, 4);
+        writeDecimal(out, rows, Transaction::getPlatformBaseFee, 2);
+        writeDecimal(out, rows, Transaction::getPlatformExchangeProfit, 2);
+        writeDecimal(out, rows, Transaction::getSendingBranchFee, 2);
+        writeDecimal(out, rows, Transaction::getReceivingBranchFee, 2);
+        writeDecimal(out, rows, Transaction::getTotalFee, 2);
+    }
+
+    private static List<Transaction> readBody(DataInputStream in, int rowCount) throws IOException {
+        List<Transaction> rows = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(new Transaction());
+        }
+
+        long id = 0;
+        for (Transaction t : rows) {
+            id += ColumnCodec.readVarLong(in);
+            t.setId(id);
+        }
+        long created = 0;
+        for (Transaction t : rows) {
+            created += ColumnCodec.readVarLong(in);
+            t.setCreatedAt(ColumnCodec.fromMicros(created));
+        }
+        for (Transaction t : rows) t.setSender(userRef(ColumnCodec.readVarLong(in)));
+        for (Transaction t : rows) t.setReceiver(userRef(ColumnCodec.readVarLong(in)));
+        for (Transaction t : rows) t.setFund(fundRef(ColumnCodec.readVarLong(in)));
+        for (Transaction t : rows) t.setSenderBranch(branchRef(ColumnCodec.readVarLong(in)));
+        for (Transaction t : rows) t.setReceiverBranch(branchRef(ColumnCodec.readVarLong(in)));
+
+        readDictionary(in, rows, (t, v) -> t.setStatus(v != null ? TransactionStatus.valueOf(v) : null));
+        readDictionary(in, rows, Transaction::setSourceCurrency);
+        readDictionary(in, rows, Transaction::setDestinationCurrency);
+
+        readDecimal(in, rows, Transaction::setAmount, 2);
+        readDecimal(in, rows, Transaction::setExchangeRate, 8);
+        readDecimal(in, rows, Transaction::setUsdEquivalent, 4);
+        readDecimal(in, rows, Transaction::setPlatformBaseFee, 2);
+        readDecimal(in, rows, Transaction::setPlatformExchangeProfit, 2);
+        readDecimal(in, rows, Transaction::setSendingBranchFee, 2);
+        readDecimal(in, rows, Transaction::setReceivingBranchFee, 2);
+        readDecimal(in, rows, Transaction::setTotalFee, 2);
+        return rows;
+    }
+
+    // Dictionary column: distinct values once, then one code per row (0 = null)
+    private static void writeDictionary(DataOutputStream out, List<Transaction> rows,
+                                        Function<Transaction, String> column) throws IOException {
+        Map<String, Integer> codes = new LinkedHashMap<>();
+        for (Transaction t : rows) {
+            String value = column.apply(t);
+            if (value != null) {
+                codes.putIfAbsent(value, codes.size() + 1);
+            }
+        }
+        ColumnCodec.writeVarLong(out, codes.size());
+        for (String value : codes.keySet()) {
+            out.writeUTF(value);
+        }
+        for (Transaction t : rows) {
+            String value = column.apply(t);
+            ColumnCodec.writeVarLong(out, value == null ? 0 : codes.get(value));
+        }
+    }
+
+    private static void readDictionary(DataInputStream in, List<Transaction> rows,
+                                       BiConsumer<Transaction, String> setter) throws IOException {
+        int size = (int) ColumnCodec.readVarLong(in);
+        String[] values = new String[size + 1];
+        for (int i = 1; i <= size; i++) {
+            values[i] = in.readUTF();
+        }
+        for (Transaction t : rows) {
+            setter.accept(t, values[(int) ColumnCodec.readVarLong(in)]);
+        }
+    }
+
+    // Decimal column: a presence byte per row followed by the unscaled value
+    private static void writeDecimal(DataOutputStream out, List<Transaction> rows,
+                                     Function<Transaction, BigDecimal> column, int scale) throws IOException {
+        for (Transaction t : rows) {
+            BigDecimal value = column.apply(t);
+            out.writeBoolean(value != null);
+            if (value != null) {
+                ColumnCodec.writeVarLong(out, ColumnCodec.unscaled(value, scale));
+            }
+        }
+    }
+
+    private static void readDecimal(DataInputStream in, List<Transaction> rows,
+                                    BiConsumer<Transaction, BigDecimal> setter, int scale) throws IOException {
+        for (Transaction t : rows) {
+            setter.accept(t, in.readBoolean() ? ColumnCodec.scaled(ColumnCodec.readVarLong(in), scale) : null);
+        }
+    }
+
+    private static long idOrZero(User user) { return user != null && user.getId() != null ? user.getId() : 0; }
+    private static long idOrZero(Fund fund) { return fund != null && fund.getId() != null ? fund.getId() : 0; }
+    private static long idOrZero(Branch branch) { return branch != null && branch.getId() != null ? branch.getId() : 0; }
+
+    private static User userRef(long id) {
+        if (id == 0) return null;
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static Fund fundRef(long id) {
+        if (id == 0) return null;
+        Fund fund = new Fund();
+        fund.setId(id);
+        return fund;
+    }
+
+    private static Branch branchRef(long id) {
+        if (id == 0) return null;
+        Branch branch = new Branch();
+        branch.setId(id);
+        return branch;
+    }
+}
@@ -0,0 +1,28 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Principal of a request authenticated by an access token, built from the
+ * token's claims alone. {@link #getName()} is the username, so code that
+ * reads {@code authentication.getName()} keeps working. The session id is
+ * the refresh token family the token was issued to, if any.
+ */
+public record AuthenticatedUser(Long id, String username, UserRole role, Long branchId, int tokenVersion,
+                                String sessionId)
+        implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return role != null ? List.of(new SimpleGrantedAuthority("ROLE_" + role.name())) : List.of();
+    }
+}
@@ -0,0 +1,75 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.exception.ResourceNotFoundException;
+import com.mycompany.transfersystem.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+
+/**
+ * The user behind the current request. Requests authenticated by an access
+ * token already carry id, role and branch id in their principal, so no
+ * lookup is needed. Any other authentication (form login, test users) is
+ * resolved by username once and remembered for the rest of the request.
+ */
+@Component
+public class CurrentUserProvider {
+
+    private static final String REQUEST_ATTRIBUTE = CurrentUserProvider.class.getName() + ".user";
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CurrentUserProvider(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @return the authenticated user, or empty for anonymous requests and unknown usernames
+     */
+    public Optional<AuthenticatedUser> current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        if (authentication.getPrincipal() instanceof AuthenticatedUser principal) {
+            return Optional.of(principal);
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                instanceof AuthenticatedUser resolved && resolved.username().equals(authentication.getName())) {
+            return Optional.of(resolved);
+        }
+        Optional<AuthenticatedUser> resolved = userRepository.findByUsername(authentication.getName())
+                .map(CurrentUserProvider::toPrincipal);
+        if (request != null) {
+            resolved.ifPresent(user -> request.setAttribute(REQUEST_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST));
+        }
+        return resolved;
+    }
+
+    /**
+     * @throws ResourceNotFoundException if the request is not made by a known user
+     */
+    public AuthenticatedUser require() {
+        return current().orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    }
+
+    public Long requireId() {
+        return require().id();
+    }
+
+    private static AuthenticatedUser toPrincipal(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getRole(),
+                user.getBranch() != null ? user.getBranch().getId() : null, user.getTokenVersion(), null);
+    }
+}
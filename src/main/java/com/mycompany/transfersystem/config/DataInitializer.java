@@ -5,10 +5,13 @@ import com.mycompany.transfersystem.entity.enums.*;
 import com.mycompany.transfersystem.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -19,6 +22,9 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private FundRepository fundRepository;
 
+    @Autowired
+    private FundBalanceRepository fundBalanceRepository;
+
     @Autowired
     private BranchRepository branchRepository;
 
@@ -28,10 +34,20 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private CurrencyRepository currencyRepository;
 
+    @Autowired
+    private PlatformFeeTotalsRepository platformFeeTotalsRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Override
+    @Transactional
     public void run(String... args) throws Exception {
         // Create currencies if they don't exist
         if (currencyRepository.count() == 0) {
@@ -57,6 +73,79 @@ public class DataInitializer implements CommandLineRunner {
         if (fundRepository.count() == 0) {
             createSampleFunds();
         }
+
+        // Create the platform fee counter row if it doesn't exist
+        if (!platformFeeTotalsRepository.existsById(PlatformFeeTotals.PLATFORM_ID)) {
+            platformFeeTotalsRepository.save(new PlatformFeeTotals(PlatformFeeTotals.PLATFORM_ID));
+        }
+
+        // Backfill branch dimensions on transactions written before they were stored
+        backfillTransactionBranches();
+
+        // Derive action codes for audit logs written before they were stored
+        backfillAuditActionCodes();
+
+        // Link branch funds that were only associated by name
+        linkBranchFunds();
+
+        // Open the own-currency balance row of funds created before per-currency balances
+        openFundBalances();
+    }
+
+    private void backfillTransactionBranches() {
+        int senderRows = transactionRepository.backfillSenderBranches();
+        int receiverRows = transactionRepository.backfillReceiverBranches();
+        if (senderRows > 0 || receiverRows > 0) {
+            System.out.println("Backfilled transaction branches: " + senderRows + " sender, " + receiverRows + " receiver");
+        }
+    }
+
+    private void backfillAuditActionCodes() {
+        int rows = 0;
+        List<AuditLog> batch;
+        while (!(batch = auditLogRepository.findByCategoryIsNull(PageRequest.of(0, 500))).isEmpty()) {
+            for (AuditLog auditLog : batch) {
+                auditLog.setActionCode(AuditCategory.normalize(auditLog.getAction()));
+                auditLog.setCategory(AuditCategory.fromAction(auditLog.getAction()));
+            }
+            auditLogRepository.saveAllAndFlush(batch);
+            rows += batch.size();
+        }
+        if (rows > 0) {
+            System.out.println("Backfilled audit log action codes: " + rows);
+        }
+    }
+
+    private void linkBranchFunds() {
+        int rows = 0;
+        for (Branch branch : branchRepository.findAll()) {
+            if (fundRepository.findFirstByBranchIdOrderByIdAsc(branch.getId()).isPresent()) {
+                continue;
+            }
+            String fundName = "MAIN_ADMIN_BRANCH".equals(branch.getName()) ? "Platform Fund" : branch.getName() + " Fund";
+            Fund fund = fundRepository.findByName(fundName).orElse(null);
+            if (fund != null && fund.getBranch() == null) {
+                fund.setBranch(branch);
+                fundRepository.save(fund);
+                rows++;
+            }
+        }
+        if (rows > 0) {
+            System.out.println("Linked branch funds: " + rows);
+        }
+    }
+
+    private void openFundBalances() {
+        int rows = 0;
+        for (Fund fund : fundRepository.findAll()) {
+            if (!fundBalanceRepository.existsByFundIdAndCurrency(fund.getId(), fund.getCurrency())) {
+                fundBalanceRepository.save(new FundBalance(fund.getId(), fund.getCurrency(), fund.getBalance()));
+                rows++;
+            }
+        }
+        if (rows > 0) {
+            System.out.println("Opened fund balance rows: " + rows);
+        }
     }
 
     private void createSampleUsers() {
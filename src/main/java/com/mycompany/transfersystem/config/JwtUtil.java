@@ -1,85 +1,115 @@
 package com.mycompany.transfersystem.config;
 
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
 @Component
 public class JwtUtil {
 
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_BRANCH_ID = "branchId";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_SESSION_ID = "sid";
+
     @Value("${jwt.secret:mySecretKey}")
     private String secret;
 
-    @Value("${jwt.expiration:86400000}") // 24 hours in milliseconds
+    @Value("${jwt.expiration:900000}") // 15 minutes in milliseconds; sessions continue through refresh tokens
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
+    // Both are immutable and thread-safe; building them per token was most of the verification cost
+    private SecretKey signingKey;
+    private JwtParser parser;
 
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    /**
+     * Verify signature and expiry in one pass
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public Claims parse(String token) {
+        return parser.parseSignedClaims(token).getPayload();
     }
 
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Principal described by verified claims; id is null for tokens issued before the claims existed
+     */
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        String role = claims.get(CLAIM_ROLE, String.class);
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        Number branchId = claims.get(CLAIM_BRANCH_ID, Number.class);
+        Number version = claims.get(CLAIM_TOKEN_VERSION, Number.class);
+        return new AuthenticatedUser(
+                userId != null ? userId.longValue() : null,
+                claims.getSubject(),
+                role != null ? UserRole.valueOf(role) : null,
+                branchId != null ? branchId.longValue() : null,
+                version != null ? version.intValue() : 0,
+                claims.get(CLAIM_SESSION_ID, String.class));
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    public String extractUsername(String token) {
+        return parse(token).getSubject();
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Date extractExpiration(String token) {
+        return parse(token).getExpiration();
     }
 
-    public String generateToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+    public String generateToken(User user) {
+        return generateToken(user, null);
     }
 
-    public String generateToken(String username, String role) {
+    /**
+     * @param sessionId refresh token family the token belongs to; revoking the family revokes the token
+     */
+    public String generateToken(User user, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
-        claims.put("role", role);
-        return createToken(claims, username);
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_ROLE, user.getRole().name());
+        if (user.getBranch() != null) {
+            claims.put(CLAIM_BRANCH_ID, user.getBranch().getId());
+        }
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        if (sessionId != null) {
+            claims.put(CLAIM_SESSION_ID, sessionId);
+        }
+        return createToken(claims, user.getUsername());
     }
 
     private String createToken(Map<String, Object> claims, String subject) {
+        long now = System.currentTimeMillis();
         return Jwts.builder()
                 .claims(claims)
                 .subject(subject)
-                .issuedAt(new Date(System.currentTimeMillis()))
-                .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .issuedAt(new Date(now))
+                .expiration(new Date(now + expiration))
+                .signWith(signingKey)
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
-    }
-
     public Boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
+            parse(token);
+            return true;
         } catch (Exception e) {
             return false;
         }
@@ -88,4 +118,4 @@ public class JwtUtil {
     public Long getExpirationTime() {
         return expiration;
     }
-}
\ No newline at end of file
+}
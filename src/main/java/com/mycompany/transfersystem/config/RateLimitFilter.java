@@ -0,0 +1,60 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.config.RateLimitProperties.EndpointClass;
+import com.mycompany.transfersystem.service.RateLimitService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Applies {@link RateLimitService} to authenticated requests, after the JWT
+ * filter has established who is calling. A rejected request is answered
+ * with 429 and Retry-After straight from the filter, without reaching a
+ * controller or touching the database.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private RateLimitService rateLimitService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                  FilterChain chain) throws ServletException, IOException {
+        if (!rateLimitService.isEnabled()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        Optional<AuthenticatedUser> user = currentUserProvider.current();
+        if (user.isEmpty() || user.get().id() == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        EndpointClass endpointClass = EndpointClass.of(request.getRequestURI());
+        long waitNanos = rateLimitService.acquire(user.get(), endpointClass, System.nanoTime());
+        if (waitNanos > 0) {
+            long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"status\":429,\"error\":\"Too Many Requests\",\"message\":\"Rate limit for "
+                    + endpointClass.name() + " requests exceeded; retry after " + retryAfterSeconds + " s\"}");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
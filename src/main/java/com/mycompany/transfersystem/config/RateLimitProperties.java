@@ -0,0 +1,87 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Request rate limits per authenticated user and per branch (app.rate-limit.*),
+ * set separately for each endpoint class. A user's limits come from their
+ * role, falling back to the user defaults; branch limits are shared by all
+ * users of the branch. A rate that is not set is not enforced.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    public enum EndpointClass {
+        TRANSACTIONS("/api/transactions"),
+        EXCHANGE_RATES("/api/exchange-rates"),
+        OTHER(null);
+
+        private final String pathPrefix;
+
+        EndpointClass(String pathPrefix) {
+            this.pathPrefix = pathPrefix;
+        }
+
+        public static EndpointClass of(String path) {
+            for (EndpointClass endpointClass : values()) {
+                if (endpointClass.pathPrefix != null && path.startsWith(endpointClass.pathPrefix)) {
+                    return endpointClass;
+                }
+            }
+            return OTHER;
+        }
+    }
+
+    private boolean enabled = false;
+
+    private UserScope user = new UserScope();
+
+    private Map<EndpointClass, Rate> branch = new EnumMap<>(EndpointClass.class);
+
+    @Getter
+    @Setter
+    public static class UserScope {
+
+        private Map<EndpointClass, Rate> defaults = new EnumMap<>(EndpointClass.class);
+
+        private Map<UserRole, Map<EndpointClass, Rate>> roles = new EnumMap<>(UserRole.class);
+
+        public Rate forRole(UserRole role, EndpointClass endpointClass) {
+            Map<EndpointClass, Rate> roleRates = role != null ? roles.get(role) : null;
+            Rate rate = roleRates != null ? roleRates.get(endpointClass) : null;
+            return rate != null ? rate : defaults.get(endpointClass);
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Rate {
+
+        private Integer requestsPerMinute;
+
+        // Requests allowed back to back; a minute's worth when not set
+        private Integer burst;
+
+        public boolean isLimited() {
+            return requestsPerMinute != null && requestsPerMinute > 0;
+        }
+
+        public long intervalNanos() {
+            return 60_000_000_000L / requestsPerMinute;
+        }
+
+        public long burstOrDefault() {
+            return burst != null && burst > 0 ? burst : requestsPerMinute;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.mycompany.transfersystem.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Polls the replica's replay lag and takes it out of rotation while it is
+ * unreachable or further behind than the configured limit. Read-only
+ * transactions then fall back to the primary until the replica catches up.
+ */
+public class ReplicaLagMonitor implements BooleanSupplier {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+
+    // Out of rotation until the first check has passed
+    private volatile boolean available;
+
+    public ReplicaLagMonitor(DataSource replica, String lagQuery, double maxLagSeconds) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Override
+    public boolean getAsBoolean() {
+        return available;
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replica.lag-check-interval-ms:5000}")
+    public void check() {
+        boolean nowAvailable;
+        try {
+            // NULL means the server is not replaying WAL (e.g. a plain second database)
+            Double lag = replicaJdbcTemplate.queryForObject(lagQuery, Double.class);
+            nowAvailable = lag == null || lag <= maxLagSeconds;
+            if (!nowAvailable && available) {
+                log.warn("Replica lag {}s exceeds {}s, routing reads to primary", lag, maxLagSeconds);
+            }
+        } catch (Exception e) {
+            nowAvailable = false;
+            if (available) {
+                log.warn("Replica unreachable, routing reads to primary: {}", e.getMessage());
+            }
+        }
+        if (nowAvailable && !available) {
+            log.info("Replica in rotation for read-only transactions");
+        }
+        available = nowAvailable;
+    }
+}
@@ -0,0 +1,98 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Velocity limits on transfers (app.limits.*). Amounts are USD; a limit that
+ * is not set is not enforced. Sender and receiver limits come from the
+ * party's role, falling back field by field to the scope defaults; a
+ * corridor entry (e.g. app.limits.corridors[TL-USD]) further caps both
+ * parties' limits for transfers in that corridor.
+ */
+@Component
+@ConfigurationProperties(prefix = "app.limits")
+@Getter
+@Setter
+public class TransferLimitProperties {
+
+    private boolean enabled = false;
+
+    private Scope sender = new Scope();
+
+    private Scope receiver = new Scope();
+
+    // Outgoing transfers of the sending branch; roles do not apply
+    private Scope branch = new Scope();
+
+    private Map<String, Limits> corridors = new HashMap<>();
+
+    @Getter
+    @Setter
+    public static class Scope {
+
+        private Limits defaults = new Limits();
+
+        private Map<UserRole, Limits> roles = new EnumMap<>(UserRole.class);
+
+        public Limits forRole(UserRole role) {
+            Limits roleLimits = role != null ? roles.get(role) : null;
+            return roleLimits != null ? roleLimits.orElse(defaults) : defaults;
+        }
+    }
+
+    @Getter
+    @Setter
+    public static class Limits {
+
+        private Long maxCountPerHour;
+
+        private BigDecimal maxAmountPerHour;
+
+        private Long maxCountPerDay;
+
+        private BigDecimal maxAmountPerDay;
+
+        /**
+         * These limits, with unset fields taken from the fallback
+         */
+        public Limits orElse(Limits fallback) {
+            Limits limits = new Limits();
+            limits.maxCountPerHour = maxCountPerHour != null ? maxCountPerHour : fallback.maxCountPerHour;
+            limits.maxAmountPerHour = maxAmountPerHour != null ? maxAmountPerHour : fallback.maxAmountPerHour;
+            limits.maxCountPerDay = maxCountPerDay != null ? maxCountPerDay : fallback.maxCountPerDay;
+            limits.maxAmountPerDay = maxAmountPerDay != null ? maxAmountPerDay : fallback.maxAmountPerDay;
+            return limits;
+        }
+
+        /**
+         * The stricter of these limits and the cap, field by field
+         */
+        public Limits capBy(Limits cap) {
+            if (cap == null) {
+                return this;
+            }
+            Limits limits = new Limits();
+            limits.maxCountPerHour = min(maxCountPerHour, cap.maxCountPerHour);
+            limits.maxAmountPerHour = min(maxAmountPerHour, cap.maxAmountPerHour);
+            limits.maxCountPerDay = min(maxCountPerDay, cap.maxCountPerDay);
+            limits.maxAmountPerDay = min(maxAmountPerDay, cap.maxAmountPerDay);
+            return limits;
+        }
+
+        private static <T extends Comparable<T>> T min(T a, T b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.compareTo(b) <= 0 ? a : b;
+        }
+    }
+}
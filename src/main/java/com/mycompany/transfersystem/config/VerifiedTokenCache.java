@@ -0,0 +1,156 @@
+package com.mycompany.transfersystem.config;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Principals of recently verified access tokens, keyed by the SHA-256 digest
+ * of the token so raw bearer tokens are not kept in memory. A terminal sends
+ * the same token on every request; a hit skips signature verification and
+ * claims parsing. Entries live for the configured TTL but never past the
+ * token's own expiry, and the map is trimmed back below its size limit when
+ * it grows past it. Only successful verifications are cached.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final JwtUtil jwtUtil;
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${app.auth.token-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.auth.token-cache.max-size:10000}")
+    private int maxSize = 10_000;
+
+    @Value("${app.auth.token-cache.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    @Autowired
+    public VerifiedTokenCache(JwtUtil jwtUtil) {
+        this.jwtUtil = jwtUtil;
+    }
+
+    /**
+     * Principal of a valid token, from the cache or by verifying it
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public AuthenticatedUser verify(String token) {
+        return verify(token, System.currentTimeMillis());
+    }
+
+    AuthenticatedUser verify(String token, long now) {
+        if (!enabled) {
+            return jwtUtil.toPrincipal(jwtUtil.parse(token));
+        }
+        Key key = Key.of(token);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAt > now) {
+                hits.increment();
+                return entry.principal;
+            }
+            entries.remove(key, entry);
+        }
+        misses.increment();
+
+        Claims claims = jwtUtil.parse(token);
+        AuthenticatedUser principal = jwtUtil.toPrincipal(claims);
+        long expiresAt = now + ttlSeconds * 1000;
+        Date tokenExpiry = claims.getExpiration();
+        if (tokenExpiry != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiry.getTime());
+        }
+        if (expiresAt > now) {
+            entries.put(key, new Entry(principal, expiresAt));
+            if (entries.size() > maxSize) {
+                trim(now);
+            }
+        }
+        return principal;
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long requests = hitCount + missCount;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests);
+        return stats;
+    }
+
+    /**
+     * Drop expired entries, then arbitrary ones until a tenth of the limit is free again.
+     * One thread trims at a time; the others carry on and may overshoot briefly.
+     */
+    private void trim(long now) {
+        if (!trimming.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.entrySet().removeIf(e -> {
+                if (e.getValue().expiresAt <= now) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            });
+            int target = maxSize - maxSize / 10;
+            Iterator<Key> keys = entries.keySet().iterator();
+            while (entries.size() > target && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+
+    private record Entry(AuthenticatedUser principal, long expiresAt) {
+    }
+
+    private record Key(long a, long b, long c, long d) {
+
+        static Key of(String token) {
+            ByteBuffer digest = ByteBuffer.wrap(SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8)));
+            return new Key(digest.getLong(), digest.getLong(), digest.getLong(), digest.getLong());
+        }
+    }
+}
@@ -1,18 +1,30 @@
 package com.mycompany.transfersystem.controller;
 
+import com.mycompany.transfersystem.dto.AuditLogPage;
+import com.mycompany.transfersystem.dto.AuditLogResponse;
+import com.mycompany.transfersystem.dto.AuditLogSearchRequest;
+import com.mycompany.transfersystem.dto.AuditVerificationResult;
 import com.mycompany.transfersystem.dto.TransactionSearchRequest;
-import com.mycompany.transfersystem.entity.AuditLog;
+import com.mycompany.transfersystem.entity.AuditCheckpoint;
 import com.mycompany.transfersystem.entity.CommissionRate;
 import com.mycompany.transfersystem.entity.Transaction;
 import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
+import com.mycompany.transfersystem.service.AuditChainService;
+import com.mycompany.transfersystem.service.AuditLogQueryService;
 import com.mycompany.transfersystem.service.AuditService;
+import com.mycompany.transfersystem.service.BranchPositionService;
+import com.mycompany.transfersystem.service.TransferAnalyticsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -21,10 +33,22 @@ import java.util.Map;
 public class AuditController {
 
     private final AuditService auditService;
+    private final AuditLogQueryService auditLogQueryService;
+    private final AuditChainService auditChainService;
+    private final TransferAnalyticsService transferAnalyticsService;
+    private final BranchPositionService branchPositionService;
 
     @Autowired
-    public AuditController(AuditService auditService) {
+    public AuditController(AuditService auditService,
+                           AuditLogQueryService auditLogQueryService,
+                           AuditChainService auditChainService,
+                           TransferAnalyticsService transferAnalyticsService,
+                           BranchPositionService branchPositionService) {
         this.auditService = auditService;
+        this.auditLogQueryService = auditLogQueryService;
+        this.auditChainService = auditChainService;
+        this.transferAnalyticsService = transferAnalyticsService;
+        this.branchPositionService = branchPositionService;
     }
 
     /**
@@ -44,7 +68,26 @@ public class AuditController {
     }
 
     /**
-     * Search transactions with complex filtering
+     * Stream branch position changes as server-sent events ("position" events).
+     * Branch managers must pass a branchId they are authorized for.
+     * GET /api/audit/funds/stream
+     * Access: BRANCH_MANAGER (must match branchId) or SUPER_ADMIN
+     */
+    @GetMapping(value = "/funds/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER')")
+    public ResponseEntity<SseEmitter> streamBranchPositions(@RequestParam(required = false) Long branchId) {
+        try {
+            auditService.checkBranchAccess(branchId);
+            return ResponseEntity.ok(branchPositionService.subscribe(branchId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Search transactions with complex filtering. Archived transactions are
+     * included when startDate reaches back into the archive, or always with
+     * includeArchived=true.
      * GET /api/audit/transactions/search
      * Access: SUPER_ADMIN and AUDITOR role
      */
@@ -65,10 +108,17 @@ public class AuditController {
             @RequestParam(defaultValue = "0") Integer page,
             @RequestParam(defaultValue = "20") Integer size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDirection) {
+            @RequestParam(defaultValue = "DESC") String sortDirection,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
         
         try {
             TransactionSearchRequest filters = new TransactionSearchRequest();
+            if (startDate != null) {
+                filters.setStartDate(LocalDateTime.parse(startDate));
+            }
+            if (endDate != null) {
+                filters.setEndDate(LocalDateTime.parse(endDate));
+            }
             filters.setSenderBranchId(senderBranchId);
             filters.setReceiverBranchId(receiverBranchId);
             filters.setSourceCurrency(sourceCurrency);
@@ -81,6 +131,7 @@ public class AuditController {
             filters.setSize(size);
             filters.setSortBy(sortBy);
             filters.setSortDirection(sortDirection);
+            filters.setIncludeArchived(includeArchived);
             
             // Parse status if provided
             if (status != null) {
@@ -148,6 +199,22 @@ public class AuditController {
         }
     }
 
+    /**
+     * Transfer size distribution (p50/p95/p99) and distinct sender/receiver
+     * counts per branch and per corridor (since totalsSince, the start of the
+     * retention window at the last restart) and over the last N hours
+     * GET /api/audit/analytics
+     * Access: SUPER_ADMIN and AUDITOR role
+     */
+    @GetMapping("/analytics")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
+    public ResponseEntity<Map<String, Object>> getTransferAnalytics(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) String corridor,
+            @RequestParam(defaultValue = "24") Integer hours) {
+        return ResponseEntity.ok(transferAnalyticsService.getAnalytics(branchId, corridor, hours));
+    }
+
     /**
      * Get commission rates for a branch
      * GET /api/audit/branches/{branchId}/commission-rates
@@ -165,35 +232,79 @@ public class AuditController {
     }
 
     /**
-     * Get audit logs
+     * Query audit logs, newest first, with keyset pagination.
+     * The cursor for the next page is returned in the X-Next-Cursor header.
      * GET /api/audit/logs
      * Access: SUPER_ADMIN and AUDITOR role
      */
     @GetMapping("/logs")
     @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
-    public ResponseEntity<List<AuditLog>> getAuditLogs(
+    public ResponseEntity<List<AuditLogResponse>> getAuditLogs(
             @RequestParam(required = false) String action,
+            @RequestParam(required = false) String category,
             @RequestParam(required = false) String entityType,
-            @RequestParam(required = false) Long entityId) {
+            @RequestParam(required = false) Long entityId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") Integer size) {
         try {
-            // This would typically use a more sophisticated search
-            // For now, we'll return a simple implementation
-            List<AuditLog> auditLogs = auditService.getFeeModificationHistory().stream()
-                    .map(logMap -> {
-                        // Convert back to AuditLog - this is a simplified approach
-                        AuditLog auditLog = new AuditLog();
-                        auditLog.setId((Long) logMap.get("id"));
-                        auditLog.setAction((String) logMap.get("action"));
-                        auditLog.setEntity((String) logMap.get("entityType"));
-                        auditLog.setEntityId((Long) logMap.get("entityId"));
-                        // createdAt is automatically set by @CreationTimestamp
-                        return auditLog;
-                    })
-                    .toList();
-            
-            return ResponseEntity.ok(auditLogs);
+            AuditLogSearchRequest filters = new AuditLogSearchRequest();
+            filters.setAction(action);
+            if (category != null) {
+                filters.setCategory(AuditCategory.valueOf(category.toUpperCase()));
+            }
+            filters.setEntity(entityType);
+            filters.setEntityId(entityId);
+            filters.setUserId(userId);
+            filters.setCursor(cursor);
+            filters.setSize(size);
+            if (startDate != null) {
+                filters.setStartDate(LocalDateTime.parse(startDate));
+            }
+            if (endDate != null) {
+                filters.setEndDate(LocalDateTime.parse(endDate));
+            }
+
+            AuditLogPage page = auditLogQueryService.search(filters);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header("X-Next-Cursor", page.getNextCursor());
+            }
+            return response.body(page.getItems());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Verify the audit hash chain over an id range (whole log when omitted)
+     * GET /api/audit/integrity/verify
+     * Access: SUPER_ADMIN and AUDITOR role
+     */
+    @GetMapping("/integrity/verify")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
+    public ResponseEntity<AuditVerificationResult> verifyAuditChain(
+            @RequestParam(required = false) Long fromId,
+            @RequestParam(required = false) Long toId) {
+        try {
+            return ResponseEntity.ok(auditChainService.verify(fromId, toId));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get the most recently published audit checkpoint
+     * GET /api/audit/integrity/checkpoint
+     * Access: SUPER_ADMIN and AUDITOR role
+     */
+    @GetMapping("/integrity/checkpoint")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
+    public ResponseEntity<AuditCheckpoint> getLatestAuditCheckpoint() {
+        return auditChainService.getLatestCheckpoint()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+}
@@ -1,13 +1,18 @@
 package com.mycompany.transfersystem.controller;
 
+import com.mycompany.transfersystem.config.VerifiedTokenCache;
 import com.mycompany.transfersystem.dto.LoginRequest;
 import com.mycompany.transfersystem.dto.LoginResponse;
+import com.mycompany.transfersystem.dto.RefreshTokenRequest;
 import com.mycompany.transfersystem.service.AuthService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/auth")
 @CrossOrigin(origins = "*")
@@ -16,9 +21,42 @@ public class AuthController {
     @Autowired
     private AuthService authService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     @PostMapping("/login")
     public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
         LoginResponse response = authService.login(loginRequest);
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    /**
+     * Exchange a refresh token for a new access token; the refresh token is rotated
+     * POST /api/auth/refresh
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(authService.refresh(request.getRefreshToken()));
+    }
+
+    /**
+     * Revoke the refresh token's session and the access tokens issued to it
+     * POST /api/auth/logout
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@Valid @RequestBody RefreshTokenRequest request) {
+        authService.logout(request.getRefreshToken());
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Size and hit rate of the verified-token cache
+     * GET /api/auth/token-cache
+     * Access: SUPER_ADMIN role
+     */
+    @GetMapping("/token-cache")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getTokenCacheStats() {
+        return ResponseEntity.ok(verifiedTokenCache.getStats());
+    }
+}
@@ -2,6 +2,7 @@ package com.mycompany.transfersystem.controller;
 
 import com.mycompany.transfersystem.dto.FundRequest;
 import com.mycompany.transfersystem.dto.FundResponse;
+import com.mycompany.transfersystem.service.FundRevaluationService;
 import com.mycompany.transfersystem.service.FundService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +11,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/funds")
@@ -20,6 +23,9 @@ public class FundController {
     @Autowired
     private FundService fundService;
 
+    @Autowired
+    private FundRevaluationService fundRevaluationService;
+
     @GetMapping
     public ResponseEntity<List<FundResponse>> getAllFunds() {
         List<FundResponse> funds = fundService.getAllFunds();
@@ -47,6 +53,52 @@ public class FundController {
         return ResponseEntity.ok(updatedFund);
     }
 
+    /**
+     * Per-currency balances of a fund; with revalueTo, valued in that currency at current rates
+     * GET /api/funds/{id}/wallet?revalueTo=USD
+     */
+    @GetMapping("/{id}/wallet")
+    public ResponseEntity<Map<String, Object>> getWallet(@PathVariable Long id,
+                                                         @RequestParam(required = false) String revalueTo) {
+        return ResponseEntity.ok(fundService.getWallet(id, revalueTo));
+    }
+
+    /**
+     * Set the balance a fund holds in one currency
+     * PUT /api/funds/{id}/wallet/{currency}?amount=1000.00
+     */
+    @PutMapping("/{id}/wallet/{currency}")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> setCurrencyBalance(@PathVariable Long id,
+                                                                  @PathVariable String currency,
+                                                                  @RequestParam BigDecimal amount) {
+        return ResponseEntity.ok(fundService.setCurrencyBalance(id, currency, amount));
+    }
+
+    /**
+     * Latest valuation of every fund in the revaluation currency
+     * GET /api/funds/valuations
+     */
+    @GetMapping("/valuations")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
+    public ResponseEntity<Map<String, Object>> getValuations() {
+        return ResponseEntity.ok(fundRevaluationService.getValuations());
+    }
+
+    /**
+     * Revalue all funds now at current rates
+     * POST /api/funds/valuations/run
+     */
+    @PostMapping("/valuations/run")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> revalueFunds() {
+        try {
+            return ResponseEntity.ok(fundRevaluationService.revalueNow());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('SUPER_ADMIN')")
     public ResponseEntity<Void> deleteFund(@PathVariable Long id) {
@@ -0,0 +1,81 @@
+package com.mycompany.transfersystem.controller;
+
+import com.mycompany.transfersystem.dto.SettlementRunResponse;
+import com.mycompany.transfersystem.service.SettlementService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/settlements")
+@PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('AUDITOR')")
+public class SettlementController {
+
+    private final SettlementService settlementService;
+
+    @Autowired
+    public SettlementController(SettlementService settlementService) {
+        this.settlementService = settlementService;
+    }
+
+    /**
+     * Settlement runs, newest first (without payments)
+     * GET /api/settlements
+     */
+    @GetMapping
+    public ResponseEntity<List<SettlementRunResponse>> getRuns(@RequestParam(defaultValue = "0") int page,
+                                                               @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(settlementService.getRuns(page, Math.min(Math.max(size, 1), 200)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * One settlement run with its net payments
+     * GET /api/settlements/{id}
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<SettlementRunResponse> getRun(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(settlementService.getRun(id));
+        } catch (Exception e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * Obligations accumulated since the last run and the payments that would settle them
+     * GET /api/settlements/pending
+     */
+    @GetMapping("/pending")
+    public ResponseEntity<Map<String, Object>> getPending() {
+        try {
+            return ResponseEntity.ok(settlementService.getPendingSettlement());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Run a settlement batch now
+     * POST /api/settlements/run
+     * Access: SUPER_ADMIN only
+     */
+    @PostMapping("/run")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<SettlementRunResponse> runSettlement() {
+        try {
+            Optional<SettlementRunResponse> run = settlementService.runSettlement();
+            return run.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.noContent().build());
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
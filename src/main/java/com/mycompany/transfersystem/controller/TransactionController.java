@@ -1,16 +1,25 @@
 package com.mycompany.transfersystem.controller;
 
+import com.mycompany.transfersystem.config.AuthenticatedUser;
+import com.mycompany.transfersystem.config.CurrentUserProvider;
 import com.mycompany.transfersystem.dto.*;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.exception.PasscodeLockedException;
 import com.mycompany.transfersystem.service.TransactionService;
+import com.mycompany.transfersystem.service.PickupQueueService;
 import com.mycompany.transfersystem.service.ReleasePasscodeService;
+import com.mycompany.transfersystem.service.TransferExpiryService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -23,6 +32,15 @@ public class TransactionController {
     @Autowired
     private ReleasePasscodeService releasePasscodeService;
 
+    @Autowired
+    private PickupQueueService pickupQueueService;
+
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @Autowired
+    private TransferExpiryService transferExpiryService;
+
     @GetMapping
     @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('AUDITOR')")
     public ResponseEntity<List<TransactionResponse>> getAllTransactions() {
@@ -59,9 +77,7 @@ public class TransactionController {
     @GetMapping("/{id}/record")
     @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('CASHIER')")
     public ResponseEntity<TransactionRecordDTO> getTransactionRecord(@PathVariable Long id) {
-        // In a real implementation, you would get the current user's branch ID from security context
-        // For now, we'll pass null to show the passcode (admin view)
-        TransactionRecordDTO record = transactionService.getTransactionRecordById(id, null);
+        TransactionRecordDTO record = transactionService.getTransactionRecordById(id);
         return ResponseEntity.ok(record);
     }
 
@@ -76,8 +92,98 @@ public class TransactionController {
             } else {
                 return ResponseEntity.badRequest().body("Failed to release transaction");
             }
+        } catch (PasscodeLockedException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("Error: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Error: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Release up to {@value BatchReleaseRequest#MAX_ITEMS} transfers at once; each item is
+     * reported as released or failed with its reason.
+     */
+    @PostMapping("/release-batch")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('CASHIER')")
+    public ResponseEntity<BatchReleaseResult> releaseBatch(@Valid @RequestBody BatchReleaseRequest request) {
+        return ResponseEntity.ok(releasePasscodeService.releaseBatch(request.getItems()));
+    }
+
+    /**
+     * Transfers awaiting pickup at a branch, oldest first; the next page's cursor is in X-Next-Cursor.
+     * Branch staff only see their own branch.
+     */
+    @GetMapping("/pickup-queue")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('CASHIER')")
+    public ResponseEntity<List<PickupQueueEntry>> getPickupQueue(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") Integer size) {
+        try {
+            PickupQueuePage page = pickupQueueService.getQueue(resolvePickupBranch(branchId), cursor, size);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header("X-Next-Cursor", page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            // Missing branch or malformed cursor
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Find transfers awaiting pickup by the start of the receiver's name or phone number
+     */
+    @GetMapping("/pickup-queue/search")
+    @PreAuthorize("hasRole('SUPER_ADMIN') or hasRole('BRANCH_MANAGER') or hasRole('CASHIER')")
+    public ResponseEntity<List<PickupQueueEntry>> searchPickupQueue(
+            @RequestParam(required = false) Long branchId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        try {
+            return ResponseEntity.ok(pickupQueueService.search(resolvePickupBranch(branchId), q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Throughput and lag of the expiry sweeper
+     * GET /api/transactions/expiry/stats
+     * Access: SUPER_ADMIN role
+     */
+    @GetMapping("/expiry/stats")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> getExpiryStats() {
+        return ResponseEntity.ok(transferExpiryService.getStats());
+    }
+
+    /**
+     * Expire and refund overdue unreleased transfers now
+     * POST /api/transactions/expiry/run
+     * Access: SUPER_ADMIN role
+     */
+    @PostMapping("/expiry/run")
+    @PreAuthorize("hasRole('SUPER_ADMIN')")
+    public ResponseEntity<Map<String, Object>> runExpiry() {
+        int expired = transferExpiryService.sweep();
+        return ResponseEntity.ok(Map.of("expired", expired));
+    }
+
+    private Long resolvePickupBranch(Long requested) {
+        AuthenticatedUser user = currentUserProvider.require();
+        if (user.role() == UserRole.SUPER_ADMIN) {
+            if (requested == null) {
+                throw new IllegalArgumentException("branchId is required");
+            }
+            return requested;
+        }
+        if (user.branchId() == null || (requested != null && !requested.equals(user.branchId()))) {
+            throw new AccessDeniedException("Pickup queue is only available for your own branch");
+        }
+        return user.branchId();
+    }
+}
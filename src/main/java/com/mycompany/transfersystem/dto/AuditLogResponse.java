@@ -12,6 +12,7 @@ import java.time.LocalDateTime;
 public class AuditLogResponse {
     private Long id;
     private String action;
+    private String category;
     private String username;
     private String userRole;
     private String entity;
@@ -0,0 +1,28 @@
+package com.mycompany.transfersystem.dto;
+
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogSearchRequest {
+
+    private String action;
+    private AuditCategory category;
+    private String entity;
+    private Long entityId;
+    private Long userId;
+
+    // Date range filtering
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+
+    // Keyset pagination: opaque cursor returned with the previous page
+    private String cursor;
+    private Integer size = 50;
+}
@@ -0,0 +1,20 @@
+package com.mycompany.transfersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditVerificationResult {
+    private Long fromId;
+    private Long toId;
+    private boolean valid;
+    private long recordsChecked;
+    private int checkpointsChecked;
+    // Records in the range not yet sealed into the chain
+    private long unsealedRecords;
+    private Long firstInvalidId;
+    private String reason;
+}
@@ -0,0 +1,52 @@
+package com.mycompany.transfersystem.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReleaseRequest {
+
+    public static final int MAX_ITEMS = 200;
+
+    @NotEmpty(message = "At least one release is required")
+    @Size(max = MAX_ITEMS, message = "At most " + MAX_ITEMS + " releases per batch")
+    private List<@Valid Item> items = new ArrayList<>();
+
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Transaction ID is required")
+        private Long transactionId;
+
+        @NotBlank(message = "Release passcode is required")
+        private String passcode;
+
+        @NotNull(message = "Receiver ID is required")
+        private Long receiverId;
+
+        public Long getTransactionId() { return transactionId; }
+        public void setTransactionId(Long transactionId) { this.transactionId = transactionId; }
+
+        public String getPasscode() { return passcode; }
+        public void setPasscode(String passcode) { this.passcode = passcode; }
+
+        public Long getReceiverId() { return receiverId; }
+        public void setReceiverId(Long receiverId) { this.receiverId = receiverId; }
+    }
+}
@@ -0,0 +1,23 @@
+package com.mycompany.transfersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Outcome of a batch release, per transaction: released, or failed with the reason
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchReleaseResult {
+
+    private List<Long> released = new ArrayList<>();
+    private List<Failure> failed = new ArrayList<>();
+
+    public record Failure(Long transactionId, String reason) {
+    }
+}
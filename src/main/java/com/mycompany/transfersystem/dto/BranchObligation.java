@@ -0,0 +1,9 @@
+package com.mycompany.transfersystem.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Aggregated amount (USD) one branch owes another for the transfers it collected
+ */
+public record BranchObligation(Long debtorBranchId, Long creditorBranchId, BigDecimal amount) {
+}
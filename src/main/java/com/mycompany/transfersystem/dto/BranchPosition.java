@@ -0,0 +1,87 @@
+package com.mycompany.transfersystem.dto;
+
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of a branch's fund position. The status map served to
+ * dashboards is built once per change rather than on every read.
+ */
+public final class BranchPosition {
+
+    private final Long branchId;
+    private final String branchName;
+    private final Long fundId;
+    private final String fundName;
+    private final String currency;
+    private final BigDecimal balance;
+    private final FundStatus fundStatus;
+    private final LocalDateTime updatedAt;
+    private final Map<String, Object> status;
+
+    public BranchPosition(Long branchId, String branchName, Long fundId, String fundName,
+                          String currency, BigDecimal balance, FundStatus fundStatus, LocalDateTime updatedAt) {
+        this.branchId = branchId;
+        this.branchName = branchName;
+        this.fundId = fundId;
+        this.fundName = fundName;
+        this.currency = currency;
+        this.balance = balance;
+        this.fundStatus = fundStatus;
+        this.updatedAt = updatedAt;
+        this.status = buildStatus();
+    }
+
+    /**
+     * Position for a branch that has no fund yet
+     */
+    public static BranchPosition noFund(Long branchId, String branchName) {
+        return new BranchPosition(branchId, branchName, null, branchName + " Fund",
+                null, BigDecimal.ZERO, null, LocalDateTime.now());
+    }
+
+    public BranchPosition withDelta(BigDecimal delta) {
+        return new BranchPosition(branchId, branchName, fundId, fundName,
+                currency, balance.add(delta), fundStatus, LocalDateTime.now());
+    }
+
+    private Map<String, Object> buildStatus() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("branchId", branchId);
+        map.put("branchName", branchName);
+        map.put("fundName", fundName);
+        map.put("currentBalance", balance);
+        if (currency != null) {
+            map.put("currency", currency);
+        }
+        map.put("fundStatus", fundId != null ? fundStatus : "NOT_CREATED");
+        map.put("lastUpdated", updatedAt);
+        if (fundId == null) {
+            map.put("netPosition", "NO_FUND");
+            map.put("netAmount", BigDecimal.ZERO);
+        } else if (balance.compareTo(BigDecimal.ZERO) >= 0) {
+            // Positive = credit, negative = debt
+            map.put("netPosition", "CREDIT");
+            map.put("netAmount", balance);
+        } else {
+            map.put("netPosition", "DEBT");
+            map.put("netAmount", balance.abs());
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    public Long getBranchId() { return branchId; }
+    public String getBranchName() { return branchName; }
+    public Long getFundId() { return fundId; }
+    public String getFundName() { return fundName; }
+    public String getCurrency() { return currency; }
+    public BigDecimal getBalance() { return balance; }
+    public FundStatus getFundStatus() { return fundStatus; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public Map<String, Object> getStatus() { return status; }
+}
@@ -0,0 +1,6 @@
+package com.mycompany.transfersystem.dto;
+
+import java.math.BigDecimal;
+
+public record CurrencyAmount(String currency, BigDecimal amount) {
+}
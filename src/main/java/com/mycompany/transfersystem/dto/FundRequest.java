@@ -4,6 +4,7 @@ import com.mycompany.transfersystem.entity.enums.FundStatus;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -25,6 +26,13 @@ public class FundRequest {
     @NotNull(message = "Status is required")
     private FundStatus status;
 
+    // Optional: the branch this fund settles for
+    private Long branchId;
+
+    // Optional: currency of the balance above (defaults to USD)
+    @Size(max = 4, message = "Currency code must be at most 4 characters")
+    private String currency;
+
     // Manual getters and setters for Lombok compatibility
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
@@ -34,4 +42,10 @@ public class FundRequest {
     
     public FundStatus getStatus() { return status; }
     public void setStatus(FundStatus status) { this.status = status; }
+
+    public Long getBranchId() { return branchId; }
+    public void setBranchId(Long branchId) { this.branchId = branchId; }
+
+    public String getCurrency() { return currency; }
+    public void setCurrency(String currency) { this.currency = currency; }
 }
\ No newline at end of file
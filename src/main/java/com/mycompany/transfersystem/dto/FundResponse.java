@@ -15,9 +15,11 @@ public class FundResponse {
     private Long id;
     private String name;
     private BigDecimal balance;
+    private String currency;
     private FundStatus status;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long branchId;
 
 
 }
\ No newline at end of file
@@ -12,6 +12,8 @@ public class LoginResponse {
     private String username;
     private String role;
     private long expiresIn;
+    private String refreshToken;
+    private long refreshExpiresIn;
 
     // Manual getters and setters for Lombok compatibility
     public String getToken() { return token; }
@@ -25,6 +27,12 @@ public class LoginResponse {
     
     public long getExpiresIn() { return expiresIn; }
     public void setExpiresIn(long expiresIn) { this.expiresIn = expiresIn; }
+    
+    public String getRefreshToken() { return refreshToken; }
+    public void setRefreshToken(String refreshToken) { this.refreshToken = refreshToken; }
+    
+    public long getRefreshExpiresIn() { return refreshExpiresIn; }
+    public void setRefreshExpiresIn(long refreshExpiresIn) { this.refreshExpiresIn = refreshExpiresIn; }
 
     // Parameterized constructor for service usage
     public LoginResponse(String token, String username, String role, Long expiresIn) {
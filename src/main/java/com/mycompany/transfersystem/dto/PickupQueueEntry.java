@@ -0,0 +1,13 @@
+package com.mycompany.transfersystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer waiting to be paid out at its receiving branch, with what the
+ * counter needs to find it by receiver name or phone
+ */
+public record PickupQueueEntry(Long transactionId, Long receiverBranchId, Long receiverId,
+                               String receiverName, String receiverPhone, BigDecimal amount,
+                               String destinationCurrency, LocalDateTime createdAt) {
+}
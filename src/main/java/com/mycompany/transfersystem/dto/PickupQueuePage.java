@@ -0,0 +1,16 @@
+package com.mycompany.transfersystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PickupQueuePage {
+    private List<PickupQueueEntry> items;
+    // Null when there are no further rows
+    private String nextCursor;
+}
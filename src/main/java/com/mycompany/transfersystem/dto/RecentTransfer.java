@@ -0,0 +1,13 @@
+package com.mycompany.transfersystem.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * The parties, amount and corridor of a recent transfer, as needed to rebuild
+ * velocity counters and the duplicate filter
+ */
+public record RecentTransfer(Long senderId, Long receiverId, Long senderBranchId,
+                             BigDecimal usdEquivalent, BigDecimal amount,
+                             String sourceCurrency, String destinationCurrency, LocalDateTime createdAt) {
+}
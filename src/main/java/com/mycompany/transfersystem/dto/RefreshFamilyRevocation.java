@@ -0,0 +1,9 @@
+package com.mycompany.transfersystem.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A refresh token family revoked at a point in time, as loaded into the in-memory revocation index
+ */
+public record RefreshFamilyRevocation(String familyId, LocalDateTime revokedAt) {
+}
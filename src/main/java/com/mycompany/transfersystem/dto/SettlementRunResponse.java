@@ -0,0 +1,27 @@
+package com.mycompany.transfersystem.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class SettlementRunResponse {
+    private Long id;
+    private LocalDateTime cutoff;
+    private int transactionCount;
+    private int branchCount;
+    private BigDecimal grossAmount;
+    private BigDecimal netAmount;
+    private LocalDateTime createdAt;
+    // Only populated when a single run is requested
+    private List<Payment> payments;
+
+    public record Payment(Long payerBranchId, String payerBranchName,
+                          Long payeeBranchId, String payeeBranchName,
+                          BigDecimal amount) {
+    }
+}
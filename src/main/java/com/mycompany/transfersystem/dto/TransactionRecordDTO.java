@@ -54,6 +54,9 @@ public class TransactionRecordDTO {
     // Security information
     private String releasePasscode;
 
+    // Id of a recent identical transfer when duplicate detection only warns
+    private Long suspectedDuplicateOf;
+
     // Manual getters and setters for Lombok compatibility
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -135,4 +138,7 @@ public class TransactionRecordDTO {
     
     public String getReceiverBranchName() { return receiverBranchName; }
     public void setReceiverBranchName(String receiverBranchName) { this.receiverBranchName = receiverBranchName; }
+    
+    public Long getSuspectedDuplicateOf() { return suspectedDuplicateOf; }
+    public void setSuspectedDuplicateOf(Long suspectedDuplicateOf) { this.suspectedDuplicateOf = suspectedDuplicateOf; }
 }
@@ -43,6 +43,9 @@ public class TransactionSearchRequest {
     private String sortBy = "createdAt";
     private String sortDirection = "DESC";
 
+    // Search the archive even without a start date reaching back into it
+    private boolean includeArchived;
+
     // Manual getters and setters for Lombok compatibility
     public LocalDateTime getStartDate() { return startDate; }
     public void setStartDate(LocalDateTime startDate) { this.startDate = startDate; }
@@ -88,4 +91,7 @@ public class TransactionSearchRequest {
     
     public String getSortDirection() { return sortDirection; }
     public void setSortDirection(String sortDirection) { this.sortDirection = sortDirection; }
+
+    public boolean isIncludeArchived() { return includeArchived; }
+    public void setIncludeArchived(boolean includeArchived) { this.includeArchived = includeArchived; }
 }
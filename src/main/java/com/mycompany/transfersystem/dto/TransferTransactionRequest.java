@@ -39,6 +39,9 @@ public class TransferTransactionRequest {
     @NotNull(message = "Receiver branch ID is required")
     private Long receiverBranchId;
 
+    // Set when the cashier confirms a transfer that was flagged as a possible duplicate
+    private boolean allowDuplicate;
+
     // Manual getters and setters for Lombok compatibility
     public Long getSenderId() { return senderId; }
     public void setSenderId(Long senderId) { this.senderId = senderId; }
@@ -63,4 +66,7 @@ public class TransferTransactionRequest {
     
     public Long getReceiverBranchId() { return receiverBranchId; }
     public void setReceiverBranchId(Long receiverBranchId) { this.receiverBranchId = receiverBranchId; }
+    
+    public boolean isAllowDuplicate() { return allowDuplicate; }
+    public void setAllowDuplicate(boolean allowDuplicate) { this.allowDuplicate = allowDuplicate; }
 }
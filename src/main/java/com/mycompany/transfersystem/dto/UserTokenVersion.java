@@ -0,0 +1,7 @@
+package com.mycompany.transfersystem.dto;
+
+/**
+ * Current access-token version of one user
+ */
+public record UserTokenVersion(Long userId, int version) {
+}
@@ -0,0 +1,56 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A sealed, contiguous range of audit log records: the Merkle root of their
+ * record hashes and the chain head after the last record. A late checkpoint
+ * instead seals records that committed after the chain had passed their ids;
+ * they form their own chain, in id order, starting from the genesis hash.
+ */
+@Entity
+@Table(name = "audit_checkpoints", indexes = {
+        @Index(name = "idx_audit_checkpoints_last_log", columnList = "last_log_id", unique = true)
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "first_log_id", nullable = false)
+    private Long firstLogId;
+
+    @Column(name = "last_log_id", nullable = false)
+    private Long lastLogId;
+
+    @Column(name = "record_count", nullable = false)
+    private int recordCount;
+
+    @Column(name = "merkle_root", nullable = false, length = 64)
+    private String merkleRoot;
+
+    @Column(name = "chain_head", nullable = false, length = 64)
+    private String chainHead;
+
+    @Column(name = "sealed_at", nullable = false)
+    private LocalDateTime sealedAt;
+
+    // Null for checkpoints written before late sealing existed, which are all in the main chain
+    @Column(name = "late")
+    private Boolean late;
+
+    public boolean isLate() {
+        return Boolean.TRUE.equals(late);
+    }
+}
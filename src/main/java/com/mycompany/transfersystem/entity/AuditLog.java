@@ -1,5 +1,6 @@
 package com.mycompany.transfersystem.entity;
 
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,7 +11,13 @@ import org.hibernate.annotations.CreationTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs", indexes = {
+        @Index(name = "idx_audit_logs_category_created", columnList = "category, created_at, id"),
+        @Index(name = "idx_audit_logs_action_code_created", columnList = "action_code, created_at, id"),
+        @Index(name = "idx_audit_logs_entity_created", columnList = "entity, entity_id, created_at"),
+        @Index(name = "idx_audit_logs_user_created", columnList = "user_id, created_at"),
+        @Index(name = "idx_audit_logs_created", columnList = "created_at, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -24,6 +31,14 @@ public class AuditLog {
     @Column(nullable = false, length = 100)
     private String action;
 
+    // Normalized action and its category, derived on write for indexed lookups
+    @Column(name = "action_code", length = 100)
+    private String actionCode;
+
+    @Enumerated(EnumType.STRING)
+    @Column(length = 20)
+    private AuditCategory category;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -38,6 +53,24 @@ public class AuditLog {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    // Hash chain, written only by AuditChainService when the record is sealed
+    @Column(name = "prev_hash", length = 64, insertable = false, updatable = false)
+    private String prevHash;
+
+    @Column(name = "record_hash", length = 64, insertable = false, updatable = false)
+    private String recordHash;
+
+    // Set when the record committed after the chain had passed its id and was sealed on its own
+    @Column(name = "late_checkpoint_id", insertable = false, updatable = false)
+    private Long lateCheckpointId;
+
+    @PrePersist
+    @PreUpdate
+    void deriveActionCode() {
+        actionCode = AuditCategory.normalize(action);
+        category = AuditCategory.fromAction(action);
+    }
+
     // Manual getters and setters for Lombok compatibility
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -45,6 +78,12 @@ public class AuditLog {
     public String getAction() { return action; }
     public void setAction(String action) { this.action = action; }
     
+    public String getActionCode() { return actionCode; }
+    public void setActionCode(String actionCode) { this.actionCode = actionCode; }
+    
+    public AuditCategory getCategory() { return category; }
+    public void setCategory(AuditCategory category) { this.category = category; }
+    
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     
@@ -54,6 +93,10 @@ public class AuditLog {
     public Long getEntityId() { return entityId; }
     public void setEntityId(Long entityId) { this.entityId = entityId; }
     
+    public String getPrevHash() { return prevHash; }
+    public String getRecordHash() { return recordHash; }
+    public Long getLateCheckpointId() { return lateCheckpointId; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 }
\ No newline at end of file
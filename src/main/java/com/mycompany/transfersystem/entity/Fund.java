@@ -13,13 +13,17 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "funds")
+@Table(name = "funds", indexes = {
+        @Index(name = "idx_funds_branch", columnList = "branch_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Fund {
 
+    public static final String DEFAULT_CURRENCY = "USD";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -27,9 +31,18 @@ public class Fund {
     @Column(nullable = false, length = 100)
     private String name;
 
+    // Balance in the fund's own currency; other currencies are held in fund_balances
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal balance;
 
+    @Column(length = 10)
+    private String currency = DEFAULT_CURRENCY;
+
+    // Owning branch for branch operating funds; null for general funds
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "branch_id")
+    private Branch branch;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private FundStatus status;
@@ -52,6 +65,12 @@ public class Fund {
     public BigDecimal getBalance() { return balance; }
     public void setBalance(BigDecimal balance) { this.balance = balance; }
     
+    public String getCurrency() { return currency != null ? currency : DEFAULT_CURRENCY; }
+    public void setCurrency(String currency) { this.currency = currency; }
+    
+    public Branch getBranch() { return branch; }
+    public void setBranch(Branch branch) { this.branch = branch; }
+    
     public FundStatus getStatus() { return status; }
     public void setStatus(FundStatus status) { this.status = status; }
     
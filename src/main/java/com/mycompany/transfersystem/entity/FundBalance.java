@@ -0,0 +1,46 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of one fund in one currency. The row for the fund's own currency
+ * mirrors {@link Fund#getBalance()}.
+ */
+@Entity
+@Table(name = "fund_balances", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_fund_balances_fund_currency", columnNames = {"fund_id", "currency"})
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class FundBalance {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "fund_id", nullable = false)
+    private Long fundId;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    public FundBalance(Long fundId, String currency, BigDecimal amount) {
+        this.fundId = fundId;
+        this.currency = currency;
+        this.amount = amount;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
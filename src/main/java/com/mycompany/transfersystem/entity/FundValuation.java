@@ -0,0 +1,38 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Latest valuation of all currency buckets of one fund in a single currency.
+ * Rows are rewritten in bulk by the revaluation job, never through JPA.
+ */
+@Entity
+@Table(name = "fund_valuations")
+@Getter
+@Setter
+@NoArgsConstructor
+public class FundValuation {
+
+    @Id
+    @Column(name = "fund_id")
+    private Long fundId;
+
+    @Column(nullable = false, length = 10)
+    private String currency;
+
+    @Column(nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    // When the rate snapshot used for this valuation was taken
+    @Column(name = "rates_as_of", nullable = false)
+    private LocalDateTime ratesAsOf;
+
+    @Column(name = "valued_at", nullable = false)
+    private LocalDateTime valuedAt;
+}
@@ -0,0 +1,50 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Running platform fee counters, incremented in the same database transaction
+ * as each executed transfer so the platform summary is a single-row read.
+ */
+@Entity
+@Table(name = "platform_fee_totals")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlatformFeeTotals {
+
+    // Single counter row for the platform (MAIN_ADMIN_BRANCH)
+    public static final Long PLATFORM_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "total_base_fees", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalBaseFees = BigDecimal.ZERO;
+
+    @Column(name = "total_exchange_profit", nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalExchangeProfit = BigDecimal.ZERO;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public PlatformFeeTotals(Long id) {
+        this.id = id;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public BigDecimal getTotalFees() {
+        return totalBaseFees.add(totalExchangeProfit);
+    }
+}
@@ -5,12 +5,16 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "refresh_tokens", indexes = {
-        @Index(name = "idx_refresh_token", columnList = "token", unique = true)
+        @Index(name = "idx_refresh_token", columnList = "token", unique = true),
+        @Index(name = "idx_refresh_token_family", columnList = "family_id"),
+        @Index(name = "idx_refresh_token_revoked_at", columnList = "revoked_at")
 })
 @Getter
 @Setter
@@ -22,16 +26,35 @@ public class RefreshToken {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    // SHA-256 of the token handed to the client; the token itself is never stored
     @Column(nullable = false, unique = true, length = 500)
     private String token;
 
+    // Cleared when the user is deleted; the revoked rows stay until they expire so
+    // other instances still sync the revocation
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id")
     private User user;
 
+    // Shared by every token rotated out of the same login; also the sid claim of its access tokens
+    @Column(name = "family_id", nullable = false, length = 36)
+    private String familyId;
+
     @Column(name = "is_revoked", nullable = false)
     private boolean isRevoked = false;
 
+    // Revoked because it was exchanged for its successor, not because the family was revoked
+    @ColumnDefault("false")
+    @Column(name = "rotated", nullable = false)
+    private boolean rotated = false;
+
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+
     @Column(name = "expiry_date", nullable = false)
     private LocalDateTime expiryDate;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
 }
@@ -0,0 +1,47 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * A net payment from one branch to another produced by a settlement run
+ */
+@Entity
+@Table(name = "settlement_payments", indexes = {
+        @Index(name = "idx_settlement_payments_run", columnList = "run_id"),
+        @Index(name = "idx_settlement_payments_payer", columnList = "payer_branch_id"),
+        @Index(name = "idx_settlement_payments_payee", columnList = "payee_branch_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class SettlementPayment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "run_id", nullable = false)
+    private SettlementRun run;
+
+    @Column(name = "payer_branch_id", nullable = false)
+    private Long payerBranchId;
+
+    @Column(name = "payee_branch_id", nullable = false)
+    private Long payeeBranchId;
+
+    // USD
+    @Column(name = "amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal amount;
+
+    public SettlementPayment(Long payerBranchId, Long payeeBranchId, BigDecimal amount) {
+        this.payerBranchId = payerBranchId;
+        this.payeeBranchId = payeeBranchId;
+        this.amount = amount;
+    }
+}
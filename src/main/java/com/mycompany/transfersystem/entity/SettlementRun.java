@@ -0,0 +1,57 @@
+package com.mycompany.transfersystem.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One multilateral netting batch: the inter-branch obligations of all
+ * transactions claimed by the run and the net payments that settle them.
+ */
+@Entity
+@Table(name = "settlement_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SettlementRun {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Transactions created before this instant were eligible for the run
+    @Column(name = "cutoff", nullable = false)
+    private LocalDateTime cutoff;
+
+    @Column(name = "transaction_count", nullable = false)
+    private int transactionCount;
+
+    // Sum of the gross bilateral obligations (USD)
+    @Column(name = "gross_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal grossAmount;
+
+    // Sum of the net payments actually made (USD)
+    @Column(name = "net_amount", nullable = false, precision = 19, scale = 4)
+    private BigDecimal netAmount;
+
+    @Column(name = "branch_count", nullable = false)
+    private int branchCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @OneToMany(mappedBy = "run", cascade = CascadeType.ALL, orphanRemoval = true)
+    @OrderBy("id")
+    private List<SettlementPayment> payments = new ArrayList<>();
+
+    public void addPayment(SettlementPayment payment) {
+        payment.setRun(this);
+        payments.add(payment);
+    }
+}
@@ -12,7 +12,14 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        @Index(name = "idx_transactions_receiver_branch_status_created", columnList = "receiver_branch_id, status, created_at"),
+        @Index(name = "idx_transactions_sender_branch_status_created", columnList = "sender_branch_id, status, created_at"),
+        @Index(name = "idx_transactions_created_at", columnList = "created_at"),
+        @Index(name = "idx_transactions_status_created", columnList = "status, created_at, id"),
+        @Index(name = "idx_transactions_settlement_run", columnList = "settlement_run_id"),
+        @Index(name = "idx_transactions_sender_created", columnList = "sender_id, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,6 +42,15 @@ public class Transaction {
     @JoinColumn(name = "fund_id", nullable = false)
     private Fund fund;
 
+    // Branch dimensions captured at write time so branch-scoped queries avoid joining through users
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "sender_branch_id")
+    private Branch senderBranch;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "receiver_branch_id")
+    private Branch receiverBranch;
+
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal amount;
 
@@ -49,6 +65,43 @@ public class Transaction {
     @Column(name = "release_passcode")
     private String releasePasscode;
 
+    // Currency and rate captured at execution time
+    @Column(name = "source_currency", length = 10)
+    private String sourceCurrency;
+
+    @Column(name = "destination_currency", length = 10)
+    private String destinationCurrency;
+
+    @Column(name = "exchange_rate", precision = 19, scale = 8)
+    private BigDecimal exchangeRate;
+
+    @Column(name = "usd_equivalent", precision = 19, scale = 4)
+    private BigDecimal usdEquivalent;
+
+    // Fee breakdown (USD) as calculated by FeeCalculationService
+    @Column(name = "platform_base_fee", precision = 19, scale = 2)
+    private BigDecimal platformBaseFee;
+
+    @Column(name = "platform_exchange_profit", precision = 19, scale = 2)
+    private BigDecimal platformExchangeProfit;
+
+    @Column(name = "sending_branch_fee", precision = 19, scale = 2)
+    private BigDecimal sendingBranchFee;
+
+    @Column(name = "receiving_branch_fee", precision = 19, scale = 2)
+    private BigDecimal receivingBranchFee;
+
+    @Column(name = "total_fee", precision = 19, scale = 2)
+    private BigDecimal totalFee;
+
+    // Settlement run that netted this transfer's inter-branch obligation, null while unsettled
+    @Column(name = "settlement_run_id")
+    private Long settlementRunId;
+
+    // Settlement run that paid back the obligation of a settled transfer that later expired
+    @Column(name = "reversal_settlement_run_id")
+    private Long reversalSettlementRunId;
+
     // Manual getters and setters for Lombok compatibility
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -62,6 +115,18 @@ public class Transaction {
     public Fund getFund() { return fund; }
     public void setFund(Fund fund) { this.fund = fund; }
     
+    public Branch getSenderBranch() { return senderBranch; }
+    public void setSenderBranch(Branch senderBranch) { this.senderBranch = senderBranch; }
+    
+    public Branch getReceiverBranch() { return receiverBranch; }
+    public void setReceiverBranch(Branch receiverBranch) { this.receiverBranch = receiverBranch; }
+    
+    public Long getSettlementRunId() { return settlementRunId; }
+    public void setSettlementRunId(Long settlementRunId) { this.settlementRunId = settlementRunId; }
+    
+    public Long getReversalSettlementRunId() { return reversalSettlementRunId; }
+    public void setReversalSettlementRunId(Long reversalSettlementRunId) { this.reversalSettlementRunId = reversalSettlementRunId; }
+    
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
     
@@ -73,4 +138,31 @@ public class Transaction {
     
     public String getReleasePasscode() { return releasePasscode; }
     public void setReleasePasscode(String releasePasscode) { this.releasePasscode = releasePasscode; }
+    
+    public String getSourceCurrency() { return sourceCurrency; }
+    public void setSourceCurrency(String sourceCurrency) { this.sourceCurrency = sourceCurrency; }
+    
+    public String getDestinationCurrency() { return destinationCurrency; }
+    public void setDestinationCurrency(String destinationCurrency) { this.destinationCurrency = destinationCurrency; }
+    
+    public BigDecimal getExchangeRate() { return exchangeRate; }
+    public void setExchangeRate(BigDecimal exchangeRate) { this.exchangeRate = exchangeRate; }
+    
+    public BigDecimal getUsdEquivalent() { return usdEquivalent; }
+    public void setUsdEquivalent(BigDecimal usdEquivalent) { this.usdEquivalent = usdEquivalent; }
+    
+    public BigDecimal getPlatformBaseFee() { return platformBaseFee; }
+    public void setPlatformBaseFee(BigDecimal platformBaseFee) { this.platformBaseFee = platformBaseFee; }
+    
+    public BigDecimal getPlatformExchangeProfit() { return platformExchangeProfit; }
+    public void setPlatformExchangeProfit(BigDecimal platformExchangeProfit) { this.platformExchangeProfit = platformExchangeProfit; }
+    
+    public BigDecimal getSendingBranchFee() { return sendingBranchFee; }
+    public void setSendingBranchFee(BigDecimal sendingBranchFee) { this.sendingBranchFee = sendingBranchFee; }
+    
+    public BigDecimal getReceivingBranchFee() { return receivingBranchFee; }
+    public void setReceivingBranchFee(BigDecimal receivingBranchFee) { this.receivingBranchFee = receivingBranchFee; }
+    
+    public BigDecimal getTotalFee() { return totalFee; }
+    public void setTotalFee(BigDecimal totalFee) { this.totalFee = totalFee; }
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.mycompany.transfersystem.entity.enums;
+
+import java.util.Locale;
+
+public enum AuditCategory {
+    FEE,            // Fee and commission changes
+    TRANSACTION,    // Transfers and releases
+    FUND,           // Fund lifecycle
+    USER,           // User management
+    AUTH,           // Logins and token activity
+    OTHER;
+
+    /**
+     * Canonical form of an action name: trimmed, upper case, words joined by '_'
+     */
+    public static String normalize(String action) {
+        if (action == null) {
+            return null;
+        }
+        return action.trim().toUpperCase(Locale.ROOT).replaceAll("[\\s-]+", "_");
+    }
+
+    /**
+     * Classify an action once at write time so category lookups are index seeks
+     */
+    public static AuditCategory fromAction(String action) {
+        String code = normalize(action);
+        if (code == null) {
+            return OTHER;
+        }
+        if (code.contains("FEE") || code.contains("COMMISSION")) {
+            return FEE;
+        }
+        if (code.contains("TRANSFER") || code.contains("TRANSACTION") || code.contains("RELEASE")) {
+            return TRANSACTION;
+        }
+        if (code.contains("FUND")) {
+            return FUND;
+        }
+        if (code.contains("LOGIN") || code.contains("LOGOUT") || code.contains("TOKEN")) {
+            return AUTH;
+        }
+        if (code.contains("USER")) {
+            return USER;
+        }
+        return OTHER;
+    }
+}
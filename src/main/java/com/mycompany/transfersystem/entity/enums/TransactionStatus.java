@@ -4,5 +4,7 @@ public enum TransactionStatus {
     PENDING,
     COMPLETED,
     FAILED,
-    RELEASED
+    RELEASED,
+    // Not picked up in time; the transfer was reversed and the sender refunded
+    EXPIRED
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.mycompany.transfersystem.event;
+
+import com.mycompany.transfersystem.entity.Fund;
+
+import java.math.BigDecimal;
+
+/**
+ * A balance change applied to one fund by a transfer
+ *
+ * @param branchId owning branch of the fund, or null for general funds
+ * @param currency currency bucket the posting went to
+ * @param delta    signed amount added to that bucket
+ */
+public record FundPosting(Long fundId, Long branchId, String currency, BigDecimal delta) {
+
+    public static FundPosting of(Fund fund, String currency, BigDecimal delta) {
+        return new FundPosting(fund.getId(), fund.getBranch() != null ? fund.getBranch().getId() : null,
+                currency != null ? currency.toUpperCase() : fund.getCurrency(), delta);
+    }
+
+    /**
+     * Whether the posting changes the fund's own-currency balance
+     */
+    public boolean isIn(String fundCurrency) {
+        return currency.equalsIgnoreCase(fundCurrency);
+    }
+}
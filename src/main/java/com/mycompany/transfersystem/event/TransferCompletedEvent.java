@@ -0,0 +1,45 @@
+package com.mycompany.transfersystem.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Published inside the transfer transaction; listeners that maintain derived
+ * views should use {@code @TransactionalEventListener} so they only see
+ * committed transfers.
+ *
+ * @param usdEquivalent USD value of the principal, or null when the transfer
+ *                      carried no currency information
+ * @param postings      fund balance changes made by the transfer
+ */
+public record TransferCompletedEvent(
+        Long transactionId,
+        Long senderId,
+        Long receiverId,
+        Long senderBranchId,
+        Long receiverBranchId,
+        String sourceCurrency,
+        String destinationCurrency,
+        BigDecimal amount,
+        BigDecimal usdEquivalent,
+        LocalDateTime createdAt,
+        List<FundPosting> postings) {
+
+    /**
+     * Amount used for cross-corridor analytics: the USD equivalent when known
+     */
+    public BigDecimal analyticsAmount() {
+        return usdEquivalent != null ? usdEquivalent : amount;
+    }
+
+    /**
+     * Corridor key such as "EUR-USD", or null when currencies are unknown
+     */
+    public String corridor() {
+        if (sourceCurrency == null || destinationCurrency == null) {
+            return null;
+        }
+        return sourceCurrency.toUpperCase() + "-" + destinationCurrency.toUpperCase();
+    }
+}
@@ -0,0 +1,21 @@
+package com.mycompany.transfersystem.event;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Published inside the expiry transaction when a transfer that was never
+ * picked up is reversed. Listeners should use {@code @TransactionalEventListener}.
+ *
+ * @param settled  whether the transfer had already been netted in a settlement run, so the
+ *                 obligation has to be paid back rather than dropped
+ * @param postings fund balance changes made by the refund (the transfer's own postings, negated)
+ */
+public record TransferExpiredEvent(
+        Long transactionId,
+        Long senderBranchId,
+        Long receiverBranchId,
+        BigDecimal usdEquivalent,
+        boolean settled,
+        List<FundPosting> postings) {
+}
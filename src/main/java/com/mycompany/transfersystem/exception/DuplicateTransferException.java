@@ -0,0 +1,15 @@
+package com.mycompany.transfersystem.exception;
+
+public class DuplicateTransferException extends RuntimeException {
+
+    private final Long duplicateOfId;
+
+    public DuplicateTransferException(String message, Long duplicateOfId) {
+        super(message);
+        this.duplicateOfId = duplicateOfId;
+    }
+
+    public Long getDuplicateOfId() {
+        return duplicateOfId;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mycompany.transfersystem.exception;
+
+public class LoginBusyException extends RuntimeException {
+    public LoginBusyException(String message) {
+        super(message);
+    }
+}
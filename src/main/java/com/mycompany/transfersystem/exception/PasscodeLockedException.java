@@ -0,0 +1,15 @@
+package com.mycompany.transfersystem.exception;
+
+public class PasscodeLockedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasscodeLockedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,7 @@
+package com.mycompany.transfersystem.exception;
+
+public class TransferLimitExceededException extends RuntimeException {
+    public TransferLimitExceededException(String message) {
+        super(message);
+    }
+}
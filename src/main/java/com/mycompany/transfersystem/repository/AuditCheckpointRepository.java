@@ -0,0 +1,29 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.entity.AuditCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface AuditCheckpointRepository extends JpaRepository<AuditCheckpoint, Long> {
+
+    String MAIN_CHAIN = "(c.late IS NULL OR c.late = false)";
+
+    // Head of the main chain
+    @Query("SELECT c FROM AuditCheckpoint c WHERE " + MAIN_CHAIN + " ORDER BY c.lastLogId DESC LIMIT 1")
+    Optional<AuditCheckpoint> findMainChainHead();
+
+    // Main chain checkpoints lying entirely inside a verification range, in chain order
+    @Query("SELECT c FROM AuditCheckpoint c WHERE c.firstLogId >= :fromId AND c.lastLogId <= :toId AND " + MAIN_CHAIN +
+           " ORDER BY c.firstLogId")
+    List<AuditCheckpoint> findWithin(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT c FROM AuditCheckpoint c WHERE c.firstLogId >= :fromId AND c.lastLogId <= :toId AND c.late = true " +
+           "ORDER BY c.id")
+    List<AuditCheckpoint> findLateWithin(@Param("fromId") Long fromId, @Param("toId") Long toId);
+}
@@ -2,7 +2,10 @@ package com.mycompany.transfersystem.repository;
 
 import com.mycompany.transfersystem.entity.AuditLog;
 import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -11,7 +14,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
+public interface AuditLogRepository extends JpaRepository<AuditLog, Long>, JpaSpecificationExecutor<AuditLog> {
     List<AuditLog> findByUser(User user);
     List<AuditLog> findByAction(String action);
     List<AuditLog> findByEntity(String entity);
@@ -26,6 +29,12 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     List<AuditLog> findByDateRange(@Param("startDate") LocalDateTime startDate, 
                                  @Param("endDate") LocalDateTime endDate);
     
+    // Served by idx_audit_logs_category_created; user fetched in the same query
+    @Query("SELECT a FROM AuditLog a JOIN FETCH a.user WHERE a.category = :category ORDER BY a.createdAt, a.id")
+    List<AuditLog> findByCategoryWithUser(@Param("category") AuditCategory category);
+    
+    List<AuditLog> findByCategoryIsNull(Pageable pageable);
+    
     @Query("SELECT a FROM AuditLog a WHERE a.action LIKE %:action%")
     List<AuditLog> findByActionContainingIgnoreCase(@Param("action") String action);
 }
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.dto.AuditLogSearchRequest;
+import com.mycompany.transfersystem.entity.AuditLog;
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for audit log queries. Each filter is an equality or range on an
+ * indexed column; the keyset condition continues after the last row seen in
+ * (created_at DESC, id DESC) order.
+ */
+public final class AuditLogSpecifications {
+
+    private AuditLogSpecifications() {
+    }
+
+    public static Specification<AuditLog> matching(AuditLogSearchRequest filters,
+                                                   LocalDateTime afterCreatedAt, Long afterId) {
+        return (root, query, cb) -> {
+            // Fetch the user with the page instead of one select per row
+            if (query.getResultType() == AuditLog.class) {
+                root.fetch("user", JoinType.LEFT);
+            }
+
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filters.getAction() != null) {
+                predicates.add(cb.equal(root.get("actionCode"), AuditCategory.normalize(filters.getAction())));
+            }
+            if (filters.getCategory() != null) {
+                predicates.add(cb.equal(root.get("category"), filters.getCategory()));
+            }
+            if (filters.getEntity() != null) {
+                predicates.add(cb.equal(root.get("entity"), filters.getEntity()));
+            }
+            if (filters.getEntityId() != null) {
+                predicates.add(cb.equal(root.get("entityId"), filters.getEntityId()));
+            }
+            if (filters.getUserId() != null) {
+                predicates.add(cb.equal(root.get("user").get("id"), filters.getUserId()));
+            }
+            if (filters.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filters.getStartDate()));
+            }
+            if (filters.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filters.getEndDate()));
+            }
+            if (afterCreatedAt != null && afterId != null) {
+                predicates.add(cb.or(
+                        cb.lessThan(root.get("createdAt"), afterCreatedAt),
+                        cb.and(cb.equal(root.get("createdAt"), afterCreatedAt),
+                               cb.lessThan(root.get("id"), afterId))));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
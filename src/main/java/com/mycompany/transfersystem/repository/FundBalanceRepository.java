@@ -0,0 +1,51 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.dto.CurrencyAmount;
+import com.mycompany.transfersystem.entity.FundBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FundBalanceRepository extends JpaRepository<FundBalance, Long> {
+
+    // Read as values so balances changed by the bulk updates below are never served stale from the session
+    @Query("SELECT new com.mycompany.transfersystem.dto.CurrencyAmount(b.currency, b.amount) " +
+           "FROM FundBalance b WHERE b.fundId = :fundId")
+    List<CurrencyAmount> findAmountsByFundId(@Param("fundId") Long fundId);
+
+    boolean existsByFundIdAndCurrency(Long fundId, String currency);
+
+    @Query("SELECT b.amount FROM FundBalance b WHERE b.fundId = :fundId AND b.currency = :currency")
+    Optional<BigDecimal> findAmount(@Param("fundId") Long fundId, @Param("currency") String currency);
+
+    @Modifying
+    @Query("UPDATE FundBalance b SET b.amount = b.amount + :delta, b.updatedAt = :now " +
+           "WHERE b.fundId = :fundId AND b.currency = :currency")
+    int adjust(@Param("fundId") Long fundId, @Param("currency") String currency,
+               @Param("delta") BigDecimal delta, @Param("now") LocalDateTime now);
+
+    // Debits only when the bucket covers the amount; 0 rows updated means insufficient (or no) balance
+    @Modifying
+    @Query("UPDATE FundBalance b SET b.amount = b.amount - :amount, b.updatedAt = :now " +
+           "WHERE b.fundId = :fundId AND b.currency = :currency AND b.amount >= :amount")
+    int debitIfCovered(@Param("fundId") Long fundId, @Param("currency") String currency,
+                       @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE FundBalance b SET b.amount = :amount, b.updatedAt = :now " +
+           "WHERE b.fundId = :fundId AND b.currency = :currency")
+    int set(@Param("fundId") Long fundId, @Param("currency") String currency,
+            @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM FundBalance b WHERE b.fundId = :fundId")
+    int deleteByFundId(@Param("fundId") Long fundId);
+}
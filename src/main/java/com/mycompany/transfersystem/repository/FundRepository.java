@@ -13,4 +13,7 @@ public interface FundRepository extends JpaRepository<Fund, Long> {
     List<Fund> findByStatus(FundStatus status);
     boolean existsByName(String name);
     Optional<Fund> findByName(String name);
+    
+    // A branch's operating fund (the oldest one if several are linked)
+    Optional<Fund> findFirstByBranchIdOrderByIdAsc(Long branchId);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.entity.FundValuation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface FundValuationRepository extends JpaRepository<FundValuation, Long> {
+
+    List<FundValuation> findAllByOrderByFundIdAsc();
+
+    @Query("SELECT COALESCE(SUM(v.amount), 0) FROM FundValuation v")
+    BigDecimal sumAmounts();
+}
@@ -0,0 +1,36 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.entity.PlatformFeeTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Repository
+public interface PlatformFeeTotalsRepository extends JpaRepository<PlatformFeeTotals, Long> {
+
+    // In-place increment so concurrent transfers never read-modify-write the counters
+    @Modifying
+    @Query("UPDATE PlatformFeeTotals p SET p.totalBaseFees = p.totalBaseFees + :baseFee, " +
+           "p.totalExchangeProfit = p.totalExchangeProfit + :exchangeProfit, " +
+           "p.transactionCount = p.transactionCount + 1, p.updatedAt = :now WHERE p.id = :id")
+    int increment(@Param("id") Long id,
+                  @Param("baseFee") BigDecimal baseFee,
+                  @Param("exchangeProfit") BigDecimal exchangeProfit,
+                  @Param("now") LocalDateTime now);
+
+    // Takes refunded transfers' fees back out, in place like increment
+    @Modifying
+    @Query("UPDATE PlatformFeeTotals p SET p.totalBaseFees = p.totalBaseFees - :baseFee, " +
+           "p.totalExchangeProfit = p.totalExchangeProfit - :exchangeProfit, " +
+           "p.transactionCount = p.transactionCount - :count, p.updatedAt = :now WHERE p.id = :id")
+    int decrement(@Param("id") Long id,
+                  @Param("baseFee") BigDecimal baseFee,
+                  @Param("exchangeProfit") BigDecimal exchangeProfit,
+                  @Param("count") long count,
+                  @Param("now") LocalDateTime now);
+}
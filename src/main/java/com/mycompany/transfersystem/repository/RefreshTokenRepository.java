@@ -0,0 +1,48 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.dto.RefreshFamilyRevocation;
+import com.mycompany.transfersystem.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("SELECT r FROM RefreshToken r JOIN FETCH r.user WHERE r.token = :token")
+    Optional<RefreshToken> findByTokenWithUser(@Param("token") String token);
+
+    /**
+     * Claim a live token for rotation; 0 means it was already used or revoked
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.isRevoked = true, r.rotated = true, r.revokedAt = :now " +
+           "WHERE r.id = :id AND r.isRevoked = false")
+    int markRotated(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.isRevoked = true, r.revokedAt = :now " +
+           "WHERE r.familyId = :familyId AND r.isRevoked = false")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Query("SELECT DISTINCT r.familyId FROM RefreshToken r WHERE r.user.id = :userId AND r.isRevoked = false")
+    List<String> findActiveFamilyIds(@Param("userId") Long userId);
+
+    @Query("SELECT new com.mycompany.transfersystem.dto.RefreshFamilyRevocation(r.familyId, r.revokedAt) " +
+           "FROM RefreshToken r WHERE r.revokedAt >= :since AND r.rotated = false")
+    List<RefreshFamilyRevocation> findFamilyRevocationsSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.user = null WHERE r.user.id = :userId")
+    int detachUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("DELETE FROM RefreshToken r WHERE r.expiryDate < :before")
+    int deleteExpiredBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,20 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.entity.SettlementRun;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SettlementRunRepository extends JpaRepository<SettlementRun, Long> {
+
+    List<SettlementRun> findAllByOrderByIdDesc(Pageable pageable);
+
+    @Query("SELECT r FROM SettlementRun r LEFT JOIN FETCH r.payments WHERE r.id = :id")
+    Optional<SettlementRun> findWithPaymentsById(@Param("id") Long id);
+}
@@ -1,20 +1,48 @@
 package com.mycompany.transfersystem.repository;
 
+import com.mycompany.transfersystem.dto.BranchObligation;
+import com.mycompany.transfersystem.dto.PickupQueueEntry;
+import com.mycompany.transfersystem.dto.RecentTransfer;
+import com.mycompany.transfersystem.dto.TransactionResponse;
 import com.mycompany.transfersystem.entity.Transaction;
 import com.mycompany.transfersystem.entity.User;
 import com.mycompany.transfersystem.entity.enums.TransactionStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, JpaSpecificationExecutor<Transaction> {
+    
+    // Listing projections: sender, receiver and fund names are joined in the same statement
+    String RESPONSE_PROJECTION = "SELECT new com.mycompany.transfersystem.dto.TransactionResponse(" +
+            "t.id, s.username, r.username, f.name, t.amount, t.status, t.createdAt) " +
+            "FROM Transaction t JOIN t.sender s JOIN t.receiver r JOIN t.fund f ";
+    
+    @Query(RESPONSE_PROJECTION + "ORDER BY t.id")
+    List<TransactionResponse> findAllResponses();
+    
+    @Query(RESPONSE_PROJECTION + "WHERE t.id = :id")
+    Optional<TransactionResponse> findResponseById(@Param("id") Long id);
+    
+    @Query(RESPONSE_PROJECTION + "WHERE s.id = :userId OR r.id = :userId ORDER BY t.id")
+    List<TransactionResponse> findResponsesByUserId(@Param("userId") Long userId);
+    
     List<Transaction> findBySender(User sender);
     List<Transaction> findByReceiver(User receiver);
     List<Transaction> findByStatus(TransactionStatus status);
@@ -35,6 +63,157 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     @Query("SELECT t FROM Transaction t WHERE t.createdAt > :startDate")
     List<Transaction> findByCreatedAtAfter(@Param("startDate") LocalDateTime startDate);
     
+    @Query("SELECT t FROM Transaction t WHERE t.status IN :statuses AND t.createdAt > :startDate")
+    List<Transaction> findByStatusInAndCreatedAtAfter(@Param("statuses") Collection<TransactionStatus> statuses,
+                                                      @Param("startDate") LocalDateTime startDate);
+
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.createdAt > :startDate")
     long countByCreatedAtAfter(@Param("startDate") LocalDateTime startDate);
+    
+    @Query("SELECT t FROM Transaction t WHERE (t.senderBranch.id = :branchId OR t.receiverBranch.id = :branchId) " +
+           "AND t.createdAt > :startDate")
+    List<Transaction> findByBranchSince(@Param("branchId") Long branchId,
+                                        @Param("startDate") LocalDateTime startDate);
+    
+    // Transfers inside the velocity-limit or duplicate window, oldest first
+    @Query("SELECT new com.mycompany.transfersystem.dto.RecentTransfer(" +
+           "t.sender.id, t.receiver.id, sb.id, t.usdEquivalent, t.amount, " +
+           "t.sourceCurrency, t.destinationCurrency, t.createdAt) " +
+           "FROM Transaction t LEFT JOIN t.senderBranch sb " +
+           "WHERE t.createdAt >= :since AND t.status <> :excluded ORDER BY t.createdAt")
+    List<RecentTransfer> findRecentTransfers(@Param("since") LocalDateTime since,
+                                             @Param("excluded") TransactionStatus excluded);
+    
+    // Confirms a duplicate-filter hit; served by idx_transactions_sender_created
+    @Query("SELECT t.id FROM Transaction t WHERE t.sender.id = :senderId AND t.createdAt >= :since " +
+           "AND t.receiver.id = :receiverId AND t.amount = :amount " +
+           "AND UPPER(t.sourceCurrency) = :sourceCurrency AND UPPER(t.destinationCurrency) = :destinationCurrency " +
+           "AND t.status <> :excluded ORDER BY t.createdAt DESC")
+    List<Long> findRecentDuplicateIds(@Param("senderId") Long senderId,
+                                      @Param("receiverId") Long receiverId,
+                                      @Param("amount") BigDecimal amount,
+                                      @Param("sourceCurrency") String sourceCurrency,
+                                      @Param("destinationCurrency") String destinationCurrency,
+                                      @Param("since") LocalDateTime since,
+                                      @Param("excluded") TransactionStatus excluded,
+                                      Pageable pageable);
+    
+    // Transfers awaiting pickup. The status is a literal, not a parameter, so PostgreSQL can
+    // match the partial index idx_transactions_pickup_queue (db/postgresql/pickup-queue-index.sql)
+    String PICKUP_PROJECTION = "SELECT new com.mycompany.transfersystem.dto.PickupQueueEntry(" +
+            "t.id, rb.id, r.id, r.username, r.phone, t.amount, t.destinationCurrency, t.createdAt) " +
+            "FROM Transaction t JOIN t.receiverBranch rb JOIN t.receiver r " +
+            "WHERE t.status = com.mycompany.transfersystem.entity.enums.TransactionStatus.COMPLETED ";
+    
+    // Whole pickup backlog in id order, one batch at a time
+    @Query(PICKUP_PROJECTION + "AND t.id > :afterId ORDER BY t.id")
+    List<PickupQueueEntry> findPickupBatch(@Param("afterId") Long afterId, Pageable pageable);
+    
+    // One branch's queue, oldest first, resuming after the last row of the previous page
+    @Query(PICKUP_PROJECTION + "AND rb.id = :branchId " +
+           "AND (t.createdAt > :afterCreatedAt OR (t.createdAt = :afterCreatedAt AND t.id > :afterId)) " +
+           "ORDER BY t.createdAt, t.id")
+    List<PickupQueueEntry> findPickupQueue(@Param("branchId") Long branchId,
+                                           @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                           @Param("afterId") Long afterId,
+                                           Pageable pageable);
+    
+    @Query(PICKUP_PROJECTION + "AND rb.id = :branchId " +
+           "AND (LOWER(r.username) LIKE :prefix OR r.phone LIKE :prefix) ORDER BY t.createdAt, t.id")
+    List<PickupQueueEntry> searchPickupQueue(@Param("branchId") Long branchId,
+                                             @Param("prefix") String prefix,
+                                             Pageable pageable);
+    
+    // Status change that only applies if nobody else changed the status first
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :to WHERE t.id = :id AND t.status = :from")
+    int updateStatusIf(@Param("id") Long id,
+                       @Param("from") TransactionStatus from,
+                       @Param("to") TransactionStatus to);
+    
+    // Batch form of updateStatusIf; the count tells whether any row was changed in between
+    @Modifying
+    @Query("UPDATE Transaction t SET t.status = :to WHERE t.id IN :ids AND t.status = :from")
+    int updateStatusesIf(@Param("ids") Collection<Long> ids,
+                         @Param("from") TransactionStatus from,
+                         @Param("to") TransactionStatus to);
+    
+    // Everything a release needs for many transfers in one statement, locked in id order so the
+    // status read is the one the release acts on; the sender is fetched for the confirmation
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Transaction t JOIN FETCH t.sender JOIN FETCH t.receiver WHERE t.id IN :ids ORDER BY t.id")
+    List<Transaction> findAllForRelease(@Param("ids") Collection<Long> ids);
+    
+    // Next keyset batch of overdue rows, locked for the caller's transaction; served by
+    // idx_transactions_status_created. Rows locked elsewhere are skipped, not waited for (-2 = SKIP LOCKED)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.createdAt < :cutoff " +
+           "AND (t.createdAt > :afterCreatedAt OR (t.createdAt = :afterCreatedAt AND t.id > :afterId)) " +
+           "ORDER BY t.createdAt, t.id")
+    List<Transaction> lockExpiryBatch(@Param("status") TransactionStatus status,
+                                      @Param("cutoff") LocalDateTime cutoff,
+                                      @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                      @Param("afterId") Long afterId,
+                                      Pageable pageable);
+    
+    @Query("SELECT MIN(t.createdAt) FROM Transaction t WHERE t.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") TransactionStatus status);
+    
+    // Oldest-first batch of rows eligible for cold archival
+    @Query("SELECT t FROM Transaction t WHERE t.status = :status AND t.createdAt < :before ORDER BY t.id")
+    List<Transaction> findArchivable(@Param("status") TransactionStatus status,
+                                     @Param("before") LocalDateTime before,
+                                     Pageable pageable);
+    
+    // Inter-branch obligations: the sending branch owes the paying branch the USD equivalent
+    String SETTLEABLE = "t.usdEquivalent IS NOT NULL AND t.senderBranch IS NOT NULL AND t.receiverBranch IS NOT NULL " +
+            "AND t.senderBranch <> t.receiverBranch AND t.status NOT IN :excluded ";
+    
+    String OBLIGATION_PROJECTION = "SELECT new com.mycompany.transfersystem.dto.BranchObligation(" +
+            "t.senderBranch.id, t.receiverBranch.id, SUM(t.usdEquivalent)) FROM Transaction t ";
+    
+    // A settled transfer that expired is paid back: the paying branch owes the sending branch
+    String REVERSIBLE = "t.settlementRunId IS NOT NULL AND t.status = :expired ";
+    
+    String REVERSAL_PROJECTION = "SELECT new com.mycompany.transfersystem.dto.BranchObligation(" +
+            "t.receiverBranch.id, t.senderBranch.id, SUM(t.usdEquivalent)) FROM Transaction t ";
+    
+    // Claim unsettled rows for a settlement run; concurrent runs claim disjoint sets
+    @Modifying
+    @Query("UPDATE Transaction t SET t.settlementRunId = :runId " +
+           "WHERE t.settlementRunId IS NULL AND t.createdAt < :cutoff AND " + SETTLEABLE)
+    int claimForSettlement(@Param("runId") Long runId,
+                           @Param("cutoff") LocalDateTime cutoff,
+                           @Param("excluded") List<TransactionStatus> excluded);
+    
+    @Query(OBLIGATION_PROJECTION + "WHERE t.settlementRunId = :runId GROUP BY t.senderBranch.id, t.receiverBranch.id")
+    List<BranchObligation> sumObligationsBySettlementRun(@Param("runId") Long runId);
+    
+    @Query(OBLIGATION_PROJECTION + "WHERE t.settlementRunId IS NULL AND " + SETTLEABLE +
+           "GROUP BY t.senderBranch.id, t.receiverBranch.id")
+    List<BranchObligation> sumUnsettledObligations(@Param("excluded") List<TransactionStatus> excluded);
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.reversalSettlementRunId = :runId " +
+           "WHERE t.reversalSettlementRunId IS NULL AND " + REVERSIBLE)
+    int claimReversalsForSettlement(@Param("runId") Long runId, @Param("expired") TransactionStatus expired);
+    
+    @Query(REVERSAL_PROJECTION + "WHERE t.reversalSettlementRunId = :runId GROUP BY t.senderBranch.id, t.receiverBranch.id")
+    List<BranchObligation> sumReversalsBySettlementRun(@Param("runId") Long runId);
+    
+    @Query(REVERSAL_PROJECTION + "WHERE t.reversalSettlementRunId IS NULL AND " + REVERSIBLE +
+           "GROUP BY t.senderBranch.id, t.receiverBranch.id")
+    List<BranchObligation> sumUnsettledReversals(@Param("expired") TransactionStatus expired);
+    
+    // Backfill of branch dimensions for rows written before the columns existed
+    @Modifying
+    @Query("UPDATE Transaction t SET t.senderBranch = (SELECT u.branch FROM User u WHERE u.id = t.sender.id) " +
+           "WHERE t.senderBranch IS NULL AND t.sender.id IN (SELECT u.id FROM User u WHERE u.branch IS NOT NULL)")
+    int backfillSenderBranches();
+    
+    @Modifying
+    @Query("UPDATE Transaction t SET t.receiverBranch = (SELECT u.branch FROM User u WHERE u.id = t.receiver.id) " +
+           "WHERE t.receiverBranch IS NULL AND t.receiver.id IN (SELECT u.id FROM User u WHERE u.branch IS NOT NULL)")
+    int backfillReceiverBranches();
 }
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.dto.TransactionSearchRequest;
+import com.mycompany.transfersystem.entity.Transaction;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Criteria for transaction search. Only the filters that are present become
+ * predicates, so each query can use the matching composite index.
+ */
+public final class TransactionSpecifications {
+
+    private TransactionSpecifications() {
+    }
+
+    public static Specification<Transaction> matching(TransactionSearchRequest filters) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (filters.getSenderBranchId() != null) {
+                predicates.add(cb.equal(root.get("senderBranch").get("id"), filters.getSenderBranchId()));
+            }
+            if (filters.getReceiverBranchId() != null) {
+                predicates.add(cb.equal(root.get("receiverBranch").get("id"), filters.getReceiverBranchId()));
+            }
+            if (filters.getStatus() != null) {
+                predicates.add(cb.equal(root.get("status"), filters.getStatus()));
+            }
+            if (filters.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("createdAt"), filters.getStartDate()));
+            }
+            if (filters.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("createdAt"), filters.getEndDate()));
+            }
+            if (filters.getSourceCurrency() != null) {
+                predicates.add(cb.equal(root.get("sourceCurrency"), filters.getSourceCurrency().toUpperCase()));
+            }
+            if (filters.getDestinationCurrency() != null) {
+                predicates.add(cb.equal(root.get("destinationCurrency"), filters.getDestinationCurrency().toUpperCase()));
+            }
+            if (filters.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.get("amount"), BigDecimal.valueOf(filters.getMinAmount())));
+            }
+            if (filters.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.get("amount"), BigDecimal.valueOf(filters.getMaxAmount())));
+            }
+            if (filters.getSenderId() != null) {
+                predicates.add(cb.equal(root.get("sender").get("id"), filters.getSenderId()));
+            }
+            if (filters.getReceiverId() != null) {
+                predicates.add(cb.equal(root.get("receiver").get("id"), filters.getReceiverId()));
+            }
+
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+}
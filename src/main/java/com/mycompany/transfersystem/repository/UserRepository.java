@@ -1,9 +1,13 @@
 package com.mycompany.transfersystem.repository;
 
+import com.mycompany.transfersystem.dto.UserTokenVersion;
 import com.mycompany.transfersystem.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +16,17 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
     boolean existsByUsername(String username);
     List<User> findByFundId(Long fundId);
+
+    @Query("SELECT new com.mycompany.transfersystem.dto.UserTokenVersion(u.id, u.tokenVersion) FROM User u")
+    List<UserTokenVersion> findAllTokenVersions();
+
+    @Query("SELECT new com.mycompany.transfersystem.dto.UserTokenVersion(u.id, u.tokenVersion) FROM User u " +
+           "WHERE u.updatedAt >= :since")
+    List<UserTokenVersion> findTokenVersionsUpdatedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Query("SELECT u.id FROM User u")
+    List<Long> findAllIds();
 }
\ No newline at end of file
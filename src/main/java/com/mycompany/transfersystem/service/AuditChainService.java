@@ -0,0 +1,406 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.AuditVerificationResult;
+import com.mycompany.transfersystem.entity.AuditCheckpoint;
+import com.mycompany.transfersystem.repository.AuditCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tamper evidence for audit_logs. Each record's hash covers its contents and
+ * the previous record's hash, so editing or deleting a row breaks the chain.
+ *
+ * Records are sealed in id order by a background job rather than in
+ * AuditService.log: one SHA-256 per row, one batched UPDATE and one
+ * checkpoint (Merkle root + chain head) per batch. Ids are assigned at
+ * insert, so a long transaction can commit a record after the chain has
+ * passed its id; such records are sealed later into late checkpoints of
+ * their own, and the main chain steps over them.
+ */
+@Service
+public class AuditChainService {
+
+    private static final Logger log = LoggerFactory.getLogger(AuditChainService.class);
+
+    static final String GENESIS_HASH = "0".repeat(64);
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSS");
+
+    private static final String SELECT_COLUMNS = "SELECT id, action, user_id, entity, entity_id, created_at, " +
+            "prev_hash, record_hash, late_checkpoint_id FROM audit_logs ";
+
+    private final AuditCheckpointRepository auditCheckpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.audit.seal-batch-size:1000}")
+    private int batchSize = 1000;
+
+    // Rows younger than this are left for the next run so transactions still
+    // in flight (holding lower ids) can commit before the chain passes them
+    @Value("${app.audit.seal-grace-seconds:5}")
+    private int graceSeconds = 5;
+
+    @Value("${app.audit.verify-fetch-size:500}")
+    private int fetchSize = 500;
+
+    @Autowired
+    public AuditChainService(AuditCheckpointRepository auditCheckpointRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager) {
+        this.auditCheckpointRepository = auditCheckpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.audit.seal-interval-ms:10000}")
+    public void sealPending() {
+        int sealed = sealPending(LocalDateTime.now().minusSeconds(graceSeconds));
+        if (sealed > 0) {
+            log.debug("Sealed {} audit records", sealed);
+        }
+    }
+
+    /**
+     * Seal all unsealed records created before the cutoff: first the records
+     * the chain has already passed, then those that extend it
+     * @return number of records sealed
+     */
+    int sealPending(LocalDateTime cutoff) {
+        int total = 0;
+        while (true) {
+            Integer sealed = transactionTemplate.execute(status -> sealLateBatch(cutoff));
+            if (sealed == null || sealed == 0) {
+                break;
+            }
+            total += sealed;
+            if (sealed < batchSize) {
+                break;
+            }
+        }
+        while (true) {
+            Integer sealed = transactionTemplate.execute(status -> sealBatch(cutoff));
+            if (sealed == null || sealed == 0) {
+                return total;
+            }
+            total += sealed;
+            if (sealed < batchSize) {
+                return total;
+            }
+        }
+    }
+
+    private int sealBatch(LocalDateTime cutoff) {
+        Optional<AuditCheckpoint> last = auditCheckpointRepository.findMainChainHead();
+        long afterId = last.map(AuditCheckpoint::getLastLogId).orElse(0L);
+        String previous = last.map(AuditCheckpoint::getChainHead).orElse(GENESIS_HASH);
+
+        List<AuditRow> rows = jdbcTemplate.query(
+                SELECT_COLUMNS + "WHERE id > ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> AuditRow.from(rs), afterId, batchSize);
+
+        // Stop at the first row inside the grace window so the sealed prefix stays contiguous
+        List<AuditRow> batch = new ArrayList<>();
+        for (AuditRow row : rows) {
+            if (!row.createdAt().isBefore(cutoff)) {
+                break;
+            }
+            batch.add(row);
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        AuditCheckpoint checkpoint = seal(batch, previous, false);
+        log.info("Audit checkpoint sealed: records {}-{} ({}), merkleRoot={}, chainHead={}",
+                checkpoint.getFirstLogId(), checkpoint.getLastLogId(), checkpoint.getRecordCount(),
+                checkpoint.getMerkleRoot(), checkpoint.getChainHead());
+        return batch.size();
+    }
+
+    /**
+     * Seal records below the main chain head that committed after it passed them
+     */
+    private int sealLateBatch(LocalDateTime cutoff) {
+        Optional<AuditCheckpoint> head = auditCheckpointRepository.findMainChainHead();
+        if (head.isEmpty()) {
+            return 0;
+        }
+        List<AuditRow> batch = jdbcTemplate.query(
+                SELECT_COLUMNS + "WHERE id <= ? AND record_hash IS NULL AND created_at < ? ORDER BY id LIMIT ?",
+                (rs, rowNum) -> AuditRow.from(rs), head.get().getLastLogId(), Timestamp.valueOf(cutoff), batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        AuditCheckpoint checkpoint = seal(batch, GENESIS_HASH, true);
+        jdbcTemplate.batchUpdate("UPDATE audit_logs SET late_checkpoint_id = ? WHERE id = ?",
+                batch.stream().map(row -> new Object[]{checkpoint.getId(), row.id()}).toList());
+        log.warn("Audit checkpoint {} sealed {} records that committed after the chain passed them: ids {}-{}, " +
+                        "merkleRoot={}", checkpoint.getId(), checkpoint.getRecordCount(), checkpoint.getFirstLogId(),
+                checkpoint.getLastLogId(), checkpoint.getMerkleRoot());
+        return batch.size();
+    }
+
+    /**
+     * Hash the records in order starting from {@code previous}, store the hashes and save their checkpoint
+     */
+    private AuditCheckpoint seal(List<AuditRow> batch, String previous, boolean late) {
+        MessageDigest digest = sha256();
+        List<Object[]> updates = new ArrayList<>(batch.size());
+        List<byte[]> leaves = new ArrayList<>(batch.size());
+        for (AuditRow row : batch) {
+            byte[] hash = recordHash(digest, previous, row);
+            String hex = HEX.formatHex(hash);
+            updates.add(new Object[]{previous, hex, row.id()});
+            leaves.add(hash);
+            previous = hex;
+        }
+        jdbcTemplate.batchUpdate("UPDATE audit_logs SET prev_hash = ?, record_hash = ? WHERE id = ?", updates);
+
+        AuditCheckpoint checkpoint = new AuditCheckpoint();
+        checkpoint.setFirstLogId(batch.get(0).id());
+        checkpoint.setLastLogId(batch.get(batch.size() - 1).id());
+        checkpoint.setRecordCount(batch.size());
+        checkpoint.setMerkleRoot(HEX.formatHex(merkleRoot(digest, leaves)));
+        checkpoint.setChainHead(previous);
+        checkpoint.setSealedAt(LocalDateTime.now());
+        checkpoint.setLate(late);
+        // The callers publish it to the log so the root can be anchored outside the database
+        return auditCheckpointRepository.save(checkpoint);
+    }
+
+    public Optional<AuditCheckpoint> getLatestCheckpoint() {
+        return auditCheckpointRepository.findMainChainHead();
+    }
+
+    /**
+     * Verify the chain over an id range, reading records as a stream.
+     * Checks each record's hash, its link to the previous record and the
+     * Merkle root of every checkpoint fully inside the range, then each late
+     * checkpoint fully inside the range on its own.
+     */
+    public AuditVerificationResult verify(Long fromId, Long toId) {
+        long from = fromId != null ? fromId : 1L;
+        long to = toId != null ? toId : Long.MAX_VALUE;
+        if (from > to) {
+            throw new IllegalArgumentException("fromId must not be greater than toId");
+        }
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly.execute(status -> {
+            List<String> previousRow = jdbcTemplate.queryForList(
+                    "SELECT record_hash FROM audit_logs WHERE id < ? AND record_hash IS NOT NULL " +
+                            "AND late_checkpoint_id IS NULL ORDER BY id DESC LIMIT 1", String.class, from);
+            String expectedPrevious = previousRow.isEmpty() ? GENESIS_HASH : previousRow.get(0);
+
+            Iterator<AuditCheckpoint> checkpoints = auditCheckpointRepository.findWithin(from, to).iterator();
+            Verifier verifier = new Verifier(from, to, expectedPrevious, checkpoints);
+
+            // A forward-only cursor with a bounded fetch size keeps memory flat for any range
+            AuditVerificationResult result = jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(
+                        SELECT_COLUMNS + "WHERE id BETWEEN ? AND ? ORDER BY id",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(fetchSize);
+                statement.setLong(1, from);
+                statement.setLong(2, to);
+                return statement;
+            }, verifier::run);
+            if (result == null || !result.isValid()) {
+                return result;
+            }
+            for (AuditCheckpoint late : auditCheckpointRepository.findLateWithin(from, to)) {
+                List<AuditRow> rows = jdbcTemplate.query(SELECT_COLUMNS + "WHERE late_checkpoint_id = ? ORDER BY id",
+                        (rs, rowNum) -> AuditRow.from(rs), late.getId());
+                if (!verifyLate(late, rows, result)) {
+                    return result;
+                }
+            }
+            return result;
+        });
+    }
+
+    private static boolean verifyLate(AuditCheckpoint checkpoint, List<AuditRow> rows, AuditVerificationResult result) {
+        MessageDigest digest = sha256();
+        List<byte[]> leaves = new ArrayList<>(rows.size());
+        String previous = GENESIS_HASH;
+        for (AuditRow row : rows) {
+            byte[] hash = recordHash(digest, previous, row);
+            if (!previous.equals(row.prevHash()) || !HEX.formatHex(hash).equals(row.recordHash())) {
+                return fail(result, row.id(), "Record sealed by late checkpoint " + checkpoint.getId() + " was altered");
+            }
+            leaves.add(hash);
+            previous = row.recordHash();
+        }
+        if (rows.size() != checkpoint.getRecordCount() || !previous.equals(checkpoint.getChainHead())
+                || !HEX.formatHex(merkleRoot(digest, leaves)).equals(checkpoint.getMerkleRoot())) {
+            return fail(result, checkpoint.getLastLogId(), "Merkle root mismatch for late checkpoint " + checkpoint.getId());
+        }
+        result.setRecordsChecked(result.getRecordsChecked() + rows.size());
+        result.setCheckpointsChecked(result.getCheckpointsChecked() + 1);
+        return true;
+    }
+
+    private static boolean fail(AuditVerificationResult result, long id, String reason) {
+        result.setValid(false);
+        result.setFirstInvalidId(id);
+        result.setReason(reason);
+        return false;
+    }
+
+    private static final class Verifier {
+
+        private final AuditVerificationResult result = new AuditVerificationResult();
+        private final Iterator<AuditCheckpoint> checkpoints;
+        private final MessageDigest digest = sha256();
+        private final List<byte[]> leaves = new ArrayList<>();
+        private AuditCheckpoint checkpoint;
+        private String expectedPrevious;
+
+        Verifier(long from, long to, String expectedPrevious, Iterator<AuditCheckpoint> checkpoints) {
+            this.result.setFromId(from);
+            this.result.setToId(to == Long.MAX_VALUE ? null : to);
+            this.result.setValid(true);
+            this.expectedPrevious = expectedPrevious;
+            this.checkpoints = checkpoints;
+            this.checkpoint = checkpoints.hasNext() ? checkpoints.next() : null;
+        }
+
+        AuditVerificationResult run(ResultSet rs) throws SQLException {
+            while (rs.next()) {
+                AuditRow row = AuditRow.from(rs);
+                if (row.recordHash() == null) {
+                    // Not sealed yet: beyond the head, or committed after the chain passed it. A record
+                    // unsealed by tampering inside a checkpoint fails that checkpoint's Merkle root.
+                    result.setUnsealedRecords(result.getUnsealedRecords() + 1);
+                    continue;
+                }
+                if (row.lateCheckpointId() != null) {
+                    // Not part of the main chain; verified with its late checkpoint
+                    continue;
+                }
+                if (expectedPrevious == null || !expectedPrevious.equals(row.prevHash())) {
+                    return fail(row.id(), "Chain link broken: previous record missing or altered");
+                }
+                byte[] hash = recordHash(digest, row.prevHash(), row);
+                if (!HEX.formatHex(hash).equals(row.recordHash())) {
+                    return fail(row.id(), "Record contents do not match the sealed hash");
+                }
+                expectedPrevious = row.recordHash();
+                result.setRecordsChecked(result.getRecordsChecked() + 1);
+
+                if (checkpoint != null && row.id() >= checkpoint.getFirstLogId()) {
+                    leaves.add(hash);
+                    if (row.id() == checkpoint.getLastLogId()) {
+                        if (!checkCheckpoint(row.id())) {
+                            return result;
+                        }
+                    }
+                }
+            }
+            if (checkpoint != null && !leaves.isEmpty()) {
+                return fail(checkpoint.getLastLogId(), "Records sealed by checkpoint " + checkpoint.getId() + " are missing");
+            }
+            return result;
+        }
+
+        private boolean checkCheckpoint(long id) {
+            String root = HEX.formatHex(merkleRoot(digest, leaves));
+            if (leaves.size() != checkpoint.getRecordCount() || !root.equals(checkpoint.getMerkleRoot())
+                    || !expectedPrevious.equals(checkpoint.getChainHead())) {
+                fail(id, "Merkle root mismatch for checkpoint " + checkpoint.getId());
+                return false;
+            }
+            result.setCheckpointsChecked(result.getCheckpointsChecked() + 1);
+            leaves.clear();
+            checkpoint = checkpoints.hasNext() ? checkpoints.next() : null;
+            return true;
+        }
+
+        private AuditVerificationResult fail(long id, String reason) {
+            AuditChainService.fail(result, id, reason);
+            return result;
+        }
+    }
+
+    private record AuditRow(long id, String action, long userId, String entity, long entityId,
+                            LocalDateTime createdAt, String prevHash, String recordHash, Long lateCheckpointId) {
+
+        static AuditRow from(ResultSet rs) throws SQLException {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            return new AuditRow(
+                    rs.getLong("id"),
+                    rs.getString("action"),
+                    rs.getLong("user_id"),
+                    rs.getString("entity"),
+                    rs.getLong("entity_id"),
+                    createdAt.toLocalDateTime().truncatedTo(ChronoUnit.MICROS),
+                    rs.getString("prev_hash"),
+                    rs.getString("record_hash"),
+                    rs.getObject("late_checkpoint_id", Long.class));
+        }
+    }
+
+    private static byte[] recordHash(MessageDigest digest, String previousHash, AuditRow row) {
+        digest.reset();
+        digest.update(HEX.parseHex(previousHash));
+        String canonical = row.id() + "\n" + row.action() + "\n" + row.userId() + "\n"
+                + row.entity() + "\n" + row.entityId() + "\n" + TIMESTAMP.format(row.createdAt());
+        return digest.digest(canonical.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Binary Merkle tree over the leaf hashes; an odd node is paired with itself
+     */
+    static byte[] merkleRoot(MessageDigest digest, List<byte[]> leaves) {
+        if (leaves.isEmpty()) {
+            return HEX.parseHex(GENESIS_HASH);
+        }
+        List<byte[]> level = new ArrayList<>(leaves);
+        while (level.size() > 1) {
+            List<byte[]> next = new ArrayList<>((level.size() + 1) / 2);
+            for (int i = 0; i < level.size(); i += 2) {
+                byte[] left = level.get(i);
+                byte[] right = i + 1 < level.size() ? level.get(i + 1) : left;
+                digest.reset();
+                digest.update(left);
+                next.add(digest.digest(right));
+            }
+            level = next;
+        }
+        return level.get(0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.AuditLogPage;
+import com.mycompany.transfersystem.dto.AuditLogResponse;
+import com.mycompany.transfersystem.dto.AuditLogSearchRequest;
+import com.mycompany.transfersystem.entity.AuditLog;
+import com.mycompany.transfersystem.repository.AuditLogRepository;
+import com.mycompany.transfersystem.repository.AuditLogSpecifications;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Filtered audit log queries with keyset pagination on (createdAt, id),
+ * newest first. Unlike offset paging, fetching a later page costs the same
+ * as the first one.
+ */
+@Service
+public class AuditLogQueryService {
+
+    static final int MAX_PAGE_SIZE = 500;
+
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final AuditLogRepository auditLogRepository;
+
+    @Autowired
+    public AuditLogQueryService(AuditLogRepository auditLogRepository) {
+        this.auditLogRepository = auditLogRepository;
+    }
+
+    /**
+     * Search audit logs
+     * @param filters Search criteria and cursor from the previous page
+     * @return One page of results and the cursor for the next page
+     */
+    @Transactional(readOnly = true)
+    public AuditLogPage search(AuditLogSearchRequest filters) {
+        int size = Math.max(1, Math.min(filters.getSize() != null ? filters.getSize() : 50, MAX_PAGE_SIZE));
+
+        LocalDateTime afterCreatedAt = null;
+        Long afterId = null;
+        if (filters.getCursor() != null && !filters.getCursor().isBlank()) {
+            String[] key = decodeCursor(filters.getCursor());
+            afterCreatedAt = LocalDateTime.parse(key[0]);
+            afterId = Long.valueOf(key[1]);
+        }
+
+        // One row past the page tells us whether another page exists without a count query
+        List<AuditLog> rows = auditLogRepository.findBy(
+                AuditLogSpecifications.matching(filters, afterCreatedAt, afterId),
+                query -> query.sortBy(NEWEST_FIRST).limit(size + 1).all());
+
+        boolean hasMore = rows.size() > size;
+        List<AuditLog> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+
+        return new AuditLogPage(page.stream().map(this::toResponse).toList(), nextCursor);
+    }
+
+    private AuditLogResponse toResponse(AuditLog auditLog) {
+        return new AuditLogResponse(
+                auditLog.getId(),
+                auditLog.getAction(),
+                auditLog.getCategory() != null ? auditLog.getCategory().name() : null,
+                auditLog.getUser() != null ? auditLog.getUser().getUsername() : "SYSTEM",
+                auditLog.getUser() != null && auditLog.getUser().getRole() != null ? auditLog.getUser().getRole().name() : null,
+                auditLog.getEntity(),
+                auditLog.getEntityId(),
+                auditLog.getCreatedAt());
+    }
+
+    static String encodeCursor(AuditLog last) {
+        String key = last.getCreatedAt() + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return key;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
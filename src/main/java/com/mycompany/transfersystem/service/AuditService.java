@@ -2,44 +2,78 @@ package com.mycompany.transfersystem.service;
 
 import com.mycompany.transfersystem.dto.TransactionSearchRequest;
 import com.mycompany.transfersystem.entity.*;
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
 import com.mycompany.transfersystem.entity.enums.TransactionStatus;
 import com.mycompany.transfersystem.repository.*;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 @Service
 public class AuditService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
     private final TransactionRepository transactionRepository;
     private final FundRepository fundRepository;
     private final BranchRepository branchRepository;
     private final CommissionRateRepository commissionRateRepository;
     private final AuditLogRepository auditLogRepository;
+    private final PlatformFeeTotalsRepository platformFeeTotalsRepository;
+    private final TransactionArchiveService transactionArchiveService;
+    private final BranchPositionService branchPositionService;
+    private final UserRepository userRepository;
+
+    // Writes audit rows off the request thread; a full queue makes the caller write it, so none are dropped
+    private final ThreadPoolExecutor auditWriter = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10_000), runnable -> {
+                Thread thread = new Thread(runnable, "audit-writer");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
 
     @Autowired
     public AuditService(TransactionRepository transactionRepository,
                        FundRepository fundRepository,
                        BranchRepository branchRepository,
                        CommissionRateRepository commissionRateRepository,
-                       AuditLogRepository auditLogRepository) {
+                       AuditLogRepository auditLogRepository,
+                       PlatformFeeTotalsRepository platformFeeTotalsRepository,
+                       TransactionArchiveService transactionArchiveService,
+                       BranchPositionService branchPositionService,
+                       UserRepository userRepository) {
         this.transactionRepository = transactionRepository;
         this.fundRepository = fundRepository;
         this.branchRepository = branchRepository;
         this.commissionRateRepository = commissionRateRepository;
         this.auditLogRepository = auditLogRepository;
+        this.platformFeeTotalsRepository = platformFeeTotalsRepository;
+        this.transactionArchiveService = transactionArchiveService;
+        this.branchPositionService = branchPositionService;
+        this.userRepository = userRepository;
     }
 
     /**
@@ -48,9 +82,17 @@ public class AuditService {
      * @return Fund status with balance and debt/credit information
      */
     public Map<String, Object> getBranchFundStatus(Long branchId) {
-        Map<String, Object> fundStatus = new HashMap<>();
+        checkBranchAccess(branchId);
         
-        // Check authorization for branch managers
+        // Served from the in-memory position table, kept current by transfer postings
+        return branchPositionService.getPosition(branchId).getStatus();
+    }
+
+    /**
+     * Branch managers may only see branches they are authorized for
+     * @param branchId Branch ID
+     */
+    public void checkBranchAccess(Long branchId) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.getAuthorities().stream()
                 .anyMatch(authority -> authority.getAuthority().equals("ROLE_BRANCH_MANAGER"))) {
@@ -58,49 +100,10 @@ public class AuditService {
             // For branch managers, check if they can access this branch
             // In a real system, you'd check the user's managed branch ID
             // For now, we'll implement a simple check based on branch ID
-            if (!isBranchManagerAuthorized(branchId, auth.getName())) {
+            if (branchId == null || !isBranchManagerAuthorized(branchId, auth.getName())) {
                 throw new RuntimeException("Access denied: Branch manager can only access their own branch");
             }
         }
-        
-        // Get branch information
-        Branch branch = branchRepository.findById(branchId)
-                .orElseThrow(() -> new RuntimeException("Branch not found with ID: " + branchId));
-        
-        // Get branch fund
-        String fundName = branch.getName() + " Fund";
-        Optional<Fund> branchFundOpt = fundRepository.findByName(fundName);
-        
-        if (branchFundOpt.isPresent()) {
-            Fund branchFund = branchFundOpt.get();
-            fundStatus.put("branchId", branchId);
-            fundStatus.put("branchName", branch.getName());
-            fundStatus.put("fundName", fundName);
-            fundStatus.put("currentBalance", branchFund.getBalance());
-            fundStatus.put("fundStatus", branchFund.getStatus());
-            fundStatus.put("lastUpdated", LocalDateTime.now());
-            
-            // Calculate net position (positive = credit, negative = debt)
-            BigDecimal balance = branchFund.getBalance();
-            if (balance.compareTo(BigDecimal.ZERO) >= 0) {
-                fundStatus.put("netPosition", "CREDIT");
-                fundStatus.put("netAmount", balance);
-            } else {
-                fundStatus.put("netPosition", "DEBT");
-                fundStatus.put("netAmount", balance.abs());
-            }
-        } else {
-            fundStatus.put("branchId", branchId);
-            fundStatus.put("branchName", branch.getName());
-            fundStatus.put("fundName", fundName);
-            fundStatus.put("currentBalance", BigDecimal.ZERO);
-            fundStatus.put("fundStatus", "NOT_CREATED");
-            fundStatus.put("netPosition", "NO_FUND");
-            fundStatus.put("netAmount", BigDecimal.ZERO);
-            fundStatus.put("lastUpdated", LocalDateTime.now());
-        }
-        
-        return fundStatus;
     }
 
     /**
@@ -108,6 +111,7 @@ public class AuditService {
      * @param filters Search criteria
      * @return Page of transactions matching the criteria
      */
+    @Transactional(readOnly = true)
     public Page<Transaction> searchTransactions(TransactionSearchRequest filters) {
         // Create pageable with sorting
         Sort sort = Sort.by(
@@ -119,30 +123,49 @@ public class AuditService {
         
         Pageable pageable = PageRequest.of(filters.getPage(), filters.getSize(), sort);
         
-        // For now, we'll use a simple approach with the existing repository
-        // In a real implementation, you might want to create custom query methods
-        // or use Criteria API for more complex filtering
+        // Only the supplied filters become predicates, so branch/status/date
+        // searches are served by the composite indexes on transactions
+        if (!transactionArchiveService.mayContain(filters)) {
+            return transactionRepository.findAll(TransactionSpecifications.matching(filters), pageable);
+        }
         
-        if (filters.getStartDate() != null && filters.getEndDate() != null) {
-            return transactionRepository.findByCreatedAtBetween(
-                filters.getStartDate(), 
-                filters.getEndDate(), 
-                pageable
-            );
-        } else if (filters.getStatus() != null) {
-            return transactionRepository.findByStatus(filters.getStatus(), pageable);
-        } else {
-            return transactionRepository.findAll(pageable);
+        // Archived (released) transactions are merged with the hot ones in one order, so the
+        // page is cut from the merged stream: both sources up to the end of the page are needed
+        List<Transaction> archived = transactionArchiveService.search(filters);
+        int end = (int) Math.min(Integer.MAX_VALUE, pageable.getOffset() + pageable.getPageSize());
+        Page<Transaction> hot = transactionRepository.findAll(TransactionSpecifications.matching(filters),
+                PageRequest.of(0, end, TransactionArchiveService.sort(filters)));
+        Comparator<Transaction> order = TransactionArchiveService.comparator(filters);
+
+        List<Transaction> content = new ArrayList<>(pageable.getPageSize());
+        Iterator<Transaction> hotRows = hot.getContent().iterator();
+        Iterator<Transaction> archivedRows = archived.iterator();
+        Transaction nextHot = hotRows.hasNext() ? hotRows.next() : null;
+        Transaction nextArchived = archivedRows.hasNext() ? archivedRows.next() : null;
+        for (int position = 0; position < end && (nextHot != null || nextArchived != null); position++) {
+            Transaction next;
+            if (nextArchived == null || (nextHot != null && order.compare(nextHot, nextArchived) <= 0)) {
+                next = nextHot;
+                nextHot = hotRows.hasNext() ? hotRows.next() : null;
+            } else {
+                next = nextArchived;
+                nextArchived = archivedRows.hasNext() ? archivedRows.next() : null;
+            }
+            if (position >= pageable.getOffset()) {
+                content.add(next);
+            }
         }
+        return new PageImpl<>(content, pageable, hot.getTotalElements() + archived.size());
     }
 
     /**
      * Get fee modification history
      * @return List of fee modification records
      */
+    @Transactional(readOnly = true)
     public List<Map<String, Object>> getFeeModificationHistory() {
-        // Get all audit logs related to fee modifications
-        List<AuditLog> feeAuditLogs = auditLogRepository.findByActionContainingIgnoreCase("FEE");
+        // Fee actions are categorized on write, so this is an index seek rather than LIKE '%FEE%'
+        List<AuditLog> feeAuditLogs = auditLogRepository.findByCategoryWithUser(AuditCategory.FEE);
         
         return feeAuditLogs.stream()
                 .map(this::convertAuditLogToMap)
@@ -153,6 +176,7 @@ public class AuditService {
      * Get platform fund summary
      * @return Platform fund summary with total balance and transaction history
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getPlatformSummary() {
         Map<String, Object> summary = new HashMap<>();
         
@@ -166,9 +190,13 @@ public class AuditService {
             summary.put("fundStatus", platformFund.getStatus());
             summary.put("lastUpdated", LocalDateTime.now());
             
-            // Calculate total fees collected (this would be calculated from transaction history)
-            BigDecimal totalFeesCollected = calculateTotalPlatformFees();
-            summary.put("totalFeesCollected", totalFeesCollected);
+            // Fee totals are maintained incrementally by executeTransfer
+            PlatformFeeTotals feeTotals = platformFeeTotalsRepository.findById(PlatformFeeTotals.PLATFORM_ID)
+                    .orElseGet(() -> new PlatformFeeTotals(PlatformFeeTotals.PLATFORM_ID));
+            summary.put("totalFeesCollected", feeTotals.getTotalFees());
+            summary.put("totalPlatformBaseFees", feeTotals.getTotalBaseFees());
+            summary.put("totalExchangeProfit", feeTotals.getTotalExchangeProfit());
+            summary.put("feeTransactionCount", feeTotals.getTransactionCount());
             
             // Get recent transaction count
             long recentTransactionCount = transactionRepository.countByCreatedAtAfter(
@@ -194,6 +222,7 @@ public class AuditService {
      * @param days Number of days to look back
      * @return Transaction report
      */
+    @Transactional(readOnly = true)
     public Map<String, Object> getBranchTransactionReport(Long branchId, int days) {
         Map<String, Object> report = new HashMap<>();
         
@@ -203,12 +232,7 @@ public class AuditService {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
         
         // Get transactions for this branch (as sender or receiver)
-        List<Transaction> transactions = transactionRepository.findByCreatedAtAfter(startDate);
-        
-        // Filter transactions for this branch
-        List<Transaction> branchTransactions = transactions.stream()
-                .filter(t -> isTransactionRelatedToBranch(t, branchId))
-                .toList();
+        List<Transaction> branchTransactions = transactionRepository.findByBranchSince(branchId, startDate);
         
         report.put("branchId", branchId);
         report.put("branchName", branch.getName());
@@ -234,6 +258,7 @@ public class AuditService {
      * @param branchId Branch ID
      * @return List of commission rates
      */
+    @Transactional(readOnly = true)
     public List<CommissionRate> getBranchCommissionRates(Long branchId) {
         Branch branch = branchRepository.findById(branchId)
                 .orElseThrow(() -> new RuntimeException("Branch not found with ID: " + branchId));
@@ -255,19 +280,6 @@ public class AuditService {
         return logMap;
     }
 
-    private BigDecimal calculateTotalPlatformFees() {
-        // This would typically be calculated from transaction history
-        // For now, we'll return a placeholder
-        return new BigDecimal("1000.00"); // Placeholder value
-    }
-
-    private boolean isTransactionRelatedToBranch(Transaction transaction, Long branchId) {
-        // This is a simplified check - in a real implementation,
-        // you'd need to check if the transaction involves the specified branch
-        // For now, we'll return true for all transactions
-        return true;
-    }
-
     /**
      * Log an audit event
      * @param action Action performed
@@ -286,6 +298,42 @@ public class AuditService {
         auditLogRepository.save(auditLog);
     }
 
+    /**
+     * Log an audit event by user id; the user is referenced, not loaded
+     * @param action Action performed
+     * @param userId ID of the user who performed the action
+     * @param entityType Type of entity affected
+     * @param entityId ID of entity affected
+     */
+    public void log(String action, Long userId, String entityType, Long entityId) {
+        log(action, userRepository.getReferenceById(userId), entityType, entityId);
+    }
+
+    /**
+     * Log an audit event without waiting for the row to be written
+     * @param action Action performed
+     * @param user User who performed the action
+     * @param entityType Type of entity affected
+     * @param entityId ID of entity affected
+     */
+    public void logAsync(String action, User user, String entityType, Long entityId) {
+        auditWriter.execute(() -> {
+            try {
+                log(action, user, entityType, entityId);
+            } catch (RuntimeException e) {
+                log.error("Failed to write audit event {} for user {}", action, user.getId(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void flushPendingLogs() throws InterruptedException {
+        auditWriter.shutdown();
+        if (!auditWriter.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("{} audit events not written at shutdown", auditWriter.getQueue().size());
+        }
+    }
+
     /**
      * Check if a branch manager is authorized to access a specific branch
      * @param branchId Branch ID to check
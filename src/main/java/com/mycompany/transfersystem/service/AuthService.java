@@ -1,59 +1,70 @@
 package com.mycompany.transfersystem.service;
 
-import com.mycompany.transfersystem.config.JwtUtil;
 import com.mycompany.transfersystem.dto.LoginRequest;
 import com.mycompany.transfersystem.dto.LoginResponse;
 import com.mycompany.transfersystem.entity.User;
 import com.mycompany.transfersystem.repository.UserRepository;
+import com.mycompany.transfersystem.service.PasswordHashingService.PasswordCheck;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
+/**
+ * Login pipeline: one user lookup, the password check on the bounded
+ * hashing pool, a transparent hash upgrade when the stored cost is below
+ * the configured one, token issue, and the LOGIN audit row written in the
+ * background.
+ */
 @Service
 public class AuthService {
 
     @Autowired
-    private AuthenticationManager authenticationManager;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private AuditService auditService;
 
     @Autowired
-    private JwtUtil jwtUtil;
+    private RefreshTokenService refreshTokenService;
 
     @Autowired
-    private AuditService auditService;
+    private PasswordHashingService passwordHashingService;
 
     public LoginResponse login(LoginRequest loginRequest) {
-        try {
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    loginRequest.getUsername(), 
-                    loginRequest.getPassword()
-                )
-            );
-
-            User user = userRepository.findByUsername(loginRequest.getUsername())
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
-
-            String token = jwtUtil.generateToken(user.getUsername(), user.getRole().name());
-            
-            // Log the login action
-            auditService.log("LOGIN", user, "User", user.getId());
-
-            return new LoginResponse(
-                token, 
-                user.getUsername(), 
-                user.getRole().name(), 
-                jwtUtil.getExpirationTime()
-            );
-
-        } catch (BadCredentialsException e) {
+        Optional<User> found = userRepository.findByUsername(loginRequest.getUsername());
+        PasswordCheck check = passwordHashingService.verify(loginRequest.getPassword(),
+                found.map(User::getPassword).orElse(null));
+        if (found.isEmpty() || !check.matches()) {
             throw new BadCredentialsException("Invalid username or password");
         }
+        User user = found.get();
+
+        if (check.upgradedHash() != null) {
+            user.setPassword(check.upgradedHash());
+            userRepository.save(user);
+        }
+
+        LoginResponse response = refreshTokenService.issue(user);
+
+        // Log the login action
+        auditService.logAsync("LOGIN", user, "User", user.getId());
+
+        return response;
+    }
+
+    /**
+     * Rotate a refresh token into a new access token and refresh token
+     */
+    public LoginResponse refresh(String refreshToken) {
+        return refreshTokenService.refresh(refreshToken);
+    }
+
+    /**
+     * End the session the refresh token belongs to, including its outstanding access tokens
+     */
+    public void logout(String refreshToken) {
+        refreshTokenService.logout(refreshToken);
     }
-}
\ No newline at end of file
+}
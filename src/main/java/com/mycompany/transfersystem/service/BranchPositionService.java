@@ -0,0 +1,306 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.BranchPosition;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.event.FundPosting;
+import com.mycompany.transfersystem.event.TransferCompletedEvent;
+import com.mycompany.transfersystem.event.TransferExpiredEvent;
+import com.mycompany.transfersystem.repository.BranchRepository;
+import com.mycompany.transfersystem.repository.FundRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory branch position table keyed by branch id. A position is loaded
+ * from its linked fund on first read and afterwards kept current by applying
+ * the postings of each committed transfer, so dashboard polling never hits
+ * the database. Cached positions are reloaded periodically, which picks up
+ * postings made by other instances. A loaded snapshot is only cached when no
+ * posting for the branch was between its commit and its application while
+ * loading, since the snapshot may already include such a posting. Changes can
+ * be pushed to subscribers over server-sent events.
+ */
+@Service
+public class BranchPositionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BranchPositionService.class);
+
+    private final FundRepository fundRepository;
+    private final BranchRepository branchRepository;
+
+    private final ConcurrentMap<Long, BranchPosition> positions = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PostingGuard> guards = new ConcurrentHashMap<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    @Value("${app.positions.sse.enabled:true}")
+    private boolean pushEnabled = true;
+
+    @Value("${app.positions.sse.timeout-ms:1800000}")
+    private long pushTimeoutMs = 1_800_000L;
+
+    @Value("${app.positions.refresh.enabled:true}")
+    private boolean refreshEnabled = true;
+
+    @Autowired
+    public BranchPositionService(FundRepository fundRepository, BranchRepository branchRepository) {
+        this.fundRepository = fundRepository;
+        this.branchRepository = branchRepository;
+    }
+
+    /**
+     * Current position of a branch
+     * @throws RuntimeException if the branch does not exist
+     */
+    public BranchPosition getPosition(Long branchId) {
+        BranchPosition cached = positions.get(branchId);
+        if (cached != null) {
+            return cached;
+        }
+        PostingGuard guard = guard(branchId);
+        long stamp = guard.stamp();
+        // Loaded outside the map so other branches in the same bin are not blocked on the queries
+        BranchPosition loaded = load(branchId);
+        BranchPosition current = positions.compute(branchId, (id, existing) ->
+                existing != null ? existing : guard.unchangedSince(stamp) ? loaded : null);
+        return current != null ? current : loaded;
+    }
+
+    /**
+     * Reload every cached position from its fund
+     * @return number of positions whose balance changed
+     */
+    @Scheduled(initialDelayString = "${app.positions.refresh-interval-ms:60000}",
+            fixedDelayString = "${app.positions.refresh-interval-ms:60000}")
+    public int refresh() {
+        if (!refreshEnabled) {
+            return 0;
+        }
+        int changed = 0;
+        for (Long branchId : positions.keySet()) {
+            BranchPosition before = positions.get(branchId);
+            PostingGuard guard = guard(branchId);
+            long stamp = guard.stamp();
+            if (before == null || stamp < 0) {
+                // Postings in flight are applied to the cached position shortly
+                continue;
+            }
+            BranchPosition loaded;
+            try {
+                loaded = load(branchId);
+            } catch (RuntimeException e) {
+                // Branch deleted since it was cached
+                log.debug("Dropping position of branch {}: {}", branchId, e.getMessage());
+                positions.remove(branchId);
+                continue;
+            }
+            // Replace only the snapshot read before loading; a posting applied meanwhile keeps its result
+            BranchPosition after = positions.computeIfPresent(branchId, (id, current) ->
+                    current == before && guard.unchangedSince(stamp) ? loaded : current);
+            if (after == loaded && (!Objects.equals(before.getFundId(), after.getFundId())
+                    || before.getBalance().compareTo(after.getBalance()) != 0)) {
+                changed++;
+                push(after);
+            }
+        }
+        if (changed > 0) {
+            log.debug("Corrected {} cached branch positions from their funds", changed);
+        }
+        return changed;
+    }
+
+    /**
+     * Drop a cached position so the next read reloads it (after fund edits
+     * made outside the transfer path)
+     */
+    public void evict(Long branchId) {
+        if (branchId != null) {
+            positions.remove(branchId);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        track(event.postings());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onTransferExpired(TransferExpiredEvent event) {
+        track(event.postings());
+    }
+
+    /**
+     * Hold the branches of postings about to commit until they are applied, so a
+     * load in between is not cached and the postings are not counted twice
+     */
+    private void track(List<FundPosting> postings) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(postings);
+            return;
+        }
+        List<Long> branchIds = postings.stream().map(FundPosting::branchId).filter(Objects::nonNull).distinct().toList();
+        branchIds.forEach(id -> guard(id).begin());
+        TransactionSynchronizationManager.registerSynchronization(new PostingSynchronization(postings, branchIds));
+    }
+
+    private void apply(List<FundPosting> postings) {
+        for (FundPosting posting : postings) {
+            if (posting.branchId() == null) {
+                continue;
+            }
+            BranchPosition current = positions.get(posting.branchId());
+            BranchPosition updated = positions.computeIfPresent(posting.branchId(), (id, position) -> {
+                // A posting to a fund other than the cached one means the cached view is stale
+                if (!posting.fundId().equals(position.getFundId())) {
+                    return null;
+                }
+                // Other-currency buckets of the fund are not part of the position
+                return posting.isIn(position.getCurrency()) ? position.withDelta(posting.delta()) : position;
+            });
+            if (updated != null && updated != current) {
+                push(updated);
+            }
+        }
+    }
+
+    /**
+     * Subscribe to position changes, optionally for one branch only
+     */
+    public SseEmitter subscribe(Long branchId) {
+        if (!pushEnabled) {
+            throw new IllegalStateException("Position push is disabled");
+        }
+        SseEmitter emitter = new SseEmitter(pushTimeoutMs);
+        Subscriber subscriber = new Subscriber(branchId, emitter);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Send the current state first so clients do not need a separate poll
+        if (branchId != null) {
+            send(subscriber, getPosition(branchId));
+        }
+        return emitter;
+    }
+
+    private void push(BranchPosition position) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.branchId() == null || subscriber.branchId().equals(position.getBranchId())) {
+                send(subscriber, position);
+            }
+        }
+    }
+
+    private void send(Subscriber subscriber, BranchPosition position) {
+        try {
+            subscriber.emitter().send(SseEmitter.event()
+                    .name("position")
+                    .id(position.getBranchId() + "-" + position.getUpdatedAt())
+                    .data(position.getStatus(), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping position subscriber: {}", e.getMessage());
+            subscribers.remove(subscriber);
+            subscriber.emitter().completeWithError(e);
+        }
+    }
+
+    private BranchPosition load(Long branchId) {
+        Branch branch = branchRepository.findById(branchId)
+                .orElseThrow(() -> new RuntimeException("Branch not found with ID: " + branchId));
+        // Funds not yet linked to their branch are still found by the old naming convention
+        return fundRepository.findFirstByBranchIdOrderByIdAsc(branchId)
+                .or(() -> fundRepository.findByName(branch.getName() + " Fund")
+                        .filter(fund -> fund.getBranch() == null))
+                .map(fund -> new BranchPosition(branchId, branch.getName(), fund.getId(), fund.getName(),
+                        fund.getCurrency(), fund.getBalance(), fund.getStatus(),
+                        fund.getUpdatedAt() != null ? fund.getUpdatedAt() : LocalDateTime.now()))
+                .orElseGet(() -> BranchPosition.noFund(branchId, branch.getName()));
+    }
+
+    private PostingGuard guard(Long branchId) {
+        return guards.computeIfAbsent(branchId, id -> new PostingGuard());
+    }
+
+    private record Subscriber(Long branchId, SseEmitter emitter) {
+    }
+
+    /**
+     * Applies a transaction's postings once it has committed, then releases their branches
+     */
+    final class PostingSynchronization implements TransactionSynchronization {
+
+        private final List<FundPosting> postings;
+        private final List<Long> branchIds;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        PostingSynchronization(List<FundPosting> postings, List<Long> branchIds) {
+            this.postings = postings;
+            this.branchIds = branchIds;
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (status == STATUS_COMMITTED) {
+                    apply(postings);
+                }
+            } finally {
+                branchIds.forEach(id -> guard(id).end());
+            }
+        }
+    }
+
+    /**
+     * Postings of one branch between their commit and their application. A load is
+     * only trusted if none was in flight and none started while it ran.
+     */
+    private static final class PostingGuard {
+
+        private final AtomicLong started = new AtomicLong();
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        void begin() {
+            started.incrementAndGet();
+            inFlight.incrementAndGet();
+        }
+
+        void end() {
+            inFlight.decrementAndGet();
+        }
+
+        /**
+         * @return a stamp to check the load against, or -1 if postings are in flight
+         */
+        long stamp() {
+            return inFlight.get() == 0 ? started.get() : -1;
+        }
+
+        boolean unchangedSince(long stamp) {
+            return stamp >= 0 && inFlight.get() == 0 && started.get() == stamp;
+        }
+    }
+}
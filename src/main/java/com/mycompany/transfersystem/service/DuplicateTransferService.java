@@ -0,0 +1,146 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.RecentTransfer;
+import com.mycompany.transfersystem.dto.TransferTransactionRequest;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.exception.DuplicateTransferException;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.RotatingBloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Flags transfers that repeat a recent one: same sender, receiver, amount and
+ * currencies within the window. Every transfer is checked against a rotating
+ * Bloom filter of fingerprints; only a filter hit costs a database lookup,
+ * which weeds out false positives and finds the transfer being repeated.
+ */
+@Service
+public class DuplicateTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicateTransferService.class);
+
+    public enum Mode {
+        OFF,
+        // Let the transfer through and report the suspected original
+        WARN,
+        // Refuse the transfer unless the request confirms it
+        BLOCK
+    }
+
+    private final TransactionRepository transactionRepository;
+
+    private volatile RotatingBloomFilter filter;
+
+    @Value("${app.duplicates.mode:WARN}")
+    private Mode mode = Mode.WARN;
+
+    @Value("${app.duplicates.window-minutes:10}")
+    private long windowMinutes = 10;
+
+    @Value("${app.duplicates.generations:5}")
+    private int generations = 5;
+
+    // Sizing only; more transfers per window raise the false-positive rate, not memory
+    @Value("${app.duplicates.expected-per-window:100000}")
+    private long expectedPerWindow = 100_000;
+
+    @Value("${app.duplicates.false-positive-rate:0.001}")
+    private double falsePositiveRate = 0.001;
+
+    @Autowired
+    public DuplicateTransferService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Start a fresh filter and load the transfers of the current window into it
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        if (mode == Mode.OFF) {
+            filter = null;
+            return;
+        }
+        RotatingBloomFilter fresh = new RotatingBloomFilter(windowMinutes * 60_000L, generations,
+                expectedPerWindow, falsePositiveRate);
+        List<RecentTransfer> recent = transactionRepository.findRecentTransfers(
+                LocalDateTime.now().minusMinutes(windowMinutes), TransactionStatus.FAILED);
+        for (RecentTransfer transfer : recent) {
+            fresh.put(fingerprint(transfer.senderId(), transfer.receiverId(), transfer.amount(),
+                    transfer.sourceCurrency(), transfer.destinationCurrency()), toMillis(transfer.createdAt()));
+        }
+        filter = fresh;
+        log.info("Duplicate transfer filter loaded with {} transfers ({} bits x {} generations, {} probes)",
+                recent.size(), fresh.bitsPerGeneration(), generations + 1, fresh.hashes());
+    }
+
+    /**
+     * Record the transfer and look for a recent identical one.
+     * @return id of the suspected original in WARN mode, or null if there is none
+     * @throws DuplicateTransferException in BLOCK mode when an original exists and the request does not allow it
+     */
+    public Long check(TransferTransactionRequest request) {
+        RotatingBloomFilter current = filter;
+        if (mode == Mode.OFF || current == null) {
+            return null;
+        }
+        String source = normalize(request.getSourceCurrency());
+        String destination = normalize(request.getDestinationCurrency());
+        long fingerprint = fingerprint(request.getSenderId(), request.getReceiverId(), request.getAmount(),
+                source, destination);
+        if (!current.checkAndPut(fingerprint, System.currentTimeMillis())) {
+            return null;
+        }
+
+        List<Long> originals = transactionRepository.findRecentDuplicateIds(request.getSenderId(),
+                request.getReceiverId(), request.getAmount(), source, destination,
+                LocalDateTime.now().minusMinutes(windowMinutes), TransactionStatus.FAILED, PageRequest.of(0, 1));
+        if (originals.isEmpty()) {
+            // Filter false positive, or the earlier attempt never committed
+            return null;
+        }
+        Long originalId = originals.get(0);
+        if (mode == Mode.BLOCK && !request.isAllowDuplicate()) {
+            throw new DuplicateTransferException("Possible duplicate of transaction " + originalId +
+                    " sent in the last " + windowMinutes + " minutes; resubmit with allowDuplicate to confirm",
+                    originalId);
+        }
+        log.warn("Transfer from sender {} to receiver {} of {} {} repeats transaction {}",
+                request.getSenderId(), request.getReceiverId(), request.getAmount(), source, originalId);
+        return originalId;
+    }
+
+    static long fingerprint(Long senderId, Long receiverId, BigDecimal amount, String sourceCurrency,
+                            String destinationCurrency) {
+        long h = RotatingBloomFilter.mix(0L, senderId != null ? senderId : 0L);
+        h = RotatingBloomFilter.mix(h, receiverId != null ? receiverId : 0L);
+        // Transaction amounts are stored with two decimals; 100 and 100.00 are the same transfer
+        h = RotatingBloomFilter.mix(h, amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue() : 0L);
+        h = RotatingBloomFilter.mix(h, normalize(sourceCurrency).hashCode());
+        return RotatingBloomFilter.mix(h, normalize(destinationCurrency).hashCode());
+    }
+
+    private static String normalize(String currency) {
+        return currency != null ? currency.trim().toUpperCase(Locale.ROOT) : "";
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
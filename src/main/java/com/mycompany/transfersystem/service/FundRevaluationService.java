@@ -0,0 +1,372 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.FundValuation;
+import com.mycompany.transfersystem.repository.FundValuationRepository;
+import com.mycompany.transfersystem.util.CurrencyWallet;
+import com.mycompany.transfersystem.util.RateSnapshot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Revalues every fund's currency buckets into one currency after rates change.
+ * Each partition (fund_id modulo the partition count) streams its balance rows
+ * through a forward-only cursor, converts them in fixed-point chunks against
+ * one {@link RateSnapshot} and rewrites its fund_valuations rows in JDBC batches,
+ * all in one transaction so readers never see a half-revalued partition.
+ */
+@Service
+public class FundRevaluationService {
+
+    private static final Logger log = LoggerFactory.getLogger(FundRevaluationService.class);
+
+    // Every bucket, plus the base balance of funds that predate per-currency rows
+    // (the same view FundWalletService.getWallet builds for one fund)
+    private static final String BALANCES_SQL =
+            "SELECT b.fund_id, b.currency, b.amount FROM fund_balances b WHERE MOD(b.fund_id, ?) = ? " +
+            "UNION ALL " +
+            "SELECT f.id, COALESCE(f.currency, 'USD'), f.balance FROM funds f WHERE MOD(f.id, ?) = ? " +
+            "AND NOT EXISTS (SELECT 1 FROM fund_balances b WHERE b.fund_id = f.id AND b.currency = COALESCE(f.currency, 'USD')) " +
+            "ORDER BY 1, 2";
+
+    private static final String CURRENCIES_SQL =
+            "SELECT DISTINCT currency FROM fund_balances UNION SELECT DISTINCT COALESCE(currency, 'USD') FROM funds";
+
+    // Changes whenever a bucket or base balance is written, added or removed
+    private static final String BALANCES_VERSION_SQL =
+            "SELECT (SELECT COUNT(*) FROM fund_balances), (SELECT MAX(updated_at) FROM fund_balances), " +
+            "(SELECT COUNT(*) FROM funds), (SELECT MAX(updated_at) FROM funds)";
+
+    private static final String DELETE_SQL = "DELETE FROM fund_valuations WHERE MOD(fund_id, ?) = ?";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO fund_valuations (fund_id, currency, amount, rates_as_of, valued_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExchangeRateService exchangeRateService;
+    private final FundValuationRepository fundValuationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile RateSnapshot lastSnapshot;
+    private volatile BalancesVersion lastBalancesVersion;
+    private volatile Map<String, Object> lastRun;
+
+    @Value("${app.revaluation.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${app.revaluation.currency:USD}")
+    private String quoteCurrency = "USD";
+
+    @Value("${app.revaluation.partitions:4}")
+    private int partitions = 4;
+
+    // Rows converted per fixed-point pass
+    @Value("${app.revaluation.chunk-size:1024}")
+    private int chunkSize = 1024;
+
+    // Cursor fetch size and JDBC insert batch size
+    @Value("${app.revaluation.batch-size:1000}")
+    private int batchSize = 1000;
+
+    @Autowired
+    public FundRevaluationService(JdbcTemplate jdbcTemplate,
+                                  ExchangeRateService exchangeRateService,
+                                  FundValuationRepository fundValuationRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.exchangeRateService = exchangeRateService;
+        this.fundValuationRepository = fundValuationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Take a fresh rate snapshot and revalue only if any rate moved or any balance
+     * changed since the last run
+     */
+    @Scheduled(fixedDelayString = "${app.revaluation.refresh-interval-ms:300000}",
+               initialDelayString = "${app.revaluation.initial-delay-ms:60000}")
+    public void refreshRates() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            RateSnapshot snapshot = takeSnapshot();
+            if (snapshot.sameRates(lastSnapshot) && balancesVersion().equals(lastBalancesVersion)) {
+                log.debug("Rates and balances unchanged since {}; skipping revaluation", lastSnapshot.getTakenAt());
+                return;
+            }
+            revalueAll(snapshot);
+        } catch (Exception e) {
+            log.error("Fund revaluation failed", e);
+        }
+    }
+
+    /**
+     * Revalue all funds now at current rates
+     */
+    public Map<String, Object> revalueNow() {
+        return revalueAll(takeSnapshot());
+    }
+
+    /**
+     * Rates to the valuation currency for every currency any fund holds
+     */
+    public RateSnapshot takeSnapshot() {
+        String quote = quoteCurrency.toUpperCase();
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        for (String currency : jdbcTemplate.queryForList(CURRENCIES_SQL, String.class)) {
+            if (currency == null || currency.equalsIgnoreCase(quote)) {
+                continue;
+            }
+            try {
+                rates.put(currency, exchangeRateService.getRate(currency, quote));
+            } catch (Exception e) {
+                // Funds holding this currency stay unvalued until a rate is available
+                log.warn("No {} rate for {}: {}", quote, currency, e.getMessage());
+            }
+        }
+        return RateSnapshot.of(quote, rates, LocalDateTime.now());
+    }
+
+    /**
+     * Revalue all partitions in parallel against one snapshot
+     * @return run summary, or the previous run's summary if a run is already in progress
+     */
+    public Map<String, Object> revalueAll(RateSnapshot snapshot) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Fund revaluation already running; skipping");
+            return lastRun;
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime valuedAt = LocalDateTime.now();
+            // Read before the partitions so balances written during the run trigger the next one
+            BalancesVersion balancesVersion = balancesVersion();
+            int partitionCount = Math.max(1, partitions);
+
+            List<Future<PartitionResult>> futures = new ArrayList<>(partitionCount);
+            try (ExecutorService executor = Executors.newFixedThreadPool(partitionCount)) {
+                for (int p = 0; p < partitionCount; p++) {
+                    int partition = p;
+                    futures.add(executor.submit(() -> transactionTemplate.execute(status ->
+                            revaluePartition(snapshot, partitionCount, partition, valuedAt))));
+                }
+            }
+
+            long funds = 0;
+            long rows = 0;
+            long unpriced = 0;
+            for (Future<PartitionResult> future : futures) {
+                PartitionResult result = future.get();
+                funds += result.funds();
+                rows += result.rows();
+                unpriced += result.unpricedFunds();
+            }
+            long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("currency", snapshot.getQuoteCurrency());
+            summary.put("ratesAsOf", snapshot.getTakenAt());
+            summary.put("rates", snapshot.toMap());
+            summary.put("partitions", partitionCount);
+            summary.put("balanceRows", rows);
+            summary.put("fundsValued", funds);
+            summary.put("fundsUnpriced", unpriced);
+            summary.put("valuedAt", valuedAt);
+            summary.put("elapsedMs", elapsedMs);
+
+            lastSnapshot = snapshot;
+            lastBalancesVersion = balancesVersion;
+            lastRun = summary;
+            if (unpriced > 0) {
+                log.warn("Revalued {} funds in {} ms; {} funds hold a currency without a {} rate",
+                        funds, elapsedMs, unpriced, snapshot.getQuoteCurrency());
+            } else {
+                log.info("Revalued {} funds ({} balance rows) to {} in {} ms",
+                        funds, rows, snapshot.getQuoteCurrency(), elapsedMs);
+            }
+            return summary;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Fund revaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Fund revaluation failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Latest valuations with their total and the summary of the run that wrote them
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getValuations() {
+        List<Map<String, Object>> funds = new ArrayList<>();
+        for (FundValuation valuation : fundValuationRepository.findAllByOrderByFundIdAsc()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("fundId", valuation.getFundId());
+            row.put("currency", valuation.getCurrency());
+            row.put("amount", valuation.getAmount());
+            row.put("ratesAsOf", valuation.getRatesAsOf());
+            funds.add(row);
+        }
+
+        Map<String, Object> valuations = new LinkedHashMap<>();
+        valuations.put("currency", quoteCurrency.toUpperCase());
+        valuations.put("total", fundValuationRepository.sumAmounts());
+        valuations.put("funds", funds);
+        valuations.put("lastRun", lastRun);
+        return valuations;
+    }
+
+    private BalancesVersion balancesVersion() {
+        return jdbcTemplate.queryForObject(BALANCES_VERSION_SQL, (rs, rowNum) -> new BalancesVersion(
+                rs.getLong(1), rs.getTimestamp(2), rs.getLong(3), rs.getTimestamp(4)));
+    }
+
+    private PartitionResult revaluePartition(RateSnapshot snapshot, int partitionCount, int partition,
+                                             LocalDateTime valuedAt) {
+        jdbcTemplate.update(DELETE_SQL, partitionCount, partition);
+
+        PartitionRevaluation revaluation = new PartitionRevaluation(snapshot, Timestamp.valueOf(valuedAt));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(BALANCES_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(batchSize);
+            statement.setInt(1, partitionCount);
+            statement.setInt(2, partition);
+            statement.setInt(3, partitionCount);
+            statement.setInt(4, partition);
+            return statement;
+        }, revaluation);
+        return revaluation.finish();
+    }
+
+    private record PartitionResult(long funds, long rows, long unpricedFunds) {
+    }
+
+    private record BalancesVersion(long balanceRows, Timestamp balancesUpdatedAt,
+                                   long funds, Timestamp fundsUpdatedAt) {
+    }
+
+    /**
+     * Folds one partition's balance rows, ordered by fund, into per-fund totals.
+     * Rows are buffered column-wise and converted a chunk at a time.
+     */
+    private class PartitionRevaluation implements RowCallbackHandler {
+
+        private final RateSnapshot snapshot;
+        private final Timestamp ratesAsOf;
+        private final Timestamp valuedAt;
+
+        private final long[] fundIds = new long[chunkSize];
+        private final int[] codes = new int[chunkSize];
+        private final long[] units = new long[chunkSize];
+        private final long[] values = new long[chunkSize];
+        private int buffered;
+
+        private long currentFund = -1;
+        private long currentTotal;
+        private boolean currentUnpriced;
+
+        private final List<Object[]> pendingWrites = new ArrayList<>();
+        private long rows;
+        private long funds;
+        private long unpricedFunds;
+
+        PartitionRevaluation(RateSnapshot snapshot, Timestamp valuedAt) {
+            this.snapshot = snapshot;
+            this.ratesAsOf = Timestamp.valueOf(snapshot.getTakenAt());
+            this.valuedAt = valuedAt;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            fundIds[buffered] = rs.getLong(1);
+            codes[buffered] = CurrencyWallet.code(rs.getString(2));
+            units[buffered] = CurrencyWallet.toUnits(rs.getBigDecimal(3));
+            buffered++;
+            rows++;
+            if (buffered == chunkSize) {
+                convertChunk();
+            }
+        }
+
+        PartitionResult finish() {
+            convertChunk();
+            closeFund();
+            writePending();
+            return new PartitionResult(funds, rows, unpricedFunds);
+        }
+
+        private void convertChunk() {
+            if (buffered == 0) {
+                return;
+            }
+            snapshot.convert(codes, units, values, buffered);
+            for (int i = 0; i < buffered; i++) {
+                if (fundIds[i] != currentFund) {
+                    closeFund();
+                    currentFund = fundIds[i];
+                }
+                if (values[i] == Long.MIN_VALUE) {
+                    currentUnpriced = true;
+                } else {
+                    currentTotal = Math.addExact(currentTotal, values[i]);
+                }
+            }
+            buffered = 0;
+        }
+
+        private void closeFund() {
+            if (currentFund < 0) {
+                return;
+            }
+            if (currentUnpriced) {
+                unpricedFunds++;
+            } else {
+                pendingWrites.add(new Object[]{currentFund, snapshot.getQuoteCurrency(),
+                        CurrencyWallet.fromUnits(currentTotal), ratesAsOf, valuedAt});
+                funds++;
+                if (pendingWrites.size() >= batchSize) {
+                    writePending();
+                }
+            }
+            currentFund = -1;
+            currentTotal = 0;
+            currentUnpriced = false;
+        }
+
+        private void writePending() {
+            if (!pendingWrites.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, pendingWrites);
+                pendingWrites.clear();
+            }
+        }
+    }
+}
@@ -1,18 +1,21 @@
 package com.mycompany.transfersystem.service;
 
+import com.mycompany.transfersystem.config.CurrentUserProvider;
 import com.mycompany.transfersystem.dto.FundRequest;
 import com.mycompany.transfersystem.dto.FundResponse;
+import com.mycompany.transfersystem.entity.Branch;
 import com.mycompany.transfersystem.entity.Fund;
-import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.exception.InvalidTransactionException;
 import com.mycompany.transfersystem.exception.ResourceNotFoundException;
+import com.mycompany.transfersystem.repository.BranchRepository;
 import com.mycompany.transfersystem.repository.FundRepository;
-import com.mycompany.transfersystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,11 +25,20 @@ public class FundService {
     private FundRepository fundRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private BranchRepository branchRepository;
 
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
+    @Autowired
+    private BranchPositionService branchPositionService;
+
+    @Autowired
+    private FundWalletService fundWalletService;
+
     public List<FundResponse> getAllFunds() {
         return fundRepository.findAll().stream()
                 .map(this::convertToResponse)
@@ -44,12 +56,17 @@ public class FundService {
         fund.setName(request.getName());
         fund.setBalance(request.getBalance());
         fund.setStatus(request.getStatus());
+        fund.setBranch(resolveBranch(request.getBranchId()));
+        if (request.getCurrency() != null) {
+            fund.setCurrency(request.getCurrency().toUpperCase());
+        }
 
         Fund savedFund = fundRepository.save(fund);
+        fundWalletService.syncBaseBalance(savedFund);
+        branchPositionService.evict(request.getBranchId());
         
         // Log the creation
-        User currentUser = getCurrentUser();
-        auditService.log("CREATE_FUND", currentUser, "Fund", savedFund.getId());
+        auditService.log("CREATE_FUND", currentUserProvider.requireId(), "Fund", savedFund.getId());
 
         return convertToResponse(savedFund);
     }
@@ -58,15 +75,31 @@ public class FundService {
         Fund fund = fundRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Fund not found with id: " + id));
 
+        // The balance would be written to the new currency's bucket while the old one keeps its amount
+        if (request.getCurrency() != null && !request.getCurrency().equalsIgnoreCase(fund.getCurrency())
+                && holdsBalances(fund)) {
+            throw new InvalidTransactionException("Cannot change the currency of fund " + fund.getName() +
+                    " while it holds balances");
+        }
+
         fund.setName(request.getName());
         fund.setBalance(request.getBalance());
         fund.setStatus(request.getStatus());
+        Long previousBranchId = branchIdOf(fund);
+        fund.setBranch(resolveBranch(request.getBranchId()));
+        if (request.getCurrency() != null) {
+            fund.setCurrency(request.getCurrency().toUpperCase());
+        }
 
         Fund updatedFund = fundRepository.save(fund);
+        fundWalletService.syncBaseBalance(updatedFund);
+
+        // Cached branch positions are only pushed by transfers, so drop them on direct edits
+        branchPositionService.evict(previousBranchId);
+        branchPositionService.evict(request.getBranchId());
         
         // Log the update
-        User currentUser = getCurrentUser();
-        auditService.log("UPDATE_FUND", currentUser, "Fund", updatedFund.getId());
+        auditService.log("UPDATE_FUND", currentUserProvider.requireId(), "Fund", updatedFund.getId());
 
         return convertToResponse(updatedFund);
     }
@@ -76,10 +109,16 @@ public class FundService {
                 .orElseThrow(() -> new ResourceNotFoundException("Fund not found with id: " + id));
 
         // Log the deletion
-        User currentUser = getCurrentUser();
-        auditService.log("DELETE_FUND", currentUser, "Fund", fund.getId());
+        auditService.log("DELETE_FUND", currentUserProvider.requireId(), "Fund", fund.getId());
 
+        fundWalletService.deleteBalances(fund);
         fundRepository.delete(fund);
+        branchPositionService.evict(branchIdOf(fund));
+    }
+
+    private boolean holdsBalances(Fund fund) {
+        return fundWalletService.getWallet(fund).toMap().values().stream()
+                .anyMatch(amount -> amount.signum() != 0);
     }
 
     private FundResponse convertToResponse(Fund fund) {
@@ -87,16 +126,55 @@ public class FundService {
                 fund.getId(),
                 fund.getName(),
                 fund.getBalance(),
+                fund.getCurrency(),
                 fund.getStatus(),
                 fund.getCreatedAt(),
-                fund.getUpdatedAt()
+                fund.getUpdatedAt(),
+                branchIdOf(fund)
         );
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    /**
+     * Per-currency balances, optionally valued in one currency at current rates
+     */
+    public Map<String, Object> getWallet(Long id, String revalueTo) {
+        Fund fund = fundRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Fund not found with id: " + id));
+        if (revalueTo != null) {
+            return fundWalletService.revalue(fund, revalueTo);
+        }
+        Map<String, Object> wallet = new LinkedHashMap<>();
+        wallet.put("fundId", fund.getId());
+        wallet.put("fundName", fund.getName());
+        wallet.put("currency", fund.getCurrency());
+        wallet.put("balances", fundWalletService.getWallet(fund).toMap());
+        return wallet;
+    }
+
+    /**
+     * Set the balance a fund holds in one currency
+     */
+    public Map<String, Object> setCurrencyBalance(Long id, String currency, BigDecimal amount) {
+        Fund fund = fundRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Fund not found with id: " + id));
+        fundWalletService.setBalance(fund, currency, amount);
+        fundRepository.save(fund);
+        branchPositionService.evict(branchIdOf(fund));
+
+        auditService.log("UPDATE_FUND_BALANCE", currentUserProvider.requireId(), "Fund", fund.getId());
+
+        return getWallet(id, null);
+    }
+
+    private Branch resolveBranch(Long branchId) {
+        if (branchId == null) {
+            return null;
+        }
+        return branchRepository.findById(branchId)
+                .orElseThrow(() -> new ResourceNotFoundException("Branch not found with id: " + branchId));
+    }
+
+    private Long branchIdOf(Fund fund) {
+        return fund.getBranch() != null ? fund.getBranch().getId() : null;
     }
 }
\ No newline at end of file
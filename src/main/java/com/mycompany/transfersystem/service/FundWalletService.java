@@ -0,0 +1,181 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.CurrencyAmount;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.FundBalance;
+import com.mycompany.transfersystem.exception.InsufficientFundsException;
+import com.mycompany.transfersystem.repository.FundBalanceRepository;
+import com.mycompany.transfersystem.util.CurrencyWallet;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-currency fund balances. Postings go to the bucket of the currency they
+ * are denominated in; nothing is converted until a revaluation is asked for.
+ * The bucket in the fund's own currency is mirrored on {@link Fund#getBalance()}
+ * so existing single-balance views keep working.
+ */
+@Service
+public class FundWalletService {
+
+    private final FundBalanceRepository fundBalanceRepository;
+    private final ExchangeRateService exchangeRateService;
+
+    @Autowired
+    public FundWalletService(FundBalanceRepository fundBalanceRepository, ExchangeRateService exchangeRateService) {
+        this.fundBalanceRepository = fundBalanceRepository;
+        this.exchangeRateService = exchangeRateService;
+    }
+
+    /**
+     * Add a signed amount to a currency bucket. Branch operating funds may go
+     * negative (they carry inter-branch debt), so this never refuses.
+     */
+    @Transactional
+    public void post(Fund fund, String currency, BigDecimal delta) {
+        if (delta.signum() == 0) {
+            return;
+        }
+        String bucket = bucket(fund, currency);
+        if (fundBalanceRepository.adjust(fund.getId(), bucket, delta, LocalDateTime.now()) == 0) {
+            openBucket(fund, bucket);
+            fundBalanceRepository.adjust(fund.getId(), bucket, delta, LocalDateTime.now());
+        }
+        mirror(fund, bucket);
+    }
+
+    /**
+     * Take an amount out of a currency bucket, refusing to overdraw it.
+     * The check and the debit are one conditional UPDATE, so concurrent
+     * debits cannot both pass on the same balance.
+     * @throws InsufficientFundsException if the bucket holds less than the amount
+     */
+    @Transactional
+    public void debit(Fund fund, String currency, BigDecimal amount) {
+        if (amount.signum() == 0) {
+            return;
+        }
+        String bucket = bucket(fund, currency);
+        LocalDateTime now = LocalDateTime.now();
+        if (fundBalanceRepository.debitIfCovered(fund.getId(), bucket, amount, now) == 0) {
+            if (fundBalanceRepository.existsByFundIdAndCurrency(fund.getId(), bucket)
+                    || !openBucket(fund, bucket)
+                    || fundBalanceRepository.debitIfCovered(fund.getId(), bucket, amount, now) == 0) {
+                throw new InsufficientFundsException("Insufficient " + bucket + " balance in fund: " + fund.getName() +
+                        ". Required: " + amount + ", Available: " + getBalance(fund, bucket));
+            }
+        }
+        mirror(fund, bucket);
+    }
+
+    /**
+     * Overwrite a bucket (manual adjustment by an administrator)
+     */
+    @Transactional
+    public void setBalance(Fund fund, String currency, BigDecimal amount) {
+        String bucket = bucket(fund, currency);
+        if (fundBalanceRepository.set(fund.getId(), bucket, amount, LocalDateTime.now()) == 0) {
+            fundBalanceRepository.save(new FundBalance(fund.getId(), bucket, amount));
+        }
+        if (bucket.equals(fund.getCurrency())) {
+            fund.setBalance(amount.setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    /**
+     * Make sure the bucket of the fund's own currency exists and matches {@link Fund#getBalance()}
+     */
+    @Transactional
+    public void syncBaseBalance(Fund fund) {
+        setBalance(fund, fund.getCurrency(), fund.getBalance());
+    }
+
+    @Transactional
+    public void deleteBalances(Fund fund) {
+        fundBalanceRepository.deleteByFundId(fund.getId());
+    }
+
+    @Transactional(readOnly = true)
+    public CurrencyWallet getWallet(Fund fund) {
+        List<CurrencyAmount> rows = fundBalanceRepository.findAmountsByFundId(fund.getId());
+        CurrencyWallet wallet = new CurrencyWallet(rows.size() + 1);
+        for (CurrencyAmount row : rows) {
+            wallet.add(row.currency(), row.amount());
+        }
+        // Funds that predate per-currency rows only have their base balance
+        if (!wallet.contains(fund.getCurrency())) {
+            wallet.add(fund.getCurrency(), fund.getBalance());
+        }
+        return wallet;
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getBalance(Fund fund, String currency) {
+        return getWallet(fund).get(bucket(fund, currency));
+    }
+
+    /**
+     * Value every bucket in one currency at current rates
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> revalue(Fund fund, String targetCurrency) {
+        String target = targetCurrency.toUpperCase();
+        Map<String, BigDecimal> balances = getWallet(fund).toMap();
+        Map<String, BigDecimal> rates = new LinkedHashMap<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (Map.Entry<String, BigDecimal> entry : balances.entrySet()) {
+            BigDecimal rate = exchangeRateService.getRate(entry.getKey(), target);
+            rates.put(entry.getKey(), rate);
+            total = total.add(entry.getValue().multiply(rate));
+        }
+
+        Map<String, Object> valuation = new LinkedHashMap<>();
+        valuation.put("fundId", fund.getId());
+        valuation.put("fundName", fund.getName());
+        valuation.put("balances", balances);
+        valuation.put("currency", target);
+        valuation.put("rates", rates);
+        valuation.put("total", total.setScale(2, RoundingMode.HALF_UP));
+        valuation.put("valuedAt", LocalDateTime.now());
+        return valuation;
+    }
+
+    /**
+     * Create a missing bucket; the fund's own currency starts from its current balance
+     * @return true if a bucket was created
+     */
+    private boolean openBucket(Fund fund, String bucket) {
+        if (fundBalanceRepository.existsByFundIdAndCurrency(fund.getId(), bucket)) {
+            return false;
+        }
+        BigDecimal opening = bucket.equals(fund.getCurrency()) ? fund.getBalance() : BigDecimal.ZERO;
+        fundBalanceRepository.save(new FundBalance(fund.getId(), bucket, opening));
+        return true;
+    }
+
+    /**
+     * Copy the bucket just updated onto the single balance. This transaction holds the
+     * bucket's row lock until it commits, so the value written with the fund is the
+     * bucket's own and a concurrent posting cannot be overwritten by a stale balance.
+     */
+    private void mirror(Fund fund, String bucket) {
+        if (bucket.equals(fund.getCurrency())) {
+            fundBalanceRepository.findAmount(fund.getId(), bucket)
+                    .ifPresent(amount -> fund.setBalance(amount.setScale(2, RoundingMode.HALF_UP)));
+        }
+    }
+
+    private static String bucket(Fund fund, String currency) {
+        String bucket = currency != null && !currency.isBlank() ? currency.trim().toUpperCase() : fund.getCurrency();
+        CurrencyWallet.code(bucket); // rejects codes the wallet cannot hold
+        return bucket;
+    }
+}
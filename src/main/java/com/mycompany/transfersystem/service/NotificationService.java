@@ -6,6 +6,7 @@ import com.mycompany.transfersystem.repository.BranchRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.security.SecureRandom;
 import java.util.Optional;
 
 @Service
@@ -14,6 +15,8 @@ public class NotificationService {
     @Autowired
     private BranchRepository branchRepository;
 
+    private final SecureRandom passcodeRandom = new SecureRandom();
+
     /**
      * Send internal branch alert to a specific branch
      * This method sends a message to Branch B when a transaction is created
@@ -76,6 +79,6 @@ public class NotificationService {
      */
     public String generateReleasePasscode() {
         // Generate a 6-digit numeric passcode
-        return String.format("%06d", (int) (Math.random() * 1000000));
+        return String.format("%06d", passcodeRandom.nextInt(1_000_000));
     }
 }
@@ -0,0 +1,134 @@
+package com.mycompany.transfersystem.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the monthly created_at partitions of transactions and audit_logs in
+ * shape on PostgreSQL: creates partitions ahead of time and detaches the
+ * transactions partitions that fall out of the retention window instead of
+ * deleting rows. audit_logs partitions are never detached because the audit
+ * hash chain covers every row from genesis.
+ * The tables are converted once with db/postgresql/partition-transactions-audit-logs.sql.
+ */
+@Service
+@ConditionalOnProperty(name = "app.partitioning.enabled", havingValue = "true")
+public class PartitionMaintenanceService {
+
+    private static final Logger log = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${app.partitioning.months-ahead:3}")
+    private int monthsAhead;
+
+    // 0 keeps every partition attached
+    @Value("${app.partitioning.transactions.retention-months:0}")
+    private int transactionRetentionMonths;
+
+    @Autowired
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * Create upcoming partitions for both tables and detach expired transactions partitions
+     */
+    @Scheduled(cron = "${app.partitioning.cron:0 15 2 * * *}")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        maintainTable("transactions", current, transactionRetentionMonths);
+        // Detaching audit rows would break verification of the chain that seals them
+        maintainTable("audit_logs", current, 0);
+    }
+
+    private void maintainTable(String table, YearMonth current, int retentionMonths) {
+        if (!isPartitioned(table)) {
+            log.warn("Table {} is not range-partitioned; skipping partition maintenance", table);
+            return;
+        }
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            jdbcTemplate.execute(createPartitionSql(table, current.plusMonths(i)));
+        }
+
+        List<String> attached = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                "JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent " +
+                "WHERE p.relname = ?", String.class, table);
+
+        for (String partition : partitionsToDetach(table, attached, current, retentionMonths)) {
+            // Detaching is a catalog change; the data stays in a standalone table for archiving
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            log.info("Detached partition {} from {}", partition, table);
+        }
+    }
+
+    private boolean isPartitioned(String table) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT 1 FROM pg_partitioned_table pt JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = ?",
+                table);
+        return !rows.isEmpty();
+    }
+
+    static String partitionName(String table, YearMonth month) {
+        return table + "_p" + month.format(SUFFIX);
+    }
+
+    static String createPartitionSql(String table, YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        return "CREATE TABLE IF NOT EXISTS " + partitionName(table, month) +
+               " PARTITION OF " + table +
+               " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+    }
+
+    /**
+     * Partitions whose whole month is older than the retention window
+     */
+    static List<String> partitionsToDetach(String table, List<String> attached, YearMonth current, int retentionMonths) {
+        List<String> expired = new ArrayList<>();
+        if (retentionMonths <= 0) {
+            return expired;
+        }
+        YearMonth oldestKept = current.minusMonths(retentionMonths);
+        String prefix = table + "_p";
+        for (String partition : attached) {
+            if (!partition.startsWith(prefix) || partition.length() != prefix.length() + 6) {
+                continue;
+            }
+            try {
+                YearMonth month = YearMonth.parse(partition.substring(prefix.length()), SUFFIX);
+                if (month.isBefore(oldestKept)) {
+                    expired.add(partition);
+                }
+            } catch (Exception e) {
+                // Not one of ours; leave it alone
+            }
+        }
+        return expired;
+    }
+}
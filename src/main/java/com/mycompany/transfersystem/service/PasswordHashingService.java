@@ -0,0 +1,118 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.exception.LoginBusyException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs password hash checks on a dedicated, bounded pool. At most one hash
+ * per core is computed at a time, so a login storm queues up instead of
+ * starving request threads of CPU; once the queue is full further logins are
+ * turned away at once rather than piling up. A hash below the configured
+ * cost is re-hashed at that cost while the plain password is at hand.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    public record PasswordCheck(boolean matches, String upgradedHash) {
+    }
+
+    private final PasswordEncoder passwordEncoder;
+
+    private ThreadPoolExecutor executor;
+
+    // Compared against when the user does not exist, so unknown usernames take as long as wrong passwords
+    private String decoyHash;
+
+    // 0 = one thread per available processor
+    @Value("${app.auth.hashing.threads:0}")
+    private int threads = 0;
+
+    @Value("${app.auth.hashing.queue-capacity:256}")
+    private int queueCapacity = 256;
+
+    @Value("${app.auth.hashing.timeout-ms:10000}")
+    private long timeoutMs = 10_000;
+
+    @Autowired
+    public PasswordHashingService(PasswordEncoder passwordEncoder) {
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger sequence = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        byte[] random = new byte[24];
+        new SecureRandom().nextBytes(random);
+        decoyHash = passwordEncoder.encode(Base64.getEncoder().encodeToString(random));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Check a password against a stored hash on the hashing pool.
+     * @param encodedPassword stored hash, or null if the user does not exist (never matches)
+     * @return whether it matches and, if the hash is below the configured cost, its replacement
+     * @throws LoginBusyException if the pool is saturated or the check timed out
+     */
+    public PasswordCheck verify(String rawPassword, String encodedPassword) {
+        String raw = rawPassword != null ? rawPassword : "";
+        Future<PasswordCheck> check;
+        try {
+            check = executor.submit(() -> {
+                if (encodedPassword == null) {
+                    passwordEncoder.matches(raw, decoyHash);
+                    return new PasswordCheck(false, null);
+                }
+                if (!passwordEncoder.matches(raw, encodedPassword)) {
+                    return new PasswordCheck(false, null);
+                }
+                return new PasswordCheck(true,
+                        passwordEncoder.upgradeEncoding(encodedPassword) ? passwordEncoder.encode(raw) : null);
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing pool saturated ({} queued); rejecting login", executor.getQueue().size());
+            throw new LoginBusyException("Too many concurrent logins; please retry shortly");
+        }
+        try {
+            return check.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new LoginBusyException("Login timed out; please retry shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginBusyException("Login interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+}
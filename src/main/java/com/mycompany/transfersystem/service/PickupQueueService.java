@@ -0,0 +1,342 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.PickupQueueEntry;
+import com.mycompany.transfersystem.dto.PickupQueuePage;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Transfers awaiting pickup (COMPLETED, not yet RELEASED) per receiving branch.
+ * Each branch's queue is mirrored in memory in sorted maps, by age and by
+ * receiver name and phone, so counter lookups and paged listing cost
+ * O(log n) without a query. The mirror is loaded from the partial pickup
+ * index at startup, follows transfers and releases as they commit, and is
+ * rebuilt periodically to pick up rows written by other instances. With the
+ * mirror disabled the same reads go to the partial index directly.
+ */
+@Service
+public class PickupQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(PickupQueueService.class);
+
+    private static final LocalDateTime QUEUE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final TransactionRepository transactionRepository;
+
+    private volatile Map<Long, BranchQueue> queues = new ConcurrentHashMap<>();
+
+    // Changes that commit while a rebuild is loading, replayed onto the new queues before the swap
+    private volatile ConcurrentLinkedQueue<Consumer<Map<Long, BranchQueue>>> pending;
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    @Value("${app.pickup-queue.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.pickup-queue.load-batch-size:5000}")
+    private int loadBatchSize = 5000;
+
+    @Autowired
+    public PickupQueueService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Load every transfer awaiting pickup into fresh queues and swap them in
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            queues = new ConcurrentHashMap<>();
+            return;
+        }
+        pending = new ConcurrentLinkedQueue<>();
+        Map<Long, BranchQueue> fresh = new ConcurrentHashMap<>();
+        int loaded = 0;
+        Long afterId = 0L;
+        while (true) {
+            List<PickupQueueEntry> batch = transactionRepository.findPickupBatch(afterId, PageRequest.of(0, loadBatchSize));
+            for (PickupQueueEntry entry : batch) {
+                queueOf(fresh, entry.receiverBranchId()).add(entry);
+            }
+            loaded += batch.size();
+            if (batch.size() < loadBatchSize) {
+                break;
+            }
+            afterId = batch.get(batch.size() - 1).transactionId();
+        }
+
+        swapLock.writeLock().lock();
+        try {
+            // Adds and removals are idempotent, so replaying one the load already reflects is harmless
+            pending.forEach(change -> change.accept(fresh));
+            queues = fresh;
+            pending = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.info("Pickup queues loaded with {} transfers across {} branches", loaded, fresh.size());
+    }
+
+    @Scheduled(initialDelayString = "${app.pickup-queue.rebuild-interval-ms:300000}",
+            fixedDelayString = "${app.pickup-queue.rebuild-interval-ms:300000}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Queue a transfer that now awaits pickup, once its transaction commits
+     */
+    public void transferCompleted(Transaction transaction) {
+        if (!enabled || transaction.getReceiverBranch() == null) {
+            return;
+        }
+        PickupQueueEntry entry = new PickupQueueEntry(transaction.getId(), transaction.getReceiverBranch().getId(),
+                transaction.getReceiver().getId(), transaction.getReceiver().getUsername(),
+                transaction.getReceiver().getPhone(), transaction.getAmount(),
+                transaction.getDestinationCurrency(),
+                transaction.getCreatedAt() != null ? transaction.getCreatedAt() : LocalDateTime.now());
+        afterCommit(() -> apply(target -> queueOf(target, entry.receiverBranchId()).add(entry)));
+    }
+
+    /**
+     * Take a released or expired transfer off its branch's queue, once its transaction commits
+     */
+    public void transferClosed(Long receiverBranchId, Long transactionId) {
+        if (!enabled || receiverBranchId == null) {
+            return;
+        }
+        afterCommit(() -> apply(target -> {
+            BranchQueue queue = target.get(receiverBranchId);
+            if (queue != null) {
+                queue.remove(transactionId);
+            }
+        }));
+    }
+
+    /**
+     * One page of a branch's queue, oldest first
+     * @param cursor nextCursor of the previous page, or null for the first page
+     */
+    @Transactional(readOnly = true)
+    public PickupQueuePage getQueue(Long branchId, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        QueueKey after = cursor != null && !cursor.isBlank() ? decodeCursor(cursor) : new QueueKey(QUEUE_START, 0L);
+
+        List<PickupQueueEntry> rows;
+        if (enabled) {
+            BranchQueue queue = queues.get(branchId);
+            rows = queue != null ? queue.after(after, limit + 1) : List.of();
+        } else {
+            rows = transactionRepository.findPickupQueue(branchId, after.createdAt(), after.id(),
+                    PageRequest.of(0, limit + 1));
+        }
+        boolean hasMore = rows.size() > limit;
+        List<PickupQueueEntry> page = hasMore ? rows.subList(0, limit) : rows;
+        String nextCursor = hasMore ? encodeCursor(page.get(page.size() - 1)) : null;
+        return new PickupQueuePage(new ArrayList<>(page), nextCursor);
+    }
+
+    /**
+     * Transfers at a branch whose receiver name or phone starts with the term, oldest first
+     */
+    @Transactional(readOnly = true)
+    public List<PickupQueueEntry> search(Long branchId, String term, int limit) {
+        String prefix = term != null ? term.trim().toLowerCase(Locale.ROOT) : "";
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        int max = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        if (!enabled) {
+            return transactionRepository.searchPickupQueue(branchId, escapeLike(prefix) + "%", PageRequest.of(0, max));
+        }
+        BranchQueue queue = queues.get(branchId);
+        return queue != null ? queue.search(prefix, max) : List.of();
+    }
+
+    /**
+     * @return number of transfers awaiting pickup per branch
+     */
+    public Map<Long, Integer> getQueueSizes() {
+        Map<Long, Integer> sizes = new HashMap<>();
+        queues.forEach((branchId, queue) -> sizes.put(branchId, queue.size()));
+        return sizes;
+    }
+
+    private void apply(Consumer<Map<Long, BranchQueue>> change) {
+        swapLock.readLock().lock();
+        try {
+            change.accept(queues);
+            ConcurrentLinkedQueue<Consumer<Map<Long, BranchQueue>>> buffer = pending;
+            if (buffer != null) {
+                buffer.add(change);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static BranchQueue queueOf(Map<Long, BranchQueue> target, Long branchId) {
+        return target.computeIfAbsent(branchId, id -> new BranchQueue());
+    }
+
+    static String encodeCursor(PickupQueueEntry last) {
+        String key = last.createdAt() + "|" + last.transactionId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static QueueKey decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (key.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new QueueKey(LocalDateTime.parse(key[0]), Long.parseLong(key[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private record QueueKey(LocalDateTime createdAt, Long id) {
+        static final Comparator<QueueKey> ORDER = Comparator.comparing(QueueKey::createdAt).thenComparing(QueueKey::id);
+    }
+
+    /**
+     * One branch's queue: by age for listing, by receiver name and phone for lookups
+     */
+    private static final class BranchQueue {
+
+        private static final Comparator<PickupQueueEntry> OLDEST_FIRST =
+                Comparator.comparing(PickupQueueEntry::createdAt).thenComparing(PickupQueueEntry::transactionId);
+
+        private final NavigableMap<QueueKey, PickupQueueEntry> byAge = new TreeMap<>(QueueKey.ORDER);
+        private final Map<Long, PickupQueueEntry> byId = new HashMap<>();
+        // Search term + NUL + id, so equal names and phones stay distinct
+        private final NavigableMap<String, PickupQueueEntry> byReceiver = new TreeMap<>();
+
+        synchronized void add(PickupQueueEntry entry) {
+            if (byId.putIfAbsent(entry.transactionId(), entry) != null) {
+                return;
+            }
+            byAge.put(key(entry), entry);
+            for (String term : terms(entry)) {
+                byReceiver.put(term, entry);
+            }
+        }
+
+        synchronized void remove(Long transactionId) {
+            PickupQueueEntry entry = byId.remove(transactionId);
+            if (entry == null) {
+                return;
+            }
+            byAge.remove(key(entry));
+            for (String term : terms(entry)) {
+                byReceiver.remove(term);
+            }
+        }
+
+        synchronized List<PickupQueueEntry> after(QueueKey after, int limit) {
+            List<PickupQueueEntry> rows = new ArrayList<>(Math.min(limit, byAge.size()));
+            for (PickupQueueEntry entry : byAge.tailMap(after, false).values()) {
+                if (rows.size() == limit) {
+                    break;
+                }
+                rows.add(entry);
+            }
+            return rows;
+        }
+
+        synchronized List<PickupQueueEntry> search(String prefix, int limit) {
+            // Bounded max-heap of the oldest matches so far, so a short prefix never sorts the whole queue
+            PriorityQueue<PickupQueueEntry> oldest = new PriorityQueue<>(limit + 1, OLDEST_FIRST.reversed());
+            // Name and phone may both match; keep each transfer once
+            Set<Long> kept = new HashSet<>();
+            for (PickupQueueEntry entry : byReceiver.subMap(prefix, true, prefix + Character.MAX_VALUE, true).values()) {
+                if (kept.contains(entry.transactionId())) {
+                    continue;
+                }
+                if (oldest.size() == limit) {
+                    if (OLDEST_FIRST.compare(entry, oldest.peek()) >= 0) {
+                        continue;
+                    }
+                    kept.remove(oldest.poll().transactionId());
+                }
+                oldest.add(entry);
+                kept.add(entry.transactionId());
+            }
+            List<PickupQueueEntry> rows = new ArrayList<>(oldest);
+            rows.sort(OLDEST_FIRST);
+            return rows;
+        }
+
+        synchronized int size() {
+            return byId.size();
+        }
+
+        private static QueueKey key(PickupQueueEntry entry) {
+            return new QueueKey(entry.createdAt(), entry.transactionId());
+        }
+
+        private static List<String> terms(PickupQueueEntry entry) {
+            List<String> terms = new ArrayList<>(2);
+            String suffix = "\u0000" + entry.transactionId();
+            if (entry.receiverName() != null) {
+                terms.add(entry.receiverName().toLowerCase(Locale.ROOT) + suffix);
+            }
+            if (entry.receiverPhone() != null) {
+                terms.add(entry.receiverPhone().toLowerCase(Locale.ROOT) + suffix);
+            }
+            return terms;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.AuthenticatedUser;
+import com.mycompany.transfersystem.config.RateLimitProperties;
+import com.mycompany.transfersystem.config.RateLimitProperties.EndpointClass;
+import com.mycompany.transfersystem.config.RateLimitProperties.Rate;
+import com.mycompany.transfersystem.util.TokenBucketLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Token-bucket request limits per user and per branch, one set of buckets
+ * for each endpoint class, so a flood of exchange-rate calls does not eat
+ * into transfer capacity and one branch cannot starve the others.
+ */
+@Service
+public class RateLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitService.class);
+
+    private final RateLimitProperties properties;
+
+    private final Map<EndpointClass, TokenBucketLimiter> users = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, TokenBucketLimiter> branches = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public RateLimitService(RateLimitProperties properties) {
+        this.properties = properties;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            users.put(endpointClass, new TokenBucketLimiter());
+            branches.put(endpointClass, new TokenBucketLimiter());
+        }
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    /**
+     * Take a request from the user's and the user's branch buckets, or from neither
+     * @return 0 if the request may proceed, otherwise nanoseconds until it would be admitted
+     */
+    public long acquire(AuthenticatedUser user, EndpointClass endpointClass, long nowNanos) {
+        Rate userRate = properties.getUser().forRole(user.role(), endpointClass);
+        Rate branchRate = user.branchId() != null ? properties.getBranch().get(endpointClass) : null;
+
+        boolean userLimited = userRate != null && userRate.isLimited();
+        if (userLimited) {
+            long wait = users.get(endpointClass).tryAcquire(user.id(), nowNanos,
+                    userRate.intervalNanos(), userRate.burstOrDefault());
+            if (wait > 0) {
+                return wait;
+            }
+        }
+        if (branchRate != null && branchRate.isLimited()) {
+            long wait = branches.get(endpointClass).tryAcquire(user.branchId(), nowNanos,
+                    branchRate.intervalNanos(), branchRate.burstOrDefault());
+            if (wait > 0) {
+                if (userLimited) {
+                    users.get(endpointClass).refund(user.id(), nowNanos, userRate.intervalNanos());
+                }
+                return wait;
+            }
+        }
+        return 0;
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.purge-interval-ms:300000}")
+    public void purgeIdle() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            removed += users.get(endpointClass).purgeFull(now) + branches.get(endpointClass).purgeFull(now);
+        }
+        if (removed > 0) {
+            log.debug("Dropped {} refilled rate limit buckets", removed);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.JwtUtil;
+import com.mycompany.transfersystem.dto.LoginResponse;
+import com.mycompany.transfersystem.entity.RefreshToken;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.exception.InvalidRefreshTokenException;
+import com.mycompany.transfersystem.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Issues short-lived access tokens together with rotating refresh tokens.
+ * Each login starts a token family; every refresh retires the presented
+ * token and hands out its successor in the same family. Presenting a
+ * retired token again means it was copied, so the whole family is revoked
+ * and its access tokens stop working through {@link TokenRevocationIndex}.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final TokenVersionService tokenVersionService;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final SecureRandom random = new SecureRandom();
+
+    @Value("${jwt.refresh-expiration:604800000}") // 7 days in milliseconds
+    private long refreshTokenMillis = 604_800_000L;
+
+    @Autowired
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository, JwtUtil jwtUtil,
+                               TokenVersionService tokenVersionService, TokenRevocationIndex tokenRevocationIndex) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.tokenVersionService = tokenVersionService;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+    }
+
+    /**
+     * Start a new token family for a user who has just logged in
+     */
+    @Transactional
+    public LoginResponse issue(User user) {
+        return issue(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange a refresh token for a new access token and a new refresh token.
+     * The family revocation on reuse is committed even though the call fails.
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or already used
+     */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public LoginResponse refresh(String rawToken) {
+        RefreshToken current = refreshTokenRepository.findByTokenWithUser(hash(rawToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Invalid refresh token"));
+        LocalDateTime now = LocalDateTime.now();
+
+        if (current.isRevoked() && !current.isRotated()) {
+            throw new InvalidRefreshTokenException("Refresh token has been revoked");
+        }
+        if (!current.isRevoked() && current.getExpiryDate().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+        // A conditional update, so two concurrent refreshes with the same token cannot both win
+        if (current.isRotated() || refreshTokenRepository.markRotated(current.getId(), now) == 0) {
+            log.warn("Refresh token of user {} reused; revoking token family {}",
+                    current.getUser().getId(), current.getFamilyId());
+            revokeFamily(current.getFamilyId(), now);
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        return issue(current.getUser(), current.getFamilyId());
+    }
+
+    /**
+     * Revoke the family of the given refresh token; unknown tokens are ignored
+     */
+    @Transactional
+    public void logout(String rawToken) {
+        refreshTokenRepository.findByTokenWithUser(hash(rawToken))
+                .ifPresent(token -> revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Revoke every live token family of a user, ending all of their sessions
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        for (String familyId : refreshTokenRepository.findActiveFamilyIds(userId)) {
+            revokeFamily(familyId, now);
+        }
+    }
+
+    /**
+     * Revoke the sessions of a user about to be deleted and detach their tokens
+     * from them. The revoked rows are left for {@link #purgeExpired} so other
+     * instances still pick the revocations up from the table.
+     */
+    @Transactional
+    public void revokeForDeletedUser(Long userId) {
+        revokeAllForUser(userId);
+        refreshTokenRepository.detachUser(userId);
+    }
+
+    @Scheduled(cron = "${app.auth.refresh-token-purge-cron:0 45 3 * * *}")
+    @Transactional
+    public void purgeExpired() {
+        int removed = refreshTokenRepository.deleteExpiredBefore(LocalDateTime.now());
+        if (removed > 0) {
+            log.info("Deleted {} expired refresh tokens", removed);
+        }
+    }
+
+    private LoginResponse issue(User user, String familyId) {
+        String rawToken = newToken();
+        RefreshToken refreshToken = new RefreshToken();
+        refreshToken.setToken(hash(rawToken));
+        refreshToken.setUser(user);
+        refreshToken.setFamilyId(familyId);
+        refreshToken.setExpiryDate(LocalDateTime.now().plusNanos(refreshTokenMillis * 1_000_000));
+        refreshTokenRepository.save(refreshToken);
+
+        String accessToken = jwtUtil.generateToken(user, familyId);
+        tokenVersionService.record(user);
+
+        LoginResponse response = new LoginResponse(accessToken, user.getUsername(), user.getRole().name(),
+                jwtUtil.getExpirationTime());
+        response.setRefreshToken(rawToken);
+        response.setRefreshExpiresIn(refreshTokenMillis);
+        return response;
+    }
+
+    private void revokeFamily(String familyId, LocalDateTime now) {
+        refreshTokenRepository.revokeFamily(familyId, now);
+        tokenRevocationIndex.revoked(familyId, System.currentTimeMillis());
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static String hash(String rawToken) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(rawToken.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.mycompany.transfersystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Release passcodes are stored as a salted HMAC-SHA256 under a server-side
+ * key, never in plain text. A six-digit code has too little entropy for a
+ * bare hash to survive a leaked table; without the key the stored value
+ * cannot be brute-forced offline. Stored form: {@code v1$<salt>$<mac>}.
+ * Outside development the key must be set on its own (app.passcode.secret)
+ * rather than falling back to the JWT secret.
+ */
+@Component
+public class ReleasePasscodeHasher {
+
+    private static final String PREFIX = "v1$";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SALT_BYTES = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    private final SecretKeySpec key;
+
+    public ReleasePasscodeHasher(@Value("${app.passcode.secret:${jwt.secret}}") String secret) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalStateException("app.passcode.secret must be set");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    }
+
+    public String hash(String passcode) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + encoder.encodeToString(salt) + "$" + encoder.encodeToString(mac(salt, passcode));
+    }
+
+    /**
+     * Compare a passcode with its stored form in constant time. Values stored
+     * before hashing was introduced are plain codes and are compared as such.
+     */
+    public boolean matches(String passcode, String stored) {
+        if (passcode == null || stored == null) {
+            return false;
+        }
+        if (!stored.startsWith(PREFIX)) {
+            return MessageDigest.isEqual(stored.getBytes(StandardCharsets.UTF_8),
+                    passcode.getBytes(StandardCharsets.UTF_8));
+        }
+        int separator = stored.indexOf('$', PREFIX.length());
+        if (separator < 0) {
+            return false;
+        }
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            byte[] salt = decoder.decode(stored.substring(PREFIX.length(), separator));
+            byte[] expected = decoder.decode(stored.substring(separator + 1));
+            return MessageDigest.isEqual(expected, mac(salt, passcode));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private byte[] mac(byte[] salt, String passcode) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            mac.update(salt);
+            return mac.doFinal(passcode.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 unavailable", e);
+        }
+    }
+}
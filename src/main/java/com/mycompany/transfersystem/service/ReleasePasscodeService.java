@@ -1,33 +1,116 @@
 package com.mycompany.transfersystem.service;
 
+import com.mycompany.transfersystem.dto.BatchReleaseRequest;
+import com.mycompany.transfersystem.dto.BatchReleaseResult;
 import com.mycompany.transfersystem.entity.Transaction;
 import com.mycompany.transfersystem.entity.User;
 import com.mycompany.transfersystem.entity.enums.TransactionStatus;
 import com.mycompany.transfersystem.exception.InvalidTransactionException;
+import com.mycompany.transfersystem.exception.PasscodeLockedException;
 import com.mycompany.transfersystem.exception.ResourceNotFoundException;
 import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.AttemptLockout;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Releases transfers against their passcode. Every attempt is counted per
+ * transaction and per terminal (the signed-in user, or the client address)
+ * in memory before the transaction is loaded, so once either runs out of
+ * attempts further guesses are refused without touching the database.
+ */
 @Service
 public class ReleasePasscodeService {
 
+    private static final Logger log = LoggerFactory.getLogger(ReleasePasscodeService.class);
+
     @Autowired
     private TransactionRepository transactionRepository;
 
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private ReleasePasscodeHasher releasePasscodeHasher;
+
+    @Autowired
+    private PickupQueueService pickupQueueService;
+
+    // Few guesses per transfer: a receiver mistyping the code, not a search of the code space
+    @Value("${app.passcode.max-attempts-per-transaction:5}")
+    private int maxAttemptsPerTransaction = 5;
+
+    // A cashier releases many transfers, so the terminal allowance is larger
+    @Value("${app.passcode.max-attempts-per-terminal:20}")
+    private int maxAttemptsPerTerminal = 20;
+
+    @Value("${app.passcode.attempt-window-minutes:15}")
+    private long attemptWindowMinutes = 15;
+
+    @Value("${app.passcode.lockout-minutes:30}")
+    private long lockoutMinutes = 30;
+
+    private AttemptLockout<Long> transactionAttempts;
+    private AttemptLockout<String> terminalAttempts;
+
+    // Batch release confirmations go out after commit, off the request thread
+    private final ThreadPoolExecutor confirmationSender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(10_000), runnable -> {
+                Thread thread = new Thread(runnable, "release-confirmations");
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+    @PostConstruct
+    void init() {
+        long window = attemptWindowMinutes * 60_000L;
+        long lockout = lockoutMinutes * 60_000L;
+        transactionAttempts = new AttemptLockout<>(maxAttemptsPerTransaction, window, lockout);
+        terminalAttempts = new AttemptLockout<>(maxAttemptsPerTerminal, window, lockout);
+    }
+
     /**
      * Verify the release passcode and update transaction status to RELEASED
      * @param transactionId The transaction ID
      * @param passcode The passcode provided by the receiver client
      * @param receiverId The receiver client ID
      * @return true if verification successful and transaction released
+     * @throws PasscodeLockedException if the transaction or the terminal has no attempts left
      */
     @Transactional
     public boolean verifyPasscode(Long transactionId, String passcode, Long receiverId) {
+        return verifyPasscode(transactionId, passcode, receiverId, currentTerminal());
+    }
+
+    @Transactional
+    public boolean verifyPasscode(Long transactionId, String passcode, Long receiverId, String terminal) {
+        acquireAttempt(transactionId, terminal);
+
         // Find the transaction
         Transaction transaction = transactionRepository.findById(transactionId)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + transactionId));
@@ -43,25 +126,233 @@ public class ReleasePasscodeService {
         }
 
         // Verify the passcode
-        if (transaction.getReleasePasscode() == null || !transaction.getReleasePasscode().equals(passcode)) {
+        if (!releasePasscodeHasher.matches(passcode, transaction.getReleasePasscode())) {
             throw new InvalidTransactionException("Invalid release passcode");
         }
 
-        // Update transaction status to RELEASED
+        // Only failed attempts count against the terminal
+        terminalAttempts.refund(terminal);
+
+        // Update transaction status to RELEASED, unless the expiry sweeper got to it first
+        if (transactionRepository.updateStatusIf(transaction.getId(), TransactionStatus.COMPLETED,
+                TransactionStatus.RELEASED) == 0) {
+            throw new InvalidTransactionException("Transaction is not in COMPLETED status for release");
+        }
         transaction.setStatus(TransactionStatus.RELEASED);
-        transactionRepository.save(transaction);
+        pickupQueueService.transferClosed(transaction.getReceiverBranch() != null
+                ? transaction.getReceiverBranch().getId() : null, transaction.getId());
 
         // Send confirmation email to sender
         User sender = transaction.getSender();
-        String confirmationMessage = String.format(
+        notificationService.sendEmail(sender, "Money Transfer Released", confirmationMessage(transaction));
+
+        return true;
+    }
+
+    /**
+     * Release many transfers in one transaction. Each item is checked like a single
+     * release and reported on its own; the transfers are loaded and locked with one
+     * query and the verified ones marked RELEASED with one statement, and their confirmations are queued
+     * once the transaction commits.
+     */
+    @Transactional
+    public BatchReleaseResult releaseBatch(List<BatchReleaseRequest.Item> items) {
+        return releaseBatch(items, currentTerminal());
+    }
+
+    @Transactional
+    public BatchReleaseResult releaseBatch(List<BatchReleaseRequest.Item> items, String terminal) {
+        BatchReleaseResult result = new BatchReleaseResult();
+
+        // A locked terminal gets nothing read at all
+        long terminalWait = terminalAttempts.lockedFor(terminal, System.currentTimeMillis());
+        if (terminalWait > 0) {
+            log.warn("Release passcode attempts locked for terminal {}", terminal);
+            for (BatchReleaseRequest.Item item : items) {
+                result.getFailed().add(new BatchReleaseResult.Failure(item.getTransactionId(),
+                        "Too many failed release attempts from this terminal"));
+            }
+            return result;
+        }
+
+        // Attempts per transaction are counted before anything is read, as for a single release
+        Map<Long, BatchReleaseRequest.Item> admitted = new LinkedHashMap<>();
+        for (BatchReleaseRequest.Item item : items) {
+            if (admitted.containsKey(item.getTransactionId())) {
+                result.getFailed().add(new BatchReleaseResult.Failure(item.getTransactionId(), "Duplicate item in batch"));
+                continue;
+            }
+            try {
+                acquireTransactionAttempt(item.getTransactionId());
+                admitted.put(item.getTransactionId(), item);
+            } catch (PasscodeLockedException e) {
+                result.getFailed().add(new BatchReleaseResult.Failure(item.getTransactionId(), e.getMessage()));
+            }
+        }
+        if (admitted.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Transaction> transactions = transactionRepository.findAllForRelease(admitted.keySet()).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        List<Transaction> verified = new ArrayList<>(admitted.size());
+        for (BatchReleaseRequest.Item item : admitted.values()) {
+            // The terminal is charged one item at a time and successes are handed back straight
+            // away, so a batch of valid items never wears it down but failed guesses stop at its limit
+            try {
+                acquireTerminalAttempt(terminal);
+            } catch (PasscodeLockedException e) {
+                result.getFailed().add(new BatchReleaseResult.Failure(item.getTransactionId(), e.getMessage()));
+                continue;
+            }
+            String failure = check(transactions.get(item.getTransactionId()), item);
+            if (failure != null) {
+                result.getFailed().add(new BatchReleaseResult.Failure(item.getTransactionId(), failure));
+                continue;
+            }
+            terminalAttempts.refund(terminal);
+            verified.add(transactions.get(item.getTransactionId()));
+        }
+        if (verified.isEmpty()) {
+            return result;
+        }
+
+        // The rows are locked, so every verified transfer is still COMPLETED; anything else rolls the batch back
+        Set<Long> verifiedIds = verified.stream().map(Transaction::getId).collect(Collectors.toSet());
+        int updated = transactionRepository.updateStatusesIf(verifiedIds, TransactionStatus.COMPLETED,
+                TransactionStatus.RELEASED);
+        if (updated != verifiedIds.size()) {
+            throw new InvalidTransactionException("Batch release conflicted with a concurrent change; please retry");
+        }
+
+        for (Transaction transaction : verified) {
+            result.getReleased().add(transaction.getId());
+            pickupQueueService.transferClosed(transaction.getReceiverBranch() != null
+                    ? transaction.getReceiverBranch().getId() : null, transaction.getId());
+        }
+        sendConfirmationsAfterCommit(verified);
+        return result;
+    }
+
+    @PreDestroy
+    void flushPendingConfirmations() throws InterruptedException {
+        confirmationSender.shutdown();
+        if (!confirmationSender.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Release confirmations still queued at shutdown: {}", confirmationSender.getQueue().size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.passcode.purge-interval-ms:600000}")
+    public void purgeIdle() {
+        long now = System.currentTimeMillis();
+        int removed = transactionAttempts.purgeIdle(now) + terminalAttempts.purgeIdle(now);
+        if (removed > 0) {
+            log.debug("Dropped {} idle release passcode attempt counters", removed);
+        }
+    }
+
+    /**
+     * Count the attempt against the transaction and the terminal, refusing it if either is locked out
+     */
+    private void acquireAttempt(Long transactionId, String terminal) {
+        acquireTerminalAttempt(terminal);
+        try {
+            acquireTransactionAttempt(transactionId);
+        } catch (PasscodeLockedException e) {
+            // The terminal did not get to guess
+            terminalAttempts.refund(terminal);
+            throw e;
+        }
+    }
+
+    private void acquireTerminalAttempt(String terminal) {
+        long wait = terminalAttempts.tryAcquire(terminal, System.currentTimeMillis());
+        if (wait > 0) {
+            log.warn("Release passcode attempts locked for terminal {}", terminal);
+            throw new PasscodeLockedException("Too many failed release attempts from this terminal", toSeconds(wait));
+        }
+    }
+
+    private void acquireTransactionAttempt(Long transactionId) {
+        long wait = transactionAttempts.tryAcquire(transactionId, System.currentTimeMillis());
+        if (wait > 0) {
+            log.warn("Release passcode attempts locked for transaction {}", transactionId);
+            throw new PasscodeLockedException("Too many failed release attempts for this transaction", toSeconds(wait));
+        }
+    }
+
+    /**
+     * @return why the item cannot be released, or null if it can
+     */
+    private String check(Transaction transaction, BatchReleaseRequest.Item item) {
+        if (transaction == null) {
+            return "Transaction not found with id: " + item.getTransactionId();
+        }
+        if (!transaction.getReceiver().getId().equals(item.getReceiverId())) {
+            return "Receiver ID does not match transaction receiver";
+        }
+        if (transaction.getStatus() != TransactionStatus.COMPLETED) {
+            return "Transaction is not in COMPLETED status for release";
+        }
+        if (!releasePasscodeHasher.matches(item.getPasscode(), transaction.getReleasePasscode())) {
+            return "Invalid release passcode";
+        }
+        return null;
+    }
+
+    private void sendConfirmationsAfterCommit(List<Transaction> released) {
+        // Built now, while the fetched senders are attached; sent once the releases are durable
+        List<Runnable> confirmations = released.stream()
+                .map(transaction -> {
+                    User sender = transaction.getSender();
+                    String message = confirmationMessage(transaction);
+                    return (Runnable) () -> notificationService.sendEmail(sender, "Money Transfer Released", message);
+                })
+                .toList();
+        Runnable enqueue = () -> confirmations.forEach(confirmation -> confirmationSender.execute(() -> {
+            try {
+                confirmation.run();
+            } catch (RuntimeException e) {
+                log.warn("Release confirmation failed", e);
+            }
+        }));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue.run();
+                }
+            });
+        } else {
+            enqueue.run();
+        }
+    }
+
+    private static String confirmationMessage(Transaction transaction) {
+        return String.format(
             "Your money transfer (Transaction ID: %d) has been successfully released to the receiver. " +
             "Amount: %s. Thank you for using our service.",
             transaction.getId(),
             transaction.getAmount()
         );
-        
-        notificationService.sendEmail(sender, "Money Transfer Released", confirmationMessage);
+    }
 
-        return true;
+    /**
+     * The signed-in user if there is one, otherwise the client address
+     */
+    private static String currentTerminal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            return "addr:" + attributes.getRequest().getRemoteAddr();
+        }
+        return "local";
+    }
+
+    private static long toSeconds(long millis) {
+        return Math.max(1, (millis + 999) / 1000);
     }
 }
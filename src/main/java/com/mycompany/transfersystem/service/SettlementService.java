@@ -0,0 +1,262 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.BranchObligation;
+import com.mycompany.transfersystem.dto.SettlementRunResponse;
+import com.mycompany.transfersystem.entity.SettlementPayment;
+import com.mycompany.transfersystem.entity.SettlementRun;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.event.TransferCompletedEvent;
+import com.mycompany.transfersystem.event.TransferExpiredEvent;
+import com.mycompany.transfersystem.repository.BranchRepository;
+import com.mycompany.transfersystem.repository.SettlementRunRepository;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.NetSettlementPlanner;
+import com.mycompany.transfersystem.util.SparseObligationMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Inter-branch netting. A sparse obligation matrix of unsettled debts is kept
+ * current as transfers commit; settlement runs periodically claim the
+ * unsettled transactions, net the obligations multilaterally and persist the
+ * resulting branch-to-branch payments.
+ */
+@Service
+public class SettlementService {
+
+    private static final Logger log = LoggerFactory.getLogger(SettlementService.class);
+
+    // Obligations are tracked in fixed-point units of 1/10000 USD (the usd_equivalent scale)
+    static final int AMOUNT_SCALE = 4;
+
+    private static final List<TransactionStatus> EXCLUDED_STATUSES = List.of(TransactionStatus.FAILED, TransactionStatus.EXPIRED);
+
+    private final TransactionRepository transactionRepository;
+    private final SettlementRunRepository settlementRunRepository;
+    private final BranchRepository branchRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final SparseObligationMatrix unsettled = new SparseObligationMatrix();
+
+    @Value("${app.settlement.enabled:true}")
+    private boolean enabled = true;
+
+    @Autowired
+    public SettlementService(TransactionRepository transactionRepository,
+                             SettlementRunRepository settlementRunRepository,
+                             BranchRepository branchRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.settlementRunRepository = settlementRunRepository;
+        this.branchRepository = branchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Rebuild the unsettled matrix from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        unsettled.clear();
+        List<BranchObligation> obligations = transactionRepository.sumUnsettledObligations(EXCLUDED_STATUSES);
+        for (BranchObligation obligation : obligations) {
+            unsettled.add(obligation.debtorBranchId(), obligation.creditorBranchId(), toUnits(obligation.amount()));
+        }
+        for (BranchObligation reversal : transactionRepository.sumUnsettledReversals(TransactionStatus.EXPIRED)) {
+            unsettled.add(reversal.debtorBranchId(), reversal.creditorBranchId(), toUnits(reversal.amount()));
+        }
+        log.info("Loaded {} unsettled inter-branch obligations", unsettled.cellCount());
+    }
+
+    @TransactionalEventListener
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        if (event.senderBranchId() == null || event.receiverBranchId() == null || event.usdEquivalent() == null) {
+            return;
+        }
+        unsettled.add(event.senderBranchId(), event.receiverBranchId(), toUnits(event.usdEquivalent()));
+    }
+
+    /**
+     * A refunded transfer no longer owes the paying branch anything; if a run already
+     * settled it, the paying branch owes the amount back and the next run nets that
+     */
+    @TransactionalEventListener
+    public void onTransferExpired(TransferExpiredEvent event) {
+        if (event.senderBranchId() == null || event.receiverBranchId() == null || event.usdEquivalent() == null) {
+            return;
+        }
+        if (event.settled()) {
+            unsettled.add(event.receiverBranchId(), event.senderBranchId(), toUnits(event.usdEquivalent()));
+        } else {
+            unsettled.add(event.senderBranchId(), event.receiverBranchId(), -toUnits(event.usdEquivalent()));
+        }
+    }
+
+    @Scheduled(cron = "${app.settlement.cron:0 0 * * * *}")
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            runSettlement();
+        } catch (Exception e) {
+            log.error("Settlement run failed", e);
+        }
+    }
+
+    /**
+     * Net all unsettled obligations created before now.
+     * @return the persisted run, or empty when there was nothing to settle
+     */
+    public Optional<SettlementRunResponse> runSettlement() {
+        return transactionTemplate.execute(status -> settle(LocalDateTime.now()));
+    }
+
+    private Optional<SettlementRunResponse> settle(LocalDateTime cutoff) {
+        SettlementRun run = new SettlementRun();
+        run.setCutoff(cutoff);
+        run.setCreatedAt(cutoff);
+        run.setGrossAmount(BigDecimal.ZERO);
+        run.setNetAmount(BigDecimal.ZERO);
+        run = settlementRunRepository.saveAndFlush(run);
+
+        int claimed = transactionRepository.claimForSettlement(run.getId(), cutoff, EXCLUDED_STATUSES)
+                + transactionRepository.claimReversalsForSettlement(run.getId(), TransactionStatus.EXPIRED);
+        if (claimed == 0) {
+            settlementRunRepository.delete(run);
+            return Optional.empty();
+        }
+
+        SparseObligationMatrix batch = new SparseObligationMatrix();
+        for (BranchObligation obligation : transactionRepository.sumObligationsBySettlementRun(run.getId())) {
+            batch.add(obligation.debtorBranchId(), obligation.creditorBranchId(), toUnits(obligation.amount()));
+        }
+        for (BranchObligation reversal : transactionRepository.sumReversalsBySettlementRun(run.getId())) {
+            batch.add(reversal.debtorBranchId(), reversal.creditorBranchId(), toUnits(reversal.amount()));
+        }
+
+        Map<Long, Long> netPositions = batch.netPositions();
+        long netTotal = 0L;
+        for (NetSettlementPlanner.Payment payment : NetSettlementPlanner.plan(netPositions)) {
+            run.addPayment(new SettlementPayment(payment.payerId(), payment.payeeId(), fromUnits(payment.amount())));
+            netTotal += payment.amount();
+        }
+        run.setTransactionCount(claimed);
+        run.setBranchCount(netPositions.size());
+        run.setGrossAmount(fromUnits(batch.grossTotal()));
+        run.setNetAmount(fromUnits(netTotal));
+        SettlementRun saved = settlementRunRepository.save(run);
+
+        // Take the settled obligations out of the live view once they are committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                batch.forEach((debtorId, creditorId, amount) -> unsettled.add(debtorId, creditorId, -amount));
+            }
+        });
+
+        log.info("Settlement run {}: {} transactions, gross {} netted to {} in {} payments",
+                saved.getId(), claimed, saved.getGrossAmount(), saved.getNetAmount(), saved.getPayments().size());
+        return Optional.of(toResponse(saved));
+    }
+
+    /**
+     * Obligations accumulated since the last run and the payments that would settle them now
+     */
+    public Map<String, Object> getPendingSettlement() {
+        Map<Long, Long> netPositions = unsettled.netPositions();
+        Map<String, Object> pending = new LinkedHashMap<>();
+        pending.put("grossAmount", fromUnits(unsettled.grossTotal()));
+        pending.put("obligationCount", unsettled.cellCount());
+        pending.put("netPositions", netPositions.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, e -> fromUnits(e.getValue()))));
+        Map<Long, String> branchNames = branchNames(netPositions.keySet());
+        pending.put("payments", NetSettlementPlanner.plan(netPositions).stream()
+                .map(p -> toPaymentResponse(p.payerId(), p.payeeId(), fromUnits(p.amount()), branchNames))
+                .collect(Collectors.toList()));
+        return pending;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SettlementRunResponse> getRuns(int page, int size) {
+        return settlementRunRepository.findAllByOrderByIdDesc(PageRequest.of(page, size)).stream()
+                .map(run -> toResponse(run, false))
+                .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public SettlementRunResponse getRun(Long id) {
+        SettlementRun run = settlementRunRepository.findWithPaymentsById(id)
+                .orElseThrow(() -> new RuntimeException("Settlement run not found with ID: " + id));
+        return toResponse(run);
+    }
+
+    private SettlementRunResponse toResponse(SettlementRun run) {
+        return toResponse(run, true);
+    }
+
+    private SettlementRunResponse toResponse(SettlementRun run, boolean withPayments) {
+        SettlementRunResponse response = new SettlementRunResponse();
+        response.setId(run.getId());
+        response.setCutoff(run.getCutoff());
+        response.setTransactionCount(run.getTransactionCount());
+        response.setBranchCount(run.getBranchCount());
+        response.setGrossAmount(run.getGrossAmount());
+        response.setNetAmount(run.getNetAmount());
+        response.setCreatedAt(run.getCreatedAt());
+        if (withPayments) {
+            Map<Long, String> branchNames = branchNames(run.getPayments().stream()
+                    .flatMap(p -> Stream.of(p.getPayerBranchId(), p.getPayeeBranchId()))
+                    .collect(Collectors.toSet()));
+            response.setPayments(run.getPayments().stream()
+                    .map(p -> toPaymentResponse(p.getPayerBranchId(), p.getPayeeBranchId(), p.getAmount(), branchNames))
+                    .collect(Collectors.toList()));
+        }
+        return response;
+    }
+
+    private Map<Long, String> branchNames(Set<Long> branchIds) {
+        Map<Long, String> names = new HashMap<>();
+        branchRepository.findAllById(branchIds).forEach(branch -> names.put(branch.getId(), branch.getName()));
+        return names;
+    }
+
+    private static SettlementRunResponse.Payment toPaymentResponse(Long payerId, Long payeeId, BigDecimal amount,
+                                                                   Map<Long, String> branchNames) {
+        return new SettlementRunResponse.Payment(payerId, branchNames.get(payerId), payeeId, branchNames.get(payeeId), amount);
+    }
+
+    static long toUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, AMOUNT_SCALE);
+    }
+}
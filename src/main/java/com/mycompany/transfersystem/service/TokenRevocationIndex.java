@@ -0,0 +1,133 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.RefreshFamilyRevocation;
+import com.mycompany.transfersystem.repository.RefreshTokenRepository;
+import com.mycompany.transfersystem.util.RotatingBloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Refresh token families (logins) revoked recently enough that access tokens
+ * issued to them may still be unexpired. Every authenticated request checks
+ * its token's family here: a rotating Bloom filter answers the common "not
+ * revoked" case, and only a filter hit consults the exact set. Loaded from
+ * refresh_tokens at startup and kept in step with other instances by a
+ * periodic sync, so the check never reads the database.
+ */
+@Service
+public class TokenRevocationIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    // Overlap between syncs so a revocation committed during the previous query is not missed
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    // Family id -> time after which no access token of the family can still be valid
+    private final ConcurrentHashMap<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+    private volatile RotatingBloomFilter filter;
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    @Value("${jwt.expiration:900000}")
+    private long accessTokenMillis = 900_000;
+
+    @Value("${app.auth.revocation.expected-per-window:10000}")
+    private long expectedPerWindow = 10_000;
+
+    @Value("${app.auth.revocation.false-positive-rate:0.001}")
+    private double falsePositiveRate = 0.001;
+
+    @Autowired
+    public TokenRevocationIndex(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        // An entry has to outlive the access tokens issued before its revocation, i.e. one access token lifetime
+        filter = new RotatingBloomFilter(accessTokenMillis, 3, expectedPerWindow, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        LocalDateTime started = LocalDateTime.now();
+        List<RefreshFamilyRevocation> revocations = refreshTokenRepository.findFamilyRevocationsSince(
+                started.minusNanos(accessTokenMillis * 1_000_000));
+        revocations.forEach(r -> revoked(r.familyId(), toMillis(r.revokedAt())));
+        lastSync = started;
+        log.info("Loaded {} recently revoked refresh token families", revocations.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.revocation-sync-ms:10000}")
+    @Transactional(readOnly = true)
+    public void sync() {
+        LocalDateTime started = LocalDateTime.now();
+        refreshTokenRepository.findFamilyRevocationsSince(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS))
+                .forEach(r -> revoked(r.familyId(), toMillis(r.revokedAt())));
+        lastSync = started;
+        purgeExpired();
+    }
+
+    /**
+     * True if access tokens of this family must be refused
+     */
+    public boolean isRevoked(String familyId) {
+        long now = System.currentTimeMillis();
+        if (!filter.mightContain(fingerprint(familyId), now)) {
+            return false;
+        }
+        Long until = revokedFamilies.get(familyId);
+        return until != null && until > now;
+    }
+
+    /**
+     * Record a family revoked at the given time
+     */
+    public void revoked(String familyId, long atMillis) {
+        long until = atMillis + accessTokenMillis;
+        if (until <= System.currentTimeMillis()) {
+            return;
+        }
+        // Set first: a concurrent lookup that sees the filter bit must find the entry
+        revokedFamilies.merge(familyId, until, Math::max);
+        filter.put(fingerprint(familyId), atMillis);
+    }
+
+    public int size() {
+        return revokedFamilies.size();
+    }
+
+    private void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedFamilies.values().removeIf(until -> until <= now);
+    }
+
+    private static long fingerprint(String familyId) {
+        try {
+            UUID id = UUID.fromString(familyId);
+            return RotatingBloomFilter.mix(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        } catch (IllegalArgumentException e) {
+            return RotatingBloomFilter.mix(0L, familyId.hashCode());
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
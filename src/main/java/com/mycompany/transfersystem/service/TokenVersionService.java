@@ -0,0 +1,138 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.UserTokenVersion;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory map of each user's current access-token version. A token is
+ * accepted only while the version it was issued with is still current, so
+ * bumping the version (role or password change, explicit revocation,
+ * deletion) invalidates all of the user's tokens without a lookup per request.
+ * Changes made by other instances are picked up by a periodic sync, including
+ * deletions, which leave no row behind to sync from.
+ */
+@Service
+public class TokenVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionService.class);
+
+    // Version of deleted users: no issued token can match it
+    private static final int REVOKED = -1;
+
+    // Overlap between syncs so a change committed during the previous query is not missed
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    private final UserRepository userRepository;
+
+    private final ConcurrentHashMap<Long, Integer> versions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime lastSync = LocalDateTime.now();
+
+    @Autowired
+    public TokenVersionService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        LocalDateTime started = LocalDateTime.now();
+        List<UserTokenVersion> all = userRepository.findAllTokenVersions();
+        for (UserTokenVersion entry : all) {
+            versions.put(entry.userId(), entry.version());
+        }
+        lastSync = started;
+        log.info("Loaded access-token versions of {} users", all.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.auth.token-version-sync-ms:30000}")
+    @Transactional(readOnly = true)
+    public void syncChanged() {
+        LocalDateTime started = LocalDateTime.now();
+        for (UserTokenVersion entry : userRepository.findTokenVersionsUpdatedSince(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS))) {
+            versions.put(entry.userId(), entry.version());
+        }
+        revokeDeleted();
+        lastSync = started;
+    }
+
+    // Users deleted by another instance; each candidate is confirmed so a user created
+    // after the id list was read is not revoked
+    private void revokeDeleted() {
+        Set<Long> existing = new HashSet<>(userRepository.findAllIds());
+        for (Map.Entry<Long, Integer> entry : versions.entrySet()) {
+            if (entry.getValue() != REVOKED && !existing.contains(entry.getKey())
+                    && userRepository.findTokenVersionById(entry.getKey()).isEmpty()) {
+                versions.put(entry.getKey(), REVOKED);
+                log.info("Revoked access tokens of deleted user {}", entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * True if a token issued with this version is still valid for the user.
+     * Only a user the map has never seen costs a database read.
+     */
+    public boolean isCurrent(Long userId, int version) {
+        Integer current = versions.get(userId);
+        if (current == null) {
+            current = userRepository.findTokenVersionById(userId).orElse(REVOKED);
+            Integer raced = versions.putIfAbsent(userId, current);
+            if (raced != null) {
+                current = raced;
+            }
+        }
+        return current == version;
+    }
+
+    /**
+     * Remember the version a token is being issued with
+     */
+    public void record(User user) {
+        versions.put(user.getId(), user.getTokenVersion());
+    }
+
+    /**
+     * Invalidate every token issued to the user so far. The caller saves the
+     * user; inside a transaction the new version takes effect on commit.
+     */
+    public void bump(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        afterCommit(user.getId(), user.getTokenVersion());
+    }
+
+    public void forget(Long userId) {
+        afterCommit(userId, REVOKED);
+    }
+
+    // A rolled-back change must not reject tokens the database still considers valid
+    private void afterCommit(Long userId, int version) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.put(userId, version);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.put(userId, version);
+            }
+        });
+    }
+}
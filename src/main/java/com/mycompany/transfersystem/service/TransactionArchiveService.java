@@ -0,0 +1,269 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.archive.SegmentHeader;
+import com.mycompany.transfersystem.archive.TransactionSegmentFile;
+import com.mycompany.transfersystem.dto.TransactionSearchRequest;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Moves released transactions out of the hot table into immutable segment
+ * files on local disk and serves audit searches that reach into the archive.
+ * Segment headers are kept in memory, so a search only decompresses segments
+ * whose min/max index overlaps the filters.
+ */
+@Service
+public class TransactionArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final TransactionRepository transactionRepository;
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    @Value("${app.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.archive.directory:data/archive/transactions}")
+    private String directory;
+
+    @Value("${app.archive.released-after-days:90}")
+    private int releasedAfterDays;
+
+    @Value("${app.archive.segment-size:10000}")
+    private int segmentSize;
+
+    @Autowired
+    public TransactionArchiveService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Load segment headers and finish any archival run that was interrupted
+     * between writing a segment and deleting its rows from the hot table
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSegments() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+
+        List<Segment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                    Files.delete(file);
+                } else if (name.endsWith(SEGMENT_SUFFIX)) {
+                    loaded.add(new Segment(file, TransactionSegmentFile.readHeader(file)));
+                }
+            }
+        }
+        loaded.sort(Comparator.comparingLong(s -> s.header().getMinId()));
+        segments.clear();
+        segments.addAll(loaded);
+
+        if (!loaded.isEmpty()) {
+            Segment newest = loaded.get(loaded.size() - 1);
+            List<Long> ids = TransactionSegmentFile.readRows(newest.path()).stream().map(Transaction::getId).toList();
+            transactionRepository.deleteAllByIdInBatch(ids);
+        }
+        log.info("Loaded {} archived transaction segments from {}", loaded.size(), dir.toAbsolutePath());
+    }
+
+    /**
+     * Archive released transactions older than the configured age, one
+     * segment per batch
+     */
+    @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+    public void archiveReleasedTransactions() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(releasedAfterDays);
+        int archived = 0;
+
+        while (true) {
+            List<Transaction> batch = transactionRepository.findArchivable(
+                    TransactionStatus.RELEASED, cutoff, PageRequest.of(0, segmentSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            Path target = Paths.get(directory).resolve(segmentName(batch));
+            SegmentHeader header = TransactionSegmentFile.write(target, batch);
+            segments.add(new Segment(target, header));
+            // Rows are only removed once their segment is durable on disk
+            transactionRepository.deleteAllByIdInBatch(batch.stream().map(Transaction::getId).toList());
+            archived += batch.size();
+
+            if (batch.size() < segmentSize) {
+                break;
+            }
+        }
+        if (archived > 0) {
+            log.info("Archived {} released transactions older than {}", archived, cutoff);
+        }
+    }
+
+    /**
+     * @return true when the archive may hold rows matching the filters. Only
+     * searches whose start date reaches back to the newest archived row fan
+     * out, unless the caller opts in with includeArchived.
+     */
+    public boolean mayContain(TransactionSearchRequest filters) {
+        if (!enabled || segments.isEmpty()) {
+            return false;
+        }
+        if (filters.getStatus() != null && filters.getStatus() != TransactionStatus.RELEASED) {
+            return false;
+        }
+        if (!filters.isIncludeArchived()) {
+            LocalDateTime newest = segments.stream().map(s -> s.header().getMaxCreatedAt())
+                    .max(Comparator.naturalOrder()).orElseThrow();
+            if (filters.getStartDate() == null || filters.getStartDate().isAfter(newest)) {
+                return false;
+            }
+        }
+        return segments.stream().anyMatch(s -> overlaps(s.header(), filters));
+    }
+
+    /**
+     * Archived transactions matching the filters, ordered by {@link #comparator}
+     */
+    public List<Transaction> search(TransactionSearchRequest filters) {
+        List<Transaction> matches = new ArrayList<>();
+        for (Segment segment : segments) {
+            if (!overlaps(segment.header(), filters)) {
+                continue;
+            }
+            try {
+                for (Transaction t : TransactionSegmentFile.readRows(segment.path())) {
+                    if (matches(t, filters)) {
+                        matches.add(t);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read archive segment " + segment.path(), e);
+            }
+        }
+        matches.sort(comparator(filters));
+        return matches;
+    }
+
+    private static boolean overlaps(SegmentHeader header, TransactionSearchRequest filters) {
+        return header.overlapsCreatedAt(filters.getStartDate(), filters.getEndDate())
+                && header.overlapsAmount(filters.getMinAmount(), filters.getMaxAmount())
+                && header.mayContainSenderBranch(filters.getSenderBranchId())
+                && header.mayContainReceiverBranch(filters.getReceiverBranchId());
+    }
+
+    // Mirrors TransactionSpecifications.matching for rows read from segments
+    static boolean matches(Transaction t, TransactionSearchRequest filters) {
+        if (filters.getSenderBranchId() != null && !filters.getSenderBranchId().equals(idOf(t.getSenderBranch()))) {
+            return false;
+        }
+        if (filters.getReceiverBranchId() != null && !filters.getReceiverBranchId().equals(idOf(t.getReceiverBranch()))) {
+            return false;
+        }
+        if (filters.getStatus() != null && filters.getStatus() != t.getStatus()) {
+            return false;
+        }
+        if (filters.getStartDate() != null && t.getCreatedAt().isBefore(filters.getStartDate())) {
+            return false;
+        }
+        if (filters.getEndDate() != null && t.getCreatedAt().isAfter(filters.getEndDate())) {
+            return false;
+        }
+        if (filters.getSourceCurrency() != null && !filters.getSourceCurrency().equalsIgnoreCase(t.getSourceCurrency())) {
+            return false;
+        }
+        if (filters.getDestinationCurrency() != null && !filters.getDestinationCurrency().equalsIgnoreCase(t.getDestinationCurrency())) {
+            return false;
+        }
+        if (filters.getMinAmount() != null && t.getAmount().compareTo(BigDecimal.valueOf(filters.getMinAmount())) < 0) {
+            return false;
+        }
+        if (filters.getMaxAmount() != null && t.getAmount().compareTo(BigDecimal.valueOf(filters.getMaxAmount())) > 0) {
+            return false;
+        }
+        if (filters.getSenderId() != null && !filters.getSenderId().equals(idOf(t.getSender()))) {
+            return false;
+        }
+        return filters.getReceiverId() == null || filters.getReceiverId().equals(idOf(t.getReceiver()));
+    }
+
+    /**
+     * Sort applied to archived rows and to the hot rows merged with them:
+     * createdAt, amount or id, then id; any other property falls back to createdAt
+     */
+    static Sort sort(TransactionSearchRequest filters) {
+        String property = switch (filters.getSortBy() != null ? filters.getSortBy() : "createdAt") {
+            case "amount" -> "amount";
+            case "id" -> "id";
+            default -> "createdAt";
+        };
+        Sort.Direction direction = Sort.Direction.DESC.name().equalsIgnoreCase(filters.getSortDirection())
+                ? Sort.Direction.DESC : Sort.Direction.ASC;
+        return property.equals("id") ? Sort.by(direction, "id") : Sort.by(direction, property, "id");
+    }
+
+    /**
+     * Comparator equivalent to {@link #sort}
+     */
+    static Comparator<Transaction> comparator(TransactionSearchRequest filters) {
+        Comparator<Transaction> comparator = switch (filters.getSortBy() != null ? filters.getSortBy() : "createdAt") {
+            case "amount" -> Comparator.comparing(Transaction::getAmount).thenComparing(Transaction::getId);
+            case "id" -> Comparator.comparing(Transaction::getId);
+            default -> Comparator.comparing(Transaction::getCreatedAt).thenComparing(Transaction::getId);
+        };
+        return Sort.Direction.DESC.name().equalsIgnoreCase(filters.getSortDirection())
+                ? comparator.reversed() : comparator;
+    }
+
+    private static Long idOf(Branch branch) {
+        return branch != null ? branch.getId() : null;
+    }
+
+    private static Long idOf(User user) {
+        return user != null ? user.getId() : null;
+    }
+
+    private static String segmentName(List<Transaction> batch) {
+        return String.format("transactions-%019d-%019d%s",
+                batch.get(0).getId(), batch.get(batch.size() - 1).getId(), SEGMENT_SUFFIX);
+    }
+
+    private record Segment(Path path, SegmentHeader header) {
+    }
+}
@@ -1,23 +1,24 @@
 package com.mycompany.transfersystem.service;
 
+import com.mycompany.transfersystem.config.AuthenticatedUser;
+import com.mycompany.transfersystem.config.CurrentUserProvider;
 import com.mycompany.transfersystem.dto.*;
 import com.mycompany.transfersystem.entity.*;
 import com.mycompany.transfersystem.entity.enums.FundStatus;
 import com.mycompany.transfersystem.entity.enums.TransactionStatus;
-import com.mycompany.transfersystem.exception.InsufficientFundsException;
+import com.mycompany.transfersystem.event.FundPosting;
+import com.mycompany.transfersystem.event.TransferCompletedEvent;
 import com.mycompany.transfersystem.exception.InvalidTransactionException;
 import com.mycompany.transfersystem.exception.ResourceNotFoundException;
 import com.mycompany.transfersystem.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class TransactionService {
@@ -37,6 +38,9 @@ public class TransactionService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
     @Autowired
     private FeeCalculationService feeCalculationService;
 
@@ -46,32 +50,50 @@ public class TransactionService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private PlatformFeeTotalsRepository platformFeeTotalsRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private FundWalletService fundWalletService;
+
+    @Autowired
+    private TransferLimitService transferLimitService;
+
+    @Autowired
+    private DuplicateTransferService duplicateTransferService;
+
+    @Autowired
+    private ReleasePasscodeHasher releasePasscodeHasher;
+
+    @Autowired
+    private PickupQueueService pickupQueueService;
+
+    // Fees and branch settlement amounts are calculated in USD
+    private static final String USD = "USD";
+
+    @Transactional(readOnly = true)
     public List<TransactionResponse> getAllTransactions() {
-        return transactionRepository.findAll().stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findAllResponses();
     }
 
     public TransactionResponse getTransactionById(Long id) {
-        Transaction transaction = transactionRepository.findById(id)
+        return transactionRepository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
-        return convertToResponse(transaction);
     }
 
     /**
-     * Get transaction record with security filtering based on user's branch
-     * Branch B employees cannot see the release passcode
+     * Get a transaction record.
+     * Only a hash of the release passcode is stored, so the passcode is never
+     * part of a record read back later; it is shown once, when the transfer is made.
      */
-    public TransactionRecordDTO getTransactionRecordById(Long id, Long requestingBranchId) {
+    public TransactionRecordDTO getTransactionRecordById(Long id) {
         Transaction transaction = transactionRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Transaction not found with id: " + id));
-        
-        // Get branches for this transaction
-        Branch receiverBranch = branchRepository.findById(transaction.getReceiver().getBranch().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Receiver branch not found"));
-        
-        // Create a basic transaction record (we'll need to reconstruct the full record)
-        // For now, create a simplified version
+
+        // Reconstruct the transaction record from the persisted columns
         TransactionRecordDTO record = new TransactionRecordDTO();
         record.setId(transaction.getId());
         record.setSenderId(transaction.getSender().getId());
@@ -81,16 +103,19 @@ public class TransactionService {
         record.setStatus(transaction.getStatus());
         record.setCreatedAt(transaction.getCreatedAt());
         record.setUpdatedAt(LocalDateTime.now());
-        
-        // Security: Hide passcode from receiving branch employees
-        if (requestingBranchId != null && requestingBranchId.equals(receiverBranch.getId())) {
-            // Branch B employee - hide the passcode
-            record.setReleasePasscode(null);
-        } else {
-            // Sender branch or admin - show the passcode
-            record.setReleasePasscode(transaction.getReleasePasscode());
-        }
-        
+
+        // Persisted currency and fee breakdown
+        record.setSourceCurrency(transaction.getSourceCurrency());
+        record.setDestinationCurrency(transaction.getDestinationCurrency());
+        record.setExchangeRate(transaction.getExchangeRate());
+        record.setUsdEquivalent(transaction.getUsdEquivalent());
+        record.setNetAmount(transaction.getUsdEquivalent());
+        record.setPlatformBaseFee(transaction.getPlatformBaseFee());
+        record.setPlatformExchangeProfit(transaction.getPlatformExchangeProfit());
+        record.setSendingBranchFee(transaction.getSendingBranchFee());
+        record.setReceivingBranchFee(transaction.getReceivingBranchFee());
+        record.setTotalFees(transaction.getTotalFee());
+
         return record;
     }
 
@@ -120,6 +145,9 @@ public class TransactionService {
             throw new InvalidTransactionException("Sender and receiver cannot be the same");
         }
 
+        // Same sender, receiver, amount and currencies within the last few minutes: warn or block
+        Long suspectedDuplicateOf = duplicateTransferService.check(request);
+
         // Get branches
         Branch senderBranch = branchRepository.findById(request.getSenderBranchId())
                 .orElseThrow(() -> new ResourceNotFoundException("Sender branch not found with id: " + request.getSenderBranchId()));
@@ -145,14 +173,17 @@ public class TransactionService {
         // Get exchange rate
         BigDecimal exchangeRate = exchangeRateService.getRate(request.getSourceCurrency(), request.getDestinationCurrency());
 
-        // Calculate total amount to deduct (principal + total fees)
-        BigDecimal totalAmountToDeduct = request.getAmount().add(feeBreakdown.getTotalFee());
+        // Velocity limits on the USD value of the principal; the reserved usage is released
+        // again if this transaction rolls back
+        String corridor = request.getSourceCurrency() != null && request.getDestinationCurrency() != null
+                ? request.getSourceCurrency() + "-" + request.getDestinationCurrency() : null;
+        transferLimitService.reserve(sender, receiver, senderBranch, corridor, feeBreakdown.getUsdEquivalent());
 
-        // Validate sufficient balance in sender's fund
-        if (fund.getBalance().compareTo(totalAmountToDeduct) < 0) {
-            throw new InsufficientFundsException("Insufficient balance in fund: " + fund.getName() + 
-                    ". Required: " + totalAmountToDeduct + ", Available: " + fund.getBalance());
-        }
+        // Debit the sender's fund per currency: the principal from its source-currency balance,
+        // the fees (calculated in USD) from its USD balance. Each debit is a conditional update
+        // that throws InsufficientFundsException instead of overdrawing.
+        fundWalletService.debit(fund, request.getSourceCurrency(), request.getAmount());
+        fundWalletService.debit(fund, USD, feeBreakdown.getTotalFee());
 
         // Get platform fund (main admin branch fund)
         Fund platformFund = getOrCreatePlatformFund(mainAdminBranch);
@@ -165,8 +196,7 @@ public class TransactionService {
 
         // Execute atomic transaction
         try {
-            // 1. Deduct total amount from sender's fund
-            fund.setBalance(fund.getBalance().subtract(totalAmountToDeduct));
+            // 1. Sender's fund was debited above
             fundRepository.save(fund);
 
             // 2. Calculate total amount to debit from sender branch (USD equivalent + ALL fees)
@@ -176,17 +206,17 @@ public class TransactionService {
             
             // 3. Debit sender branch fund for total amount (USD equivalent + ALL fees)
             // This is because the sender branch collects money from the client
-            senderBranchFund.setBalance(senderBranchFund.getBalance().subtract(totalBranchADebit));
+            fundWalletService.post(senderBranchFund, USD, totalBranchADebit.negate());
             fundRepository.save(senderBranchFund);
 
             // 4. Credit platform fund with platform fees
             BigDecimal platformFees = feeBreakdown.getPlatformBaseFee().add(feeBreakdown.getPlatformExchangeProfit());
-            platformFund.setBalance(platformFund.getBalance().add(platformFees));
+            fundWalletService.post(platformFund, USD, platformFees);
             fundRepository.save(platformFund);
 
             // 5. Credit receiver branch fund with USD equivalent (receiving fee is covered by sender branch)
             // The receiver branch gets the full USD equivalent since sender branch paid all fees
-            receiverBranchFund.setBalance(receiverBranchFund.getBalance().add(usdEquivalent));
+            fundWalletService.post(receiverBranchFund, USD, usdEquivalent);
             fundRepository.save(receiverBranchFund);
 
             // 6. Define net principal for transaction record (USD equivalent)
@@ -202,24 +232,48 @@ public class TransactionService {
             transaction.setFund(fund);
             transaction.setAmount(request.getAmount());
             transaction.setStatus(TransactionStatus.COMPLETED);
-            transaction.setReleasePasscode(releasePasscode);
+            transaction.setReleasePasscode(releasePasscodeHasher.hash(releasePasscode));
+            transaction.setSenderBranch(senderBranch);
+            transaction.setReceiverBranch(receiverBranch);
+            transaction.setSourceCurrency(request.getSourceCurrency());
+            transaction.setDestinationCurrency(request.getDestinationCurrency());
+            transaction.setExchangeRate(exchangeRate);
+            transaction.setUsdEquivalent(usdEquivalent);
+            transaction.setPlatformBaseFee(feeBreakdown.getPlatformBaseFee());
+            transaction.setPlatformExchangeProfit(feeBreakdown.getPlatformExchangeProfit());
+            transaction.setSendingBranchFee(feeBreakdown.getSendingBranchFee());
+            transaction.setReceivingBranchFee(feeBreakdown.getReceivingBranchFee());
+            transaction.setTotalFee(feeBreakdown.getTotalFee());
             Transaction savedTransaction = transactionRepository.save(transaction);
 
+            // Maintain running platform fee totals
+            recordPlatformFees(feeBreakdown.getPlatformBaseFee(), feeBreakdown.getPlatformExchangeProfit());
+
+            // Derived views (analytics, positions) update once this transaction commits
+            publishTransferCompleted(savedTransaction, List.of(
+                    FundPosting.of(fund, request.getSourceCurrency(), request.getAmount().negate()),
+                    FundPosting.of(fund, USD, totalFees.negate()),
+                    FundPosting.of(senderBranchFund, USD, totalBranchADebit.negate()),
+                    FundPosting.of(platformFund, USD, platformFees),
+                    FundPosting.of(receiverBranchFund, USD, usdEquivalent)));
+            pickupQueueService.transferCompleted(savedTransaction);
+
             // 8. Send notifications
             sendTransactionNotifications(savedTransaction, sender, receiver, senderBranch, receiverBranch, releasePasscode);
 
-            // 9. Log the transaction (if authentication is available)
-            try {
-                User currentUser = getCurrentUser();
-                auditService.log("EXECUTE_TRANSFER", currentUser, "Transaction", savedTransaction.getId());
-            } catch (Exception e) {
-                // Skip audit logging if no authentication context (e.g., in tests)
-                // This is acceptable for testing scenarios
+            // 9. Log the transaction (skipped without an authenticated user, e.g. in tests)
+            Long currentUserId = currentUserProvider.current().map(AuthenticatedUser::id).orElse(null);
+            if (currentUserId != null) {
+                auditService.log("EXECUTE_TRANSFER", currentUserId, "Transaction", savedTransaction.getId());
             }
 
             // 10. Create comprehensive transaction record
-            return createTransactionRecord(savedTransaction, request, feeBreakdown, exchangeRate, 
+            TransactionRecordDTO record = createTransactionRecord(savedTransaction, request, feeBreakdown, exchangeRate, 
                     senderBranch, receiverBranch, platformFees, netPrincipal);
+            // The only time the plain passcode leaves the service besides the notifications
+            record.setReleasePasscode(releasePasscode);
+            record.setSuspectedDuplicateOf(suspectedDuplicateOf);
+            return record;
 
         } catch (Exception e) {
             throw new InvalidTransactionException("Transaction failed: " + e.getMessage());
@@ -249,10 +303,9 @@ public class TransactionService {
             throw new InvalidTransactionException("Sender and receiver cannot be the same");
         }
 
-        // Validate sufficient balance
-        if (fund.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientFundsException("Insufficient balance in fund: " + fund.getName());
-        }
+        // Debit the fund in its own currency; the conditional update throws
+        // InsufficientFundsException instead of overdrawing
+        fundWalletService.debit(fund, fund.getCurrency(), request.getAmount());
 
         // Create transaction with PENDING status
         Transaction transaction = new Transaction();
@@ -261,12 +314,13 @@ public class TransactionService {
         transaction.setFund(fund);
         transaction.setAmount(request.getAmount());
         transaction.setStatus(TransactionStatus.PENDING);
+        transaction.setSenderBranch(sender.getBranch());
+        transaction.setReceiverBranch(receiver.getBranch());
 
         Transaction savedTransaction = transactionRepository.save(transaction);
 
         try {
-            // Update fund balance
-            fund.setBalance(fund.getBalance().subtract(request.getAmount()));
+            // Fund was debited above
             fundRepository.save(fund);
 
             // Update transaction status to COMPLETED
@@ -274,8 +328,11 @@ public class TransactionService {
             savedTransaction = transactionRepository.save(savedTransaction);
 
             // Log the transaction
-            User currentUser = getCurrentUser();
-            auditService.log("CREATE_TRANSACTION", currentUser, "Transaction", savedTransaction.getId());
+            auditService.log("CREATE_TRANSACTION", currentUserProvider.requireId(), "Transaction", savedTransaction.getId());
+
+            publishTransferCompleted(savedTransaction,
+                    List.of(FundPosting.of(fund, fund.getCurrency(), request.getAmount().negate())));
+            pickupQueueService.transferCompleted(savedTransaction);
 
         } catch (Exception e) {
             // If something goes wrong, mark transaction as FAILED
@@ -287,13 +344,13 @@ public class TransactionService {
         return convertToResponse(savedTransaction);
     }
 
+    @Transactional(readOnly = true)
     public List<TransactionResponse> getTransactionsByUser(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        if (!userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
         
-        return transactionRepository.findByUser(user).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return transactionRepository.findResponsesByUserId(userId);
     }
 
     private TransactionResponse convertToResponse(Transaction transaction) {
@@ -308,40 +365,124 @@ public class TransactionService {
         );
     }
 
-    private User getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName();
-        return userRepository.findByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("Current user not found"));
+    /**
+     * The postings that reverse a transfer: its own postings negated, with the
+     * funds resolved the same way the transfer resolved them
+     */
+    public List<FundPosting> refundPostings(Transaction transaction) {
+        Fund fund = transaction.getFund();
+        if (transaction.getUsdEquivalent() == null || transaction.getSenderBranch() == null
+                || transaction.getReceiverBranch() == null) {
+            // Plain transfers only debited the fund in its own currency
+            return List.of(FundPosting.of(fund, fund.getCurrency(), transaction.getAmount()));
+        }
+        Branch mainAdminBranch = branchRepository.findFirstByName("MAIN_ADMIN_BRANCH")
+                .orElseThrow(() -> new ResourceNotFoundException("Main admin branch not found"));
+        BigDecimal usdEquivalent = transaction.getUsdEquivalent();
+        BigDecimal totalFees = orZero(transaction.getTotalFee());
+        BigDecimal platformFees = orZero(transaction.getPlatformBaseFee()).add(orZero(transaction.getPlatformExchangeProfit()));
+        return List.of(
+                FundPosting.of(fund, transaction.getSourceCurrency(), transaction.getAmount()),
+                FundPosting.of(fund, USD, totalFees),
+                FundPosting.of(getOrCreateBranchFund(transaction.getSenderBranch()), USD, usdEquivalent.add(totalFees)),
+                FundPosting.of(getOrCreatePlatformFund(mainAdminBranch), USD, platformFees.negate()),
+                FundPosting.of(getOrCreateBranchFund(transaction.getReceiverBranch()), USD, usdEquivalent.negate()));
+    }
+
+    /**
+     * Take the platform fees of refunded transfers back out of the running totals,
+     * matching the platform fund postings in {@link #refundPostings}
+     */
+    public void reversePlatformFees(List<Transaction> transactions) {
+        BigDecimal baseFees = BigDecimal.ZERO;
+        BigDecimal exchangeProfit = BigDecimal.ZERO;
+        long count = 0;
+        for (Transaction transaction : transactions) {
+            // Only executed transfers recorded platform fees
+            if (transaction.getUsdEquivalent() == null || transaction.getSenderBranch() == null
+                    || transaction.getReceiverBranch() == null) {
+                continue;
+            }
+            baseFees = baseFees.add(orZero(transaction.getPlatformBaseFee()));
+            exchangeProfit = exchangeProfit.add(orZero(transaction.getPlatformExchangeProfit()));
+            count++;
+        }
+        if (count > 0) {
+            platformFeeTotalsRepository.decrement(PlatformFeeTotals.PLATFORM_ID, baseFees, exchangeProfit, count,
+                    LocalDateTime.now());
+        }
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private void publishTransferCompleted(Transaction transaction, List<FundPosting> postings) {
+        eventPublisher.publishEvent(new TransferCompletedEvent(
+                transaction.getId(),
+                transaction.getSender().getId(),
+                transaction.getReceiver().getId(),
+                transaction.getSenderBranch() != null ? transaction.getSenderBranch().getId() : null,
+                transaction.getReceiverBranch() != null ? transaction.getReceiverBranch().getId() : null,
+                transaction.getSourceCurrency(),
+                transaction.getDestinationCurrency(),
+                transaction.getAmount(),
+                transaction.getUsdEquivalent(),
+                transaction.getCreatedAt() != null ? transaction.getCreatedAt() : LocalDateTime.now(),
+                postings));
+    }
+
+    /**
+     * Increment the platform fee counters, creating the counter row on first use
+     */
+    private void recordPlatformFees(BigDecimal baseFee, BigDecimal exchangeProfit) {
+        int updated = platformFeeTotalsRepository.increment(
+                PlatformFeeTotals.PLATFORM_ID, baseFee, exchangeProfit, LocalDateTime.now());
+        if (updated == 0) {
+            PlatformFeeTotals totals = new PlatformFeeTotals(PlatformFeeTotals.PLATFORM_ID);
+            totals.setTotalBaseFees(baseFee);
+            totals.setTotalExchangeProfit(exchangeProfit);
+            totals.setTransactionCount(1);
+            platformFeeTotalsRepository.save(totals);
+        }
     }
 
     /**
      * Get or create platform fund for main admin branch
      */
     private Fund getOrCreatePlatformFund(Branch mainAdminBranch) {
-        return fundRepository.findByName("Platform Fund")
-                .orElseGet(() -> {
-                    Fund platformFund = new Fund();
-                    platformFund.setName("Platform Fund");
-                    platformFund.setBalance(new BigDecimal("1000000.00")); // Starting balance
-                    platformFund.setStatus(FundStatus.ACTIVE);
-                    return fundRepository.save(platformFund);
-                });
+        return getOrCreateLinkedFund(mainAdminBranch, "Platform Fund");
     }
 
     /**
      * Get or create branch fund for a specific branch
      */
     private Fund getOrCreateBranchFund(Branch branch) {
-        String fundName = branch.getName() + " Fund";
-        return fundRepository.findByName(fundName)
-                .orElseGet(() -> {
-                    Fund branchFund = new Fund();
-                    branchFund.setName(fundName);
-                    branchFund.setBalance(new BigDecimal("1000000.00")); // Starting balance
-                    branchFund.setStatus(FundStatus.ACTIVE);
-                    return fundRepository.save(branchFund);
-                });
+        return getOrCreateLinkedFund(branch, branch.getName() + " Fund");
+    }
+
+    /**
+     * Branch funds are found by branch id; a fund that still only follows the
+     * old naming convention is linked to its branch the first time it is used
+     */
+    private Fund getOrCreateLinkedFund(Branch branch, String legacyName) {
+        return fundRepository.findFirstByBranchIdOrderByIdAsc(branch.getId())
+                .orElseGet(() -> fundRepository.findByName(legacyName)
+                        .filter(fund -> fund.getBranch() == null)
+                        .map(fund -> {
+                            fund.setBranch(branch);
+                            return fundRepository.save(fund);
+                        })
+                        .orElseGet(() -> {
+                            Fund branchFund = new Fund();
+                            branchFund.setName(legacyName);
+                            branchFund.setBranch(branch);
+                            branchFund.setBalance(new BigDecimal("1000000.00")); // Starting balance
+                            branchFund.setStatus(FundStatus.ACTIVE);
+                            Fund saved = fundRepository.save(branchFund);
+                            fundWalletService.syncBaseBalance(saved);
+                            return saved;
+                        }));
     }
 
     /**
@@ -396,9 +537,6 @@ public class TransactionService {
         record.setReceiverBranchFundCredit(feeBreakdown.getUsdEquivalent()); // Full USD equivalent
         record.setInterBranchDebt(feeBreakdown.getUsdEquivalent()); // USD equivalent transferred between branches
         
-        // Security information
-        record.setReleasePasscode(transaction.getReleasePasscode());
-        
         return record;
     }
 
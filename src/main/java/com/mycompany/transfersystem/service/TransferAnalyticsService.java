@@ -0,0 +1,226 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.event.TransferCompletedEvent;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.HyperLogLog;
+import com.mycompany.transfersystem.util.QuantileSketch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live distribution analytics over committed transfers. Every branch,
+ * corridor and hourly bucket keeps a quantile sketch of transfer amounts
+ * (USD) and distinct-count sketches of senders and receivers, a few KB each.
+ * Sketches are mergeable, so multi-hour views are built by merging buckets.
+ * Branch and corridor figures accumulate for as long as the application runs
+ * and are rebuilt from the retention window on startup, so they cover the
+ * period since {@code totalsSince} in the snapshot rather than all time.
+ */
+@Service
+public class TransferAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferAnalyticsService.class);
+
+    private final TransactionRepository transactionRepository;
+
+    private final ConcurrentMap<Long, TransferStats> byBranch = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TransferStats> byCorridor = new ConcurrentHashMap<>();
+    private final ConcurrentMap<LocalDateTime, TransferStats> byHour = new ConcurrentHashMap<>();
+
+    @Value("${app.analytics.retention-hours:48}")
+    private int retentionHours = 48;
+
+    // Start of the period the branch and corridor figures cover
+    private volatile LocalDateTime totalsSince = LocalDateTime.now();
+
+    @Autowired
+    public TransferAnalyticsService(TransactionRepository transactionRepository) {
+        this.transactionRepository = transactionRepository;
+    }
+
+    /**
+     * Seed the sketches from committed transfers inside the retention window
+     * so a restart does not blank the dashboards
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minusHours(retentionHours);
+        // Failed and pending transfers never published a completion event, and expired ones were refunded
+        List<Transaction> recent = transactionRepository.findByStatusInAndCreatedAtAfter(
+                List.of(TransactionStatus.COMPLETED, TransactionStatus.RELEASED), since);
+        totalsSince = since;
+        for (Transaction t : recent) {
+            record(new TransferCompletedEvent(
+                    t.getId(),
+                    t.getSender().getId(),
+                    t.getReceiver().getId(),
+                    t.getSenderBranch() != null ? t.getSenderBranch().getId() : null,
+                    t.getReceiverBranch() != null ? t.getReceiverBranch().getId() : null,
+                    t.getSourceCurrency(),
+                    t.getDestinationCurrency(),
+                    t.getAmount(),
+                    t.getUsdEquivalent(),
+                    t.getCreatedAt(),
+                    List.of()));
+        }
+        if (!recent.isEmpty()) {
+            log.info("Transfer analytics warmed up from {} recent transfers", recent.size());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onTransferCompleted(TransferCompletedEvent event) {
+        record(event);
+    }
+
+    void record(TransferCompletedEvent event) {
+        BigDecimal amount = event.analyticsAmount();
+        if (amount == null || amount.signum() < 0) {
+            return;
+        }
+        double value = amount.doubleValue();
+
+        if (event.senderBranchId() != null) {
+            stats(byBranch, event.senderBranchId()).add(value, event.senderId(), event.receiverId());
+        }
+        if (event.receiverBranchId() != null && !event.receiverBranchId().equals(event.senderBranchId())) {
+            stats(byBranch, event.receiverBranchId()).add(value, event.senderId(), event.receiverId());
+        }
+        if (event.corridor() != null) {
+            stats(byCorridor, event.corridor()).add(value, event.senderId(), event.receiverId());
+        }
+
+        LocalDateTime hour = event.createdAt().truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime oldest = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(retentionHours);
+        if (!hour.isBefore(oldest)) {
+            if (!byHour.containsKey(hour)) {
+                byHour.keySet().removeIf(h -> h.isBefore(oldest));
+            }
+            stats(byHour, hour).add(value, event.senderId(), event.receiverId());
+        }
+    }
+
+    /**
+     * Analytics snapshot
+     * @param branchId Restrict branch figures to one branch (all branches when null)
+     * @param corridor Restrict corridor figures to one corridor, e.g. "EUR-USD" (all when null)
+     * @param hours Number of most recent hourly buckets merged into the window summary
+     */
+    public Map<String, Object> getAnalytics(Long branchId, String corridor, int hours) {
+        Map<String, Object> analytics = new LinkedHashMap<>();
+
+        Map<String, Object> branches = new TreeMap<>();
+        byBranch.forEach((id, stats) -> {
+            if (branchId == null || branchId.equals(id)) {
+                branches.put(String.valueOf(id), stats.summary());
+            }
+        });
+        analytics.put("branches", branches);
+
+        Map<String, Object> corridors = new TreeMap<>();
+        byCorridor.forEach((key, stats) -> {
+            if (corridor == null || corridor.equalsIgnoreCase(key)) {
+                corridors.put(key, stats.summary());
+            }
+        });
+        analytics.put("corridors", corridors);
+        analytics.put("totalsSince", totalsSince);
+
+        int window = Math.max(1, Math.min(hours, retentionHours));
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusHours(window - 1L);
+        TransferStats merged = new TransferStats();
+        Map<String, Object> hourly = new TreeMap<>();
+        byHour.forEach((hour, stats) -> {
+            if (!hour.isBefore(from)) {
+                merged.merge(stats);
+                hourly.put(hour.toString(), stats.summary());
+            }
+        });
+        Map<String, Object> windowSummary = new LinkedHashMap<>(merged.summary());
+        windowSummary.put("hours", window);
+        analytics.put("window", windowSummary);
+        analytics.put("hourly", hourly);
+        analytics.put("generatedAt", LocalDateTime.now());
+        return analytics;
+    }
+
+    private static <K> TransferStats stats(ConcurrentMap<K, TransferStats> map, K key) {
+        return map.computeIfAbsent(key, k -> new TransferStats());
+    }
+
+    /**
+     * Sketches for one key; updates are serialized per key
+     */
+    static final class TransferStats {
+
+        private final QuantileSketch amounts = new QuantileSketch();
+        private final HyperLogLog senders = new HyperLogLog();
+        private final HyperLogLog receivers = new HyperLogLog();
+
+        synchronized void add(double amount, Long senderId, Long receiverId) {
+            amounts.add(amount);
+            if (senderId != null) {
+                senders.add(senderId);
+            }
+            if (receiverId != null) {
+                receivers.add(receiverId);
+            }
+        }
+
+        void merge(TransferStats other) {
+            QuantileSketch otherAmounts;
+            HyperLogLog otherSenders;
+            HyperLogLog otherReceivers;
+            synchronized (other) {
+                otherAmounts = other.amounts.copy();
+                otherSenders = other.senders.copy();
+                otherReceivers = other.receivers.copy();
+            }
+            synchronized (this) {
+                amounts.merge(otherAmounts);
+                senders.merge(otherSenders);
+                receivers.merge(otherReceivers);
+            }
+        }
+
+        synchronized Map<String, Object> summary() {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            long count = amounts.getCount();
+            summary.put("count", count);
+            summary.put("totalVolume", round(amounts.getSum()));
+            summary.put("min", count == 0 ? null : round(amounts.getMin()));
+            summary.put("p50", count == 0 ? null : round(amounts.quantile(0.50)));
+            summary.put("p95", count == 0 ? null : round(amounts.quantile(0.95)));
+            summary.put("p99", count == 0 ? null : round(amounts.quantile(0.99)));
+            summary.put("max", count == 0 ? null : round(amounts.getMax()));
+            summary.put("distinctSenders", senders.estimate());
+            summary.put("distinctReceivers", receivers.estimate());
+            return summary;
+        }
+
+        private static BigDecimal round(double value) {
+            return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.event.FundPosting;
+import com.mycompany.transfersystem.event.TransferExpiredEvent;
+import com.mycompany.transfersystem.exception.ResourceNotFoundException;
+import com.mycompany.transfersystem.repository.FundRepository;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Expires transfers that were not picked up within the configured number of
+ * days and refunds them by posting the transfer's own postings in reverse.
+ * Overdue rows are walked oldest first along idx_transactions_status_created
+ * in keyset batches; each batch is its own short transaction that locks its
+ * rows with SKIP LOCKED, so releases and other sweepers are never waited on.
+ * All progress is the row status itself, so a sweep cut short by a crash
+ * simply continues with the rows still COMPLETED on the next run.
+ */
+@Service
+public class TransferExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferExpiryService.class);
+
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TransactionRepository transactionRepository;
+    private final FundRepository fundRepository;
+    private final FundWalletService fundWalletService;
+    private final TransactionService transactionService;
+    private final PickupQueueService pickupQueueService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder expiredTotal = new LongAdder();
+    private final LongAdder expiredAfterSettlement = new LongAdder();
+    private final LongAdder batchesTotal = new LongAdder();
+    private volatile LocalDateTime lastRunAt;
+    private volatile long lastRunMillis;
+    private volatile int lastRunExpired;
+    private volatile long lagSeconds;
+
+    @Value("${app.expiry.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${app.expiry.after-days:30}")
+    private long afterDays = 30;
+
+    // Rows per transaction; bounds how long row and fund locks are held
+    @Value("${app.expiry.batch-size:100}")
+    private int batchSize = 100;
+
+    @Value("${app.expiry.max-batches-per-run:50}")
+    private int maxBatchesPerRun = 50;
+
+    @Autowired
+    public TransferExpiryService(TransactionRepository transactionRepository,
+                                 FundRepository fundRepository,
+                                 FundWalletService fundWalletService,
+                                 TransactionService transactionService,
+                                 PickupQueueService pickupQueueService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager) {
+        this.transactionRepository = transactionRepository;
+        this.fundRepository = fundRepository;
+        this.fundWalletService = fundWalletService;
+        this.transactionService = transactionService;
+        this.pickupQueueService = pickupQueueService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.expiry.interval-ms:300000}",
+            fixedDelayString = "${app.expiry.interval-ms:300000}")
+    public void scheduledSweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.error("Transfer expiry sweep failed", e);
+        }
+    }
+
+    /**
+     * Expire overdue transfers, one committed batch at a time, up to the per-run batch limit
+     * @return number of transfers expired; 0 if another sweep is already running
+     */
+    public int sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long started = System.nanoTime();
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+            ScanKey after = new ScanKey(SCAN_START, 0L);
+            int expired = 0;
+            for (int batches = 0; batches < maxBatchesPerRun; batches++) {
+                ScanKey from = after;
+                Batch batch = transactionTemplate.execute(status -> expireBatch(cutoff, from));
+                batchesTotal.increment();
+                expired += batch.expired();
+                expiredTotal.add(batch.expired());
+                expiredAfterSettlement.add(batch.settled());
+                if (batch.last() == null || batch.scanned() < batchSize) {
+                    break;
+                }
+                after = batch.last();
+            }
+
+            lastRunMillis = Duration.ofNanos(System.nanoTime() - started).toMillis();
+            lastRunExpired = expired;
+            lastRunAt = LocalDateTime.now();
+            updateLag(cutoff);
+            if (expired > 0) {
+                log.info("Expired and refunded {} unreleased transfers in {} ms", expired, lastRunMillis);
+            }
+            return expired;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Counters of the sweeper and how far behind it is
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("expireAfterDays", afterDays);
+        stats.put("running", running.get());
+        stats.put("expiredTotal", expiredTotal.sum());
+        stats.put("expiredAfterSettlement", expiredAfterSettlement.sum());
+        stats.put("batchesTotal", batchesTotal.sum());
+        stats.put("lastRunAt", lastRunAt);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunExpired", lastRunExpired);
+        stats.put("lastRunPerSecond", lastRunMillis > 0 ? lastRunExpired * 1000.0 / lastRunMillis : 0.0);
+        // How long the oldest overdue transfer has been waiting past its expiry
+        stats.put("lagSeconds", lagSeconds);
+        return stats;
+    }
+
+    private Batch expireBatch(LocalDateTime cutoff, ScanKey after) {
+        List<Transaction> rows = transactionRepository.lockExpiryBatch(TransactionStatus.COMPLETED, cutoff,
+                after.createdAt(), after.id(), PageRequest.of(0, batchSize));
+        if (rows.isEmpty()) {
+            return new Batch(0, 0, 0, null);
+        }
+
+        // Refunds are summed per fund and currency, then posted in fund id order so
+        // concurrent batches lock fund rows in the same order
+        Map<FundBucket, BigDecimal> refunds = new TreeMap<>(FundBucket.ORDER);
+        int settled = 0;
+        for (Transaction transaction : rows) {
+            List<FundPosting> postings = transactionService.refundPostings(transaction);
+            for (FundPosting posting : postings) {
+                refunds.merge(new FundBucket(posting.fundId(), posting.currency()), posting.delta(), BigDecimal::add);
+            }
+            transaction.setStatus(TransactionStatus.EXPIRED);
+
+            boolean wasSettled = transaction.getSettlementRunId() != null;
+            if (wasSettled) {
+                settled++;
+                // SettlementService nets the amount back to the sending branch in its next run
+                log.info("Transaction {} expired after settlement run {}; its obligation will be reversed",
+                        transaction.getId(), transaction.getSettlementRunId());
+            }
+            Long senderBranchId = transaction.getSenderBranch() != null ? transaction.getSenderBranch().getId() : null;
+            Long receiverBranchId = transaction.getReceiverBranch() != null ? transaction.getReceiverBranch().getId() : null;
+            eventPublisher.publishEvent(new TransferExpiredEvent(transaction.getId(), senderBranchId, receiverBranchId,
+                    transaction.getUsdEquivalent(), wasSettled, postings));
+            pickupQueueService.transferClosed(receiverBranchId, transaction.getId());
+        }
+        for (Map.Entry<FundBucket, BigDecimal> refund : refunds.entrySet()) {
+            Long fundId = refund.getKey().fundId();
+            Fund fund = fundRepository.findById(fundId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Fund not found with id: " + fundId));
+            fundWalletService.post(fund, refund.getKey().currency(), refund.getValue());
+        }
+        // The platform fund gave its fees back above; the fee report totals follow
+        transactionService.reversePlatformFees(rows);
+        transactionRepository.saveAll(rows);
+
+        Transaction last = rows.get(rows.size() - 1);
+        return new Batch(rows.size(), rows.size(), settled, new ScanKey(last.getCreatedAt(), last.getId()));
+    }
+
+    private void updateLag(LocalDateTime cutoff) {
+        LocalDateTime oldest = transactionRepository.findOldestCreatedAt(TransactionStatus.COMPLETED);
+        lagSeconds = oldest != null && oldest.isBefore(cutoff) ? Duration.between(oldest, cutoff).getSeconds() : 0L;
+    }
+
+    private record ScanKey(LocalDateTime createdAt, Long id) {
+    }
+
+    private record Batch(int scanned, int expired, int settled, ScanKey last) {
+    }
+
+    private record FundBucket(Long fundId, String currency) {
+        static final Comparator<FundBucket> ORDER = Comparator.comparing(FundBucket::fundId)
+                .thenComparing(FundBucket::currency);
+    }
+}
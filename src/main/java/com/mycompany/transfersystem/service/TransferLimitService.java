@@ -0,0 +1,240 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.TransferLimitProperties;
+import com.mycompany.transfersystem.config.TransferLimitProperties.Limits;
+import com.mycompany.transfersystem.dto.RecentTransfer;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.exception.TransferLimitExceededException;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.SlidingWindowCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Per-sender, per-receiver and per-sending-branch transfer count and USD
+ * amount limits over the last hour and the last day. Usage lives in
+ * in-memory sliding windows, rebuilt from the transactions table at startup,
+ * so a check never queries the database. A transfer reserves its usage up
+ * front; if its transaction rolls back the reservation is released.
+ */
+@Service
+public class TransferLimitService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferLimitService.class);
+
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    private final TransactionRepository transactionRepository;
+    private final TransferLimitProperties properties;
+
+    // Minute resolution for the hour, ten-minute resolution for the day
+    private final Windows senders = new Windows("Sender");
+    private final Windows receivers = new Windows("Receiver");
+    private final Windows branches = new Windows("Branch");
+
+    private volatile Map<String, Limits> corridorCaps = Map.of();
+
+    @Autowired
+    public TransferLimitService(TransactionRepository transactionRepository, TransferLimitProperties properties) {
+        this.transactionRepository = transactionRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Load the last day of transfers into the windows
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        Map<String, Limits> caps = new HashMap<>();
+        properties.getCorridors().forEach((corridor, limits) -> caps.put(corridor.toUpperCase(Locale.ROOT), limits));
+        corridorCaps = caps;
+
+        senders.clear();
+        receivers.clear();
+        branches.clear();
+        if (!properties.isEnabled()) {
+            return;
+        }
+        List<RecentTransfer> recent = transactionRepository.findRecentTransfers(
+                LocalDateTime.now().minusDays(1), TransactionStatus.FAILED);
+        for (RecentTransfer transfer : recent) {
+            long at = toMillis(transfer.createdAt());
+            long cents = toCents(transfer.usdEquivalent() != null ? transfer.usdEquivalent() : transfer.amount());
+            senders.add(transfer.senderId(), at, cents);
+            receivers.add(transfer.receiverId(), at, cents);
+            if (transfer.senderBranchId() != null) {
+                branches.add(transfer.senderBranchId(), at, cents);
+            }
+        }
+        log.info("Rebuilt transfer limit windows from {} recent transfers", recent.size());
+    }
+
+    /**
+     * Reserve a transfer against every applicable limit, or reserve nothing.
+     * Inside a transaction the reservation is released again on rollback.
+     * @param corridor  e.g. "TL-USD"; may be null
+     * @param usdAmount USD value of the principal
+     * @throws TransferLimitExceededException naming the first limit the transfer would exceed
+     */
+    public void reserve(User sender, User receiver, Branch senderBranch, String corridor, BigDecimal usdAmount) {
+        reserve(sender, receiver, senderBranch, corridor, usdAmount, System.currentTimeMillis());
+    }
+
+    void reserve(User sender, User receiver, Branch senderBranch, String corridor, BigDecimal usdAmount, long now) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Limits cap = corridor != null ? corridorCaps.get(corridor.toUpperCase(Locale.ROOT)) : null;
+        long cents = toCents(usdAmount);
+
+        List<Reservation> reserved = new ArrayList<>(3);
+        try {
+            reserved.add(senders.reserve(sender.getId(), properties.getSender().forRole(sender.getRole()).capBy(cap), now, cents));
+            reserved.add(receivers.reserve(receiver.getId(), properties.getReceiver().forRole(receiver.getRole()).capBy(cap), now, cents));
+            if (senderBranch != null) {
+                reserved.add(branches.reserve(senderBranch.getId(), properties.getBranch().getDefaults(), now, cents));
+            }
+        } catch (TransferLimitExceededException e) {
+            reserved.forEach(Reservation::release);
+            throw e;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        reserved.forEach(Reservation::release);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Current window usage of one sender (count and USD amount, last hour and last day)
+     */
+    public Map<String, Object> getSenderUsage(Long senderId) {
+        return senders.usage(senderId, System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelayString = "${app.limits.purge-interval-ms:600000}")
+    public void purgeIdle() {
+        long now = System.currentTimeMillis();
+        int removed = senders.purgeIdle(now) + receivers.purgeIdle(now) + branches.purgeIdle(now);
+        if (removed > 0) {
+            log.debug("Dropped {} idle transfer limit windows", removed);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0L : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long limit(Long value) {
+        return value != null ? value : -1L;
+    }
+
+    private static long limit(BigDecimal value) {
+        return value != null ? toCents(value) : -1L;
+    }
+
+    private record Reservation(Windows windows, Long key, long at, long cents) {
+        void release() {
+            windows.release(key, at, cents);
+        }
+    }
+
+    /**
+     * Hour and day windows of one scope
+     */
+    private static final class Windows {
+
+        private final String scope;
+        private final SlidingWindowCounter hour = new SlidingWindowCounter(HOUR_MILLIS, 60);
+        private final SlidingWindowCounter day = new SlidingWindowCounter(DAY_MILLIS, 144);
+
+        Windows(String scope) {
+            this.scope = scope;
+        }
+
+        /**
+         * @return a reservation covering both windows, released as one
+         */
+        Reservation reserve(Long key, Limits limits, long now, long cents) {
+            if (!hour.tryAdd(key, now, cents, limit(limits.getMaxCountPerHour()), limit(limits.getMaxAmountPerHour()))) {
+                throw exceeded(hour, key, now, cents, "hourly", limits.getMaxCountPerHour(), limits.getMaxAmountPerHour());
+            }
+            if (!day.tryAdd(key, now, cents, limit(limits.getMaxCountPerDay()), limit(limits.getMaxAmountPerDay()))) {
+                hour.remove(key, now, cents);
+                throw exceeded(day, key, now, cents, "daily", limits.getMaxCountPerDay(), limits.getMaxAmountPerDay());
+            }
+            return new Reservation(this, key, now, cents);
+        }
+
+        void release(Long key, long at, long cents) {
+            hour.remove(key, at, cents);
+            day.remove(key, at, cents);
+        }
+
+        void add(Long key, long at, long cents) {
+            hour.add(key, at, cents);
+            day.add(key, at, cents);
+        }
+
+        Map<String, Object> usage(Long key, long now) {
+            Map<String, Object> usage = new HashMap<>();
+            usage.put("countLastHour", hour.count(key, now));
+            usage.put("amountLastHour", BigDecimal.valueOf(hour.amount(key, now), 2));
+            usage.put("countLastDay", day.count(key, now));
+            usage.put("amountLastDay", BigDecimal.valueOf(day.amount(key, now), 2));
+            return usage;
+        }
+
+        int purgeIdle(long now) {
+            return hour.purgeIdle(now) + day.purgeIdle(now);
+        }
+
+        void clear() {
+            hour.clear();
+            day.clear();
+        }
+
+        private TransferLimitExceededException exceeded(SlidingWindowCounter window, Long key, long now, long cents,
+                                                        String period, Long maxCount, BigDecimal maxAmount) {
+            if (maxCount != null && window.count(key, now) + 1 > maxCount) {
+                return new TransferLimitExceededException(scope + " " + period + " transfer count limit of " +
+                        maxCount + " reached");
+            }
+            return new TransferLimitExceededException(scope + " " + period + " transfer amount limit of " +
+                    maxAmount + " USD would be exceeded (used: " + BigDecimal.valueOf(window.amount(key, now), 2) +
+                    ", requested: " + BigDecimal.valueOf(cents, 2) + ")");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mycompany.transfersystem.service;
 
+import com.mycompany.transfersystem.config.CurrentUserProvider;
 import com.mycompany.transfersystem.dto.UserRequest;
 import com.mycompany.transfersystem.dto.UserResponse;
 import com.mycompany.transfersystem.entity.Fund;
@@ -7,8 +8,6 @@ import com.mycompany.transfersystem.entity.User;
 import com.mycompany.transfersystem.repository.FundRepository;
 import com.mycompany.transfersystem.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,9 +28,18 @@ public class UserService {
     @Autowired
     private AuditService auditService;
 
+    @Autowired
+    private CurrentUserProvider currentUserProvider;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     public List<UserResponse> getAllUsers() {
         List<User> users = userRepository.findAll();
         return users.stream()
@@ -73,10 +81,7 @@ public class UserService {
         User savedUser = userRepository.save(user);
 
         // Log the action
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
-        auditService.log("CREATE_USER", currentUser, "User", savedUser.getId());
+        auditService.log("CREATE_USER", currentUserProvider.requireId(), "User", savedUser.getId());
 
         return convertToResponse(savedUser);
     }
@@ -91,20 +96,27 @@ public class UserService {
                     .orElseThrow(() -> new RuntimeException("Fund not found with id: " + request.getFundId()));
         }
 
+        boolean credentialsChanged = !user.getUsername().equals(request.getUsername())
+                || user.getRole() != request.getRole();
         user.setUsername(request.getUsername());
         if (request.getPassword() != null && !request.getPassword().isEmpty()) {
             user.setPassword(passwordEncoder.encode(request.getPassword()));
+            credentialsChanged = true;
+            // A new password ends every session started with the old one
+            refreshTokenService.revokeAllForUser(user.getId());
         }
         user.setRole(request.getRole());
         user.setFundId(request.getFundId());
 
+        // Tokens carry username and role; outstanding ones must not keep the old values
+        if (credentialsChanged) {
+            tokenVersionService.bump(user);
+        }
+
         User updatedUser = userRepository.save(user);
 
         // Log the action
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
-        auditService.log("UPDATE_USER", currentUser, "User", updatedUser.getId());
+        auditService.log("UPDATE_USER", currentUserProvider.requireId(), "User", updatedUser.getId());
 
         return convertToResponse(updatedUser);
     }
@@ -114,12 +126,24 @@ public class UserService {
                 .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
 
         // Log the action before deletion
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User currentUser = userRepository.findByUsername(auth.getName())
-                .orElseThrow(() -> new RuntimeException("Current user not found"));
-        auditService.log("DELETE_USER", currentUser, "User", user.getId());
+        auditService.log("DELETE_USER", currentUserProvider.requireId(), "User", user.getId());
 
+        refreshTokenService.revokeForDeletedUser(user.getId());
         userRepository.delete(user);
+        tokenVersionService.forget(user.getId());
+    }
+
+    /**
+     * Invalidate every access and refresh token issued to the user so far
+     */
+    public void revokeTokens(Long id) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("User not found with id: " + id));
+        tokenVersionService.bump(user);
+        userRepository.save(user);
+        refreshTokenService.revokeAllForUser(user.getId());
+
+        auditService.log("REVOKE_TOKENS", currentUserProvider.requireId(), "User", user.getId());
     }
 
     private UserResponse convertToResponse(User user) {
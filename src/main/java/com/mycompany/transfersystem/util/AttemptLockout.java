@@ -0,0 +1,120 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Attempts per key over a fixed window, with a lockout once a key runs out.
+ * An attempt is counted when it starts, so parallel guesses cannot all slip
+ * in before the first one fails; a successful attempt is handed back with
+ * {@link #refund}. Entries are dropped by {@link #purgeIdle} once their
+ * window and lockout have passed.
+ */
+public class AttemptLockout<K> {
+
+    private final int maxAttempts;
+    private final long windowMillis;
+    private final long lockoutMillis;
+    private final ConcurrentHashMap<K, Attempts> attempts = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxAttempts   attempts allowed per key within the window
+     * @param windowMillis  length of the counting window, starting at a key's first attempt
+     * @param lockoutMillis how long a key is refused after using up its attempts
+     */
+    public AttemptLockout(int maxAttempts, long windowMillis, long lockoutMillis) {
+        if (maxAttempts < 1 || windowMillis < 1 || lockoutMillis < 1) {
+            throw new IllegalArgumentException("Invalid lockout: " + maxAttempts + " attempts per " +
+                    windowMillis + " ms, locked for " + lockoutMillis + " ms");
+        }
+        this.maxAttempts = maxAttempts;
+        this.windowMillis = windowMillis;
+        this.lockoutMillis = lockoutMillis;
+    }
+
+    /**
+     * Count an attempt unless the key is locked out.
+     * @return 0 if the attempt may go ahead, otherwise the milliseconds until the lockout ends
+     */
+    public long tryAcquire(K key, long nowMillis) {
+        long[] wait = new long[1];
+        attempts.compute(key, (k, current) -> {
+            Attempts state = current != null ? current : new Attempts(nowMillis);
+            if (state.lockedUntil > nowMillis) {
+                wait[0] = state.lockedUntil - nowMillis;
+                return state;
+            }
+            if (nowMillis - state.windowStart >= windowMillis) {
+                state.count = 0;
+                state.windowStart = nowMillis;
+            }
+            if (state.count >= maxAttempts) {
+                state.lockedUntil = nowMillis + lockoutMillis;
+                state.count = 0;
+                state.windowStart = state.lockedUntil;
+                wait[0] = lockoutMillis;
+                return state;
+            }
+            state.count++;
+            return state;
+        });
+        return wait[0];
+    }
+
+    /**
+     * Hand back an attempt that succeeded, so legitimate use does not wear down the allowance
+     */
+    public void refund(K key) {
+        attempts.computeIfPresent(key, (k, state) -> {
+            state.count = Math.max(0, state.count - 1);
+            return state;
+        });
+    }
+
+    /**
+     * @return milliseconds until the key's lockout ends, or 0 if it is not locked
+     */
+    public long lockedFor(K key, long nowMillis) {
+        Attempts state = attempts.get(key);
+        return state != null ? Math.max(0, state.lockedUntil - nowMillis) : 0;
+    }
+
+    /**
+     * Drop keys whose window and lockout are both over
+     * @return number of keys removed
+     */
+    public int purgeIdle(long nowMillis) {
+        int removed = 0;
+        for (K key : attempts.keySet()) {
+            // Decided under the key's lock, so an attempt counted meanwhile is never dropped
+            boolean[] idle = new boolean[1];
+            attempts.computeIfPresent(key, (k, state) -> {
+                idle[0] = state.lockedUntil <= nowMillis && nowMillis - state.windowStart >= windowMillis;
+                return idle[0] ? null : state;
+            });
+            if (idle[0]) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return attempts.size();
+    }
+
+    public void clear() {
+        attempts.clear();
+    }
+
+    private static final class Attempts {
+
+        private int count;
+        private long windowStart;
+        // Read without the key's lock by lockedFor
+        private volatile long lockedUntil;
+
+        Attempts(long windowStart) {
+            this.windowStart = windowStart;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mycompany.transfersystem.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-currency balances of one fund in a compact open-addressing table.
+ * Currency codes (up to four ASCII letters, e.g. "USD", "TL") are packed into
+ * an int key and amounts are fixed-point longs, so a wallet is two small
+ * primitive arrays instead of a map of boxed keys and BigDecimals.
+ * Not thread-safe.
+ */
+public class CurrencyWallet {
+
+    // Amounts are held in 1/10000 units, the scale of fund_balances.amount
+    public static final int SCALE = 4;
+
+    private static final int EMPTY = 0;
+
+    private int[] keys;
+    private long[] amounts;
+    private int size;
+
+    public CurrencyWallet() {
+        this(4);
+    }
+
+    public CurrencyWallet(int expectedCurrencies) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedCurrencies * 2 - 1)) << 1;
+        keys = new int[capacity];
+        amounts = new long[capacity];
+    }
+
+    /**
+     * Pack a currency code into an int key
+     * @throws IllegalArgumentException for codes that are empty, longer than four characters or not ASCII
+     */
+    public static int code(String currency) {
+        if (currency == null || currency.isEmpty() || currency.length() > 4) {
+            throw new IllegalArgumentException("Unsupported currency code: " + currency);
+        }
+        int key = 0;
+        for (int i = 0; i < currency.length(); i++) {
+            char c = Character.toUpperCase(currency.charAt(i));
+            if (c > 0x7F) {
+                throw new IllegalArgumentException("Unsupported currency code: " + currency);
+            }
+            key = (key << 8) | c;
+        }
+        return key;
+    }
+
+    public static String currency(int code) {
+        StringBuilder currency = new StringBuilder(4);
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            int c = (code >>> shift) & 0xFF;
+            if (c != 0) {
+                currency.append((char) c);
+            }
+        }
+        return currency.toString();
+    }
+
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+
+    public long get(int code) {
+        int slot = find(code);
+        return keys[slot] == code ? amounts[slot] : 0L;
+    }
+
+    public BigDecimal get(String currency) {
+        return fromUnits(get(code(currency)));
+    }
+
+    public void add(int code, long units) {
+        int slot = find(code);
+        if (keys[slot] != code) {
+            keys[slot] = code;
+            size++;
+            if (size * 2 > keys.length) {
+                grow();
+                slot = find(code);
+            }
+        }
+        amounts[slot] += units;
+    }
+
+    public void add(String currency, BigDecimal amount) {
+        add(code(currency), toUnits(amount));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(String currency) {
+        int code = code(currency);
+        return keys[find(code)] == code;
+    }
+
+    /**
+     * Balances by currency code, alphabetically
+     */
+    public Map<String, BigDecimal> toMap() {
+        Map<String, BigDecimal> balances = new TreeMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                balances.put(currency(keys[i]), fromUnits(amounts[i]));
+            }
+        }
+        return balances;
+    }
+
+    private int find(int code) {
+        int mask = keys.length - 1;
+        int slot = ((code * 0x9E3779B9) >>> 16) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != code) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        long[] oldAmounts = amounts;
+        keys = new int[oldKeys.length * 2];
+        amounts = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                amounts[slot] = oldAmounts[i];
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CurrencyWallet" + toMap();
+    }
+}
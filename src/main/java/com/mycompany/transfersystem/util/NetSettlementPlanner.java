@@ -0,0 +1,85 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Turns multilateral net positions into settlement payments.
+ * <p>
+ * Finding the absolute minimum number of payments is NP-hard, so this uses
+ * the usual heuristic: first settle debtor/creditor pairs with exactly equal
+ * positions in one payment each, then repeatedly let the largest debtor pay
+ * the largest creditor. Every payment closes at least one position, so a run
+ * never needs more than (branches with a non-zero position - 1) payments.
+ */
+public final class NetSettlementPlanner {
+
+    public record Payment(long payerId, long payeeId, long amount) {
+    }
+
+    private record Position(long branchId, long amount) {
+    }
+
+    private NetSettlementPlanner() {
+    }
+
+    /**
+     * @param netPositions branch id to net position in minor units (positive = owed money);
+     *                     must sum to zero
+     */
+    public static List<Payment> plan(Map<Long, Long> netPositions) {
+        long balance = 0L;
+        for (long amount : netPositions.values()) {
+            balance += amount;
+        }
+        if (balance != 0) {
+            throw new IllegalArgumentException("Net positions do not balance: " + balance);
+        }
+
+        List<Payment> payments = new ArrayList<>();
+        Comparator<Position> largestFirst = Comparator.comparingLong(Position::amount).reversed()
+                .thenComparingLong(Position::branchId);
+        PriorityQueue<Position> debtors = new PriorityQueue<>(largestFirst);
+        PriorityQueue<Position> creditors = new PriorityQueue<>(largestFirst);
+
+        // Exact matches first: one payment closes two positions
+        Map<Long, Deque<Long>> creditorsByAmount = new HashMap<>();
+        netPositions.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> creditorsByAmount.computeIfAbsent(e.getValue(), a -> new ArrayDeque<>()).add(e.getKey()));
+        netPositions.entrySet().stream()
+                .filter(e -> e.getValue() < 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    long owed = -e.getValue();
+                    Deque<Long> matches = creditorsByAmount.get(owed);
+                    if (matches != null && !matches.isEmpty()) {
+                        payments.add(new Payment(e.getKey(), matches.poll(), owed));
+                    } else {
+                        debtors.add(new Position(e.getKey(), owed));
+                    }
+                });
+        creditorsByAmount.forEach((amount, ids) -> ids.forEach(id -> creditors.add(new Position(id, amount))));
+
+        while (!debtors.isEmpty() && !creditors.isEmpty()) {
+            Position debtor = debtors.poll();
+            Position creditor = creditors.poll();
+            long amount = Math.min(debtor.amount(), creditor.amount());
+            payments.add(new Payment(debtor.branchId(), creditor.branchId(), amount));
+            if (debtor.amount() > amount) {
+                debtors.add(new Position(debtor.branchId(), debtor.amount() - amount));
+            }
+            if (creditor.amount() > amount) {
+                creditors.add(new Position(creditor.branchId(), creditor.amount() - amount));
+            }
+        }
+        return payments;
+    }
+}
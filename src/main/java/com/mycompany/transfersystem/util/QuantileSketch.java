@@ -0,0 +1,158 @@
+package com.mycompany.transfersystem.util;
+
+/**
+ * Mergeable quantile sketch with bounded relative error (DDSketch-style).
+ *
+ * Positive values are counted in logarithmic buckets of ratio
+ * gamma = (1 + a) / (1 - a), so any quantile is returned within relative
+ * accuracy a of the true value. With a = 1% and at most 1024 buckets a
+ * sketch covers roughly nine orders of magnitude in under 8 KB; if the
+ * range grows beyond that the lowest buckets are collapsed, which only
+ * affects accuracy of the smallest values. Not thread-safe.
+ */
+public class QuantileSketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BUCKETS = 1024;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBuckets;
+
+    // counts[i] holds bucket (offset + i)
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private double sum;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BUCKETS);
+    }
+
+    public QuantileSketch(double relativeAccuracy, int maxBuckets) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be in (0, 1)");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBuckets = maxBuckets;
+    }
+
+    public void add(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("Only non-negative values are supported");
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value < Double.MIN_NORMAL) {
+            zeroCount++;
+            return;
+        }
+        addToBucket((int) Math.ceil(Math.log(value) / logGamma), 1);
+    }
+
+    /**
+     * Fold another sketch with the same accuracy into this one
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                addToBucket(other.offset + i, other.counts[i]);
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param q quantile in [0, 1]
+     * @return estimated value, or NaN when the sketch is empty
+     */
+    public double quantile(double q) {
+        if (q < 0 || q > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (q * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public QuantileSketch copy() {
+        QuantileSketch copy = new QuantileSketch(relativeAccuracy, maxBuckets);
+        copy.merge(this);
+        return copy;
+    }
+
+    public long getCount() { return count; }
+    public double getSum() { return sum; }
+    public double getMin() { return count == 0 ? Double.NaN : min; }
+    public double getMax() { return count == 0 ? Double.NaN : max; }
+
+    /**
+     * Approximate heap footprint of the bucket array
+     */
+    public int getBucketBytes() { return counts.length * Long.BYTES; }
+
+    private void addToBucket(int index, long n) {
+        if (counts.length == 0) {
+            counts = new long[1];
+            offset = index;
+        }
+        int low = Math.min(offset, index);
+        int high = Math.max(offset + counts.length - 1, index);
+        if (high - low + 1 > maxBuckets) {
+            // Too wide: fold everything below the retained range into its lowest bucket
+            low = high - maxBuckets + 1;
+            index = Math.max(index, low);
+        }
+        if (low != offset || high != offset + counts.length - 1) {
+            resize(low, high);
+        }
+        counts[index - offset] += n;
+    }
+
+    private void resize(int low, int high) {
+        long[] resized = new long[high - low + 1];
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                resized[Math.max(offset + i, low) - low] += counts[i];
+            }
+        }
+        counts = resized;
+        offset = low;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{count=" + count + ", buckets=" + counts.length + "}";
+    }
+}
@@ -0,0 +1,166 @@
+package com.mycompany.transfersystem.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable set of rates to one quote currency, taken at one instant.
+ * Currencies are packed with {@link CurrencyWallet#code(String)} and rates are
+ * fixed-point longs, so valuing a column of wallet amounts is a loop over
+ * primitive arrays with no BigDecimal arithmetic per row.
+ */
+public final class RateSnapshot {
+
+    // Rates are held in 1/10^8 units, the precision ExchangeRateService returns
+    public static final int RATE_SCALE = 8;
+
+    private static final long RATE_ONE = 100_000_000L;
+    private static final long HALF_RATE_ONE = RATE_ONE / 2;
+    private static final BigInteger BIG_RATE_ONE = BigInteger.valueOf(RATE_ONE);
+
+    private final String quoteCurrency;
+    private final LocalDateTime takenAt;
+    // Sorted, so lookups are a binary search and two snapshots compare element-wise
+    private final int[] codes;
+    private final long[] rates;
+
+    private RateSnapshot(String quoteCurrency, LocalDateTime takenAt, int[] codes, long[] rates) {
+        this.quoteCurrency = quoteCurrency;
+        this.takenAt = takenAt;
+        this.codes = codes;
+        this.rates = rates;
+    }
+
+    /**
+     * @param ratesToQuote amount of the quote currency per one unit of each currency
+     */
+    public static RateSnapshot of(String quoteCurrency, Map<String, BigDecimal> ratesToQuote, LocalDateTime takenAt) {
+        Map<Integer, Long> sorted = new TreeMap<>();
+        for (Map.Entry<String, BigDecimal> entry : ratesToQuote.entrySet()) {
+            BigDecimal rate = entry.getValue();
+            if (rate == null || rate.signum() <= 0) {
+                throw new IllegalArgumentException("Invalid rate for " + entry.getKey() + ": " + rate);
+            }
+            sorted.put(CurrencyWallet.code(entry.getKey()),
+                    rate.setScale(RATE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+        }
+        sorted.put(CurrencyWallet.code(quoteCurrency), RATE_ONE);
+
+        int[] codes = new int[sorted.size()];
+        long[] rates = new long[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> entry : sorted.entrySet()) {
+            codes[i] = entry.getKey();
+            rates[i] = entry.getValue();
+            i++;
+        }
+        return new RateSnapshot(quoteCurrency.toUpperCase(), takenAt, codes, rates);
+    }
+
+    public String getQuoteCurrency() {
+        return quoteCurrency;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * Fixed-point rate of a packed currency code, or -1 if the snapshot has no rate for it
+     */
+    public long rate(int code) {
+        int index = Arrays.binarySearch(codes, code);
+        return index >= 0 ? rates[index] : -1L;
+    }
+
+    /**
+     * Value wallet amounts in the quote currency. Amounts and results are
+     * in {@link CurrencyWallet#SCALE} units; rows whose currency has no rate
+     * are left at {@link Long#MIN_VALUE} in {@code out}.
+     * @return number of rows without a rate
+     */
+    public int convert(int[] currencyCodes, long[] units, long[] out, int length) {
+        // Resolve rates first so the multiply loop below has no branches on lookups
+        long[] rowRates = new long[length];
+        int lastCode = 0;
+        long lastRate = -1L;
+        for (int i = 0; i < length; i++) {
+            if (currencyCodes[i] != lastCode) {
+                lastCode = currencyCodes[i];
+                lastRate = rate(lastCode);
+            }
+            rowRates[i] = lastRate;
+        }
+
+        int unpriced = 0;
+        for (int i = 0; i < length; i++) {
+            long rate = rowRates[i];
+            if (rate < 0) {
+                out[i] = Long.MIN_VALUE;
+                unpriced++;
+            } else {
+                out[i] = multiply(units[i], rate);
+            }
+        }
+        return unpriced;
+    }
+
+    /**
+     * units * rate / 10^8, rounded half away from zero. Falls back to
+     * BigInteger only when the 128-bit product does not fit in a long.
+     */
+    static long multiply(long units, long rate) {
+        long high = Math.multiplyHigh(units, rate);
+        long low = units * rate;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            long quotient = low / RATE_ONE;
+            long remainder = low % RATE_ONE;
+            if (remainder >= HALF_RATE_ONE) {
+                quotient++;
+            } else if (remainder <= -HALF_RATE_ONE) {
+                quotient--;
+            }
+            return quotient;
+        }
+        BigInteger[] quotient = BigInteger.valueOf(units).multiply(BigInteger.valueOf(rate))
+                .divideAndRemainder(BIG_RATE_ONE);
+        BigInteger result = quotient[0];
+        if (quotient[1].abs().shiftLeft(1).compareTo(BIG_RATE_ONE) >= 0) {
+            result = result.add(BigInteger.valueOf(quotient[1].signum()));
+        }
+        return result.longValueExact();
+    }
+
+    /**
+     * Rates by currency code, alphabetically
+     */
+    public Map<String, BigDecimal> toMap() {
+        Map<String, BigDecimal> map = new TreeMap<>();
+        for (int i = 0; i < codes.length; i++) {
+            map.put(CurrencyWallet.currency(codes[i]), BigDecimal.valueOf(rates[i], RATE_SCALE));
+        }
+        return map;
+    }
+
+    /**
+     * True if both snapshots quote the same currencies at the same rates, whenever they were taken
+     */
+    public boolean sameRates(RateSnapshot other) {
+        return other != null && quoteCurrency.equals(other.quoteCurrency)
+                && Arrays.equals(codes, other.codes) && Arrays.equals(rates, other.rates);
+    }
+
+    @Override
+    public String toString() {
+        return "RateSnapshot[" + quoteCurrency + " " + takenAt + " " + toMap() + "]";
+    }
+}
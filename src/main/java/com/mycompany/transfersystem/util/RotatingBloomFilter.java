@@ -0,0 +1,163 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time-windowed Bloom filter over 64-bit fingerprints. The window is split
+ * into generations, each a fixed-size bit array; a lookup checks every live
+ * generation and the oldest one is cleared and reused when the clock moves
+ * on. Memory is fixed at construction whatever the traffic, and entries are
+ * remembered for at least the window (at most one generation longer).
+ * A hit may be a false positive; a miss is definite.
+ */
+public class RotatingBloomFilter {
+
+    private final long generationMillis;
+    private final int hashes;
+    private final long mask;
+    private final AtomicLongArray[] bits;
+    // Generation number currently held by each slot
+    private final AtomicLongArray stamps;
+
+    /**
+     * @param windowMillis         how long an entry must be remembered
+     * @param generations          number of generations the window is split into
+     * @param expectedPerWindow    insertions per window the false-positive rate is sized for
+     * @param falsePositiveRate    target false-positive rate per lookup at that load
+     */
+    public RotatingBloomFilter(long windowMillis, int generations, long expectedPerWindow, double falsePositiveRate) {
+        if (generations < 1 || windowMillis < generations || expectedPerWindow < 1
+                || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        this.generationMillis = windowMillis / generations;
+        // A lookup checks one more generation than the window needs, so each gets a share of the error budget
+        int slots = generations + 1;
+        double perGenerationRate = falsePositiveRate / slots;
+        double perGenerationItems = Math.ceil((double) expectedPerWindow / generations);
+        long optimalBits = (long) Math.ceil(-perGenerationItems * Math.log(perGenerationRate) / (Math.log(2) * Math.log(2)));
+        long bitCount = Long.highestOneBit(Math.max(64, optimalBits - 1)) << 1;
+        if (bitCount > (1L << 36)) {
+            throw new IllegalArgumentException("Bloom filter would need " + bitCount + " bits per generation");
+        }
+        this.mask = bitCount - 1;
+        // Rounding the bit count up already lowers the error; probes stay at what the target rate needs
+        this.hashes = Math.max(1, (int) Math.ceil(-Math.log(perGenerationRate) / Math.log(2)));
+        this.bits = new AtomicLongArray[slots];
+        this.stamps = new AtomicLongArray(slots);
+        for (int i = 0; i < slots; i++) {
+            bits[i] = new AtomicLongArray((int) (bitCount >>> 6));
+            stamps.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Check for a fingerprint and add it in one step.
+     * @return true if it may have been added within the window before
+     */
+    public boolean checkAndPut(long fingerprint, long nowMillis) {
+        boolean seen = mightContain(fingerprint, nowMillis);
+        put(fingerprint, nowMillis);
+        return seen;
+    }
+
+    public boolean mightContain(long fingerprint, long nowMillis) {
+        long generation = nowMillis / generationMillis;
+        long h2 = secondHash(fingerprint);
+        for (int slot = 0; slot < bits.length; slot++) {
+            long stamp = stamps.get(slot);
+            if (stamp <= generation - bits.length || stamp > generation) {
+                continue;
+            }
+            if (containsAll(bits[slot], fingerprint, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add a fingerprint seen at the given time; ignored if that time has already left the window
+     */
+    public void put(long fingerprint, long atMillis) {
+        long generation = atMillis / generationMillis;
+        int slot = (int) Math.floorMod(generation, (long) bits.length);
+        if (stamps.get(slot) != generation && !rotate(slot, generation)) {
+            return;
+        }
+        AtomicLongArray words = bits[slot];
+        long h2 = secondHash(fingerprint);
+        long h = fingerprint;
+        for (int i = 0; i < hashes; i++) {
+            long bit = h & mask;
+            int word = (int) (bit >>> 6);
+            long flag = 1L << bit;
+            long current = words.get(word);
+            while ((current & flag) == 0 && !words.compareAndSet(word, current, current | flag)) {
+                current = words.get(word);
+            }
+            h += h2;
+        }
+    }
+
+    public int hashes() {
+        return hashes;
+    }
+
+    public long bitsPerGeneration() {
+        return mask + 1;
+    }
+
+    /**
+     * Hand a slot to a newer generation, clearing the bits of the one it held
+     * @return false if the slot already holds a newer generation (the requested one has expired)
+     */
+    private synchronized boolean rotate(int slot, long generation) {
+        long stamp = stamps.get(slot);
+        if (stamp == generation) {
+            return true;
+        }
+        if (stamp > generation) {
+            return false;
+        }
+        AtomicLongArray words = bits[slot];
+        // Lookups skip the slot while it is being cleared
+        stamps.set(slot, Long.MIN_VALUE);
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0L);
+        }
+        stamps.set(slot, generation);
+        return true;
+    }
+
+    private boolean containsAll(AtomicLongArray words, long h1, long h2) {
+        long h = h1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = h & mask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            h += h2;
+        }
+        return true;
+    }
+
+    // Odd, so successive probes cycle through every bit position
+    private static long secondHash(long fingerprint) {
+        long h = fingerprint * 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        h *= 0x165667B19E3779F9L;
+        h ^= h >>> 32;
+        return h | 1L;
+    }
+
+    /**
+     * Mix a value into a running 64-bit fingerprint
+     */
+    public static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 32);
+    }
+}
@@ -0,0 +1,209 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Count and amount of events per key over a sliding time window, kept as a
+ * ring of time buckets in primitive arrays. Each ring carries running totals,
+ * so reading a window costs only the expiry of buckets the clock has moved
+ * past since the key was last touched: amortized O(1), at most one pass
+ * over the ring after a long idle period.
+ */
+public class SlidingWindowCounter {
+
+    private final long bucketMillis;
+    private final int buckets;
+    private final ConcurrentHashMap<Long, Ring> rings = new ConcurrentHashMap<>();
+
+    /**
+     * @param windowMillis length of the window
+     * @param buckets      resolution; events expire one bucket (window / buckets) at a time
+     */
+    public SlidingWindowCounter(long windowMillis, int buckets) {
+        if (buckets < 1 || windowMillis < buckets) {
+            throw new IllegalArgumentException("Invalid window: " + windowMillis + " ms in " + buckets + " buckets");
+        }
+        this.bucketMillis = windowMillis / buckets;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Add an event if the window stays within both limits after it.
+     * @param maxCount  limit on events in the window, or a negative value for none
+     * @param maxAmount limit on the summed amount in the window, or a negative value for none
+     * @return true if the event was added
+     */
+    public boolean tryAdd(long key, long nowMillis, long amount, long maxCount, long maxAmount) {
+        long bucket = nowMillis / bucketMillis;
+        while (true) {
+            Ring ring = rings.computeIfAbsent(key, k -> new Ring(buckets));
+            synchronized (ring) {
+                if (ring.retired) {
+                    continue;
+                }
+                ring.advance(bucket);
+                if ((maxCount >= 0 && ring.count + 1 > maxCount)
+                        || (maxAmount >= 0 && ring.amount + amount > maxAmount)) {
+                    return false;
+                }
+                ring.add(bucket, 1, amount);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Record an event that happened at the given time (also in the past, while still inside the window)
+     */
+    public void add(long key, long atMillis, long amount) {
+        while (true) {
+            Ring ring = rings.computeIfAbsent(key, k -> new Ring(buckets));
+            synchronized (ring) {
+                if (!ring.retired) {
+                    ring.add(atMillis / bucketMillis, 1, amount);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Take back an event added at the given time; a no-op once its bucket has expired
+     */
+    public void remove(long key, long atMillis, long amount) {
+        Ring ring = rings.get(key);
+        if (ring != null) {
+            synchronized (ring) {
+                ring.add(atMillis / bucketMillis, -1, -amount);
+            }
+        }
+    }
+
+    public long count(long key, long nowMillis) {
+        Ring ring = rings.get(key);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            ring.advance(nowMillis / bucketMillis);
+            return ring.count;
+        }
+    }
+
+    public long amount(long key, long nowMillis) {
+        Ring ring = rings.get(key);
+        if (ring == null) {
+            return 0;
+        }
+        synchronized (ring) {
+            ring.advance(nowMillis / bucketMillis);
+            return ring.amount;
+        }
+    }
+
+    /**
+     * Drop keys with nothing left in the window, so idle senders do not hold memory
+     * @return number of keys removed
+     */
+    public int purgeIdle(long nowMillis) {
+        long bucket = nowMillis / bucketMillis;
+        int removed = 0;
+        for (var entry : rings.entrySet()) {
+            Ring ring = entry.getValue();
+            synchronized (ring) {
+                ring.advance(bucket);
+                if (ring.count == 0 && rings.remove(entry.getKey(), ring)) {
+                    // Writers already waiting on this ring see the flag and start a fresh one
+                    ring.retired = true;
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return rings.size();
+    }
+
+    public void clear() {
+        rings.clear();
+    }
+
+    private static final class Ring {
+
+        // Absolute bucket number held by each slot; a slot is live while its stamp is inside the window
+        private final long[] stamps;
+        private final long[] counts;
+        private final long[] amounts;
+        private long head = Long.MIN_VALUE;
+        private long count;
+        private long amount;
+        private boolean retired;
+
+        Ring(int buckets) {
+            stamps = new long[buckets];
+            counts = new long[buckets];
+            amounts = new long[buckets];
+            Arrays.fill(stamps, Long.MIN_VALUE);
+        }
+
+        /**
+         * Move the newest bucket forward, expiring the slots that fall out of the window
+         */
+        void advance(long bucket) {
+            if (bucket <= head) {
+                return;
+            }
+            int n = stamps.length;
+            if (head == Long.MIN_VALUE || bucket - head >= n) {
+                for (int slot = 0; slot < n; slot++) {
+                    if (stamps[slot] <= bucket - n) {
+                        expire(slot, stamps[slot]);
+                    }
+                }
+            } else {
+                // Only buckets (head - n .. bucket - n] have left the window
+                for (long b = head - n + 1; b <= bucket - n; b++) {
+                    expire(slot(b), b);
+                }
+            }
+            head = bucket;
+        }
+
+        void add(long bucket, long countDelta, long amountDelta) {
+            advance(bucket);
+            if (bucket <= head - stamps.length) {
+                return;
+            }
+            int slot = slot(bucket);
+            if (stamps[slot] != bucket) {
+                if (countDelta < 0) {
+                    // Removing from a bucket that is no longer there
+                    return;
+                }
+                expire(slot, stamps[slot]);
+                stamps[slot] = bucket;
+            }
+            counts[slot] += countDelta;
+            amounts[slot] += amountDelta;
+            count += countDelta;
+            amount += amountDelta;
+        }
+
+        private void expire(int slot, long bucket) {
+            if (stamps[slot] == bucket && bucket != Long.MIN_VALUE) {
+                count -= counts[slot];
+                amount -= amounts[slot];
+                counts[slot] = 0;
+                amounts[slot] = 0;
+                stamps[slot] = Long.MIN_VALUE;
+            }
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(bucket, (long) stamps.length);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe sparse matrix of gross obligations between branches, amounts in
+ * fixed-point minor units. Only pairs that actually traded are stored, so
+ * memory grows with the number of active corridors rather than N×N.
+ */
+public class SparseObligationMatrix {
+
+    /**
+     * Receives one non-zero cell
+     */
+    @FunctionalInterface
+    public interface CellConsumer {
+        void accept(long debtorId, long creditorId, long amount);
+    }
+
+    // debtor -> creditor -> amount owed
+    private final ConcurrentMap<Long, ConcurrentMap<Long, LongAdder>> rows = new ConcurrentHashMap<>();
+
+    /**
+     * Record that {@code debtorId} owes {@code creditorId} a further amount
+     * (negative to reverse an earlier obligation)
+     */
+    public void add(long debtorId, long creditorId, long amount) {
+        if (debtorId == creditorId || amount == 0) {
+            return;
+        }
+        rows.computeIfAbsent(debtorId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(creditorId, id -> new LongAdder())
+                .add(amount);
+    }
+
+    public long get(long debtorId, long creditorId) {
+        Map<Long, LongAdder> row = rows.get(debtorId);
+        LongAdder cell = row != null ? row.get(creditorId) : null;
+        return cell != null ? cell.sum() : 0L;
+    }
+
+    public void forEach(CellConsumer consumer) {
+        rows.forEach((debtorId, row) -> row.forEach((creditorId, cell) -> {
+            long amount = cell.sum();
+            if (amount != 0) {
+                consumer.accept(debtorId, creditorId, amount);
+            }
+        }));
+    }
+
+    /**
+     * Multilateral net position per branch: positive when the branch is owed
+     * money overall, negative when it owes. Branches that net to zero are omitted.
+     */
+    public Map<Long, Long> netPositions() {
+        Map<Long, Long> net = new HashMap<>();
+        forEach((debtorId, creditorId, amount) -> {
+            net.merge(debtorId, -amount, Long::sum);
+            net.merge(creditorId, amount, Long::sum);
+        });
+        net.values().removeIf(amount -> amount == 0);
+        return net;
+    }
+
+    /**
+     * Sum of all gross obligations
+     */
+    public long grossTotal() {
+        long[] total = {0L};
+        forEach((debtorId, creditorId, amount) -> total[0] += amount);
+        return total[0];
+    }
+
+    /**
+     * Number of non-zero cells
+     */
+    public int cellCount() {
+        int[] count = {0};
+        forEach((debtorId, creditorId, amount) -> count[0]++);
+        return count[0];
+    }
+
+    public void clear() {
+        rows.clear();
+    }
+}
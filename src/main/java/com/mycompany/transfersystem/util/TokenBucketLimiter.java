@@ -0,0 +1,86 @@
+package com.mycompany.transfersystem.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per key, each held in a single {@link AtomicLong} as the
+ * time at which the bucket will be full again (the generic cell rate
+ * algorithm). Admitting a request is one compare-and-set; rejecting one is
+ * a map lookup and a read, with no write, so a flood of rejected requests
+ * creates no contention. Rate and burst are passed per call, so a key's
+ * limits can change without resetting its bucket.
+ */
+public class TokenBucketLimiter {
+
+    private final ConcurrentHashMap<Long, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Take one token from the key's bucket.
+     * @param intervalNanos time to refill one token
+     * @param burst         bucket capacity
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    public long tryAcquire(long key, long nowNanos, long intervalNanos, long burst) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+        long capacityNanos = intervalNanos * burst;
+        while (true) {
+            long fullAt = bucket.get();
+            // An unused or long idle bucket is full now
+            long base = fullAt == Long.MIN_VALUE || fullAt - nowNanos < 0 ? nowNanos : fullAt;
+            long next = base + intervalNanos;
+            long wait = next - nowNanos - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Put back a token taken at the given time, e.g. when another limit refused the request
+     */
+    public void refund(long key, long nowNanos, long intervalNanos) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            if (fullAt == Long.MIN_VALUE || fullAt - nowNanos <= 0) {
+                return;
+            }
+            long previous = Math.max(fullAt - intervalNanos, nowNanos);
+            if (bucket.compareAndSet(fullAt, previous)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Drop buckets that have refilled completely; they behave exactly like missing ones.
+     * A request racing the purge may be counted against the dropped bucket, which was full anyway.
+     * @return number of keys removed
+     */
+    public int purgeFull(long nowNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> {
+            long fullAt = bucket.get();
+            return fullAt == Long.MIN_VALUE || fullAt - nowNanos <= 0;
+        });
+        return Math.max(0, before - buckets.size());
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+}
@@ -0,0 +1,80 @@
+-- One-time conversion of transactions and audit_logs into monthly range-partitioned
+-- tables on created_at (PostgreSQL 12+). Run with the application stopped, then start
+-- it with app.partitioning.enabled=true so PartitionMaintenanceService keeps future
+-- partitions created and detaches expired ones.
+--
+-- The primary key of a partitioned table must contain the partition key, so both
+-- tables get PRIMARY KEY (id, created_at). Ids keep coming from a sequence default,
+-- which Hibernate's IDENTITY strategy reads back the same way.
+
+BEGIN;
+
+-- transactions ---------------------------------------------------------------
+
+ALTER TABLE transactions RENAME TO transactions_heap;
+
+CREATE TABLE transactions (LIKE transactions_heap INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+CREATE SEQUENCE IF NOT EXISTS transactions_partitioned_id_seq OWNED BY transactions.id;
+SELECT setval('transactions_partitioned_id_seq', COALESCE((SELECT MAX(id) FROM transactions_heap), 0) + 1, false);
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_partitioned_id_seq');
+ALTER TABLE transactions ADD PRIMARY KEY (id, created_at);
+-- LIKE copies check and not-null constraints only; foreign keys are added back by hand
+ALTER TABLE transactions ADD FOREIGN KEY (sender_id) REFERENCES users (id);
+ALTER TABLE transactions ADD FOREIGN KEY (receiver_id) REFERENCES users (id);
+ALTER TABLE transactions ADD FOREIGN KEY (fund_id) REFERENCES funds (id);
+ALTER TABLE transactions ADD FOREIGN KEY (sender_branch_id) REFERENCES branches (id);
+ALTER TABLE transactions ADD FOREIGN KEY (receiver_branch_id) REFERENCES branches (id);
+
+CREATE INDEX idx_transactions_receiver_branch_status_created ON transactions (receiver_branch_id, status, created_at);
+CREATE INDEX idx_transactions_sender_branch_status_created ON transactions (sender_branch_id, status, created_at);
+CREATE INDEX idx_transactions_created_at ON transactions (created_at);
+CREATE INDEX idx_transactions_status_created ON transactions (status, created_at, id);
+
+-- audit_logs -----------------------------------------------------------------
+
+ALTER TABLE audit_logs RENAME TO audit_logs_heap;
+
+CREATE TABLE audit_logs (LIKE audit_logs_heap INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+CREATE SEQUENCE IF NOT EXISTS audit_logs_partitioned_id_seq OWNED BY audit_logs.id;
+SELECT setval('audit_logs_partitioned_id_seq', COALESCE((SELECT MAX(id) FROM audit_logs_heap), 0) + 1, false);
+ALTER TABLE audit_logs ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE audit_logs ALTER COLUMN id SET DEFAULT nextval('audit_logs_partitioned_id_seq');
+ALTER TABLE audit_logs ADD PRIMARY KEY (id, created_at);
+ALTER TABLE audit_logs ADD FOREIGN KEY (user_id) REFERENCES users (id);
+
+CREATE INDEX idx_audit_logs_created_at ON audit_logs (created_at);
+
+-- Monthly partitions covering existing rows plus three months ahead -----------
+
+DO $$
+DECLARE
+    tbl   text;
+    first date;
+    month date;
+BEGIN
+    FOREACH tbl IN ARRAY ARRAY['transactions', 'audit_logs'] LOOP
+        EXECUTE format('SELECT date_trunc(''month'', COALESCE(MIN(created_at), now()))::date FROM %I', tbl || '_heap')
+            INTO first;
+        month := first;
+        WHILE month <= (date_trunc('month', now()) + interval '3 months')::date LOOP
+            EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           tbl || '_p' || to_char(month, 'YYYYMM'), tbl,
+                           month, (month + interval '1 month')::date);
+            month := (month + interval '1 month')::date;
+        END LOOP;
+    END LOOP;
+END $$;
+
+INSERT INTO transactions SELECT * FROM transactions_heap;
+INSERT INTO audit_logs SELECT * FROM audit_logs_heap;
+
+COMMIT;
+
+-- After verifying row counts:
+-- DROP TABLE transactions_heap;
+-- DROP TABLE audit_logs_heap;
@@ -0,0 +1,16 @@
+-- Partial index behind the per-branch pickup queue: only transfers still waiting
+-- to be paid out (status COMPLETED) are indexed, so it stays as small as the
+-- backlog however large transactions grows. Hibernate cannot declare partial
+-- indexes, so create it once by hand.
+--
+-- On a plain table build it without blocking writes:
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_pickup_queue
+    ON transactions (receiver_branch_id, created_at, id)
+    WHERE status = 'COMPLETED';
+
+-- On a table partitioned with partition-transactions-audit-logs.sql, CONCURRENTLY is
+-- not available on the parent; use this instead (it cascades to every partition,
+-- and PartitionMaintenanceService's new partitions inherit it):
+-- CREATE INDEX IF NOT EXISTS idx_transactions_pickup_queue
+--     ON transactions (receiver_branch_id, created_at, id)
+--     WHERE status = 'COMPLETED';
@@ -0,0 +1,6 @@
+-- Refresh tokens of deleted users are detached rather than deleted, so their
+-- revoked families stay visible to TokenRevocationIndex on every instance until
+-- the tokens expire and the purge removes them.
+--
+-- Hibernate's schema update does not relax an existing NOT NULL, so drop it by hand.
+ALTER TABLE refresh_tokens ALTER COLUMN user_id DROP NOT NULL;
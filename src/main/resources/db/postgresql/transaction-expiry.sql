@@ -0,0 +1,13 @@
+-- Schema changes for expiring unreleased transfers (TransferExpiryService).
+--
+-- Hibernate's schema update adds new columns and indexes but does not touch an
+-- existing check constraint, so the EXPIRED status has to be allowed by hand.
+ALTER TABLE transactions DROP CONSTRAINT IF EXISTS transactions_status_check;
+ALTER TABLE transactions ADD CONSTRAINT transactions_status_check
+    CHECK (status IN ('PENDING', 'COMPLETED', 'FAILED', 'RELEASED', 'EXPIRED'));
+
+-- The sweeper walks overdue COMPLETED rows in (created_at, id) order. Hibernate
+-- creates this index on startup; on a large table build it beforehand without
+-- blocking writes (drop CONCURRENTLY on a partitioned table):
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_transactions_status_created
+    ON transactions (status, created_at, id);
@@ -0,0 +1,121 @@
+package com.mycompany.transfersystem.archive;
+
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionSegmentFileTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testRoundTripPreservesColumns() throws IOException {
+        Transaction first = transaction(10L, LocalDateTime.of(2024, 1, 5, 9, 30, 0, 123_456_000),
+                new BigDecimal("250.00"), 1L, 2L);
+        first.setExchangeRate(new BigDecimal("0.90909091"));
+        first.setUsdEquivalent(new BigDecimal("250.0000"));
+        first.setTotalFee(new BigDecimal("7.50"));
+        Transaction second = transaction(42L, LocalDateTime.of(2024, 2, 1, 0, 0),
+                new BigDecimal("1000.00"), 2L, null);
+
+        Path file = dir.resolve("segment.seg");
+        SegmentHeader written = TransactionSegmentFile.write(file, List.of(first, second));
+        List<Transaction> rows = TransactionSegmentFile.readRows(file);
+
+        assertEquals(2, rows.size());
+        Transaction a = rows.get(0);
+        assertEquals(10L, a.getId());
+        assertEquals(first.getCreatedAt(), a.getCreatedAt());
+        assertEquals(new BigDecimal("250.00"), a.getAmount());
+        assertEquals(new BigDecimal("0.90909091"), a.getExchangeRate());
+        assertEquals(new BigDecimal("7.50"), a.getTotalFee());
+        assertEquals("EUR", a.getSourceCurrency());
+        assertEquals(TransactionStatus.RELEASED, a.getStatus());
+        assertEquals(100L, a.getSender().getId());
+        assertEquals(1L, a.getSenderBranch().getId());
+        assertNull(a.getPlatformBaseFee());
+        assertNull(rows.get(1).getReceiverBranch());
+
+        SegmentHeader header = TransactionSegmentFile.readHeader(file);
+        assertEquals(written.getRowCount(), header.getRowCount());
+        assertEquals(10L, header.getMinId());
+        assertEquals(42L, header.getMaxId());
+        assertFalse(Files.exists(dir.resolve("segment.seg.tmp")));
+    }
+
+    @Test
+    void testHeaderPrunesByDateAmountAndBranch() throws IOException {
+        Path file = dir.resolve("segment.seg");
+        TransactionSegmentFile.write(file, List.of(
+                transaction(1L, LocalDateTime.of(2024, 1, 1, 0, 0), new BigDecimal("10.00"), 3L, 4L),
+                transaction(2L, LocalDateTime.of(2024, 1, 31, 0, 0), new BigDecimal("90.00"), 5L, 4L)));
+        SegmentHeader header = TransactionSegmentFile.readHeader(file);
+
+        assertTrue(header.overlapsCreatedAt(LocalDateTime.of(2024, 1, 15, 0, 0), null));
+        assertFalse(header.overlapsCreatedAt(LocalDateTime.of(2024, 2, 1, 0, 0), null));
+        assertFalse(header.overlapsCreatedAt(null, LocalDateTime.of(2023, 12, 31, 0, 0)));
+        assertFalse(header.overlapsAmount(100.0, null));
+        assertTrue(header.overlapsAmount(50.0, 60.0));
+        assertTrue(header.mayContainSenderBranch(4L));
+        assertFalse(header.mayContainSenderBranch(6L));
+        assertFalse(header.mayContainReceiverBranch(3L));
+    }
+
+    @Test
+    void testCorruptBodyIsRejected() throws IOException {
+        Path file = dir.resolve("segment.seg");
+        TransactionSegmentFile.write(file, List.of(
+                transaction(1L, LocalDateTime.of(2024, 1, 1, 0, 0), new BigDecimal("10.00"), 1L, 2L)));
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0x5A;
+        Files.write(file, bytes);
+
+        assertThrows(IOException.class, () -> TransactionSegmentFile.readRows(file));
+    }
+
+    private Transaction transaction(Long id, LocalDateTime createdAt, BigDecimal amount,
+                                    Long senderBranchId, Long receiverBranchId) {
+        Transaction t = new Transaction();
+        t.setId(id);
+        t.setCreatedAt(createdAt);
+        t.setAmount(amount);
+        t.setStatus(TransactionStatus.RELEASED);
+        t.setSourceCurrency("EUR");
+        t.setDestinationCurrency("USD");
+        User sender = new User();
+        sender.setId(100L);
+        User receiver = new User();
+        receiver.setId(200L);
+        Fund fund = new Fund();
+        fund.setId(7L);
+        t.setSender(sender);
+        t.setReceiver(receiver);
+        t.setFund(fund);
+        t.setSenderBranch(branch(senderBranchId));
+        t.setReceiverBranch(branch(receiverBranchId));
+        return t;
+    }
+
+    private Branch branch(Long id) {
+        if (id == null) {
+            return null;
+        }
+        Branch branch = new Branch();
+        branch.setId(id);
+        return branch;
+    }
+}
@@ -0,0 +1,76 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.exception.ResourceNotFoundException;
+import com.mycompany.transfersystem.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+public class CurrentUserProviderTest {
+
+    private UserRepository userRepository;
+    private CurrentUserProvider currentUserProvider;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        currentUserProvider = new CurrentUserProvider(userRepository);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void testTokenPrincipalNeedsNoLookup() {
+        AuthenticatedUser principal = new AuthenticatedUser(5L, "teller", UserRole.CASHIER, 2L, 0, null);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.authorities()));
+
+        assertThat(currentUserProvider.requireId()).isEqualTo(5L);
+        assertThat(currentUserProvider.require().branchId()).isEqualTo(2L);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void testOtherAuthenticationIsResolvedOncePerRequest() {
+        User user = new User();
+        user.setId(9L);
+        user.setUsername("admin");
+        user.setRole(UserRole.SUPER_ADMIN);
+        when(userRepository.findByUsername("admin")).thenReturn(Optional.of(user));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("admin", null, List.of()));
+
+        assertThat(currentUserProvider.requireId()).isEqualTo(9L);
+        assertThat(currentUserProvider.require().role()).isEqualTo(UserRole.SUPER_ADMIN);
+        verify(userRepository, times(1)).findByUsername("admin");
+    }
+
+    @Test
+    void testAnonymousRequestHasNoUser() {
+        assertThat(currentUserProvider.current()).isEmpty();
+        assertThrows(ResourceNotFoundException.class, () -> currentUserProvider.require());
+    }
+}
@@ -0,0 +1,90 @@
+package com.mycompany.transfersystem.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private final AtomicBoolean replicaAvailable = new AtomicBoolean(true);
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @BeforeEach
+    void setUp() {
+        DataSource primary = database("routing_primary", "primary");
+        DataSource replica = database("routing_replica", "replica");
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, replica, replicaAvailable::get));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    void testReadOnlyTransactionsUseReplica() {
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+        assertThat(inTransaction(readWrite)).isEqualTo("primary");
+        // Outside a transaction nothing is known about intent, so stay on the primary
+        assertThat(whichDatabase()).isEqualTo("primary");
+    }
+
+    @Test
+    void testLaggingReplicaFallsBackToPrimary() {
+        replicaAvailable.set(false);
+        assertThat(inTransaction(readOnly)).isEqualTo("primary");
+
+        replicaAvailable.set(true);
+        assertThat(inTransaction(readOnly)).isEqualTo("replica");
+    }
+
+    @Test
+    void testLagMonitorTreatsMissingLagAsInSync() {
+        DataSource replica = database("routing_lag", "replica");
+        new JdbcTemplate(replica).execute("CREATE TABLE IF NOT EXISTS lag (seconds DOUBLE)");
+        new JdbcTemplate(replica).update("DELETE FROM lag");
+
+        ReplicaLagMonitor monitor = new ReplicaLagMonitor(replica, "SELECT MAX(seconds) FROM lag", 5);
+        assertThat(monitor.getAsBoolean()).isFalse();
+        monitor.check();
+        assertThat(monitor.getAsBoolean()).isTrue();
+
+        new JdbcTemplate(replica).update("INSERT INTO lag VALUES (30)");
+        monitor.check();
+        assertThat(monitor.getAsBoolean()).isFalse();
+
+        ReplicaLagMonitor broken = new ReplicaLagMonitor(replica, "SELECT seconds FROM missing_table", 5);
+        broken.check();
+        assertThat(broken.getAsBoolean()).isFalse();
+    }
+
+    private String inTransaction(TransactionTemplate template) {
+        return template.execute(status -> whichDatabase());
+    }
+
+    private String whichDatabase() {
+        return jdbcTemplate.queryForObject("SELECT name FROM marker", String.class);
+    }
+
+    private static DataSource database(String name, String marker) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS marker (name VARCHAR(20))");
+        jdbc.update("DELETE FROM marker");
+        jdbc.update("INSERT INTO marker VALUES (?)", marker);
+        return dataSource;
+    }
+}
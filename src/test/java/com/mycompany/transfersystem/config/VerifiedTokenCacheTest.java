@@ -0,0 +1,74 @@
+package com.mycompany.transfersystem.config;
+
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VerifiedTokenCacheTest {
+
+    private JwtUtil jwtUtil;
+    private VerifiedTokenCache cache;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "a-test-signing-secret-of-at-least-32-bytes");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 60_000L);
+        jwtUtil.init();
+        cache = new VerifiedTokenCache(jwtUtil);
+    }
+
+    @Test
+    void testRepeatedTokenIsServedFromCache() {
+        String token = jwtUtil.generateToken(user(7L, "teller"));
+        long now = System.currentTimeMillis();
+
+        AuthenticatedUser first = cache.verify(token, now);
+        AuthenticatedUser second = cache.verify(token, now + 1000);
+
+        assertThat(first.id()).isEqualTo(7L);
+        assertThat(first.role()).isEqualTo(UserRole.CASHIER);
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 1L);
+    }
+
+    @Test
+    void testEntryNeverOutlivesTokenExpiry() {
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 3600L);
+        String token = jwtUtil.generateToken(user(7L, "teller"));
+        long now = System.currentTimeMillis();
+        cache.verify(token, now);
+        cache.verify(token, now + 30_000);
+
+        // Token expires after a minute: the hour-long TTL does not keep serving it
+        cache.verify(token, now + 120_000);
+        assertThat(cache.getStats()).containsEntry("hits", 1L).containsEntry("misses", 2L);
+    }
+
+    @Test
+    void testForgedTokenIsNotCachedAndSizeStaysBounded() {
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+        String token = jwtUtil.generateToken(user(7L, "teller"));
+        String forged = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+        assertThrows(JwtException.class, () -> cache.verify(forged));
+
+        for (long id = 1; id <= 50; id++) {
+            cache.verify(jwtUtil.generateToken(user(id, "user" + id)));
+        }
+        assertThat((Integer) cache.getStats().get("size")).isLessThanOrEqualTo(10);
+    }
+
+    private User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRole(UserRole.CASHIER);
+        return user;
+    }
+}
@@ -0,0 +1,104 @@
+package com.mycompany.transfersystem.repository;
+
+import com.mycompany.transfersystem.dto.TransactionResponse;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+public class TransactionRepositoryTest {
+
+    private static final int TRANSACTION_COUNT = 6;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private User alice;
+
+    @BeforeEach
+    void setUp() {
+        alice = user("alice");
+        // Distinct counterparties and funds so lazy loading would issue a select per row
+        for (int i = 0; i < TRANSACTION_COUNT; i++) {
+            Transaction transaction = new Transaction();
+            transaction.setSender(alice);
+            transaction.setReceiver(user("receiver" + i));
+            transaction.setFund(fund("Fund " + i));
+            transaction.setAmount(new BigDecimal(100 + i));
+            transaction.setStatus(TransactionStatus.COMPLETED);
+            entityManager.persist(transaction);
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void testListingIsASingleStatement() {
+        Statistics statistics = statistics();
+
+        List<TransactionResponse> responses = transactionRepository.findAllResponses();
+
+        assertThat(responses).hasSize(TRANSACTION_COUNT);
+        assertThat(responses.get(0).getSenderUsername()).isEqualTo("alice");
+        assertThat(responses.get(0).getReceiverUsername()).isEqualTo("receiver0");
+        assertThat(responses.get(0).getFundName()).isEqualTo("Fund 0");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void testListingByUserIsASingleStatement() {
+        Statistics statistics = statistics();
+
+        List<TransactionResponse> responses = transactionRepository.findResponsesByUserId(alice.getId());
+
+        assertThat(responses).hasSize(TRANSACTION_COUNT);
+        assertThat(responses).extracting(TransactionResponse::getFundName).doesNotContainNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRole(UserRole.BRANCH_MANAGER);
+        return entityManager.persist(user);
+    }
+
+    private Fund fund(String name) {
+        Fund fund = new Fund();
+        fund.setName(name);
+        fund.setBalance(new BigDecimal("1000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        return entityManager.persist(fund);
+    }
+}
@@ -0,0 +1,157 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.AuditVerificationResult;
+import com.mycompany.transfersystem.entity.AuditCheckpoint;
+import com.mycompany.transfersystem.entity.AuditLog;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.repository.AuditCheckpointRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class AuditChainServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuditCheckpointRepository auditCheckpointRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private AuditChainService auditChainService;
+    private User admin;
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        auditChainService = new AuditChainService(auditCheckpointRepository, jdbcTemplate, transactionManager);
+
+        admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword("admin123");
+        admin.setRole(UserRole.SUPER_ADMIN);
+        admin = entityManager.persistAndFlush(admin);
+
+        for (int i = 0; i < 5; i++) {
+            ids.add(log("UPDATE_FUND", (long) i));
+        }
+    }
+
+    @Test
+    void testSealedChainVerifies() {
+        int sealed = auditChainService.sealPending(LocalDateTime.now().plusMinutes(1));
+
+        assertThat(sealed).isEqualTo(5);
+        AuditCheckpoint checkpoint = auditChainService.getLatestCheckpoint().orElseThrow();
+        assertThat(checkpoint.getFirstLogId()).isEqualTo(ids.get(0));
+        assertThat(checkpoint.getLastLogId()).isEqualTo(ids.get(4));
+        assertThat(checkpoint.getRecordCount()).isEqualTo(5);
+
+        AuditVerificationResult result = auditChainService.verify(null, null);
+        assertThat(result.isValid()).isTrue();
+        assertThat(result.getRecordsChecked()).isEqualTo(5);
+        assertThat(result.getCheckpointsChecked()).isEqualTo(1);
+    }
+
+    @Test
+    void testLaterRecordsExtendTheChain() {
+        auditChainService.sealPending(LocalDateTime.now().plusMinutes(1));
+        Long later = log("LOGIN", 99L);
+
+        AuditVerificationResult beforeSealing = auditChainService.verify(null, null);
+        assertThat(beforeSealing.isValid()).isTrue();
+        assertThat(beforeSealing.getUnsealedRecords()).isEqualTo(1);
+
+        assertThat(auditChainService.sealPending(LocalDateTime.now().plusMinutes(1))).isEqualTo(1);
+        assertThat(auditChainService.verify(later, later).isValid()).isTrue();
+        assertThat(auditChainService.verify(null, null).getCheckpointsChecked()).isEqualTo(2);
+    }
+
+    @Test
+    void testEditedRecordIsDetected() {
+        auditChainService.sealPending(LocalDateTime.now().plusMinutes(1));
+        jdbcTemplate.update("UPDATE audit_logs SET action = 'DELETE_FUND' WHERE id = ?", ids.get(2));
+
+        AuditVerificationResult result = auditChainService.verify(null, null);
+
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getFirstInvalidId()).isEqualTo(ids.get(2));
+    }
+
+    @Test
+    void testDeletedRecordIsDetected() {
+        auditChainService.sealPending(LocalDateTime.now().plusMinutes(1));
+        jdbcTemplate.update("DELETE FROM audit_logs WHERE id = ?", ids.get(1));
+
+        AuditVerificationResult result = auditChainService.verify(ids.get(0), ids.get(4));
+
+        assertThat(result.isValid()).isFalse();
+        assertThat(result.getFirstInvalidId()).isEqualTo(ids.get(2));
+    }
+
+    @Test
+    void testRecordCommittedAfterTheChainPassedItIsSealedLate() {
+        // ids[2] has not committed yet when the chain seals past it
+        Map<String, Object> pending = jdbcTemplate.queryForMap(
+                "SELECT id, action, user_id, entity, entity_id, created_at FROM audit_logs WHERE id = ?", ids.get(2));
+        jdbcTemplate.update("DELETE FROM audit_logs WHERE id = ?", ids.get(2));
+        assertThat(auditChainService.sealPending(LocalDateTime.now().plusMinutes(1))).isEqualTo(4);
+
+        jdbcTemplate.update("INSERT INTO audit_logs (id, action, user_id, entity, entity_id, created_at) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)", pending.get("ID"), pending.get("ACTION"), pending.get("USER_ID"),
+                pending.get("ENTITY"), pending.get("ENTITY_ID"), pending.get("CREATED_AT"));
+        AuditVerificationResult beforeSealing = auditChainService.verify(null, null);
+        assertThat(beforeSealing.isValid()).isTrue();
+        assertThat(beforeSealing.getUnsealedRecords()).isEqualTo(1);
+
+        assertThat(auditChainService.sealPending(LocalDateTime.now().plusMinutes(1))).isEqualTo(1);
+        AuditVerificationResult afterSealing = auditChainService.verify(null, null);
+        assertThat(afterSealing.isValid()).isTrue();
+        assertThat(afterSealing.getUnsealedRecords()).isZero();
+        assertThat(afterSealing.getRecordsChecked()).isEqualTo(5);
+        assertThat(afterSealing.getCheckpointsChecked()).isEqualTo(2);
+        assertThat(auditChainService.getLatestCheckpoint().orElseThrow().getLastLogId()).isEqualTo(ids.get(4));
+
+        jdbcTemplate.update("UPDATE audit_logs SET action = 'DELETE_FUND' WHERE id = ?", ids.get(2));
+        AuditVerificationResult tampered = auditChainService.verify(null, null);
+        assertThat(tampered.isValid()).isFalse();
+        assertThat(tampered.getFirstInvalidId()).isEqualTo(ids.get(2));
+    }
+
+    @Test
+    void testRecordsInsideGraceWindowAreNotSealed() {
+        int sealed = auditChainService.sealPending(LocalDateTime.now().minusMinutes(1));
+
+        assertThat(sealed).isZero();
+        assertThat(auditChainService.getLatestCheckpoint()).isEmpty();
+    }
+
+    private Long log(String action, Long entityId) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setAction(action);
+        auditLog.setUser(admin);
+        auditLog.setEntity("Fund");
+        auditLog.setEntityId(entityId);
+        return entityManager.persistAndFlush(auditLog).getId();
+    }
+}
@@ -0,0 +1,134 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.AuditLogPage;
+import com.mycompany.transfersystem.dto.AuditLogResponse;
+import com.mycompany.transfersystem.dto.AuditLogSearchRequest;
+import com.mycompany.transfersystem.entity.AuditLog;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.AuditCategory;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.repository.AuditLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class AuditLogQueryServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private AuditLogRepository auditLogRepository;
+
+    private AuditLogQueryService auditLogQueryService;
+    private User admin;
+    private User manager;
+
+    @BeforeEach
+    void setUp() {
+        auditLogQueryService = new AuditLogQueryService(auditLogRepository);
+
+        admin = new User();
+        admin.setUsername("admin");
+        admin.setPassword("admin123");
+        admin.setRole(UserRole.SUPER_ADMIN);
+        admin = entityManager.persistAndFlush(admin);
+
+        manager = new User();
+        manager.setUsername("manager");
+        manager.setPassword("manager123");
+        manager.setRole(UserRole.BRANCH_MANAGER);
+        manager = entityManager.persistAndFlush(manager);
+
+        log("FEE_UPDATE", admin, "CommissionRate", 1L);
+        log("fee modification", manager, "CommissionRate", 2L);
+        log("EXECUTE_TRANSFER", manager, "Transaction", 10L);
+        log("CREATE_FUND", admin, "Fund", 3L);
+        log("LOGIN", admin, "User", admin.getId());
+        entityManager.clear();
+    }
+
+    @Test
+    void testActionIsNormalizedAndCategorizedOnWrite() {
+        List<AuditLog> logs = auditLogRepository.findAll();
+
+        AuditLog modification = logs.stream().filter(l -> l.getEntityId() == 2L).findFirst().orElseThrow();
+        assertThat(modification.getActionCode()).isEqualTo("FEE_MODIFICATION");
+        assertThat(modification.getCategory()).isEqualTo(AuditCategory.FEE);
+        assertThat(auditLogRepository.findByCategoryWithUser(AuditCategory.FEE)).hasSize(2);
+    }
+
+    @Test
+    void testKeysetPagingVisitsEveryRowOnceNewestFirst() {
+        AuditLogSearchRequest filters = new AuditLogSearchRequest();
+        filters.setSize(2);
+
+        List<AuditLogResponse> seen = new ArrayList<>();
+        int pages = 0;
+        do {
+            AuditLogPage page = auditLogQueryService.search(filters);
+            seen.addAll(page.getItems());
+            filters.setCursor(page.getNextCursor());
+            pages++;
+        } while (filters.getCursor() != null);
+
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(5);
+        assertThat(seen).extracting(AuditLogResponse::getId).doesNotHaveDuplicates();
+        for (int i = 1; i < seen.size(); i++) {
+            AuditLogResponse previous = seen.get(i - 1);
+            AuditLogResponse current = seen.get(i);
+            assertThat(!current.getCreatedAt().isAfter(previous.getCreatedAt())).isTrue();
+        }
+    }
+
+    @Test
+    void testFiltersCombine() {
+        AuditLogSearchRequest byAction = new AuditLogSearchRequest();
+        byAction.setAction("Fee Modification");
+        assertThat(auditLogQueryService.search(byAction).getItems())
+                .extracting(AuditLogResponse::getEntityId).containsExactly(2L);
+
+        AuditLogSearchRequest byCategoryAndUser = new AuditLogSearchRequest();
+        byCategoryAndUser.setCategory(AuditCategory.FEE);
+        byCategoryAndUser.setUserId(admin.getId());
+        List<AuditLogResponse> adminFees = auditLogQueryService.search(byCategoryAndUser).getItems();
+        assertThat(adminFees).hasSize(1);
+        assertThat(adminFees.get(0).getUsername()).isEqualTo("admin");
+
+        AuditLogSearchRequest byEntity = new AuditLogSearchRequest();
+        byEntity.setEntity("Transaction");
+        byEntity.setEntityId(10L);
+        AuditLogPage page = auditLogQueryService.search(byEntity);
+        assertThat(page.getItems()).extracting(AuditLogResponse::getAction).containsExactly("EXECUTE_TRANSFER");
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void testInvalidCursorIsRejected() {
+        AuditLogSearchRequest filters = new AuditLogSearchRequest();
+        filters.setCursor("not-a-cursor");
+
+        assertThrows(IllegalArgumentException.class, () -> auditLogQueryService.search(filters));
+    }
+
+    private void log(String action, User user, String entity, Long entityId) {
+        AuditLog auditLog = new AuditLog();
+        auditLog.setAction(action);
+        auditLog.setUser(user);
+        auditLog.setEntity(entity);
+        auditLog.setEntityId(entityId);
+        entityManager.persistAndFlush(auditLog);
+    }
+}
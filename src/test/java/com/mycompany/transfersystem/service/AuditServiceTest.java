@@ -7,12 +7,15 @@ import com.mycompany.transfersystem.entity.enums.UserRole;
 import com.mycompany.transfersystem.repository.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -44,7 +47,15 @@ public class AuditServiceTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlatformFeeTotalsRepository platformFeeTotalsRepository;
+
+    @TempDir
+    Path archiveDirectory;
+
     private AuditService auditService;
+    private TransactionArchiveService transactionArchiveService;
+    private Fund generalFund;
     private Branch mainAdminBranch;
     private Branch branchA;
     private Branch branchB;
@@ -54,12 +65,17 @@ public class AuditServiceTest {
 
     @BeforeEach
     void setUp() {
+        transactionArchiveService = new TransactionArchiveService(transactionRepository);
         auditService = new AuditService(
             transactionRepository,
             fundRepository,
             branchRepository,
             commissionRateRepository,
-            auditLogRepository
+            auditLogRepository,
+            platformFeeTotalsRepository,
+            transactionArchiveService,
+            new BranchPositionService(fundRepository, branchRepository),
+            userRepository
         );
 
         // Create test data
@@ -102,18 +118,21 @@ public class AuditServiceTest {
         // Create funds
         Fund platformFund = new Fund();
         platformFund.setName("Platform Fund");
+        platformFund.setBranch(mainAdminBranch);
         platformFund.setBalance(new BigDecimal("1000000.00"));
         platformFund.setStatus(FundStatus.ACTIVE);
         entityManager.persistAndFlush(platformFund);
 
         Fund branchAFund = new Fund();
         branchAFund.setName("BRANCH_A Fund");
+        branchAFund.setBranch(branchA);
         branchAFund.setBalance(new BigDecimal("1000000.00"));
         branchAFund.setStatus(FundStatus.ACTIVE);
         entityManager.persistAndFlush(branchAFund);
 
         Fund branchBFund = new Fund();
         branchBFund.setName("BRANCH_B Fund");
+        branchBFund.setBranch(branchB);
         branchBFund.setBalance(new BigDecimal("1000000.00"));
         branchBFund.setStatus(FundStatus.ACTIVE);
         entityManager.persistAndFlush(branchBFund);
@@ -132,7 +151,7 @@ public class AuditServiceTest {
         entityManager.persistAndFlush(branchASendingFee);
 
         // Create sample transactions with proper relationships
-        Fund generalFund = new Fund();
+        generalFund = new Fund();
         generalFund.setName("General Fund");
         generalFund.setBalance(new BigDecimal("100000.00"));
         generalFund.setStatus(FundStatus.ACTIVE);
@@ -144,6 +163,8 @@ public class AuditServiceTest {
         transaction1.setSender(superAdmin);
         transaction1.setReceiver(branchManagerA);
         transaction1.setFund(generalFund);
+        transaction1.setSenderBranch(branchA);
+        transaction1.setReceiverBranch(branchB);
         entityManager.persistAndFlush(transaction1);
 
         Transaction transaction2 = new Transaction();
@@ -152,6 +173,8 @@ public class AuditServiceTest {
         transaction2.setSender(branchManagerA);
         transaction2.setReceiver(auditor);
         transaction2.setFund(generalFund);
+        transaction2.setSenderBranch(branchB);
+        transaction2.setReceiverBranch(branchA);
         entityManager.persistAndFlush(transaction2);
 
         // Create audit logs
@@ -170,6 +193,13 @@ public class AuditServiceTest {
         auditLog2.setEntityId(2L);
         auditLog2.setCreatedAt(LocalDateTime.now().minusHours(1));
         entityManager.persistAndFlush(auditLog2);
+
+        // Platform fee counters as maintained by executeTransfer
+        PlatformFeeTotals feeTotals = new PlatformFeeTotals(PlatformFeeTotals.PLATFORM_ID);
+        feeTotals.setTotalBaseFees(new BigDecimal("600.00"));
+        feeTotals.setTotalExchangeProfit(new BigDecimal("400.00"));
+        feeTotals.setTransactionCount(2);
+        entityManager.persistAndFlush(feeTotals);
     }
 
     @Test
@@ -203,6 +233,62 @@ public class AuditServiceTest {
         assertThat(transactions.getTotalElements()).isEqualTo(2);
     }
 
+    @Test
+    void testSearchTransactionsByReceiverBranch() {
+        com.mycompany.transfersystem.dto.TransactionSearchRequest filters =
+            new com.mycompany.transfersystem.dto.TransactionSearchRequest();
+        filters.setReceiverBranchId(branchA.getId());
+        filters.setStatus(com.mycompany.transfersystem.entity.enums.TransactionStatus.COMPLETED);
+
+        org.springframework.data.domain.Page<Transaction> transactions =
+            auditService.searchTransactions(filters);
+
+        assertThat(transactions.getTotalElements()).isEqualTo(1);
+        assertThat(transactions.getContent().get(0).getAmount()).isEqualByComparingTo("2000.00");
+    }
+
+    @Test
+    void testSearchMergesArchivedTransactionsInRequestedOrder() throws Exception {
+        ReflectionTestUtils.setField(transactionArchiveService, "enabled", true);
+        ReflectionTestUtils.setField(transactionArchiveService, "directory", archiveDirectory.toString());
+        ReflectionTestUtils.setField(transactionArchiveService, "releasedAfterDays", 90);
+        ReflectionTestUtils.setField(transactionArchiveService, "segmentSize", 10);
+        LocalDateTime archivedAt = LocalDateTime.now().minusDays(100);
+        releasedTransaction("1500.00", archivedAt);
+        releasedTransaction("500.00", archivedAt.plusHours(1));
+        transactionArchiveService.archiveReleasedTransactions();
+        entityManager.clear();
+
+        com.mycompany.transfersystem.dto.TransactionSearchRequest filters =
+            new com.mycompany.transfersystem.dto.TransactionSearchRequest();
+        filters.setSortBy("amount");
+        filters.setSortDirection("ASC");
+        filters.setSize(2);
+        // Without a start date reaching back into the archive only hot rows are searched
+        assertThat(auditService.searchTransactions(filters).getTotalElements()).isEqualTo(2);
+
+        filters.setStartDate(archivedAt.minusDays(1));
+        org.springframework.data.domain.Page<Transaction> first = auditService.searchTransactions(filters);
+        filters.setPage(1);
+        org.springframework.data.domain.Page<Transaction> second = auditService.searchTransactions(filters);
+
+        assertThat(first.getTotalElements()).isEqualTo(4);
+        assertThat(first.getContent()).extracting(Transaction::getAmount)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(new BigDecimal("500.00"), new BigDecimal("1000.00"));
+        assertThat(second.getContent()).extracting(Transaction::getAmount)
+            .usingElementComparator(BigDecimal::compareTo)
+            .containsExactly(new BigDecimal("1500.00"), new BigDecimal("2000.00"));
+    }
+
+    @Test
+    void testGetBranchTransactionReportExcludesOtherBranches() {
+        Map<String, Object> report = auditService.getBranchTransactionReport(mainAdminBranch.getId(), 30);
+
+        assertThat(report.get("totalTransactions")).isEqualTo(0);
+        assertThat(report.get("totalVolume")).isEqualTo(BigDecimal.ZERO);
+    }
+
     @Test
     void testGetFeeModificationHistory() {
         // Test fee modification history
@@ -228,6 +314,21 @@ public class AuditServiceTest {
         assertThat(summary.get("currentBalance")).isEqualTo(new BigDecimal("1000000.00"));
         assertThat(summary.get("fundStatus")).isEqualTo(FundStatus.ACTIVE);
         assertThat(summary.get("totalFeesCollected")).isEqualTo(new BigDecimal("1000.00"));
+        assertThat(summary.get("totalPlatformBaseFees")).isEqualTo(new BigDecimal("600.00"));
+        assertThat(summary.get("totalExchangeProfit")).isEqualTo(new BigDecimal("400.00"));
+        assertThat(summary.get("feeTransactionCount")).isEqualTo(2L);
+    }
+
+    @Test
+    void testPlatformFeeTotalsIncrement() {
+        int updated = platformFeeTotalsRepository.increment(PlatformFeeTotals.PLATFORM_ID,
+                new BigDecimal("1.50"), new BigDecimal("1.50"), LocalDateTime.now());
+        entityManager.clear();
+
+        assertThat(updated).isEqualTo(1);
+        Map<String, Object> summary = auditService.getPlatformSummary();
+        assertThat(summary.get("totalFeesCollected")).isEqualTo(new BigDecimal("1003.00"));
+        assertThat(summary.get("feeTransactionCount")).isEqualTo(3L);
     }
 
     @Test
@@ -282,4 +383,39 @@ public class AuditServiceTest {
         assertThat(newLog.getEntity()).isEqualTo("TestEntity");
         assertThat(newLog.getEntityId()).isEqualTo(123L);
     }
+
+    @Test
+    void testLogAuditEventByUserId() {
+        entityManager.clear();
+        auditService.log("TEST_ACTION_BY_ID", superAdmin.getId(), "TestEntity", 456L);
+        entityManager.flush();
+        entityManager.clear();
+
+        AuditLog newLog = auditLogRepository.findAll().stream()
+            .filter(log -> "TEST_ACTION_BY_ID".equals(log.getAction()))
+            .findFirst()
+            .orElse(null);
+
+        assertThat(newLog).isNotNull();
+        assertThat(newLog.getUser().getId()).isEqualTo(superAdmin.getId());
+        assertThat(newLog.getEntityId()).isEqualTo(456L);
+    }
+
+    private void releasedTransaction(String amount, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(amount));
+        transaction.setStatus(com.mycompany.transfersystem.entity.enums.TransactionStatus.RELEASED);
+        transaction.setSender(superAdmin);
+        transaction.setReceiver(auditor);
+        transaction.setFund(generalFund);
+        transaction.setSenderBranch(branchA);
+        transaction.setReceiverBranch(branchB);
+        transaction = entityManager.persistAndFlush(transaction);
+        // created_at is set on insert, so back-date it afterwards
+        entityManager.getEntityManager()
+            .createNativeQuery("UPDATE transactions SET created_at = ?1 WHERE id = ?2")
+            .setParameter(1, createdAt)
+            .setParameter(2, transaction.getId())
+            .executeUpdate();
+    }
 }
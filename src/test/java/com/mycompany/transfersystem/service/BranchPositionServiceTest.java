@@ -0,0 +1,172 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.BranchPosition;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.event.FundPosting;
+import com.mycompany.transfersystem.event.TransferCompletedEvent;
+import com.mycompany.transfersystem.repository.BranchRepository;
+import com.mycompany.transfersystem.repository.FundRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class BranchPositionServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FundRepository fundRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    private BranchPositionService branchPositionService;
+    private Branch branchA;
+    private Branch branchB;
+    private Fund branchAFund;
+
+    @BeforeEach
+    void setUp() {
+        branchPositionService = new BranchPositionService(fundRepository, branchRepository);
+
+        branchA = new Branch();
+        branchA.setName("BRANCH_A");
+        branchA = entityManager.persistAndFlush(branchA);
+
+        branchB = new Branch();
+        branchB.setName("BRANCH_B");
+        branchB = entityManager.persistAndFlush(branchB);
+
+        branchAFund = new Fund();
+        branchAFund.setName("Branch A Settlement");
+        branchAFund.setBranch(branchA);
+        branchAFund.setBalance(new BigDecimal("1000.00"));
+        branchAFund.setStatus(FundStatus.ACTIVE);
+        branchAFund = entityManager.persistAndFlush(branchAFund);
+
+        // Not linked yet, only follows the old naming convention
+        Fund legacyFund = new Fund();
+        legacyFund.setName("BRANCH_B Fund");
+        legacyFund.setBalance(new BigDecimal("-50.00"));
+        legacyFund.setStatus(FundStatus.ACTIVE);
+        entityManager.persistAndFlush(legacyFund);
+    }
+
+    @Test
+    void testPositionLoadsFromLinkedOrLegacyFund() {
+        BranchPosition positionA = branchPositionService.getPosition(branchA.getId());
+        assertThat(positionA.getFundId()).isEqualTo(branchAFund.getId());
+        assertThat(positionA.getStatus().get("fundName")).isEqualTo("Branch A Settlement");
+        assertThat(positionA.getStatus().get("netPosition")).isEqualTo("CREDIT");
+
+        BranchPosition positionB = branchPositionService.getPosition(branchB.getId());
+        assertThat(positionB.getStatus().get("fundName")).isEqualTo("BRANCH_B Fund");
+        assertThat(positionB.getStatus().get("netPosition")).isEqualTo("DEBT");
+        assertThat(positionB.getStatus().get("netAmount")).isEqualTo(new BigDecimal("50.00"));
+
+        assertThrows(RuntimeException.class, () -> branchPositionService.getPosition(-1L));
+    }
+
+    @Test
+    void testPostingsUpdateCachedPositionWithoutReload() {
+        branchPositionService.getPosition(branchA.getId());
+
+        // Change the row behind the cache's back; only postings should move the cached balance
+        branchAFund.setBalance(new BigDecimal("9999.00"));
+        entityManager.persistAndFlush(branchAFund);
+
+        branchPositionService.onTransferCompleted(event(
+                new FundPosting(branchAFund.getId(), branchA.getId(), "USD", new BigDecimal("-1200.00")),
+                // Other-currency bucket of the same fund: not part of the position
+                new FundPosting(branchAFund.getId(), branchA.getId(), "EUR", new BigDecimal("-5.00"))));
+        commit();
+
+        BranchPosition position = branchPositionService.getPosition(branchA.getId());
+        assertThat(position.getBalance()).isEqualByComparingTo("-200.00");
+        assertThat(position.getStatus().get("netPosition")).isEqualTo("DEBT");
+
+        branchPositionService.evict(branchA.getId());
+        assertThat(branchPositionService.getPosition(branchA.getId()).getBalance()).isEqualByComparingTo("9999.00");
+    }
+
+    @Test
+    void testRefreshPicksUpChangesMadeElsewhere() {
+        branchPositionService.getPosition(branchA.getId());
+        branchPositionService.getPosition(branchB.getId());
+
+        // Posted by another instance, or committed while the position was being loaded
+        branchAFund.setBalance(new BigDecimal("750.00"));
+        entityManager.persistAndFlush(branchAFund);
+
+        assertThat(branchPositionService.refresh()).isEqualTo(1);
+        assertThat(branchPositionService.getPosition(branchA.getId()).getBalance()).isEqualByComparingTo("750.00");
+        assertThat(branchPositionService.refresh()).isZero();
+    }
+
+    @Test
+    void testPostingToDifferentFundInvalidatesPosition() {
+        branchPositionService.getPosition(branchA.getId());
+
+        Fund otherFund = new Fund();
+        otherFund.setName("Branch A Reserve");
+        otherFund.setBalance(new BigDecimal("5.00"));
+        otherFund.setStatus(FundStatus.ACTIVE);
+        otherFund = entityManager.persistAndFlush(otherFund);
+
+        branchPositionService.onTransferCompleted(event(
+                new FundPosting(otherFund.getId(), branchA.getId(), "USD", new BigDecimal("1.00"))));
+        commit();
+
+        // Reloaded from the database rather than applying the foreign posting
+        assertThat(branchPositionService.getPosition(branchA.getId()).getBalance()).isEqualByComparingTo("1000.00");
+    }
+
+    @Test
+    void testLoadBetweenCommitAndPostingDoesNotCountItTwice() {
+        branchPositionService.getPosition(branchA.getId());
+
+        // The transfer has committed its balance but its postings have not been applied yet
+        branchPositionService.onTransferCompleted(event(
+                new FundPosting(branchAFund.getId(), branchA.getId(), "USD", new BigDecimal("-200.00"))));
+        branchAFund.setBalance(new BigDecimal("800.00"));
+        entityManager.persistAndFlush(branchAFund);
+
+        assertThat(branchPositionService.refresh()).isZero();
+        branchPositionService.evict(branchA.getId());
+        assertThat(branchPositionService.getPosition(branchA.getId()).getBalance()).isEqualByComparingTo("800.00");
+        commit();
+
+        // The in-flight load was not cached, so the posting is not added on top of it
+        assertThat(branchPositionService.getPosition(branchA.getId()).getBalance()).isEqualByComparingTo("800.00");
+        assertThat(branchPositionService.refresh()).isZero();
+    }
+
+    // Runs the position postings registered with the test transaction as if it had committed
+    private void commit() {
+        TransactionSynchronizationManager.getSynchronizations().stream()
+                .filter(BranchPositionService.PostingSynchronization.class::isInstance)
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+
+    private TransferCompletedEvent event(FundPosting... postings) {
+        return new TransferCompletedEvent(1L, 1L, 2L, branchA.getId(), branchB.getId(), "USD", "USD",
+                BigDecimal.TEN, BigDecimal.TEN, LocalDateTime.now(), List.of(postings));
+    }
+}
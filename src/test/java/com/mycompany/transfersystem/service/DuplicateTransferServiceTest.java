@@ -0,0 +1,136 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.TransferTransactionRequest;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.exception.DuplicateTransferException;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.RotatingBloomFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class DuplicateTransferServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private DuplicateTransferService duplicateTransferService;
+    private User sender;
+    private User receiver;
+    private Transaction original;
+
+    @BeforeEach
+    void setUp() {
+        duplicateTransferService = new DuplicateTransferService(transactionRepository);
+
+        sender = user("sender");
+        receiver = user("receiver");
+        Fund fund = new Fund();
+        fund.setName("General Fund");
+        fund.setBalance(new BigDecimal("1000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+
+        original = new Transaction();
+        original.setSender(sender);
+        original.setReceiver(receiver);
+        original.setFund(fund);
+        original.setAmount(new BigDecimal("250.00"));
+        original.setSourceCurrency("TL");
+        original.setDestinationCurrency("USD");
+        original.setStatus(TransactionStatus.COMPLETED);
+        original = entityManager.persistAndFlush(original);
+    }
+
+    @Test
+    void testRepeatedTransferIsFlaggedOrBlocked() {
+        duplicateTransferService.rebuild();
+
+        // Same transfer written differently is still the same fingerprint
+        assertThat(duplicateTransferService.check(request("250", "tl"))).isEqualTo(original.getId());
+        assertThat(duplicateTransferService.check(request("250.01", "TL"))).isNull();
+        assertThat(duplicateTransferService.check(request("250.00", "EUR"))).isNull();
+
+        ReflectionTestUtils.setField(duplicateTransferService, "mode", DuplicateTransferService.Mode.BLOCK);
+        DuplicateTransferException e = assertThrows(DuplicateTransferException.class,
+                () -> duplicateTransferService.check(request("250.00", "TL")));
+        assertThat(e.getDuplicateOfId()).isEqualTo(original.getId());
+
+        TransferTransactionRequest confirmed = request("250.00", "TL");
+        confirmed.setAllowDuplicate(true);
+        assertThat(duplicateTransferService.check(confirmed)).isEqualTo(original.getId());
+    }
+
+    @Test
+    void testFilterHitWithoutStoredTransferIsNotADuplicate() {
+        ReflectionTestUtils.setField(duplicateTransferService, "mode", DuplicateTransferService.Mode.BLOCK);
+        duplicateTransferService.rebuild();
+
+        // Second attempt hits the filter, but the first never became a transaction
+        assertThat(duplicateTransferService.check(request("99.00", "TL"))).isNull();
+        assertThat(duplicateTransferService.check(request("99.00", "TL"))).isNull();
+    }
+
+    @Test
+    void testFilterForgetsAfterWindowAndStaysNearTargetErrorRate() {
+        long window = 10 * 60_000L;
+        RotatingBloomFilter filter = new RotatingBloomFilter(window, 5, 50_000, 0.001);
+        long start = 1_700_000_000_000L;
+        for (long i = 0; i < 50_000; i++) {
+            filter.put(RotatingBloomFilter.mix(0L, i), start + i * (window / 50_000));
+        }
+        long now = start + window;
+        assertThat(filter.mightContain(RotatingBloomFilter.mix(0L, 49_999), now)).isTrue();
+
+        int falsePositives = 0;
+        for (long i = 1_000_000; i < 1_200_000; i++) {
+            if (filter.mightContain(RotatingBloomFilter.mix(0L, i), now)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives / 200_000.0).isLessThan(0.002);
+
+        // Two generations past the window nothing from the first generation is left
+        assertThat(filter.mightContain(RotatingBloomFilter.mix(0L, 0), start)).isTrue();
+        filter.put(42L, now + window / 5);
+        filter.put(43L, now + 2 * window / 5);
+        assertThat(filter.mightContain(RotatingBloomFilter.mix(0L, 0), now + 2 * window / 5)).isFalse();
+    }
+
+    private TransferTransactionRequest request(String amount, String sourceCurrency) {
+        TransferTransactionRequest request = new TransferTransactionRequest();
+        request.setSenderId(sender.getId());
+        request.setReceiverId(receiver.getId());
+        request.setAmount(new BigDecimal(amount));
+        request.setSourceCurrency(sourceCurrency);
+        request.setDestinationCurrency("USD");
+        return request;
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRole(UserRole.CASHIER);
+        return entityManager.persistAndFlush(user);
+    }
+}
@@ -0,0 +1,181 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.FundBalance;
+import com.mycompany.transfersystem.entity.FundValuation;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.repository.FundBalanceRepository;
+import com.mycompany.transfersystem.repository.FundRepository;
+import com.mycompany.transfersystem.repository.FundValuationRepository;
+import com.mycompany.transfersystem.util.CurrencyWallet;
+import com.mycompany.transfersystem.util.RateSnapshot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Partitions run on their own threads and transactions, so the data has to be committed
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class FundRevaluationServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private FundRepository fundRepository;
+
+    @Autowired
+    private FundBalanceRepository fundBalanceRepository;
+
+    @Autowired
+    private FundValuationRepository fundValuationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+    private FundRevaluationService fundRevaluationService;
+
+    @BeforeEach
+    void setUp() {
+        fundRevaluationService = new FundRevaluationService(jdbcTemplate, exchangeRateService,
+                fundValuationRepository, transactionManager);
+        ReflectionTestUtils.setField(fundRevaluationService, "partitions", 3);
+        // Tiny chunks so funds straddle chunk boundaries
+        ReflectionTestUtils.setField(fundRevaluationService, "chunkSize", 2);
+        ReflectionTestUtils.setField(fundRevaluationService, "batchSize", 2);
+
+        when(exchangeRateService.getRate("TL", "USD")).thenReturn(new BigDecimal("0.02410000"));
+        when(exchangeRateService.getRate("EUR", "USD")).thenReturn(new BigDecimal("1.08000000"));
+        when(exchangeRateService.getRate("XAU", "USD")).thenThrow(new RuntimeException("no quote"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        fundValuationRepository.deleteAll();
+        fundBalanceRepository.deleteAll();
+        fundRepository.deleteAll();
+    }
+
+    @Test
+    void testRevaluesEveryFundAcrossPartitions() {
+        Fund istanbul = fund("Istanbul Till", "USD", "100.00");
+        balance(istanbul, "USD", "100.00");
+        balance(istanbul, "TL", "4145.00");
+        balance(istanbul, "EUR", "-10.00");
+        // No per-currency rows yet: valued from its base balance
+        Fund legacy = fund("Legacy Fund", "TL", "1000.00");
+        Fund gold = fund("Vault", "USD", "0.00");
+        balance(gold, "USD", "5.00");
+        balance(gold, "XAU", "2.00");
+        Fund empty = fund("Empty Fund", "EUR", "0.00");
+
+        Map<String, Object> summary = fundRevaluationService.revalueNow();
+
+        assertThat(summary.get("fundsValued")).isEqualTo(3L);
+        assertThat(summary.get("fundsUnpriced")).isEqualTo(1L);
+        assertThat(summary.get("balanceRows")).isEqualTo(7L);
+
+        Map<Long, BigDecimal> valuations = fundValuationRepository.findAll().stream()
+                .collect(Collectors.toMap(FundValuation::getFundId, FundValuation::getAmount));
+        // 100 + 4145 * 0.0241 - 10 * 1.08
+        assertThat(valuations.get(istanbul.getId())).isEqualByComparingTo("189.0945");
+        assertThat(valuations.get(legacy.getId())).isEqualByComparingTo("24.10");
+        assertThat(valuations.get(empty.getId())).isEqualByComparingTo("0");
+        // A fund holding a currency without a rate is not given a partial value
+        assertThat(valuations).doesNotContainKey(gold.getId());
+
+        // Rerunning replaces rather than duplicates the partition's rows
+        when(exchangeRateService.getRate("TL", "USD")).thenReturn(new BigDecimal("0.02500000"));
+        fundRevaluationService.revalueNow();
+        assertThat(fundValuationRepository.count()).isEqualTo(3);
+        assertThat(fundValuationRepository.findById(legacy.getId()).orElseThrow().getAmount())
+                .isEqualByComparingTo("25.00");
+    }
+
+    @Test
+    void testScheduledRefreshRevaluesWhenBalancesChangeAtSameRates() {
+        ReflectionTestUtils.setField(fundRevaluationService, "enabled", true);
+        Fund istanbul = fund("Istanbul Till", "USD", "100.00");
+        balance(istanbul, "USD", "100.00");
+        balance(istanbul, "TL", "4145.00");
+
+        fundRevaluationService.refreshRates();
+        Object firstRun = fundRevaluationService.getValuations().get("lastRun");
+        fundRevaluationService.refreshRates();
+        assertThat(fundRevaluationService.getValuations().get("lastRun")).isSameAs(firstRun);
+
+        jdbcTemplate.update("UPDATE fund_balances SET amount = amount + 1000, updated_at = ? " +
+                "WHERE fund_id = ? AND currency = 'TL'", LocalDateTime.now().plusSeconds(1), istanbul.getId());
+        fundRevaluationService.refreshRates();
+
+        assertThat(fundRevaluationService.getValuations().get("lastRun")).isNotSameAs(firstRun);
+        // 100 + 5145 * 0.0241
+        assertThat(fundValuationRepository.findById(istanbul.getId()).orElseThrow().getAmount())
+                .isEqualByComparingTo("223.9945");
+    }
+
+    @Test
+    void testSnapshotConvertsWithHalfUpRoundingAndWideProducts() {
+        RateSnapshot snapshot = RateSnapshot.of("USD", Map.of(
+                "TL", new BigDecimal("0.0241"),
+                "JPY", new BigDecimal("0.00666667")), LocalDateTime.now());
+        RateSnapshot sameRates = RateSnapshot.of("USD", Map.of(
+                "JPY", new BigDecimal("0.006666670"),
+                "TL", new BigDecimal("0.02410")), LocalDateTime.now().plusMinutes(5));
+        assertThat(snapshot.sameRates(sameRates)).isTrue();
+
+        int tl = CurrencyWallet.code("TL");
+        int jpy = CurrencyWallet.code("JPY");
+        int[] codes = {tl, tl, jpy, CurrencyWallet.code("USD"), CurrencyWallet.code("GBP")};
+        long[] units = {
+                CurrencyWallet.toUnits(new BigDecimal("1.0373")),
+                CurrencyWallet.toUnits(new BigDecimal("-1.0373")),
+                // units * rate overflows a long
+                CurrencyWallet.toUnits(new BigDecimal("900000000000000")),
+                CurrencyWallet.toUnits(new BigDecimal("12.3456")),
+                1L};
+        long[] out = new long[codes.length];
+
+        int unpriced = snapshot.convert(codes, units, out, codes.length);
+
+        assertThat(unpriced).isEqualTo(1);
+        // 1.0373 * 0.0241 = 0.02499893 -> 0.0250, symmetric for debits
+        assertThat(CurrencyWallet.fromUnits(out[0])).isEqualByComparingTo("0.0250");
+        assertThat(CurrencyWallet.fromUnits(out[1])).isEqualByComparingTo("-0.0250");
+        assertThat(CurrencyWallet.fromUnits(out[2])).isEqualByComparingTo("6000003000000.0000");
+        assertThat(CurrencyWallet.fromUnits(out[3])).isEqualByComparingTo("12.3456");
+        assertThat(out[4]).isEqualTo(Long.MIN_VALUE);
+    }
+
+    private Fund fund(String name, String currency, String balance) {
+        Fund fund = new Fund();
+        fund.setName(name);
+        fund.setCurrency(currency);
+        fund.setBalance(new BigDecimal(balance));
+        fund.setStatus(FundStatus.ACTIVE);
+        return fundRepository.save(fund);
+    }
+
+    private void balance(Fund fund, String currency, String amount) {
+        fundBalanceRepository.save(new FundBalance(fund.getId(), currency, new BigDecimal(amount)));
+    }
+}
@@ -0,0 +1,120 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.exception.InsufficientFundsException;
+import com.mycompany.transfersystem.repository.FundBalanceRepository;
+import com.mycompany.transfersystem.util.CurrencyWallet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class FundWalletServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private FundBalanceRepository fundBalanceRepository;
+
+    private final ExchangeRateService exchangeRateService = mock(ExchangeRateService.class);
+    private FundWalletService fundWalletService;
+    private Fund fund;
+
+    @BeforeEach
+    void setUp() {
+        fundWalletService = new FundWalletService(fundBalanceRepository, exchangeRateService);
+
+        fund = new Fund();
+        fund.setName("Istanbul Till");
+        fund.setBalance(new BigDecimal("500.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+    }
+
+    @Test
+    void testPostingsStayInTheirCurrencyBucket() {
+        fundWalletService.post(fund, "TL", new BigDecimal("3000.00"));
+        fundWalletService.debit(fund, "TL", new BigDecimal("1250.50"));
+        fundWalletService.debit(fund, "USD", new BigDecimal("12.25"));
+
+        CurrencyWallet wallet = fundWalletService.getWallet(fund);
+        assertThat(wallet.size()).isEqualTo(2);
+        assertThat(wallet.get("TL")).isEqualByComparingTo("1749.50");
+        assertThat(wallet.get("USD")).isEqualByComparingTo("487.75");
+        // Only the fund's own currency is mirrored on the single balance
+        assertThat(fund.getBalance()).isEqualByComparingTo("487.75");
+    }
+
+    @Test
+    void testDebitNeverOverdrawsBucket() {
+        fundWalletService.post(fund, "EUR", new BigDecimal("100.00"));
+
+        assertThrows(InsufficientFundsException.class,
+                () -> fundWalletService.debit(fund, "EUR", new BigDecimal("100.01")));
+        // USD holds 500 but cannot cover a principal in a currency the fund does not hold
+        assertThrows(InsufficientFundsException.class,
+                () -> fundWalletService.debit(fund, "GBP", new BigDecimal("1.00")));
+
+        fundWalletService.debit(fund, "EUR", new BigDecimal("100.00"));
+        assertThat(fundWalletService.getBalance(fund, "EUR")).isEqualByComparingTo("0");
+        assertThat(fund.getBalance()).isEqualByComparingTo("500.00");
+    }
+
+    @Test
+    void testSingleBalanceFollowsBucketNotStaleEntity() {
+        fundWalletService.post(fund, "USD", new BigDecimal("10.00"));
+        // Another transaction posts to the same bucket after this fund entity was loaded
+        fundBalanceRepository.adjust(fund.getId(), "USD", new BigDecimal("25.00"), LocalDateTime.now());
+
+        fundWalletService.post(fund, "USD", new BigDecimal("5.00"));
+
+        assertThat(fund.getBalance()).isEqualByComparingTo("540.00");
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(entityManager.find(Fund.class, fund.getId()).getBalance()).isEqualByComparingTo("540.00");
+        assertThat(fundWalletService.getBalance(fund, "USD")).isEqualByComparingTo("540.00");
+    }
+
+    @Test
+    void testRevaluationConvertsOnlyOnDemand() {
+        fundWalletService.post(fund, "EUR", new BigDecimal("200.00"));
+        when(exchangeRateService.getRate("EUR", "USD")).thenReturn(new BigDecimal("1.10"));
+        when(exchangeRateService.getRate("USD", "USD")).thenReturn(BigDecimal.ONE);
+
+        Map<String, Object> valuation = fundWalletService.revalue(fund, "usd");
+
+        assertThat((BigDecimal) valuation.get("total")).isEqualByComparingTo("720.00");
+        assertThat(valuation.get("currency")).isEqualTo("USD");
+    }
+
+    @Test
+    void testCurrencyCodesPackIntoPrimitiveKeys() {
+        assertThat(CurrencyWallet.currency(CurrencyWallet.code("tl"))).isEqualTo("TL");
+        assertThat(CurrencyWallet.code("USD")).isNotEqualTo(CurrencyWallet.code("EUR"));
+        assertThrows(IllegalArgumentException.class, () -> CurrencyWallet.code("DOLLAR"));
+
+        CurrencyWallet wallet = new CurrencyWallet(1);
+        String[] currencies = {"USD", "EUR", "TL", "GBP", "JPY", "CHF", "SAR", "AED", "IQD", "SYP"};
+        for (int i = 0; i < currencies.length; i++) {
+            wallet.add(currencies[i], new BigDecimal(i + 1));
+        }
+        assertThat(wallet.size()).isEqualTo(currencies.length);
+        assertThat(wallet.get("SYP")).isEqualByComparingTo("10");
+        assertThat(wallet.toMap().keySet()).startsWith("AED", "CHF");
+    }
+}
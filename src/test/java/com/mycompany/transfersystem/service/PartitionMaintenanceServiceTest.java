@@ -0,0 +1,40 @@
+package com.mycompany.transfersystem.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PartitionMaintenanceServiceTest {
+
+    @Test
+    void testCreatePartitionSqlUsesMonthBounds() {
+        String sql = PartitionMaintenanceService.createPartitionSql("transactions", YearMonth.of(2024, 12));
+
+        assertEquals("CREATE TABLE IF NOT EXISTS transactions_p202412 PARTITION OF transactions " +
+                "FOR VALUES FROM ('2024-12-01') TO ('2025-01-01')", sql);
+    }
+
+    @Test
+    void testPartitionsToDetachHonoursRetention() {
+        List<String> attached = List.of(
+                "audit_logs_p202301", "audit_logs_p202312", "audit_logs_p202401",
+                "audit_logs_p202406", "audit_logs_default", "transactions_p202201");
+
+        List<String> expired = PartitionMaintenanceService.partitionsToDetach(
+                "audit_logs", attached, YearMonth.of(2024, 6), 6);
+
+        assertEquals(List.of("audit_logs_p202301"), expired);
+    }
+
+    @Test
+    void testZeroRetentionKeepsEverything() {
+        List<String> expired = PartitionMaintenanceService.partitionsToDetach(
+                "transactions", List.of("transactions_p200001"), YearMonth.of(2024, 6), 0);
+
+        assertTrue(expired.isEmpty());
+    }
+}
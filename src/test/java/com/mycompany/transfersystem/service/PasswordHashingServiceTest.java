@@ -0,0 +1,78 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.exception.LoginBusyException;
+import com.mycompany.transfersystem.service.PasswordHashingService.PasswordCheck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PasswordHashingServiceTest {
+
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            ReflectionTestUtils.invokeMethod(service, "shutdown");
+        }
+    }
+
+    @Test
+    void testWeakHashIsUpgradedOnSuccessfulCheck() {
+        BCryptPasswordEncoder configured = new BCryptPasswordEncoder(5);
+        service = start(configured, 2, 16);
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+
+        PasswordCheck check = service.verify("secret", weak);
+        assertThat(check.matches()).isTrue();
+        assertThat(check.upgradedHash()).startsWith("$2a$05$");
+        assertThat(configured.matches("secret", check.upgradedHash())).isTrue();
+
+        // Already at the configured cost: nothing to upgrade
+        assertThat(service.verify("secret", check.upgradedHash()).upgradedHash()).isNull();
+        assertThat(service.verify("wrong", weak)).isEqualTo(new PasswordCheck(false, null));
+        assertThat(service.verify("secret", null).matches()).isFalse();
+    }
+
+    @Test
+    void testSaturatedPoolTurnsLoginsAway() {
+        BCryptPasswordEncoder slow = new BCryptPasswordEncoder(10);
+        service = start(slow, 1, 1);
+        String hash = slow.encode("secret");
+
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<PasswordCheck>> logins = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            logins.add(CompletableFuture.supplyAsync(() -> service.verify("secret", hash), clients));
+        }
+        long rejected = logins.stream().filter(login -> {
+            try {
+                login.join();
+                return false;
+            } catch (CompletionException e) {
+                return e.getCause() instanceof LoginBusyException;
+            }
+        }).count();
+        clients.shutdown();
+        assertThat(rejected).isPositive();
+    }
+
+    private static PasswordHashingService start(BCryptPasswordEncoder encoder, int threads, int queueCapacity) {
+        PasswordHashingService service = new PasswordHashingService(encoder);
+        ReflectionTestUtils.setField(service, "threads", threads);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+}
@@ -0,0 +1,147 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.PickupQueueEntry;
+import com.mycompany.transfersystem.dto.PickupQueuePage;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class PickupQueueServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private PickupQueueService pickupQueueService;
+    private Branch branchA;
+    private Branch branchB;
+    private User sender;
+    private User alice;
+    private User bob;
+    private Fund fund;
+
+    @BeforeEach
+    void setUp() {
+        pickupQueueService = new PickupQueueService(transactionRepository);
+        ReflectionTestUtils.setField(pickupQueueService, "loadBatchSize", 2);
+
+        branchA = branch("Branch A");
+        branchB = branch("Branch B");
+        sender = user("sender", null, branchA);
+        alice = user("alice", "+90555111", branchB);
+        bob = user("bob", "+90555222", branchB);
+        fund = new Fund();
+        fund.setName("General Fund");
+        fund.setBalance(new BigDecimal("1000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+    }
+
+    @Test
+    void testQueueListsOnlyTransfersAwaitingPickupPerBranch() {
+        Transaction first = transfer(alice, TransactionStatus.COMPLETED);
+        Transaction second = transfer(bob, TransactionStatus.COMPLETED);
+        Transaction third = transfer(alice, TransactionStatus.COMPLETED);
+        transfer(bob, TransactionStatus.RELEASED);
+        transfer(sender, TransactionStatus.COMPLETED);
+
+        for (boolean inMemory : new boolean[]{true, false}) {
+            ReflectionTestUtils.setField(pickupQueueService, "enabled", inMemory);
+            pickupQueueService.rebuild();
+
+            PickupQueuePage page = pickupQueueService.getQueue(branchB.getId(), null, 2);
+            assertThat(ids(page.getItems())).containsExactly(first.getId(), second.getId());
+            assertThat(page.getNextCursor()).isNotNull();
+
+            PickupQueuePage next = pickupQueueService.getQueue(branchB.getId(), page.getNextCursor(), 2);
+            assertThat(ids(next.getItems())).containsExactly(third.getId());
+            assertThat(next.getNextCursor()).isNull();
+
+            assertThat(ids(pickupQueueService.search(branchB.getId(), "ALI", 10)))
+                    .containsExactly(first.getId(), third.getId());
+            assertThat(ids(pickupQueueService.search(branchB.getId(), "+90555222", 10)))
+                    .containsExactly(second.getId());
+            assertThat(ids(pickupQueueService.search(branchB.getId(), "+90555", 2)))
+                    .containsExactly(first.getId(), second.getId());
+            assertThat(ids(pickupQueueService.search(branchB.getId(), "ALI", 1))).containsExactly(first.getId());
+            assertThat(pickupQueueService.search(branchA.getId(), "alice", 10)).isEmpty();
+        }
+    }
+
+    @Test
+    void testQueueFollowsTransfersAndReleasesOnCommit() {
+        Transaction waiting = transfer(alice, TransactionStatus.COMPLETED);
+        pickupQueueService.rebuild();
+
+        Transaction added = transfer(bob, TransactionStatus.COMPLETED);
+        pickupQueueService.transferCompleted(added);
+        pickupQueueService.transferClosed(branchB.getId(), waiting.getId());
+
+        // Nothing changes until the transaction commits
+        assertThat(ids(pickupQueueService.getQueue(branchB.getId(), null, 10).getItems()))
+                .containsExactly(waiting.getId());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(ids(pickupQueueService.getQueue(branchB.getId(), null, 10).getItems()))
+                .containsExactly(added.getId());
+        assertThat(ids(pickupQueueService.search(branchB.getId(), "bob", 10))).containsExactly(added.getId());
+        assertThat(pickupQueueService.search(branchB.getId(), "alice", 10)).isEmpty();
+        assertThat(pickupQueueService.getQueueSizes()).containsEntry(branchB.getId(), 1);
+    }
+
+    private static List<Long> ids(List<PickupQueueEntry> entries) {
+        return entries.stream().map(PickupQueueEntry::transactionId).toList();
+    }
+
+    private Transaction transfer(User receiver, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setFund(fund);
+        transaction.setSenderBranch(branchA);
+        transaction.setReceiverBranch(receiver.getBranch());
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setDestinationCurrency("USD");
+        transaction.setStatus(status);
+        return entityManager.persistAndFlush(transaction);
+    }
+
+    private Branch branch(String name) {
+        Branch branch = new Branch();
+        branch.setName(name);
+        return entityManager.persistAndFlush(branch);
+    }
+
+    private User user(String username, String phone, Branch branch) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRole(UserRole.CASHIER);
+        user.setPhone(phone);
+        user.setBranch(branch);
+        return entityManager.persistAndFlush(user);
+    }
+}
@@ -0,0 +1,81 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.AuthenticatedUser;
+import com.mycompany.transfersystem.config.RateLimitProperties;
+import com.mycompany.transfersystem.config.RateLimitProperties.EndpointClass;
+import com.mycompany.transfersystem.config.RateLimitProperties.Rate;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitServiceTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private RateLimitProperties properties;
+    private RateLimitService rateLimitService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new RateLimitProperties();
+        properties.setEnabled(true);
+        properties.getUser().getDefaults().put(EndpointClass.TRANSACTIONS, rate(60, 3));
+        Map<EndpointClass, Rate> cashier = new EnumMap<>(EndpointClass.class);
+        cashier.put(EndpointClass.TRANSACTIONS, rate(120, 5));
+        properties.getUser().getRoles().put(UserRole.CASHIER, cashier);
+        properties.getBranch().put(EndpointClass.TRANSACTIONS, rate(600, 6));
+        rateLimitService = new RateLimitService(properties);
+    }
+
+    @Test
+    void testBurstThenRefillAtConfiguredRate() {
+        AuthenticatedUser manager = user(1L, UserRole.BRANCH_MANAGER, null);
+        long now = 0;
+        for (int i = 0; i < 3; i++) {
+            assertThat(rateLimitService.acquire(manager, EndpointClass.TRANSACTIONS, now)).isZero();
+        }
+        // 60 per minute: one more token a second later
+        assertThat(rateLimitService.acquire(manager, EndpointClass.TRANSACTIONS, now)).isEqualTo(SECOND);
+        assertThat(rateLimitService.acquire(manager, EndpointClass.TRANSACTIONS, now + SECOND)).isZero();
+
+        // Other endpoint classes and other users have their own buckets
+        assertThat(rateLimitService.acquire(manager, EndpointClass.EXCHANGE_RATES, now)).isZero();
+        assertThat(rateLimitService.acquire(user(2L, UserRole.BRANCH_MANAGER, null),
+                EndpointClass.TRANSACTIONS, now)).isZero();
+    }
+
+    @Test
+    void testRoleLimitsAndSharedBranchBucket() {
+        AuthenticatedUser first = user(1L, UserRole.CASHIER, 10L);
+        AuthenticatedUser second = user(2L, UserRole.CASHIER, 10L);
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimitService.acquire(first, EndpointClass.TRANSACTIONS, 0)).isZero();
+        }
+        assertThat(rateLimitService.acquire(first, EndpointClass.TRANSACTIONS, 0)).isPositive();
+
+        // The branch allows 6 back to back, shared by its users
+        assertThat(rateLimitService.acquire(second, EndpointClass.TRANSACTIONS, 0)).isZero();
+        assertThat(rateLimitService.acquire(second, EndpointClass.TRANSACTIONS, 0)).isPositive();
+
+        // The branch refusal gave the user's token back
+        long branchRefill = SECOND / 10;
+        assertThat(rateLimitService.acquire(second, EndpointClass.TRANSACTIONS, branchRefill)).isZero();
+        assertThat(rateLimitService.acquire(user(3L, UserRole.CASHIER, 11L), EndpointClass.TRANSACTIONS, 0)).isZero();
+    }
+
+    private static Rate rate(int requestsPerMinute, int burst) {
+        Rate rate = new Rate();
+        rate.setRequestsPerMinute(requestsPerMinute);
+        rate.setBurst(burst);
+        return rate;
+    }
+
+    private static AuthenticatedUser user(Long id, UserRole role, Long branchId) {
+        return new AuthenticatedUser(id, "user" + id, role, branchId, 0, null);
+    }
+}
@@ -0,0 +1,125 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.AuthenticatedUser;
+import com.mycompany.transfersystem.config.JwtUtil;
+import com.mycompany.transfersystem.dto.LoginResponse;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.exception.InvalidRefreshTokenException;
+import com.mycompany.transfersystem.repository.RefreshTokenRepository;
+import com.mycompany.transfersystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class RefreshTokenServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JwtUtil jwtUtil;
+    private TokenRevocationIndex revocationIndex;
+    private RefreshTokenService refreshTokenService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "a-test-signing-secret-of-at-least-32-bytes");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 900_000L);
+        ReflectionTestUtils.invokeMethod(jwtUtil, "init");
+        revocationIndex = new TokenRevocationIndex(refreshTokenRepository);
+        revocationIndex.init();
+        refreshTokenService = new RefreshTokenService(refreshTokenRepository, jwtUtil,
+                new TokenVersionService(userRepository), revocationIndex);
+
+        user = new User();
+        user.setUsername("teller");
+        user.setPassword("secret");
+        user.setRole(UserRole.CASHIER);
+        user = entityManager.persistAndFlush(user);
+    }
+
+    @Test
+    void testRefreshRotatesTokenWithinSession() {
+        LoginResponse login = refreshTokenService.issue(user);
+        LoginResponse refreshed = refreshTokenService.refresh(login.getRefreshToken());
+
+        assertThat(refreshed.getRefreshToken()).isNotEqualTo(login.getRefreshToken());
+        AuthenticatedUser first = jwtUtil.toPrincipal(jwtUtil.parse(login.getToken()));
+        AuthenticatedUser second = jwtUtil.toPrincipal(jwtUtil.parse(refreshed.getToken()));
+        assertThat(second.id()).isEqualTo(user.getId());
+        assertThat(second.sessionId()).isNotNull().isEqualTo(first.sessionId());
+        assertThat(revocationIndex.isRevoked(second.sessionId())).isFalse();
+        // Only the hash is stored
+        assertThat(refreshTokenRepository.findAll())
+                .noneMatch(t -> t.getToken().equals(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    void testReusedTokenRevokesWholeSession() {
+        LoginResponse login = refreshTokenService.issue(user);
+        LoginResponse refreshed = refreshTokenService.refresh(login.getRefreshToken());
+        String sessionId = jwtUtil.toPrincipal(jwtUtil.parse(refreshed.getToken())).sessionId();
+
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+
+        assertThat(revocationIndex.isRevoked(sessionId)).isTrue();
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(refreshed.getRefreshToken()));
+
+        // Another login is unaffected
+        LoginResponse other = refreshTokenService.issue(user);
+        String otherSession = jwtUtil.toPrincipal(jwtUtil.parse(other.getToken())).sessionId();
+        assertThat(revocationIndex.isRevoked(otherSession)).isFalse();
+    }
+
+    @Test
+    void testLogoutRevokesSessionAndIsSyncedFromTable() {
+        LoginResponse login = refreshTokenService.issue(user);
+        String sessionId = jwtUtil.toPrincipal(jwtUtil.parse(login.getToken())).sessionId();
+        refreshTokenService.logout(login.getRefreshToken());
+        entityManager.flush();
+        entityManager.clear();
+
+        // A fresh index (another instance, or a restart) learns the revocation from refresh_tokens
+        TokenRevocationIndex restarted = new TokenRevocationIndex(refreshTokenRepository);
+        restarted.init();
+        restarted.load();
+        assertThat(restarted.isRevoked(sessionId)).isTrue();
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh("not-a-token"));
+    }
+
+    @Test
+    void testDeletedUsersSessionsStayRevokedForOtherInstances() {
+        LoginResponse login = refreshTokenService.issue(user);
+        String sessionId = jwtUtil.toPrincipal(jwtUtil.parse(login.getToken())).sessionId();
+        refreshTokenService.revokeForDeletedUser(user.getId());
+        entityManager.clear();
+        userRepository.deleteById(user.getId());
+        entityManager.flush();
+
+        TokenRevocationIndex otherInstance = new TokenRevocationIndex(refreshTokenRepository);
+        otherInstance.init();
+        otherInstance.load();
+        assertThat(otherInstance.isRevoked(sessionId)).isTrue();
+        assertThat(refreshTokenRepository.findAll()).singleElement()
+                .satisfies(token -> assertThat(token.getUser()).isNull());
+        assertThrows(InvalidRefreshTokenException.class, () -> refreshTokenService.refresh(login.getRefreshToken()));
+    }
+}
@@ -0,0 +1,210 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.BatchReleaseRequest;
+import com.mycompany.transfersystem.dto.BatchReleaseResult;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.exception.InvalidTransactionException;
+import com.mycompany.transfersystem.exception.PasscodeLockedException;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ReleasePasscodeServiceTest {
+
+    private static final Long RECEIVER_ID = 7L;
+
+    private TransactionRepository transactionRepository;
+    private ReleasePasscodeHasher hasher;
+    private NotificationService notificationService;
+    private ReleasePasscodeService releasePasscodeService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRepository = mock(TransactionRepository.class);
+        hasher = new ReleasePasscodeHasher("test-passcode-secret");
+        notificationService = mock(NotificationService.class);
+        releasePasscodeService = new ReleasePasscodeService();
+        ReflectionTestUtils.setField(releasePasscodeService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(releasePasscodeService, "notificationService", notificationService);
+        ReflectionTestUtils.setField(releasePasscodeService, "releasePasscodeHasher", hasher);
+        ReflectionTestUtils.setField(releasePasscodeService, "pickupQueueService", mock(PickupQueueService.class));
+        ReflectionTestUtils.setField(releasePasscodeService, "maxAttemptsPerTransaction", 3);
+        ReflectionTestUtils.setField(releasePasscodeService, "maxAttemptsPerTerminal", 5);
+        releasePasscodeService.init();
+        when(transactionRepository.findById(anyLong()))
+                .thenAnswer(invocation -> Optional.of(transaction(invocation.getArgument(0), "123456")));
+        when(transactionRepository.updateStatusIf(anyLong(), eq(TransactionStatus.COMPLETED), eq(TransactionStatus.RELEASED)))
+                .thenReturn(1);
+        when(transactionRepository.findAllForRelease(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(id -> transaction(id, "123456")).toList();
+        });
+        when(transactionRepository.updateStatusesIf(anyCollection(), eq(TransactionStatus.COMPLETED),
+                eq(TransactionStatus.RELEASED))).thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+    }
+
+    @Test
+    void testHashedPasscodeReleasesTransaction() {
+        String stored = hasher.hash("123456");
+
+        assertThat(stored).doesNotContain("123456");
+        assertThat(hasher.hash("123456")).isNotEqualTo(stored);
+        assertThat(hasher.matches("123456", stored)).isTrue();
+        assertThat(hasher.matches("123457", stored)).isFalse();
+        assertThat(new ReleasePasscodeHasher("other-secret").matches("123456", stored)).isFalse();
+        assertThrows(IllegalStateException.class, () -> new ReleasePasscodeHasher(" "));
+
+        assertThat(releasePasscodeService.verifyPasscode(1L, "123456", RECEIVER_ID, "cashier")).isTrue();
+    }
+
+    @Test
+    void testTransactionLockedOutWithoutDatabaseAccess() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(InvalidTransactionException.class,
+                    () -> releasePasscodeService.verifyPasscode(1L, "000000", RECEIVER_ID, "cashier"));
+        }
+
+        PasscodeLockedException locked = assertThrows(PasscodeLockedException.class,
+                () -> releasePasscodeService.verifyPasscode(1L, "123456", RECEIVER_ID, "cashier"));
+        assertThat(locked.getRetryAfterSeconds()).isPositive();
+        verify(transactionRepository, times(3)).findById(1L);
+
+        // Other transactions and the refused terminal's remaining allowance are unaffected
+        assertThat(releasePasscodeService.verifyPasscode(2L, "123456", RECEIVER_ID, "cashier")).isTrue();
+    }
+
+    @Test
+    void testTerminalLockedOutAcrossTransactions() {
+        for (long id = 1; id <= 5; id++) {
+            long transactionId = id;
+            assertThrows(InvalidTransactionException.class,
+                    () -> releasePasscodeService.verifyPasscode(transactionId, "000000", RECEIVER_ID, "kiosk"));
+        }
+
+        assertThrows(PasscodeLockedException.class,
+                () -> releasePasscodeService.verifyPasscode(6L, "123456", RECEIVER_ID, "kiosk"));
+        verify(transactionRepository, times(0)).findById(6L);
+
+        // Another terminal can still release the same transfer
+        assertThat(releasePasscodeService.verifyPasscode(6L, "123456", RECEIVER_ID, "cashier")).isTrue();
+    }
+
+    @Test
+    void testSuccessfulReleasesDoNotUseUpTerminalAllowance() {
+        for (long id = 1; id <= 10; id++) {
+            assertThat(releasePasscodeService.verifyPasscode(id, "123456", RECEIVER_ID, "cashier")).isTrue();
+        }
+    }
+
+    @Test
+    void testBatchReleaseReportsEachItemAndUpdatesOnce() {
+        // Transfer 3 is already locked out for this terminal's attempts
+        for (int i = 0; i < 3; i++) {
+            assertThrows(InvalidTransactionException.class,
+                    () -> releasePasscodeService.verifyPasscode(3L, "000000", RECEIVER_ID, "other"));
+        }
+
+        BatchReleaseResult result = releasePasscodeService.releaseBatch(List.of(
+                new BatchReleaseRequest.Item(1L, "123456", RECEIVER_ID),
+                new BatchReleaseRequest.Item(2L, "000000", RECEIVER_ID),
+                new BatchReleaseRequest.Item(3L, "123456", RECEIVER_ID),
+                new BatchReleaseRequest.Item(4L, "123456", 99L),
+                new BatchReleaseRequest.Item(5L, "123456", RECEIVER_ID),
+                new BatchReleaseRequest.Item(5L, "123456", RECEIVER_ID)), "cashier");
+
+        assertThat(result.getReleased()).containsExactly(1L, 5L);
+        assertThat(result.getFailed()).extracting(BatchReleaseResult.Failure::transactionId)
+                .containsExactlyInAnyOrder(2L, 3L, 4L, 5L);
+        verify(transactionRepository, times(1)).findAllForRelease(anyCollection());
+        verify(transactionRepository, times(1)).updateStatusesIf(anyCollection(), eq(TransactionStatus.COMPLETED),
+                eq(TransactionStatus.RELEASED));
+        verify(transactionRepository, never()).findById(1L);
+        // Confirmations go out on the background sender, not the request thread
+        verify(notificationService, timeout(2000).times(2))
+                .sendEmail(any(User.class), eq("Money Transfer Released"), any(String.class));
+    }
+
+    @Test
+    void testLargeValidBatchDoesNotLockTerminal() {
+        ReflectionTestUtils.setField(releasePasscodeService, "maxAttemptsPerTerminal", 20);
+        releasePasscodeService.init();
+        List<BatchReleaseRequest.Item> items = LongStream.rangeClosed(1, 50)
+                .mapToObj(id -> new BatchReleaseRequest.Item(id, "123456", RECEIVER_ID))
+                .toList();
+
+        BatchReleaseResult result = releasePasscodeService.releaseBatch(items, "cashier");
+
+        assertThat(result.getReleased()).hasSize(50);
+        assertThat(result.getFailed()).isEmpty();
+        // The terminal still has its whole allowance for single releases
+        assertThat(releasePasscodeService.verifyPasscode(51L, "123456", RECEIVER_ID, "cashier")).isTrue();
+    }
+
+    @Test
+    void testBatchOfWrongPasscodesStopsAtTerminalLimit() {
+        List<BatchReleaseRequest.Item> items = LongStream.rangeClosed(1, 10)
+                .mapToObj(id -> new BatchReleaseRequest.Item(id, "000000", RECEIVER_ID))
+                .toList();
+
+        BatchReleaseResult result = releasePasscodeService.releaseBatch(items, "kiosk");
+
+        assertThat(result.getReleased()).isEmpty();
+        assertThat(result.getFailed()).extracting(BatchReleaseResult.Failure::reason)
+                .containsExactly("Invalid release passcode", "Invalid release passcode", "Invalid release passcode",
+                        "Invalid release passcode", "Invalid release passcode",
+                        "Too many failed release attempts from this terminal",
+                        "Too many failed release attempts from this terminal",
+                        "Too many failed release attempts from this terminal",
+                        "Too many failed release attempts from this terminal",
+                        "Too many failed release attempts from this terminal");
+        // A locked terminal's next batch is refused before anything is read
+        releasePasscodeService.releaseBatch(List.of(new BatchReleaseRequest.Item(11L, "123456", RECEIVER_ID)), "kiosk");
+        verify(transactionRepository, times(1)).findAllForRelease(anyCollection());
+    }
+
+    @Test
+    void testBatchReleaseRollsBackWhenRowsChangedUnderneath() {
+        when(transactionRepository.updateStatusesIf(anyCollection(), eq(TransactionStatus.COMPLETED),
+                eq(TransactionStatus.RELEASED))).thenReturn(1);
+
+        assertThrows(InvalidTransactionException.class, () -> releasePasscodeService.releaseBatch(List.of(
+                new BatchReleaseRequest.Item(1L, "123456", RECEIVER_ID),
+                new BatchReleaseRequest.Item(2L, "123456", RECEIVER_ID)), "cashier"));
+        verify(notificationService, never()).sendEmail(any(User.class), any(String.class), any(String.class));
+    }
+
+    private Transaction transaction(Long id, String passcode) {
+        User receiver = new User();
+        receiver.setId(RECEIVER_ID);
+        Transaction transaction = new Transaction();
+        transaction.setId(id);
+        transaction.setSender(new User());
+        transaction.setReceiver(receiver);
+        transaction.setAmount(new BigDecimal("100.00"));
+        transaction.setStatus(TransactionStatus.COMPLETED);
+        transaction.setReleasePasscode(hasher.hash(passcode));
+        return transaction;
+    }
+}
@@ -0,0 +1,171 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.dto.SettlementRunResponse;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.repository.BranchRepository;
+import com.mycompany.transfersystem.repository.SettlementRunRepository;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import com.mycompany.transfersystem.util.NetSettlementPlanner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class SettlementServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private SettlementRunRepository settlementRunRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private SettlementService settlementService;
+    private Branch branchA;
+    private Branch branchB;
+    private Branch branchC;
+    private User user;
+    private Fund fund;
+
+    @BeforeEach
+    void setUp() {
+        settlementService = new SettlementService(transactionRepository, settlementRunRepository,
+                branchRepository, transactionManager);
+
+        branchA = branch("BRANCH_A");
+        branchB = branch("BRANCH_B");
+        branchC = branch("BRANCH_C");
+
+        user = new User();
+        user.setUsername("cashier");
+        user.setPassword("cashier123");
+        user.setRole(UserRole.CASHIER);
+        user = entityManager.persistAndFlush(user);
+
+        fund = new Fund();
+        fund.setName("General Fund");
+        fund.setBalance(new BigDecimal("100000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+    }
+
+    @Test
+    void testRunNetsObligationsIntoMinimalPayments() {
+        transfer(branchA, branchB, "100.00", TransactionStatus.PENDING);
+        transfer(branchB, branchC, "100.00", TransactionStatus.RELEASED);
+        transfer(branchC, branchA, "30.00", TransactionStatus.PENDING);
+        transfer(branchA, branchC, "20.00", TransactionStatus.COMPLETED);
+        // Not settled: failed, and same-branch
+        transfer(branchA, branchB, "500.00", TransactionStatus.FAILED);
+        transfer(branchA, branchA, "70.00", TransactionStatus.PENDING);
+
+        SettlementRunResponse run = settlementService.runSettlement().orElseThrow();
+
+        assertThat(run.getTransactionCount()).isEqualTo(4);
+        assertThat(run.getGrossAmount()).isEqualByComparingTo("250.00");
+        assertThat(run.getNetAmount()).isEqualByComparingTo("90.00");
+        assertThat(run.getPayments()).hasSize(1);
+        SettlementRunResponse.Payment payment = run.getPayments().get(0);
+        assertThat(payment.payerBranchName()).isEqualTo("BRANCH_A");
+        assertThat(payment.payeeBranchName()).isEqualTo("BRANCH_C");
+        assertThat(payment.amount()).isEqualByComparingTo("90.00");
+
+        // Everything eligible was claimed by the first run
+        assertThat(settlementService.runSettlement()).isEmpty();
+        assertThat(settlementService.getRun(run.getId()).getPayments()).hasSize(1);
+    }
+
+    @Test
+    void testSettledTransferThatExpiresIsPaidBack() {
+        Transaction transfer = transfer(branchA, branchB, "100.00", TransactionStatus.COMPLETED);
+        SettlementRunResponse first = settlementService.runSettlement().orElseThrow();
+        assertThat(first.getPayments().get(0).payerBranchName()).isEqualTo("BRANCH_A");
+
+        // Refunded by the expiry sweeper after BRANCH_B was already paid
+        transactionRepository.updateStatusIf(transfer.getId(), TransactionStatus.COMPLETED, TransactionStatus.EXPIRED);
+        entityManager.clear();
+        settlementService.rebuild();
+        assertThat((BigDecimal) settlementService.getPendingSettlement().get("grossAmount")).isEqualByComparingTo("100.00");
+
+        SettlementRunResponse reversal = settlementService.runSettlement().orElseThrow();
+        assertThat(reversal.getTransactionCount()).isEqualTo(1);
+        SettlementRunResponse.Payment payment = reversal.getPayments().get(0);
+        assertThat(payment.payerBranchName()).isEqualTo("BRANCH_B");
+        assertThat(payment.payeeBranchName()).isEqualTo("BRANCH_A");
+        assertThat(payment.amount()).isEqualByComparingTo("100.00");
+
+        // Paid back once
+        assertThat(settlementService.runSettlement()).isEmpty();
+    }
+
+    @Test
+    void testPlannerNeedsAtMostOnePaymentLessThanBranches() {
+        Random random = new Random(42);
+        Map<Long, Long> positions = new HashMap<>();
+        long balance = 0;
+        for (long branchId = 1; branchId < 2000; branchId++) {
+            long amount = random.nextInt(2_000_001) - 1_000_000;
+            positions.put(branchId, amount);
+            balance += amount;
+        }
+        positions.put(2000L, -balance);
+
+        List<NetSettlementPlanner.Payment> payments = NetSettlementPlanner.plan(positions);
+
+        long nonZero = positions.values().stream().filter(amount -> amount != 0).count();
+        assertThat(payments.size()).isLessThanOrEqualTo((int) nonZero - 1);
+        Map<Long, Long> settled = new HashMap<>(positions);
+        for (NetSettlementPlanner.Payment payment : payments) {
+            assertThat(payment.amount()).isPositive();
+            settled.merge(payment.payerId(), payment.amount(), Long::sum);
+            settled.merge(payment.payeeId(), -payment.amount(), Long::sum);
+        }
+        assertThat(settled.values()).allMatch(amount -> amount == 0);
+    }
+
+    private Branch branch(String name) {
+        Branch branch = new Branch();
+        branch.setName(name);
+        return entityManager.persistAndFlush(branch);
+    }
+
+    private Transaction transfer(Branch from, Branch to, String usd, TransactionStatus status) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(usd));
+        transaction.setUsdEquivalent(new BigDecimal(usd));
+        transaction.setStatus(status);
+        transaction.setSender(user);
+        transaction.setReceiver(user);
+        transaction.setFund(fund);
+        transaction.setSenderBranch(from);
+        transaction.setReceiverBranch(to);
+        return entityManager.persistAndFlush(transaction);
+    }
+}
@@ -0,0 +1,79 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class TokenVersionServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private TokenVersionService tokenVersionService;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        tokenVersionService = new TokenVersionService(userRepository);
+        user = new User();
+        user.setUsername("teller");
+        user.setPassword("secret");
+        user.setRole(UserRole.CASHIER);
+        user = entityManager.persistAndFlush(user);
+    }
+
+    @Test
+    void testUnknownUserIsLoadedOnceAndMissingUserIsRejected() {
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isTrue();
+        assertThat(tokenVersionService.isCurrent(user.getId(), 1)).isFalse();
+        assertThat(tokenVersionService.isCurrent(user.getId() + 1000, 0)).isFalse();
+    }
+
+    @Test
+    void testBumpTakesEffectOnlyOnCommit() {
+        tokenVersionService.load();
+        tokenVersionService.bump(user);
+        userRepository.save(user);
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isTrue();
+
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+        // Rolled back: tokens issued with the old version stay valid
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isTrue();
+
+        // Outside a transaction the new version applies at once
+        tokenVersionService.bump(user);
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isFalse();
+        assertThat(tokenVersionService.isCurrent(user.getId(), user.getTokenVersion())).isTrue();
+
+        tokenVersionService.forget(user.getId());
+        assertThat(tokenVersionService.isCurrent(user.getId(), user.getTokenVersion())).isFalse();
+    }
+
+    @Test
+    void testUserDeletedElsewhereIsRevokedOnSync() {
+        tokenVersionService.load();
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isTrue();
+
+        // Deleted by another instance: no row is left for the updated-since query to return
+        userRepository.delete(user);
+        entityManager.flush();
+        tokenVersionService.syncChanged();
+
+        assertThat(tokenVersionService.isCurrent(user.getId(), 0)).isFalse();
+    }
+}
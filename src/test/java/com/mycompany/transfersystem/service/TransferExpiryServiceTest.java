@@ -0,0 +1,243 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.PlatformFeeTotals;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.event.TransferExpiredEvent;
+import com.mycompany.transfersystem.repository.BranchRepository;
+import com.mycompany.transfersystem.repository.FundBalanceRepository;
+import com.mycompany.transfersystem.repository.FundRepository;
+import com.mycompany.transfersystem.repository.PlatformFeeTotalsRepository;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class TransferExpiryServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private FundRepository fundRepository;
+
+    @Autowired
+    private FundBalanceRepository fundBalanceRepository;
+
+    @Autowired
+    private BranchRepository branchRepository;
+
+    @Autowired
+    private PlatformFeeTotalsRepository platformFeeTotalsRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final TransactionService transactionService = new TransactionService();
+    private final PickupQueueService pickupQueueService = mock(PickupQueueService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private TransferExpiryService transferExpiryService;
+    private FundWalletService fundWalletService;
+    private User sender;
+    private User receiver;
+    private Fund fund;
+
+    @BeforeEach
+    void setUp() {
+        fundWalletService = new FundWalletService(fundBalanceRepository, mock(ExchangeRateService.class));
+        // The refund postings are the real reversal of executeTransfer's postings
+        ReflectionTestUtils.setField(transactionService, "branchRepository", branchRepository);
+        ReflectionTestUtils.setField(transactionService, "fundRepository", fundRepository);
+        ReflectionTestUtils.setField(transactionService, "fundWalletService", fundWalletService);
+        ReflectionTestUtils.setField(transactionService, "platformFeeTotalsRepository", platformFeeTotalsRepository);
+        transferExpiryService = new TransferExpiryService(transactionRepository, fundRepository, fundWalletService,
+                transactionService, pickupQueueService, eventPublisher, transactionManager);
+        ReflectionTestUtils.setField(transferExpiryService, "afterDays", 30L);
+
+        sender = user("sender");
+        receiver = user("receiver");
+        fund = new Fund();
+        fund.setName("General Fund");
+        fund.setBalance(new BigDecimal("1000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+    }
+
+    @Test
+    void testOverdueTransfersAreExpiredAndRefundedOnce() {
+        Transaction overdue = transfer("100.00", TransactionStatus.COMPLETED, 45);
+        Transaction recent = transfer("50.00", TransactionStatus.COMPLETED, 5);
+        Transaction released = transfer("70.00", TransactionStatus.RELEASED, 60);
+
+        assertThat(transferExpiryService.sweep()).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(status(overdue)).isEqualTo(TransactionStatus.EXPIRED);
+        assertThat(status(recent)).isEqualTo(TransactionStatus.COMPLETED);
+        assertThat(status(released)).isEqualTo(TransactionStatus.RELEASED);
+        assertThat(fundWalletService.getBalance(fundRepository.findById(fund.getId()).orElseThrow(), "USD"))
+                .isEqualByComparingTo("1100.00");
+        verify(eventPublisher).publishEvent(any(TransferExpiredEvent.class));
+        verify(pickupQueueService).transferClosed(null, overdue.getId());
+
+        // Nothing left to do: a rerun (or a run after a crash) does not refund again
+        assertThat(transferExpiryService.sweep()).isZero();
+        assertThat(fundWalletService.getBalance(fundRepository.findById(fund.getId()).orElseThrow(), "USD"))
+                .isEqualByComparingTo("1100.00");
+        // A release that loses the race to the sweeper changes nothing
+        assertThat(transactionRepository.updateStatusIf(overdue.getId(), TransactionStatus.COMPLETED,
+                TransactionStatus.RELEASED)).isZero();
+    }
+
+    @Test
+    void testExecutedTransferIsReversedAcrossAllFunds() {
+        Branch senderBranch = branch("Branch A");
+        Branch receiverBranch = branch("Branch B");
+        Fund platformFund = branchFund(branch("MAIN_ADMIN_BRANCH"));
+        Fund senderBranchFund = branchFund(senderBranch);
+        Fund receiverBranchFund = branchFund(receiverBranch);
+        PlatformFeeTotals totals = new PlatformFeeTotals(PlatformFeeTotals.PLATFORM_ID);
+        totals.setTotalBaseFees(new BigDecimal("10.00"));
+        totals.setTotalExchangeProfit(new BigDecimal("4.00"));
+        totals.setTransactionCount(3);
+        entityManager.persistAndFlush(totals);
+
+        // 3500 TRY worth 100 USD, with 5 USD of fees of which 1.50 + 0.50 went to the platform
+        Transaction executed = new Transaction();
+        executed.setSender(sender);
+        executed.setReceiver(receiver);
+        executed.setFund(fund);
+        executed.setSenderBranch(senderBranch);
+        executed.setReceiverBranch(receiverBranch);
+        executed.setAmount(new BigDecimal("3500.00"));
+        executed.setSourceCurrency("TRY");
+        executed.setDestinationCurrency("USD");
+        executed.setUsdEquivalent(new BigDecimal("100.00"));
+        executed.setTotalFee(new BigDecimal("5.00"));
+        executed.setPlatformBaseFee(new BigDecimal("1.50"));
+        executed.setPlatformExchangeProfit(new BigDecimal("0.50"));
+        executed = backdate(executed, TransactionStatus.COMPLETED, 45);
+
+        assertThat(transferExpiryService.sweep()).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(balance(fund, "TRY")).isEqualByComparingTo("3500.00");
+        assertThat(balance(fund, "USD")).isEqualByComparingTo("1005.00");
+        assertThat(balance(senderBranchFund, "USD")).isEqualByComparingTo("105.00");
+        assertThat(balance(platformFund, "USD")).isEqualByComparingTo("-2.00");
+        assertThat(balance(receiverBranchFund, "USD")).isEqualByComparingTo("-100.00");
+        PlatformFeeTotals reversed = platformFeeTotalsRepository.findById(PlatformFeeTotals.PLATFORM_ID).orElseThrow();
+        assertThat(reversed.getTotalBaseFees()).isEqualByComparingTo("8.50");
+        assertThat(reversed.getTotalExchangeProfit()).isEqualByComparingTo("3.50");
+        assertThat(reversed.getTransactionCount()).isEqualTo(2);
+        verify(pickupQueueService).transferClosed(receiverBranch.getId(), executed.getId());
+    }
+
+    @Test
+    void testSweepWalksOverdueRowsInBatches() {
+        for (int i = 0; i < 5; i++) {
+            transfer("10.00", TransactionStatus.COMPLETED, 40 + i);
+        }
+        ReflectionTestUtils.setField(transferExpiryService, "batchSize", 2);
+
+        assertThat(transferExpiryService.sweep()).isEqualTo(5);
+
+        Map<String, Object> stats = transferExpiryService.getStats();
+        assertThat(stats.get("expiredTotal")).isEqualTo(5L);
+        assertThat(stats.get("batchesTotal")).isEqualTo(3L);
+        assertThat(stats.get("lastRunExpired")).isEqualTo(5);
+        assertThat(stats.get("lagSeconds")).isEqualTo(0L);
+        verify(eventPublisher, times(5)).publishEvent(any(TransferExpiredEvent.class));
+    }
+
+    @Test
+    void testLagReportsOverdueTransfersLeftBehind() {
+        transfer("10.00", TransactionStatus.COMPLETED, 40);
+        transfer("10.00", TransactionStatus.COMPLETED, 41);
+        ReflectionTestUtils.setField(transferExpiryService, "batchSize", 1);
+        ReflectionTestUtils.setField(transferExpiryService, "maxBatchesPerRun", 1);
+
+        assertThat(transferExpiryService.sweep()).isEqualTo(1);
+        // The newer overdue transfer waits for the next run, about ten days past its expiry
+        assertThat((Long) transferExpiryService.getStats().get("lagSeconds")).isGreaterThan(9 * 86_400L);
+    }
+
+    private TransactionStatus status(Transaction transaction) {
+        return transactionRepository.findById(transaction.getId()).orElseThrow().getStatus();
+    }
+
+    private BigDecimal balance(Fund wallet, String currency) {
+        return fundWalletService.getBalance(fundRepository.findById(wallet.getId()).orElseThrow(), currency);
+    }
+
+    private Transaction transfer(String amount, TransactionStatus status, int daysAgo) {
+        Transaction transaction = new Transaction();
+        transaction.setSender(sender);
+        transaction.setReceiver(receiver);
+        transaction.setFund(fund);
+        transaction.setAmount(new BigDecimal(amount));
+        return backdate(transaction, status, daysAgo);
+    }
+
+    private Transaction backdate(Transaction transaction, TransactionStatus status, int daysAgo) {
+        transaction.setStatus(status);
+        transaction = entityManager.persistAndFlush(transaction);
+        // created_at is set on insert; move it back in time
+        entityManager.getEntityManager()
+                .createQuery("UPDATE Transaction t SET t.createdAt = :createdAt WHERE t.id = :id")
+                .setParameter("createdAt", LocalDateTime.now().minusDays(daysAgo))
+                .setParameter("id", transaction.getId())
+                .executeUpdate();
+        entityManager.clear();
+        return transaction;
+    }
+
+    private Branch branch(String name) {
+        Branch branch = new Branch();
+        branch.setName(name);
+        return entityManager.persistAndFlush(branch);
+    }
+
+    private Fund branchFund(Branch branch) {
+        Fund branchFund = new Fund();
+        branchFund.setName(branch.getName() + " Fund");
+        branchFund.setBranch(branch);
+        branchFund.setBalance(BigDecimal.ZERO);
+        branchFund.setStatus(FundStatus.ACTIVE);
+        return entityManager.persistAndFlush(branchFund);
+    }
+
+    private User user(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRole(UserRole.CASHIER);
+        return entityManager.persistAndFlush(user);
+    }
+}
@@ -0,0 +1,159 @@
+package com.mycompany.transfersystem.service;
+
+import com.mycompany.transfersystem.config.TransferLimitProperties;
+import com.mycompany.transfersystem.entity.Branch;
+import com.mycompany.transfersystem.entity.Fund;
+import com.mycompany.transfersystem.entity.Transaction;
+import com.mycompany.transfersystem.entity.User;
+import com.mycompany.transfersystem.entity.enums.FundStatus;
+import com.mycompany.transfersystem.entity.enums.TransactionStatus;
+import com.mycompany.transfersystem.entity.enums.UserRole;
+import com.mycompany.transfersystem.exception.TransferLimitExceededException;
+import com.mycompany.transfersystem.repository.TransactionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest
+@ActiveProfiles("test")
+public class TransferLimitServiceTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    private TransferLimitProperties properties;
+    private TransferLimitService transferLimitService;
+    private Branch branch;
+    private User cashier;
+    private User manager;
+    private User customer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransferLimitProperties();
+        properties.setEnabled(true);
+        properties.getSender().getDefaults().setMaxCountPerHour(2L);
+        TransferLimitProperties.Limits cashierLimits = new TransferLimitProperties.Limits();
+        cashierLimits.setMaxCountPerHour(3L);
+        properties.getSender().getRoles().put(UserRole.CASHIER, cashierLimits);
+        properties.getSender().getDefaults().setMaxAmountPerDay(new BigDecimal("1000.00"));
+        properties.getReceiver().getDefaults().setMaxAmountPerHour(new BigDecimal("600.00"));
+        TransferLimitProperties.Limits tlCorridor = new TransferLimitProperties.Limits();
+        tlCorridor.setMaxAmountPerDay(new BigDecimal("150.00"));
+        properties.getCorridors().put("tl-usd", tlCorridor);
+        transferLimitService = new TransferLimitService(transactionRepository, properties);
+        transferLimitService.rebuild();
+
+        branch = new Branch();
+        branch.setName("BRANCH_A");
+        branch = entityManager.persistAndFlush(branch);
+        cashier = user("cashier", UserRole.CASHIER);
+        manager = user("manager", UserRole.BRANCH_MANAGER);
+        customer = user("customer", UserRole.CASHIER);
+    }
+
+    @Test
+    void testRoleLimitsFallBackToDefaultsAndSlide() {
+        long now = System.currentTimeMillis();
+        // Cashiers may send three per hour; the daily amount comes from the defaults
+        for (int i = 0; i < 3; i++) {
+            transferLimitService.reserve(cashier, customer, branch, "USD-USD", new BigDecimal("100.00"), now + i);
+        }
+        TransferLimitExceededException e = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(cashier, customer, branch, "USD-USD", BigDecimal.ONE, now + 10));
+        assertThat(e.getMessage()).contains("Sender hourly transfer count limit of 3");
+
+        // An hour later the first transfers have left the window, the day total has not
+        long later = now + 61 * MINUTE;
+        transferLimitService.reserve(cashier, customer, branch, "USD-USD", new BigDecimal("600.00"), later);
+        e = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(cashier, manager, branch, "USD-USD", new BigDecimal("100.01"), later));
+        assertThat(e.getMessage()).contains("Sender daily transfer amount limit of 1000.00");
+
+        // Other roles get the default two per hour
+        transferLimitService.reserve(manager, cashier, branch, "USD-USD", BigDecimal.TEN, now);
+        transferLimitService.reserve(manager, cashier, branch, "USD-USD", BigDecimal.TEN, now);
+        assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(manager, cashier, branch, "USD-USD", BigDecimal.TEN, now));
+    }
+
+    @Test
+    void testRejectedTransferReservesNothingAndCorridorCaps() {
+        long now = System.currentTimeMillis();
+        transferLimitService.reserve(manager, customer, branch, "EUR-USD", new BigDecimal("550.00"), now);
+
+        // Passes the sender limits but not the receiver's hourly amount: the sender keeps its old usage
+        assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(cashier, customer, branch, "EUR-USD", new BigDecimal("60.00"), now));
+        assertThat(transferLimitService.getSenderUsage(cashier.getId()).get("countLastHour")).isEqualTo(0L);
+
+        // TL-USD caps both parties at 150 a day, whatever their own limits
+        transferLimitService.reserve(cashier, manager, branch, "TL-USD", new BigDecimal("100.00"), now);
+        TransferLimitExceededException e = assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(cashier, manager, branch, "TL-USD", new BigDecimal("50.01"), now));
+        assertThat(e.getMessage()).contains("daily transfer amount limit of 150.00");
+        assertDoesNotThrow(() -> transferLimitService.reserve(cashier, manager, branch, "EUR-USD", new BigDecimal("50.01"), now));
+    }
+
+    @Test
+    void testRebuildLoadsLastDayOfTransfers() {
+        Fund fund = new Fund();
+        fund.setName("General Fund");
+        fund.setBalance(new BigDecimal("1000.00"));
+        fund.setStatus(FundStatus.ACTIVE);
+        fund = entityManager.persistAndFlush(fund);
+
+        transfer(fund, "400.00", TransactionStatus.COMPLETED, LocalDateTime.now().minusMinutes(30));
+        transfer(fund, "500.00", TransactionStatus.RELEASED, LocalDateTime.now().minusHours(5));
+        // Neither counts: failed, and older than a day
+        transfer(fund, "900.00", TransactionStatus.FAILED, LocalDateTime.now().minusMinutes(10));
+        transfer(fund, "900.00", TransactionStatus.RELEASED, LocalDateTime.now().minusDays(2));
+
+        transferLimitService.rebuild();
+
+        assertThat(transferLimitService.getSenderUsage(manager.getId()).get("countLastHour")).isEqualTo(1L);
+        assertThat(transferLimitService.getSenderUsage(manager.getId()).get("amountLastDay")).isEqualTo(new BigDecimal("900.00"));
+        assertThrows(TransferLimitExceededException.class,
+                () -> transferLimitService.reserve(manager, cashier, branch, "USD-USD", new BigDecimal("100.01")));
+        transferLimitService.reserve(manager, cashier, branch, "USD-USD", new BigDecimal("100.00"));
+    }
+
+    private User user(String username, UserRole role) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("secret");
+        user.setRole(role);
+        return entityManager.persistAndFlush(user);
+    }
+
+    private void transfer(Fund fund, String usd, TransactionStatus status, LocalDateTime createdAt) {
+        Transaction transaction = new Transaction();
+        transaction.setAmount(new BigDecimal(usd));
+        transaction.setUsdEquivalent(new BigDecimal(usd));
+        transaction.setStatus(status);
+        transaction.setSender(manager);
+        transaction.setReceiver(customer);
+        transaction.setFund(fund);
+        transaction.setSenderBranch(branch);
+        transaction.setReceiverBranch(branch);
+        transaction = entityManager.persistAndFlush(transaction);
+        // created_at is set on persist; move it back afterwards
+        entityManager.getEntityManager().createQuery("UPDATE Transaction t SET t.createdAt = :at WHERE t.id = :id")
+                .setParameter("at", createdAt).setParameter("id", transaction.getId()).executeUpdate();
+    }
+}
@@ -0,0 +1,96 @@
+package com.mycompany.transfersystem.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingSketchTest {
+
+    @Test
+    void testQuantilesWithinRelativeAccuracy() {
+        Random random = new Random(42);
+        QuantileSketch sketch = new QuantileSketch();
+        double[] values = new double[20_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, like transfer amounts: mostly hundreds, long tail into the tens of thousands
+            values[i] = Math.exp(5 + 1.5 * random.nextGaussian());
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[]{0.5, 0.95, 0.99}) {
+            double exact = values[(int) (q * (values.length - 1))];
+            double estimate = sketch.quantile(q);
+            assertEquals(exact, estimate, exact * 0.011, "q=" + q);
+        }
+        assertEquals(values[0], sketch.getMin());
+        assertEquals(values[values.length - 1], sketch.getMax());
+        assertTrue(sketch.getBucketBytes() <= 8 * 1024);
+    }
+
+    @Test
+    void testMergedSketchMatchesSingleSketch() {
+        QuantileSketch left = new QuantileSketch();
+        QuantileSketch right = new QuantileSketch();
+        QuantileSketch all = new QuantileSketch();
+        for (int i = 1; i <= 10_000; i++) {
+            (i % 2 == 0 ? left : right).add(i);
+            all.add(i);
+        }
+        left.merge(right);
+
+        assertEquals(all.getCount(), left.getCount());
+        assertEquals(all.quantile(0.5), left.quantile(0.5));
+        assertEquals(all.quantile(0.99), left.quantile(0.99));
+    }
+
+    @Test
+    void testBucketLimitCollapsesLowestValues() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 64);
+        for (double v = 0.01; v < 1e7; v *= 1.5) {
+            sketch.add(v);
+        }
+
+        assertTrue(sketch.getBucketBytes() <= 64 * Long.BYTES);
+        assertEquals(sketch.getMax(), sketch.quantile(1.0), sketch.getMax() * 0.01);
+    }
+
+    @Test
+    void testEmptySketch() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertEquals(0, sketch.getCount());
+    }
+
+    @Test
+    void testDistinctCountWithinError() {
+        HyperLogLog hll = new HyperLogLog();
+        for (long id = 1; id <= 50_000; id++) {
+            hll.add(id);
+            hll.add(id); // duplicates do not count
+        }
+
+        assertEquals(50_000, hll.estimate(), 50_000 * 0.05);
+        assertEquals(2048, hll.getRegisterBytes());
+    }
+
+    @Test
+    void testDistinctCountSmallCardinalityAndMerge() {
+        HyperLogLog a = new HyperLogLog();
+        HyperLogLog b = new HyperLogLog();
+        for (long id = 1; id <= 300; id++) {
+            a.add(id);
+        }
+        for (long id = 201; id <= 500; id++) {
+            b.add(id);
+        }
+
+        assertEquals(300, a.estimate(), 6);
+        a.merge(b);
+        assertEquals(500, a.estimate(), 10);
+    }
+}